@@ -0,0 +1,160 @@
+package haskell;
+
+import haskell.ast.*;
+import haskell.reduction.ComplexHaskellCopier;
+import haskell.reduction.ComplexToSimpleReducer;
+import haskell.reduction.SimpleToLambdaReducer;
+import lambda.ast.ASTApplication;
+import lambda.ast.ASTConstant;
+import lambda.ast.ASTTerm;
+import lambda.optimizer.LambdaOptimizer;
+import lambda.reduction.delta.TupleReduction;
+import lambda.type.TypeChecker;
+import lambda.type.TypeException;
+
+import java.util.*;
+
+/**
+ * A program whose declarations are translated to lambda terms once, so that many expressions can be evaluated with it.
+ * Since let expressions are translated by substitution, every declared variable stands for a closed lambda term, which
+ * replaces the variable in the translation of an expression. The type of each closed term is checked once as well.
+ * A compiled program never changes, so it can be used by several threads at once.
+ */
+public class CompiledProgram {
+    private final long version;
+    private final Map<lambda.ast.ASTVariable, ASTTerm> definitions;
+    private final Map<lambda.ast.ASTVariable, ASTType> types;
+    // the type errors of the ill-typed definitions, which are only reported if an expression uses them
+    private final Map<lambda.ast.ASTVariable, TypeException> typeErrors;
+
+    private CompiledProgram(long version, Map<lambda.ast.ASTVariable, ASTTerm> definitions,
+                            Map<lambda.ast.ASTVariable, ASTType> types,
+                            Map<lambda.ast.ASTVariable, TypeException> typeErrors) {
+        this.version = version;
+        this.definitions = definitions;
+        this.types = types;
+        this.typeErrors = typeErrors;
+    }
+
+    /**
+     * Compiles the function and pattern declarations of a program.
+     * @param functionDeclarations the declarations, which are not changed
+     * @param typeChecker the type checker which knows the data declarations of the program
+     * @param version the version of the program
+     * @return the compiled program
+     */
+    static CompiledProgram compile(List<ASTDecl> functionDeclarations, TypeChecker typeChecker, long version) {
+        Map<lambda.ast.ASTVariable, ASTTerm> definitions = new HashMap<>();
+        Map<lambda.ast.ASTVariable, ASTType> types = new HashMap<>();
+        Map<lambda.ast.ASTVariable, TypeException> typeErrors = new HashMap<>();
+
+        // the variables declared by the program
+        Set<ASTVariable> declared = new LinkedHashSet<>();
+        for (ASTDecl decl : functionDeclarations) {
+            if (decl instanceof ASTFunDecl) {
+                declared.add(((ASTFunDecl) decl).getVar());
+            }
+            else if (decl instanceof ASTPatDecl) {
+                declared.addAll(((ASTPatDecl) decl).getPat().getAllVariables());
+            }
+        }
+        if (declared.isEmpty()) {
+            return new CompiledProgram(version, definitions, types, typeErrors);
+        }
+
+        // all closed terms are translated at once: let prog in (var1, ..., varn)
+        List<ASTExpression> vars = new ArrayList<>(declared);
+        ASTExpression letProgInVars = new ASTLet(functionDeclarations, new ASTExpTuple(vars));
+        ASTExpression simpleExpr = new ComplexToSimpleReducer().reduceToSimple(
+                new ComplexHaskellCopier().copy(letProgInVars));
+        ASTTerm tuple = simpleExpr.accept(new SimpleToLambdaReducer());
+
+        // the tuple is usually translated to (...((tuple_n term1) term2) ... termn), a single variable to its term
+        List<ASTTerm> terms = new ArrayList<>();
+        if (vars.size() == 1) {
+            terms.add(tuple);
+        }
+        else {
+            ASTTerm head = tuple;
+            while (head instanceof ASTApplication && terms.size() < vars.size()) {
+                terms.add(((ASTApplication) head).getRight());
+                head = ((ASTApplication) head).getLeft();
+            }
+            Collections.reverse(terms);
+
+            // if the program binds a tuple pattern, e.g. of entangled functions, the tuple is built inside a pattern
+            // match, so every variable selects its component of the whole term instead
+            boolean isTuple = head instanceof ASTConstant &&
+                    ((ASTConstant) head).getValue() instanceof TupleReduction.TupleConstant;
+            if (!isTuple || terms.size() != vars.size()) {
+                terms.clear();
+                for (int i = 1; i <= vars.size(); i++) {
+                    terms.add(new ASTApplication(new ASTConstant(TupleReduction.getSelOperator(vars.size(), i)),
+                            tuple));
+                }
+            }
+        }
+
+        LambdaOptimizer optimizer = new LambdaOptimizer();
+        for (int i = 0; i < vars.size(); i++) {
+            lambda.ast.ASTVariable var = new lambda.ast.ASTVariable(((ASTVariable) vars.get(i)).getName());
+            ASTTerm term = terms.get(i);
+            try {
+                types.put(var, typeChecker.checkDefinitionType(term));
+            }
+            catch (TypeException e) {
+                typeErrors.put(var, e);
+            }
+            definitions.put(var, optimizer.optimize(term));
+        }
+        return new CompiledProgram(version, definitions, types, typeErrors);
+    }
+
+    /**
+     * Returns the version of the program which was compiled.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of declared variables.
+     * @return the number of definitions
+     */
+    public int size() {
+        return definitions.size();
+    }
+
+    /**
+     * Checks the type of the translation of an expression, whose free variables may be declared by the program.
+     * @param term the lambda term of the expression
+     * @param typeChecker the type checker which knows the data declarations of the program
+     * @return the type of the expression
+     * @throws TypeException if the expression or a definition which it uses is incorrectly typed
+     */
+    ASTType checkType(ASTTerm term, TypeChecker typeChecker) throws TypeException {
+        for (lambda.ast.ASTVariable var : term.getFreeVars()) {
+            TypeException error = typeErrors.get(var);
+            if (error != null) {
+                throw error;
+            }
+        }
+        return typeChecker.checkType(term, types);
+    }
+
+    /**
+     * Replaces the free variables of a term which are declared by the program by their closed terms.
+     * @param term the lambda term of an expression
+     * @return the lambda term with the definitions
+     */
+    ASTTerm link(ASTTerm term) {
+        for (lambda.ast.ASTVariable var : term.getFreeVars()) {
+            ASTTerm definition = definitions.get(var);
+            if (definition != null) {
+                // the definition is closed, so it does not contain other free variables which have to be replaced
+                term = term.substitute(var, definition);
+            }
+        }
+        return term;
+    }
+}
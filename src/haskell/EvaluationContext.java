@@ -0,0 +1,116 @@
+package haskell;
+
+import haskell.ast.ASTExpression;
+import haskell.ast.ASTType;
+import haskell.reduction.ComplexHaskellCopier;
+import haskell.reduction.ComplexToSimpleReducer;
+import haskell.reduction.SimpleToLambdaReducer;
+import lambda.ast.ASTTerm;
+import lambda.optimizer.LambdaOptimizer;
+import lambda.reduction.EvaluationBudget;
+import lambda.reduction.LambdaReducer;
+import lambda.type.TypeChecker;
+import lambda.type.TypeException;
+
+/**
+ * The state of the evaluations of one thread: the reducers of the pipeline, in particular the lambda reducer with the
+ * results it remembers. A context is used by one evaluation at a time, the interpreter keeps the idle contexts for
+ * later evaluations of the same program. The program itself is compiled only once for all contexts.
+ */
+public class EvaluationContext {
+    private final long programVersion;
+    private final ComplexHaskellCopier copier;
+    private final ComplexToSimpleReducer complexToSimpleReducer;
+    private final SimpleToLambdaReducer simpleToLambdaReducer;
+    private final LambdaOptimizer optimizer;
+    private final LambdaReducer reducer;
+
+    /**
+     * Creates a context for the given version of the program.
+     * @param programVersion the version of the program
+     * @param reducer the lambda reducer, which must not be used by any other context
+     */
+    EvaluationContext(long programVersion, LambdaReducer reducer) {
+        assert(reducer != null);
+        this.programVersion = programVersion;
+        this.copier = new ComplexHaskellCopier();
+        this.complexToSimpleReducer = new ComplexToSimpleReducer();
+        this.simpleToLambdaReducer = new SimpleToLambdaReducer();
+        this.optimizer = new LambdaOptimizer();
+        this.reducer = reducer;
+    }
+
+    /**
+     * Returns the version of the program whose results the reducer remembers.
+     */
+    long getProgramVersion() {
+        return programVersion;
+    }
+
+    public LambdaReducer getReducer() {
+        return reducer;
+    }
+
+    /**
+     * Evaluates a complex haskell expression with a compiled program to a non-reducible lambda term. The expression is
+     * not changed, so it can be evaluated by several threads at once.
+     * @param program the compiled program
+     * @param expression a complex haskell expression
+     * @param typeChecker the type checker which knows the data declarations of the program
+     * @param budget the limits of the reduction
+     * @return a non-reducible lambda term
+     */
+    ASTTerm evaluate(CompiledProgram program, ASTExpression expression, TypeChecker typeChecker,
+                     EvaluationBudget budget, boolean verbose) throws TypeException {
+        if (verbose) {
+            System.out.println("\n-- The following expression will be evaluated: ");
+            System.out.println(expression);
+            System.out.println("\n-- In simple haskell, the expression looks like this: ");
+        }
+
+        // 1. reduce complex haskell expression to simple haskell expression, which is done in-place on a copy
+        ASTExpression simpleExpr = complexToSimpleReducer.reduceToSimple(copier.copy(expression));
+        if (verbose) {
+            System.out.println(simpleExpr);
+            System.out.println("\n-- The corresponding lambda term looks like this: ");
+        }
+
+        // 2. reduce simple haskell expression to lambda expression
+        ASTTerm lambdaTerm = simpleExpr.accept(simpleToLambdaReducer);
+        if (verbose) {
+            System.out.println(lambdaTerm);
+            System.out.println("\n-- The type of the expression is: ");
+        }
+
+        // 3. do a static type check, the declarations of the program have been checked by the compilation
+        ASTType type = program.checkType(lambdaTerm, typeChecker);
+        // the type checker will throw an exception if something's wrong
+        // so at this point we know that the expression is typed correctly
+        if (verbose) {
+            System.out.println(type);
+            System.out.println("\n-- The optimized lambda term looks like this: ");
+        }
+
+        // 4. remove the administrative redexes of the translation, the definitions of the program have already been
+        // optimized by the compilation, so only the expression itself is optimized before they are linked
+        lambdaTerm = optimizer.optimize(lambdaTerm);
+
+        // the variables of the program are replaced by their lambda terms
+        lambdaTerm = program.link(lambdaTerm);
+        if (verbose) {
+            System.out.println(lambdaTerm);
+            System.out.println(optimizer);
+            System.out.println("\n-- The following reduction steps were applied: ");
+        }
+
+        // 5. reduce lambda expression to WHNF
+        reducer.setBudget(budget);
+        ASTTerm result = reducer.reduceToWHNF(lambdaTerm, verbose);
+        if (verbose) {
+            System.out.println("\n-- The final result is: ");
+            System.out.println(result);
+        }
+
+        return result;
+    }
+}
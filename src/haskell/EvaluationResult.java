@@ -0,0 +1,50 @@
+package haskell;
+
+import haskell.ast.ASTExpression;
+import lambda.ast.ASTTerm;
+
+import java.util.Optional;
+
+/**
+ * The result of one expression of a batch evaluation, which is either a non-reducible lambda term or the error of the
+ * evaluation, e.g. a {@link lambda.type.TypeException} or a {@link lambda.reduction.BudgetExceededException}.
+ */
+public final class EvaluationResult {
+    private final int index;
+    private final ASTExpression expression;
+    private final ASTTerm result;
+    private final Throwable error;
+
+    EvaluationResult(int index, ASTExpression expression, ASTTerm result, Throwable error) {
+        assert((result == null) != (error == null));
+        this.index = index;
+        this.expression = expression;
+        this.result = result;
+        this.error = error;
+    }
+
+    /**
+     * Returns the position of the expression in the batch.
+     * @return the index of the expression
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public ASTExpression getExpression() {
+        return expression;
+    }
+
+    public Optional<ASTTerm> getResult() {
+        return Optional.ofNullable(result);
+    }
+
+    public Optional<Throwable> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    @Override
+    public String toString() {
+        return expression + " = " + (result != null ? result : "Error: " + error.getMessage());
+    }
+}
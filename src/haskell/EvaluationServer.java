@@ -0,0 +1,336 @@
+package haskell;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import haskell.ast.ASTExpression;
+import haskell.ast.ASTProgram;
+import haskell.parser.ASTGenerator;
+import lambda.ast.ASTTerm;
+import lambda.reduction.BudgetExceededException;
+import lambda.reduction.EvaluationBudget;
+import lambda.type.TypeException;
+import org.antlr.v4.runtime.ANTLRFileStream;
+import org.antlr.v4.runtime.ANTLRInputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An HTTP server on localhost which evaluates expressions with a program that is loaded only once.
+ * An expression is evaluated by posting it to /evaluate, the response contains the result as text. The query
+ * parameters steps, timeout (in milliseconds) and size lower the limits of the evaluation below the ones of the server.
+ * Every request is handled in a thread of its own, which is a virtual thread if the JVM supports them. At most a given
+ * number of expressions are evaluated at once, further requests wait in a queue of limited capacity, and the requests
+ * beyond it are rejected with 429 (Too Many Requests) right away.
+ */
+public class EvaluationServer {
+    public static final String EVALUATE_PATH = "/evaluate";
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+    private final HaskellInterpreter interpreter;
+    private final ASTGenerator astGenerator;
+    private final EvaluationBudget maxBudget;
+    private final int maxRequests;
+    // the permits of the requests which are evaluated or queued
+    private final Semaphore admissions;
+    // the permits of the requests which are evaluated
+    private final Semaphore evaluations;
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    /**
+     * Creates a server which evaluates expressions with the program of the interpreter. The server does not run until
+     * it is started.
+     * @param interpreter the interpreter with the loaded program
+     * @param port the port on localhost, or 0 for any free port
+     * @param concurrency the maximum number of expressions which are evaluated at once
+     * @param queueCapacity the maximum number of requests which wait for their evaluation
+     * @param maxBudget the limits of every evaluation
+     */
+    public EvaluationServer(HaskellInterpreter interpreter, int port, int concurrency, int queueCapacity,
+                            EvaluationBudget maxBudget) throws IOException {
+        assert(interpreter != null && maxBudget != null);
+        assert(concurrency > 0 && queueCapacity >= 0);
+        this.interpreter = interpreter;
+        this.astGenerator = new ASTGenerator();
+        this.maxBudget = maxBudget;
+        this.maxRequests = concurrency + queueCapacity;
+        this.admissions = new Semaphore(maxRequests);
+        this.evaluations = new Semaphore(concurrency, true);
+        this.executor = newThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext(EVALUATE_PATH, this::handleEvaluate);
+        this.server.setExecutor(executor);
+    }
+
+    /**
+     * Returns an executor which runs every task in a new virtual thread. Virtual threads exist since Java 21, on older
+     * JVMs the executor uses a cached pool of platform threads instead.
+     */
+    static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server and interrupts the evaluations which are still running.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of requests which are evaluated or wait for their evaluation.
+     * @return the number of requests
+     */
+    public int getNumberOfRequests() {
+        return maxRequests - admissions.availablePermits();
+    }
+
+    private void handleEvaluate(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "Error: Expressions must be posted.");
+                return;
+            }
+
+            EvaluationBudget budget;
+            try {
+                budget = getBudget(exchange.getRequestURI().getRawQuery());
+            }
+            catch (IllegalArgumentException e) {
+                respond(exchange, 400, "Error: " + e.getMessage());
+                return;
+            }
+
+            // requests beyond the capacity of the queue are rejected instead of slowing down the others
+            if (!admissions.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 429, "Error: The server is busy.");
+                return;
+            }
+            Response response;
+            try {
+                response = evaluate(exchange, budget);
+            }
+            finally {
+                // the permits are released before the response, so that a client may send its next request right away
+                admissions.release();
+            }
+            respond(exchange, response.status, response.message);
+        }
+        catch (RuntimeException e) {
+            respond(exchange, 500, "Unexpected error: " + e.getMessage());
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    private Response evaluate(HttpExchange exchange, EvaluationBudget budget) throws IOException {
+        String code = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Optional<ASTExpression> expression = astGenerator.parseExpression(new ANTLRInputStream(code));
+        if (!expression.isPresent()) {
+            return new Response(400, "Syntax error.");
+        }
+
+        try {
+            evaluations.acquire();
+        }
+        catch (InterruptedException e) {
+            // the server is stopped
+            Thread.currentThread().interrupt();
+            return new Response(503, "Error: The server is stopped.");
+        }
+        try {
+            ASTTerm result = interpreter.evaluate(expression.get(), budget, false);
+            return new Response(200, result.toString());
+        }
+        catch (TypeException e) {
+            return new Response(422, "Error: The expression was incorrectly typed.");
+        }
+        catch (BudgetExceededException e) {
+            return new Response(422, "Error: " + e.getMessage());
+        }
+        catch (RuntimeException e) {
+            // the evaluation of the expression failed, e.g. by a division by zero
+            return new Response(422, "Error: " + e.getMessage());
+        }
+        catch (StackOverflowError e) {
+            return new Response(422, "Error: The evaluation is nested too deeply.");
+        }
+        catch (Throwable e) {
+            // e.g. an OutOfMemoryError, the request is still answered and the server goes on with the next ones
+            return new Response(500, "Unexpected error: " + e);
+        }
+        finally {
+            evaluations.release();
+        }
+    }
+
+    /**
+     * Returns the budget of a request, whose limits are at most the ones of the server.
+     * @param query the raw query of the request, e.g. steps=1000&timeout=50
+     * @throws IllegalArgumentException if the query contains an unknown parameter or an invalid number
+     */
+    private EvaluationBudget getBudget(String query) {
+        long maxSteps = maxBudget.getMaxSteps();
+        long timeoutMillis = maxBudget.getTimeoutMillis();
+        int maxTermSize = maxBudget.getMaxTermSize();
+        if (query == null || query.isEmpty()) {
+            return maxBudget;
+        }
+
+        for (String parameter : query.split("&")) {
+            String[] keyValue = parameter.split("=", 2);
+            long value;
+            try {
+                value = Long.parseLong(keyValue.length == 2 ? keyValue[1] : "");
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The parameter " + keyValue[0] + " needs a number.");
+            }
+            if (value < 0) {
+                throw new IllegalArgumentException("The parameter " + keyValue[0] + " must not be negative.");
+            }
+
+            switch (keyValue[0]) {
+                case "steps":
+                    maxSteps = Math.min(maxSteps, value);
+                    break;
+                case "timeout":
+                    timeoutMillis = Math.min(timeoutMillis, value);
+                    break;
+                case "size":
+                    maxTermSize = (int) Math.min(maxTermSize, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown parameter " + keyValue[0] + ".");
+            }
+        }
+        return new EvaluationBudget(maxSteps, timeoutMillis, maxTermSize);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * The status and the body of a response.
+     */
+    private static class Response {
+        private final int status;
+        private final String message;
+
+        private Response(int status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: EvaluationServer [--port <port>] [--concurrency <n>] [--queue <n>] " +
+                "[--steps <n>] [--timeout <ms>] [--size <n>] <program file>");
+    }
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        long maxSteps = Long.MAX_VALUE;
+        long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+        int maxTermSize = Integer.MAX_VALUE;
+        String fileName = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (!args[i].startsWith("--")) {
+                    fileName = args[i];
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException();
+                }
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--concurrency":
+                        concurrency = Integer.parseInt(args[++i]);
+                        break;
+                    case "--queue":
+                        queueCapacity = Integer.parseInt(args[++i]);
+                        break;
+                    case "--steps":
+                        maxSteps = Long.parseLong(args[++i]);
+                        break;
+                    case "--timeout":
+                        timeoutMillis = Long.parseLong(args[++i]);
+                        break;
+                    case "--size":
+                        maxTermSize = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException();
+                }
+            }
+        }
+        catch (IllegalArgumentException e) {
+            printUsage();
+            return;
+        }
+        if (fileName == null || concurrency <= 0 || queueCapacity < 0) {
+            printUsage();
+            return;
+        }
+
+        // load the program once for all requests
+        HaskellInterpreter interpreter = new HaskellInterpreter();
+        try {
+            Optional<ASTProgram> program = new ASTGenerator().parseProgram(new ANTLRFileStream(fileName));
+            if (!program.isPresent()) {
+                System.out.println("Error: The file did not contain a syntactically correct program.");
+                return;
+            }
+            interpreter.addProgram(program.get());
+
+            EvaluationServer server = new EvaluationServer(interpreter, port, concurrency, queueCapacity,
+                    new EvaluationBudget(maxSteps, timeoutMillis, maxTermSize));
+            server.start();
+            System.out.println("Evaluating expressions at http://localhost:" + server.getPort() + EVALUATE_PATH);
+        }
+        catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        catch (TypeException.InconsistentDataDeclException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+}
@@ -1,50 +1,101 @@
 package haskell;
 
 import haskell.ast.*;
-import haskell.reduction.ComplexToSimpleReducer;
-import haskell.reduction.SimpleToLambdaReducer;
 import lambda.ast.ASTTerm;
+import lambda.reduction.EvaluationBudget;
+import lambda.reduction.LambdaReducer;
 import lambda.reduction.WHNOReducer;
 import lambda.type.TypeChecker;
 import lambda.type.TypeException;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * This class offers functionality to interpret complex haskell programs.
  * That is, it can evaluate an expression given a haskel program.
+ * Several threads can evaluate expressions at once. Each evaluation gets an {@link EvaluationContext} of its own, the
+ * program, which is compiled only once, and the data declarations of the type checker are shared by all of them.
  */
 public class HaskellInterpreter {
-    private haskell.ast.ASTProgram program;
-    private ComplexToSimpleReducer complexToSimpleReducer;
-    private SimpleToLambdaReducer simpleToLambdaReducer;
-    private TypeChecker typeChecker;
-    private WHNOReducer whnoReducer;
+    // the function declarations of the program, which are never changed by an evaluation
+    private final List<ASTDecl> functionDeclarations;
+    private volatile CompiledProgram compiledProgram;
+    private final TypeChecker typeChecker;
+    private final Deque<EvaluationContext> idleContexts;
+    private volatile Supplier<? extends LambdaReducer> reducers;
+    private volatile EvaluationBudget budget;
+    // changes with every declaration, the contexts of older versions are discarded
+    private volatile long programVersion;
 
     /**
      * Creates a new interpreter with no initial functions (except for the predefined ones).
      */
     public HaskellInterpreter() {
-        this.program = new ASTProgram();
-        this.complexToSimpleReducer = new ComplexToSimpleReducer();
-        this.simpleToLambdaReducer = new SimpleToLambdaReducer();
-        this.whnoReducer = new WHNOReducer();
+        this(WHNOReducer::new);
+    }
+
+    /**
+     * Creates a new interpreter with no initial functions which uses reducers of the given factory to evaluate lambda
+     * terms. Every evaluation context creates a reducer of its own.
+     * @param reducers the factory of the lambda reducers
+     */
+    public HaskellInterpreter(Supplier<? extends LambdaReducer> reducers) {
+        this.functionDeclarations = new ArrayList<>();
         this.typeChecker = new TypeChecker();
+        this.idleContexts = new ConcurrentLinkedDeque<>();
+        this.reducers = reducers;
+        this.budget = EvaluationBudget.UNLIMITED;
+        this.programVersion = 0;
+    }
+
+    /**
+     * Sets the reducers which are used to evaluate lambda terms, e.g. WHNOReducer::new or GraphReducer::new.
+     * @param reducers the factory of the lambda reducers
+     */
+    public synchronized void setReducer(Supplier<? extends LambdaReducer> reducers) {
+        assert(reducers != null);
+        this.reducers = reducers;
+        discardContexts();
+    }
+
+    public EvaluationBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Sets the limits of the reduction of each following evaluation. An evaluation which exceeds them throws a
+     * {@link lambda.reduction.BudgetExceededException}.
+     * @param budget the budget
+     */
+    public synchronized void setBudget(EvaluationBudget budget) {
+        assert(budget != null);
+        this.budget = budget;
     }
 
     /**
      * Adds a new declaration to this interpreter.
      * @param declaration
      */
-    public void addDeclaration(ASTDecl declaration) throws TypeException.InconsistentDataDeclException {
+    public synchronized void addDeclaration(ASTDecl declaration) throws TypeException.InconsistentDataDeclException {
         if (declaration instanceof ASTDataDecl) {
             // add this data declaration to the type checker
             typeChecker.addDataDeclaration((ASTDataDecl) declaration);
         }
+        else if (declaration instanceof ASTPatDecl || declaration instanceof ASTFunDecl) {
+            // we only need the function declarations actually used for the reduction
+            functionDeclarations.add(declaration);
+        }
 
-        // add this declaration to the program
-        this.program.addDeclaration(declaration);
+        // results of the previous program are not needed anymore
+        discardContexts();
     }
 
     /**
@@ -63,60 +114,147 @@ public class HaskellInterpreter {
      * @return a non-reducible lambda term
      */
     public ASTTerm evaluate(ASTExpression expression, boolean verbose) throws TypeException {
-        // we only need the function declarations actually used for the reduction
-        List<ASTDecl> functionDeclarations = program.getDecls().stream().
-                filter(decl -> decl instanceof ASTPatDecl || decl instanceof ASTFunDecl).
-                collect(Collectors.toList());
-
-        // init: create the expression: let prog in expr
-        ASTExpression letProgInExpr;
-        if (functionDeclarations.size() == 0) {
-            // empty lets are not supported, so we simply evaluate the expression directly
-            letProgInExpr = expression;
+        return evaluate(expression, budget, verbose);
+    }
+
+    /**
+     * Evaluates a complex haskell expression with the limits of the given budget instead of the ones of the interpreter.
+     * @param expression a complex haskell expression
+     * @param budget the limits of the reduction of this evaluation
+     * @return a non-reducible lambda term
+     */
+    public ASTTerm evaluate(ASTExpression expression, EvaluationBudget budget, boolean verbose) throws TypeException {
+        assert(budget != null);
+        return evaluate(compile(), expression, budget, verbose);
+    }
+
+    public ASTTerm evaluate(ASTExpression expression) throws TypeException {
+        return evaluate(expression, false);
+    }
+
+    /**
+     * Evaluates the expressions in parallel on the given executor and returns their results in the order of the
+     * expressions. The program is compiled only once for all of them.
+     * @param expressions the complex haskell expressions
+     * @param executor the executor which runs the evaluations
+     * @return the results of the expressions
+     * @throws InterruptedException if the thread is interrupted while it waits for the results
+     */
+    public List<EvaluationResult> evaluateAll(List<? extends ASTExpression> expressions, Executor executor)
+            throws InterruptedException {
+        EvaluationResult[] results = new EvaluationResult[expressions.size()];
+        evaluateAll(expressions.stream(), executor, result -> results[result.getIndex()] = result);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Evaluates the expressions in parallel on the given executor and passes each result to the consumer as soon as it
+     * is complete. The consumer is called by the calling thread only, the results which are complete are passed to it
+     * while the expressions are still submitted. The program is compiled only once for all of them.
+     * Every expression gets exactly one result, an expression which the executor rejects gets the rejection as error.
+     * @param expressions the complex haskell expressions
+     * @param executor the executor which runs the evaluations
+     * @param consumer the consumer of the results
+     * @throws InterruptedException if the thread is interrupted while it waits for the results
+     */
+    public void evaluateAll(Stream<? extends ASTExpression> expressions, Executor executor,
+                            Consumer<EvaluationResult> consumer) throws InterruptedException {
+        CompiledProgram program = compile();
+        EvaluationBudget budget = this.budget;
+        BlockingQueue<EvaluationResult> completed = new LinkedBlockingQueue<>();
+
+        int submitted = 0;
+        int delivered = 0;
+        Iterator<? extends ASTExpression> iterator = expressions.iterator();
+        while (iterator.hasNext()) {
+            int index = submitted;
+            ASTExpression expression = iterator.next();
+            try {
+                executor.execute(() -> completed.add(evaluate(program, index, expression, budget)));
+            }
+            catch (RejectedExecutionException e) {
+                completed.add(new EvaluationResult(index, expression, null, e));
+            }
+            submitted++;
+
+            EvaluationResult result;
+            while ((result = completed.poll()) != null) {
+                consumer.accept(result);
+                delivered++;
+            }
         }
-        else {
-            letProgInExpr = new ASTLet(functionDeclarations, expression);
+        while (delivered < submitted) {
+            consumer.accept(completed.take());
+            delivered++;
         }
-        if (verbose) {
-            System.out.println("\n-- The following expression will be evaluated: ");
-            System.out.println(letProgInExpr);
-            System.out.println("\n-- In simple haskell, the expression looks like this: ");
+    }
+
+    /**
+     * Returns the program compiled to lambda terms. The compilation is done once for every version of the program.
+     * @return the compiled program
+     */
+    public CompiledProgram compile() {
+        CompiledProgram program = compiledProgram;
+        if (program != null && program.getVersion() == programVersion) {
+            return program;
         }
 
-        // 1. reduce complex haskell expression to simple haskell expression
-        ASTExpression simpleExpr = complexToSimpleReducer.reduceToSimple(letProgInExpr);
-        if (verbose) {
-            System.out.println(simpleExpr);
-            System.out.println("\n-- The corresponding lambda term looks like this: ");
+        synchronized (this) {
+            if (compiledProgram == null || compiledProgram.getVersion() != programVersion) {
+                compiledProgram = CompiledProgram.compile(functionDeclarations, typeChecker, programVersion);
+            }
+            return compiledProgram;
         }
+    }
 
-        // 2. reduce simple haskell expression to lambda expression
-        lambda.ast.ASTTerm lambdaTerm = simpleExpr.accept(simpleToLambdaReducer);
-        if (verbose) {
-            System.out.println(lambdaTerm);
-            System.out.println("\n-- The type of the expression is: ");
+    private ASTTerm evaluate(CompiledProgram program, ASTExpression expression, EvaluationBudget budget,
+                             boolean verbose) throws TypeException {
+        EvaluationContext context = acquireContext(program.getVersion());
+        try {
+            return context.evaluate(program, expression, typeChecker, budget, verbose);
+        }
+        finally {
+            releaseContext(context);
         }
+    }
 
-        // 3. do a static type check
-        ASTType type = typeChecker.checkType(lambdaTerm);
-        // the type checker will throw an exception if something's wrong
-        // so at this point we know that the expression is typed correctly
-        if (verbose) {
-            System.out.println(type);
-            System.out.println("\n-- The following reduction steps were applied: ");
+    private EvaluationResult evaluate(CompiledProgram program, int index, ASTExpression expression,
+                                      EvaluationBudget budget) {
+        try {
+            return new EvaluationResult(index, expression, evaluate(program, expression, budget, false), null);
+        }
+        catch (Throwable e) {
+            // the error only belongs to this expression, the others are evaluated anyway, and every expression needs
+            // a result or the batch would wait for it forever
+            return new EvaluationResult(index, expression, null, e);
         }
+    }
 
-        // 4. reduce lambda expression with WHNO
-        lambda.ast.ASTTerm result = whnoReducer.reduceToWHNF(lambdaTerm, verbose);
-        if (verbose) {
-            System.out.println("\n-- The final result is: ");
-            System.out.println(result);
+    /**
+     * Returns an idle context of the given version of the program or creates a new one.
+     */
+    private EvaluationContext acquireContext(long version) {
+        EvaluationContext context;
+        while ((context = idleContexts.pollFirst()) != null) {
+            if (context.getProgramVersion() == version) {
+                return context;
+            }
         }
+        return new EvaluationContext(version, reducers.get());
+    }
 
-        return result;
+    /**
+     * Keeps the context for the next evaluation unless the program changed in the meantime.
+     */
+    private void releaseContext(EvaluationContext context) {
+        if (context.getProgramVersion() == programVersion) {
+            // the most recently used context is used first, since its caches are warm
+            idleContexts.offerFirst(context);
+        }
     }
 
-    public ASTTerm evaluate(ASTExpression expression) throws TypeException {
-        return evaluate(expression, false);
+    private void discardContexts() {
+        programVersion++;
+        idleContexts.clear();
     }
 }
@@ -5,6 +5,12 @@ import haskell.ast.ASTExpression;
 import haskell.ast.ASTProgram;
 import haskell.parser.ASTGenerator;
 import lambda.ast.ASTTerm;
+import lambda.gmachine.GMachine;
+import lambda.graph.GraphReducer;
+import lambda.jvm.JvmReducer;
+import lambda.jvm.TieredReducer;
+import lambda.machine.KrivineMachine;
+import lambda.reduction.WHNOReducer;
 import lambda.type.TypeException;
 import org.antlr.v4.runtime.ANTLRFileStream;
 import org.antlr.v4.runtime.ANTLRInputStream;
@@ -23,6 +29,7 @@ public class InteractiveEnvironment {
     public static final String LOAD_COMMAND = ":load";
     public static final String HELP_COMMAND = ":help";
     public static final String VERBOSE_COMMAND = ":verbose";
+    public static final String REDUCER_COMMAND = ":reducer";
     public static final String HELP_URL = "https://github.com/DavidWz/Haskell-Interpreter";
 
     private ASTGenerator astGenerator;
@@ -78,6 +85,11 @@ public class InteractiveEnvironment {
                 System.out.println("Verbose: Off.");
             }
         }
+        else if (line.startsWith(REDUCER_COMMAND) && line.length() > REDUCER_COMMAND.length()) {
+            // +1 because space between :reducer <name>
+            String reducerName = line.substring(REDUCER_COMMAND.length()+1);
+            selectReducer(reducerName);
+        }
         else if (line.startsWith(LOAD_COMMAND) && line.length() > LOAD_COMMAND.length()) {
             // +1 because space between :load <filename>
             String fileName = line.substring(LOAD_COMMAND.length()+1);
@@ -97,10 +109,42 @@ public class InteractiveEnvironment {
         StringBuilder msg = new StringBuilder();
         msg.append("Type \"" + QUIT_COMMAND + "\" to exit the interactive environment.\n");
         msg.append("Type \"" + LOAD_COMMAND + " <filename>\" to load a program from a file.\n");
+        msg.append("Type \"" + REDUCER_COMMAND + " <whno|graph|machine|gmachine|jvm|tiered>\" to select the reduction engine.\n");
         msg.append("For further information, please refer to " + HELP_URL);
         System.out.println(msg.toString());
     }
 
+    /**
+     * Selects the reducer which is used to evaluate expressions.
+     * @param reducerName the name of the reducer
+     */
+    private void selectReducer(String reducerName) {
+        switch (reducerName) {
+            case "whno":
+                interpreter.setReducer(WHNOReducer::new);
+                break;
+            case "graph":
+                interpreter.setReducer(GraphReducer::new);
+                break;
+            case "machine":
+                interpreter.setReducer(KrivineMachine::new);
+                break;
+            case "gmachine":
+                interpreter.setReducer(GMachine::new);
+                break;
+            case "jvm":
+                interpreter.setReducer(JvmReducer::new);
+                break;
+            case "tiered":
+                interpreter.setReducer(TieredReducer::new);
+                break;
+            default:
+                System.out.println("Error: Unknown reducer. Known reducers are: whno, graph, machine, gmachine, jvm, tiered.");
+                return;
+        }
+        System.out.println("Reducer: " + reducerName + ".");
+    }
+
     /**
      * Loads the program in the file specified by the fileName.
      * @param fileName
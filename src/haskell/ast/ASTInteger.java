@@ -1,26 +1,37 @@
 package haskell.ast;
 
+import lambda.reduction.delta.IntegerArithmetic;
+
 import java.util.Collections;
 import java.util.Set;
 
 /**
- * Represents an integer.
+ * Represents an integer, which has arbitrary precision.
  */
 public class ASTInteger implements ASTExpression, ASTPattern {
-    private int value;
+    private Object value;
 
     public ASTInteger(int value) {
         this.value = value;
 
     }
 
-    public int getValue() {
+    /**
+     * Creates an integer of any size.
+     * @param value an Integer, a Long or a BigInteger in the representation of {@link IntegerArithmetic}
+     */
+    public ASTInteger(Object value) {
+        assert(IntegerArithmetic.isInteger(value));
+        this.value = value;
+    }
+
+    public Object getValue() {
         return value;
     }
 
     @Override
     public String toString() {
-        return Integer.toString(value);
+        return value.toString();
     }
 
 
@@ -31,13 +42,13 @@ public class ASTInteger implements ASTExpression, ASTPattern {
 
         ASTInteger that = (ASTInteger) o;
 
-        return getValue() == that.getValue();
+        return getValue().equals(that.getValue());
 
     }
 
     @Override
     public int hashCode() {
-        return getValue();
+        return getValue().hashCode();
     }
 
     @Override
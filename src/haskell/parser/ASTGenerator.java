@@ -1,6 +1,7 @@
 package haskell.parser;
 
 import haskell.ast.*;
+import lambda.reduction.delta.IntegerArithmetic;
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.ATNConfigSet;
 import org.antlr.v4.runtime.dfa.DFA;
@@ -177,8 +178,7 @@ public class ASTGenerator implements ANTLRErrorListener {
                 return new ASTJoker();
             } else if (ctx.integer() != null) {
                 String intId = ctx.integer().getText();
-                int n = Integer.parseInt(intId);
-                return new ASTInteger(n);
+                return new ASTInteger(IntegerArithmetic.parse(intId));
             } else if (ctx.floating() != null) {
                 String floatId = ctx.floating().getText();
                 float f = Float.parseFloat(floatId);
@@ -240,8 +240,7 @@ public class ASTGenerator implements ANTLRErrorListener {
                 return new ASTTyConstr(tyConstrID);
             } else if (ctx.integer() != null) {
                 String intId = ctx.integer().getText();
-                int n = Integer.parseInt(intId);
-                return new ASTInteger(n);
+                return new ASTInteger(IntegerArithmetic.parse(intId));
             } else if (ctx.floating() != null) {
                 String floatId = ctx.floating().getText();
                 float f = Float.parseFloat(floatId);
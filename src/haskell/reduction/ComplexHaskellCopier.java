@@ -0,0 +1,172 @@
+package haskell.reduction;
+
+import haskell.ast.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates a deep copy of a complex haskell expression.
+ * The transformations of the ComplexToSimpleReducer change their input in-place, so an expression which is shared,
+ * e.g. the declarations of a program, has to be copied before it is reduced.
+ * Nodes which cannot be changed, like variables and constants, are shared by the copy.
+ */
+public class ComplexHaskellCopier implements ComplexHaskellVisitor<ComplexHaskell> {
+    /**
+     * Copies the given expression.
+     * @param expression the expression
+     * @return an equal expression which shares no changeable node with the given one
+     */
+    public ASTExpression copy(ASTExpression expression) {
+        return (ASTExpression) expression.accept(this);
+    }
+
+    private ASTPattern copy(ASTPattern pattern) {
+        return (ASTPattern) pattern.accept(this);
+    }
+
+    private ASTDecl copy(ASTDecl decl) {
+        return (ASTDecl) decl.accept(this);
+    }
+
+    private List<ASTExpression> copyExpressions(List<ASTExpression> exps) {
+        List<ASTExpression> copies = new ArrayList<>(exps.size());
+        for (ASTExpression exp : exps) {
+            copies.add(copy(exp));
+        }
+        return copies;
+    }
+
+    private List<ASTPattern> copyPatterns(List<ASTPattern> pats) {
+        List<ASTPattern> copies = new ArrayList<>(pats.size());
+        for (ASTPattern pat : pats) {
+            copies.add(copy(pat));
+        }
+        return copies;
+    }
+
+    private List<ASTDecl> copyDecls(List<ASTDecl> decls) {
+        List<ASTDecl> copies = new ArrayList<>(decls.size());
+        for (ASTDecl decl : decls) {
+            copies.add(copy(decl));
+        }
+        return copies;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTApplication node) {
+        return new ASTApplication(copyExpressions(node.getExps()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTBoolean node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTBranch node) {
+        return new ASTBranch(copy(node.getCondition()), copy(node.getIfBranch()), copy(node.getElseBranch()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTCase node) {
+        return new ASTCase(copy(node.getExp()), copyPatterns(node.getCasePats()), copyExpressions(node.getCaseExps()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTChar node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTConstruct node) {
+        return new ASTConstruct(node.getType(), copyPatterns(node.getPats()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTExpTuple node) {
+        return new ASTExpTuple(copyExpressions(node.getExps()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTFloat node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTFunDecl node) {
+        return new ASTFunDecl(node.getVar(), copyPatterns(node.getPats()), copy(node.getExp()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTInteger node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTJoker node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTLambda node) {
+        return new ASTLambda(copyPatterns(node.getPats()), copy(node.getExp()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTLet node) {
+        return new ASTLet(copyDecls(node.getDecls()), copy(node.getExp()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTPatDecl node) {
+        return new ASTPatDecl(copy(node.getPat()), copy(node.getExp()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTPatTuple node) {
+        return new ASTPatTuple(copyPatterns(node.getPats()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTProgram node) {
+        return new ASTProgram(copyDecls(node.getDecls()));
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTTyConstr node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTVariable node) {
+        return node;
+    }
+
+    // data declarations and types are never changed by the transformations
+
+    @Override
+    public ComplexHaskell visit(ASTDataDecl node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTConstrDecl node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTTypeConstr node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTFuncType node) {
+        return node;
+    }
+
+    @Override
+    public ComplexHaskell visit(ASTTupleType node) {
+        return node;
+    }
+}
@@ -1,55 +1,98 @@
 package haskell.reduction;
 
-import haskell.ast.ASTExpression;
+import haskell.ast.*;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * A class which can reduce complex haskell to simple haskell.
  * For predefined functions, refer to @see PredefinedFunction enum.
  */
 public class ComplexToSimpleReducer {
-    private List<ComplexHaskellTransformation> basicTransformations;
-    private FunDeclToPatDecl funDeclToPatDecl;
+    // lets with fewer declarations are not worth the parallel reduction of their declarations
+    public static final int PARALLEL_THRESHOLD = 8;
+
+    private NestMultipleLambdas nestMultipleLambdas;
+    private CaseToMatch caseToMatch;
     private SeparateAndNestDecls separateAndNestDecls;
 
     public ComplexToSimpleReducer() {
-        // set up all basicTransformations
-        basicTransformations = new ArrayList<>();
-        basicTransformations.add(new NestMultipleLambdas());
-        basicTransformations.add(new LambdaPatternToCase());
-        basicTransformations.add(new CaseToMatch());
-        basicTransformations.add(new TuplePatLetToSingleVar());
-        funDeclToPatDecl = new FunDeclToPatDecl();
+        // these transformations have no state, so they are shared by all reductions
+        nestMultipleLambdas = new NestMultipleLambdas();
+        caseToMatch = new CaseToMatch();
         separateAndNestDecls = new SeparateAndNestDecls();
     }
 
     /**
      * Converts a complex haskell expression to a simple haskell expression.
+     * The expression is changed in-place. Different expressions can be reduced by several threads at once.
      * @return an equivalent simple haskell expression
      */
     public ASTExpression reduceToSimple(ASTExpression expression) {
-        // we need to init the variable manager so that it knows all variables of this expression
-        VariableManager.init(expression);
+        NameSupply nameSupply = new NameSupply();
+
+        // the declarations of a program are independent until they are separated, so they are reduced in parallel
+        if (expression instanceof ASTLet && ((ASTLet) expression).getDecls().size() >= PARALLEL_THRESHOLD) {
+            reduceDeclsInParallel((ASTLet) expression, nameSupply);
+        }
+
+        // this reduces whatever is left, i.e. everything if the declarations were not reduced in parallel
+        reduce(expression, nameSupply);
+
+        // after this, the complex haskell expression should be in simple haskell form
+        return expression;
+    }
+
+    /**
+     * Reduces the declarations and the expression of a let term in parallel. The let term itself is not reduced.
+     */
+    private void reduceDeclsInParallel(ASTLet let, NameSupply nameSupply) {
+        // the function declarations of the let can only be transformed together
+        FunDeclToPatDecl funDeclToPatDecl = new FunDeclToPatDecl(nameSupply);
+        Optional<List<ASTDecl>> transformedDecls;
+        while ((transformedDecls = funDeclToPatDecl.funcDeclToPatDecl(let.getDecls())).isPresent()) {
+            let.setDecls(transformedDecls.get());
+        }
+
+        // the expression is reduced as the declaration of an unused variable, so that it can be replaced as a whole
+        ASTPatDecl exp = new ASTPatDecl(nameSupply.getFreshVariable(), let.getExp());
+        List<ComplexHaskell> parts = new ArrayList<>(let.getDecls());
+        parts.add(exp);
+
+        // the supplies are split in order, so the names do not depend on the scheduling
+        List<NameSupply> nameSupplies = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            nameSupplies.add(nameSupply.split());
+        }
+        IntStream.range(0, parts.size()).parallel().forEach(i -> reduce(parts.get(i), nameSupplies.get(i)));
+
+        let.setExp(exp.getExp());
+    }
+
+    private void reduce(ComplexHaskell expression, NameSupply nameSupply) {
+        // set up all basic transformations, the ones which introduce variables belong to this reduction
+        List<ComplexHaskellTransformation> basicTransformations = new ArrayList<>();
+        basicTransformations.add(nestMultipleLambdas);
+        basicTransformations.add(new LambdaPatternToCase(nameSupply));
+        basicTransformations.add(caseToMatch);
+        basicTransformations.add(new TuplePatLetToSingleVar(nameSupply));
 
         // first we must transform multiple function declarations for the same function to single declarations
-        applyFuncDeclToPatDecl(expression);
+        applyFuncDeclToPatDecl(expression, new FunDeclToPatDecl(nameSupply));
 
         // then we apply basic transformation rules as long as possible
-        applyBasicTransformationRules(expression);
+        applyBasicTransformationRules(expression, basicTransformations);
 
         // after this, we split the declarations according to entaglement
         // and then nest them in multiple let expressions
         applySeparateAndNestDecls(expression);
 
         // then we again apply basic transformation rules as long as possible
-        applyBasicTransformationRules(expression);
-
-        // after this, the complex haskell expression should be in simple haskell form
-        return expression;
+        applyBasicTransformationRules(expression, basicTransformations);
     }
 
-    private void applyFuncDeclToPatDecl(ASTExpression expression) {
+    private void applyFuncDeclToPatDecl(ComplexHaskell expression, FunDeclToPatDecl funDeclToPatDecl) {
         boolean transformed;
 
         // apply the function declaration to pattern declaration rule as long as it still changes something
@@ -62,7 +105,8 @@ public class ComplexToSimpleReducer {
         } while(transformed);
     }
 
-    private void applyBasicTransformationRules(ASTExpression expression) {
+    private void applyBasicTransformationRules(ComplexHaskell expression,
+                                               List<ComplexHaskellTransformation> basicTransformations) {
         boolean transformed;
 
         // apply rules as long as they still change something
@@ -79,7 +123,7 @@ public class ComplexToSimpleReducer {
         } while(transformed);
     }
 
-    private void applySeparateAndNestDecls(ASTExpression expression) {
+    private void applySeparateAndNestDecls(ComplexHaskell expression) {
         boolean transformed;
 
         // reduce let expressions as long as possible
@@ -12,8 +12,14 @@ import java.util.stream.Collectors;
  * into an equivalent pattern declaration.
  */
 public class FunDeclToPatDecl implements ComplexHaskellTransformation {
+    private final NameSupply nameSupply;
 
-    public FunDeclToPatDecl() {
+    /**
+     * Creates the transformation.
+     * @param nameSupply the name supply which hands out the fresh variables of the reduction
+     */
+    public FunDeclToPatDecl(NameSupply nameSupply) {
+        this.nameSupply = nameSupply;
     }
 
     /**
@@ -86,7 +92,7 @@ public class FunDeclToPatDecl implements ComplexHaskellTransformation {
         List<ASTPattern> lambdaVarsPat = new ArrayList<>();
         List<ASTExpression> lambdaVarsExp = new ArrayList<>();
         for (int i = 0; i < numArgs; i++) {
-            ASTVariable var = VariableManager.getFreshVariable();
+            ASTVariable var = nameSupply.getFreshVariable();
             lambdaVarsPat.add(var);
             lambdaVarsExp.add(var);
         }
@@ -9,6 +9,16 @@ import java.util.List;
  * Transforms a lambda expression with a pattern which is not a variable to a case expression.
  */
 public class LambdaPatternToCase implements ComplexHaskellTransformation {
+    private final NameSupply nameSupply;
+
+    /**
+     * Creates the transformation.
+     * @param nameSupply the name supply which hands out the fresh variables of the reduction
+     */
+    public LambdaPatternToCase(NameSupply nameSupply) {
+        this.nameSupply = nameSupply;
+    }
+
     @Override
     public Boolean visit(ASTLambda node) {
         // first try to apply the transformation as deep as possible
@@ -32,7 +42,7 @@ public class LambdaPatternToCase implements ComplexHaskellTransformation {
             // and the pattern must not be a variable
             if (!(pat instanceof ASTVariable)) {
                 // then we can replace that pattern by a variable
-                ASTVariable var = VariableManager.getFreshVariable();
+                ASTVariable var = nameSupply.getFreshVariable();
                 ASTCase caseExp = new ASTCase(var, Collections.singletonList(pat), Collections.singletonList(exp));
 
                 node.setPats(Collections.singletonList(var));
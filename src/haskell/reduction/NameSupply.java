@@ -0,0 +1,50 @@
+package haskell.reduction;
+
+import haskell.ast.ASTVariable;
+
+/**
+ * Hands out the fresh variables of one reduction from complex to simple haskell.
+ * The names start with a reserved prefix which the parser never produces, since variables of programs consist of
+ * letters and digits only. So the names cannot clash with the variables of the program, and the program does not have
+ * to be scanned for them.
+ * A name supply is not thread-safe, but it can be split into independent supplies for parallel reductions.
+ */
+public class NameSupply {
+    public static final String RESERVED_PREFIX = "x_";
+
+    private final String prefix;
+    private int i;
+    private int children;
+
+    /**
+     * Creates a name supply with the reserved prefix.
+     */
+    public NameSupply() {
+        this(RESERVED_PREFIX);
+    }
+
+    private NameSupply(String prefix) {
+        this.prefix = prefix;
+        this.i = 0;
+        this.children = 0;
+    }
+
+    /**
+     * Returns a fresh variable.
+     */
+    public ASTVariable getFreshVariable() {
+        i++;
+        return new ASTVariable(prefix + (i-1));
+    }
+
+    /**
+     * Returns a new name supply whose variables differ from the ones of this supply and of all other splits.
+     * The variables of this supply are the prefix followed by digits, so the prefix followed by digits and an
+     * underscore is free for each split.
+     * @return the new name supply
+     */
+    public NameSupply split() {
+        children++;
+        return new NameSupply(prefix + (children-1) + "_");
+    }
+}
@@ -34,7 +34,7 @@ public class SimpleToLambdaReducer implements ComplexHaskellVisitor<ASTTerm> {
     @Override
     public ASTTerm visit(ASTBoolean node) {
         // c => c
-        return new ASTConstant(node.getValue());
+        return ASTConstant.of(node.getValue());
     }
 
     @Override
@@ -56,7 +56,7 @@ public class SimpleToLambdaReducer implements ComplexHaskellVisitor<ASTTerm> {
     @Override
     public ASTTerm visit(ASTChar node) {
         // c => c
-        return new ASTConstant(node.getValue());
+        return ASTConstant.of(node.getValue());
     }
 
     @Override
@@ -98,7 +98,7 @@ public class SimpleToLambdaReducer implements ComplexHaskellVisitor<ASTTerm> {
     @Override
     public ASTTerm visit(ASTFloat node) {
         // c => c
-        return new ASTConstant(node.getValue());
+        return ASTConstant.of(node.getValue());
     }
 
     @Override
@@ -109,7 +109,7 @@ public class SimpleToLambdaReducer implements ComplexHaskellVisitor<ASTTerm> {
     @Override
     public ASTTerm visit(ASTInteger node) {
         // c => c
-        return new ASTConstant(node.getValue());
+        return ASTConstant.of(node.getValue());
     }
 
     @Override
@@ -154,10 +154,18 @@ public class SimpleToLambdaReducer implements ComplexHaskellVisitor<ASTTerm> {
             throw new RuntimeException("Complex to Simple reduction is incomplete: The pattern of a pattern declaration in let expressions must be a variable.");
         }
 
-        // let var = exp in target => exp[var / (fix \var.exp)]
         ASTTerm basis = node.getExp().accept(this);
         lambda.ast.ASTVariable variable = (lambda.ast.ASTVariable) pat.accept(this);
-        ASTTerm func = new lambda.ast.ASTAbstraction(variable, patDecl.getExp().accept(this));
+        ASTTerm exp = patDecl.getExp().accept(this);
+
+        if (!exp.getFreeVars().contains(variable)) {
+            // the binding is not recursive, so no fixpoint is needed
+            // let var = exp in target => target[var / exp]
+            return basis.substitute(variable, exp);
+        }
+
+        // let var = exp in target => target[var / (fix \var.exp)]
+        ASTTerm func = new lambda.ast.ASTAbstraction(variable, exp);
         ASTTerm replacement = new lambda.ast.ASTApplication(new lambda.ast.ASTConstant(PredefinedFunction.FIX), func);
         return basis.substitute(variable, replacement);
     }
@@ -11,6 +11,16 @@ import java.util.List;
  * Transforms a let expresison with a tuple pattern to a let expression with a single variable as pattern.
  */
 public class TuplePatLetToSingleVar implements ComplexHaskellTransformation {
+    private final NameSupply nameSupply;
+
+    /**
+     * Creates the transformation.
+     * @param nameSupply the name supply which hands out the fresh variables of the reduction
+     */
+    public TuplePatLetToSingleVar(NameSupply nameSupply) {
+        this.nameSupply = nameSupply;
+    }
+
     @Override
     public Boolean visit(ASTLet node) {
         List<ASTDecl> decls = node.getDecls();
@@ -51,7 +61,7 @@ public class TuplePatLetToSingleVar implements ComplexHaskellTransformation {
                 return false;
             }
         }
-        ASTVariable var = VariableManager.getFreshVariable();
+        ASTVariable var = nameSupply.getFreshVariable();
 
         List<ASTExpression> sels = new ArrayList<>();
         int n = varTuple.getPats().size();
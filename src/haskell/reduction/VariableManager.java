@@ -2,59 +2,14 @@ package haskell.reduction;
 
 import haskell.ast.*;
 
-import java.util.Set;
-
 /**
  * A helper class which manages variables in complex haskell programs.
+ * The fresh variables of a reduction are handed out by its {@link NameSupply}.
  */
 public class VariableManager {
-    // the current index for our x_i variables
-    private static int i = 0;
-
     // the bottom function variable
     private static ASTVariable botFunc = new ASTVariable("bot");
 
-    /**
-     * Initializes this variable manager with the variables found in the given complex haskell term.
-     * @param complexHaskell
-     */
-    public static void init(ComplexHaskell complexHaskell) {
-        Set<ASTVariable> vars = complexHaskell.getAllVariables();
-
-        // all our fresh variables are simply called "x_i", so we need to determine the smallest i which is not used yet
-        i = 0;
-        for(ASTVariable var : vars) {
-            String varName = var.getName();
-            if (varName.length() >= 2 && varName.charAt(0) == 'x') {
-
-                // determine whether there's a number after x
-                boolean isNumbered = true;
-                for (int k = 1; k < varName.length(); k++) {
-                    if (!Character.isDigit(varName.charAt(k))) {
-                        isNumbered = false;
-                        break;
-                    }
-                }
-
-                // if there's a number after x, set i to the next value if it's actually bigger
-                if (isNumbered) {
-                    int index = Integer.parseInt(varName.substring(1));
-                    if (index >= i) {
-                        i = index + 1;
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Returns a fresh variable.
-     */
-    public static ASTVariable getFreshVariable() {
-        i++;
-        return new ASTVariable("x"+(i-1));
-    }
-
     /**
      * Returns a variable representing the bottom function.
      * @return
@@ -100,7 +55,7 @@ public class VariableManager {
         return new ASTVariable("sel_"+n+"_"+i);
     }
 
-    private static ASTVariable getIsaIntFunc(int value) {
+    private static ASTVariable getIsaIntFunc(Object value) {
         return new ASTVariable("isa_int_"+value);
     }
 
@@ -4,10 +4,13 @@ import java.util.*;
 
 /**
  * Represents a lambda abstraction (function).
+ * Abstractions are immutable, their hash code and size are computed once when they are created.
  */
 public class ASTAbstraction extends ASTTerm {
-    private ASTVariable input;
-    private ASTTerm output;
+    private final ASTVariable input;
+    private final ASTTerm output;
+    private final int hash;
+    private final int size;
 
     public ASTAbstraction(ASTVariable input, ASTTerm output) {
         assert(input != null);
@@ -15,26 +18,18 @@ public class ASTAbstraction extends ASTTerm {
 
         this.input = input;
         this.output = output;
+        this.hash = hash(ABSTRACTION_TAG, input.hashCode(), output.hashCode());
+        this.size = getSize(input, output);
     }
 
     public ASTVariable getInput() {
         return input;
     }
 
-    public void setInput(ASTVariable input) {
-        assert(input != null);
-        this.input = input;
-    }
-
     public ASTTerm getOutput() {
         return output;
     }
 
-    public void setOutput(ASTTerm output) {
-        assert(output != null);
-        this.output = output;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -42,20 +37,26 @@ public class ASTAbstraction extends ASTTerm {
 
         ASTAbstraction that = (ASTAbstraction) o;
 
-        if (!getInput().equals(that.getInput())) return false;
-        return getOutput().equals(that.getOutput());
+        // different hash codes can be compared in constant time, and so can terms of the same term factory
+        if (hash != that.hash || sameGeneration(this, that)) return false;
+        // interned children are compared without a traversal
+        if (input.equals(that.input) && output == that.output) return true;
+        return equalTerms(this, that);
     }
 
     @Override
     public int hashCode() {
-        int result = getInput().hashCode();
-        result = 31 * result + getOutput().hashCode();
-        return result;
+        return hash;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
     }
 
     @Override
     public String toString() {
-        return "(λ" + input.toString() + "." + output.toString() + ")";
+        return print(this);
     }
 
     @Override
@@ -70,62 +71,16 @@ public class ASTAbstraction extends ASTTerm {
 
     @Override
     public Set<ASTVariable> getFreeVars() {
-        // free variables of an abstraction are the free variables of the output without the bounded variable
-        HashSet<ASTVariable> freeVars = new HashSet<>();
-        freeVars.addAll(output.getFreeVars());
-        freeVars.remove(input);
-        return freeVars;
+        return freeVariables(this);
     }
 
     @Override
     public ASTTerm substitute(ASTVariable var, ASTTerm expr) {
-        // if our input variable should be replaced, we do nothing (because it's already bounded by this term)
-        if (var.equals(input)) {
-            return this;
-        }
-        else {
-            // if our input variable is not a free variable of the expression we can simply replace it by expr
-            Set<ASTVariable> freeVars = expr.getFreeVars();
-            if (!freeVars.contains(input)) {
-                ASTTerm substitutedExpr = output.substitute(var, expr);
-                return new ASTAbstraction(input, substitutedExpr);
-            }
-            else {
-                // our input variable is a free variable of the expression, so we need to rename it
-
-                // the new variable name must not be within the following set:
-                freeVars.addAll(output.getFreeVars());
-
-                ASTVariable renamedVar = getFreshVariable(freeVars);
-
-                // now replace the old input variable name by the new one
-                ASTTerm renamedOutput = output.substitute(input, renamedVar);
-                // and also apply the substitution
-                return new ASTAbstraction(renamedVar, renamedOutput.substitute(var, expr));
-            }
-        }
+        return new Substitution(var, expr).apply(this);
     }
 
     @Override
     public <T> T accept(LambdaVisitor<T> visitor) {
         return visitor.visit(this);
     }
-
-    /**
-     * Returns a fresh variable which does not occur in the specified set.
-     * @param vars set of excluded variables
-     * @return
-     */
-    private ASTVariable getFreshVariable(Set<ASTVariable> vars) {
-        // we simply add an index to the input variable
-        int index = 0;
-        ASTVariable freshVar = new ASTVariable(input.getName() + index);
-        // we need to make sure the index is not also a free variable
-        while (vars.contains(freshVar)) {
-            index++;
-            freshVar.setName(input.getName() + index);
-        }
-
-        return freshVar;
-    }
 }
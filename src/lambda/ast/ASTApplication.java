@@ -1,15 +1,19 @@
 package lambda.ast;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 /**
  * Represents an application of a left to an right.
+ * Applications are immutable, their hash code and size are computed once when they are created.
  */
 public class ASTApplication extends ASTTerm {
-    private ASTTerm left;
-    private ASTTerm right;
+    private final ASTTerm left;
+    private final ASTTerm right;
+    private final int hash;
+    private final int size;
 
     public ASTApplication(ASTTerm left, ASTTerm right) {
         assert(left != null);
@@ -17,27 +21,18 @@ public class ASTApplication extends ASTTerm {
 
         this.left = left;
         this.right = right;
+        this.hash = hash(APPLICATION_TAG, left.hashCode(), right.hashCode());
+        this.size = getSize(left, right);
     }
 
     public ASTTerm getLeft() {
-
         return left;
     }
 
-    public void setLeft(ASTTerm left) {
-        assert(left != null);
-        this.left = left;
-    }
-
     public ASTTerm getRight() {
         return right;
     }
 
-    public void setRight(ASTTerm right) {
-        assert(right != null);
-        this.right = right;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -45,50 +40,58 @@ public class ASTApplication extends ASTTerm {
 
         ASTApplication that = (ASTApplication) o;
 
-        if (!getLeft().equals(that.getLeft())) return false;
-        return getRight().equals(that.getRight());
-
+        // different hash codes can be compared in constant time, and so can terms of the same term factory
+        if (hash != that.hash || sameGeneration(this, that)) return false;
+        // interned children are compared without a traversal
+        if (left == that.left && right == that.right) return true;
+        return equalTerms(this, that);
     }
 
     @Override
     public int hashCode() {
-        int result = getLeft().hashCode();
-        result = 31 * result + getRight().hashCode();
-        return result;
+        return hash;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
     }
 
     @Override
     public String toString() {
-        return "(" + left.toString() + " " + right.toString() + ")";
+        return print(this);
     }
 
     @Override
     public List<ASTTerm> getLMOMArguments() {
-        List<ASTTerm> args = left.getLMOMArguments();
-        args.add(right);
+        // walk down the left spine and collect the arguments from right to left
+        List<ASTTerm> args = new ArrayList<>();
+        ASTTerm current = this;
+        while (current instanceof ASTApplication) {
+            args.add(((ASTApplication) current).right);
+            current = ((ASTApplication) current).left;
+        }
+        Collections.reverse(args);
         return args;
     }
 
     @Override
     public ASTTerm getLMOMTerm() {
-        return left.getLMOMTerm();
+        ASTTerm current = this;
+        while (current instanceof ASTApplication) {
+            current = ((ASTApplication) current).left;
+        }
+        return current;
     }
 
     @Override
     public Set<ASTVariable> getFreeVars() {
-        // we just combine the free variables of the left and right
-        HashSet<ASTVariable> freeVars = new HashSet<>();
-        freeVars.addAll(left.getFreeVars());
-        freeVars.addAll(right.getFreeVars());
-        return freeVars;
+        return freeVariables(this);
     }
 
     @Override
     public ASTTerm substitute(ASTVariable var, ASTTerm expr) {
-        // substituting an application is equivalent to substituting the left and right
-        ASTTerm replacedFunciton = left.substitute(var, expr);
-        ASTTerm replacedArgument = right.substitute(var, expr);
-        return new ASTApplication(replacedFunciton, replacedArgument);
+        return new Substitution(var, expr).apply(this);
     }
 
     @Override
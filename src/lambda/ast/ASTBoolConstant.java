@@ -0,0 +1,43 @@
+package lambda.ast;
+
+/**
+ * Represents a boolean constant. There are only the two instances TRUE and FALSE.
+ */
+public class ASTBoolConstant extends ASTConstant {
+    public static final ASTBoolConstant TRUE = new ASTBoolConstant(true);
+    public static final ASTBoolConstant FALSE = new ASTBoolConstant(false);
+
+    private final boolean value;
+
+    private ASTBoolConstant(boolean value) {
+        this.value = value;
+    }
+
+    public boolean booleanValue() {
+        return value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof ASTBoolConstant) {
+            return false;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return Boolean.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return Boolean.toString(value);
+    }
+}
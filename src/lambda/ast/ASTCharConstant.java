@@ -0,0 +1,60 @@
+package lambda.ast;
+
+/**
+ * Represents a character constant whose value is not boxed.
+ */
+public class ASTCharConstant extends ASTConstant {
+    private static final ASTCharConstant[] cache = new ASTCharConstant[128];
+
+    static {
+        for (char c = 0; c < cache.length; c++) {
+            cache[c] = new ASTCharConstant(c);
+        }
+    }
+
+    private final char value;
+
+    private ASTCharConstant(char value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the constant with the given value. ASCII characters are taken from a cache.
+     * @param value the value
+     * @return the constant
+     */
+    static ASTCharConstant valueOf(char value) {
+        if (value < cache.length) {
+            return cache[value];
+        }
+        return new ASTCharConstant(value);
+    }
+
+    public char charValue() {
+        return value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof ASTCharConstant) {
+            return value == ((ASTCharConstant) o).value;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return Character.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return "'" + value + "'";
+    }
+}
@@ -4,27 +4,104 @@ import java.util.*;
 
 /**
  * Represents a constant.
+ * Integers, floats, characters and booleans are stored unboxed by the subclasses, which are created by the of
+ * methods. A constant is equal to every other constant with the same value, no matter whether it is boxed or not.
  */
 public class ASTConstant extends ASTTerm {
-    private Object value;
+    private final Object value;
 
     public Object getValue() {
         return value;
     }
 
-    public void setValue(Object value) {
-        this.value = value;
-    }
-
     public ASTConstant(Object value) {
         assert(value != null);
         this.value = value;
     }
 
+    /**
+     * Creates a constant whose value is stored by the subclass.
+     */
+    ASTConstant() {
+        this.value = null;
+    }
+
+    /**
+     * Returns the integer constant with the given value. Small values are cached.
+     * @param value the value
+     * @return the constant
+     */
+    public static ASTIntConstant of(int value) {
+        return ASTIntConstant.valueOf(value);
+    }
+
+    /**
+     * Returns the float constant with the given value.
+     * @param value the value
+     * @return the constant
+     */
+    public static ASTFloatConstant of(float value) {
+        return new ASTFloatConstant(value);
+    }
+
+    /**
+     * Returns the character constant with the given value. ASCII characters are cached.
+     * @param value the value
+     * @return the constant
+     */
+    public static ASTCharConstant of(char value) {
+        return ASTCharConstant.valueOf(value);
+    }
+
+    /**
+     * Returns the boolean constant with the given value.
+     * @param value the value
+     * @return the constant
+     */
+    public static ASTBoolConstant of(boolean value) {
+        return value ? ASTBoolConstant.TRUE : ASTBoolConstant.FALSE;
+    }
+
+    /**
+     * Returns a constant with the given value, which is unboxed if the value is a primitive.
+     * @param value the value
+     * @return the constant
+     */
+    public static ASTConstant of(Object value) {
+        if (value instanceof Integer) {
+            return of((int) value);
+        }
+        else if (value instanceof Float) {
+            return of((float) value);
+        }
+        else if (value instanceof Character) {
+            return of((char) value);
+        }
+        else if (value instanceof Boolean) {
+            return of((boolean) value);
+        }
+        else {
+            return new ASTConstant(value);
+        }
+    }
+
+    /**
+     * Returns the unboxed form of the constant, i.e. the constant itself if it is already unboxed or its value is not
+     * a primitive.
+     * @param constant the constant
+     * @return the unboxed constant
+     */
+    public static ASTConstant unboxed(ASTConstant constant) {
+        if (constant.getClass() == ASTConstant.class) {
+            return of(constant.value);
+        }
+        return constant;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof ASTConstant)) return false;
 
         ASTConstant that = (ASTConstant) o;
 
@@ -53,14 +130,13 @@ public class ASTConstant extends ASTTerm {
             return "'"+value.toString()+"'";
         }
         else {
-            return value.toString();
+            return getValue().toString();
         }
     }
 
     @Override
     public Set<ASTVariable> getFreeVars() {
-        // a constant is never free
-        return new HashSet<>();
+        return freeVariables(this);
     }
 
     @Override
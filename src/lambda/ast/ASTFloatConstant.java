@@ -0,0 +1,41 @@
+package lambda.ast;
+
+/**
+ * Represents a float constant whose value is not boxed.
+ */
+public class ASTFloatConstant extends ASTConstant {
+    private final float value;
+
+    ASTFloatConstant(float value) {
+        this.value = value;
+    }
+
+    public float floatValue() {
+        return value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof ASTFloatConstant) {
+            // the same comparison as Float.equals
+            return Float.floatToIntBits(value) == Float.floatToIntBits(((ASTFloatConstant) o).value);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return Float.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return Float.toString(value);
+    }
+}
@@ -0,0 +1,62 @@
+package lambda.ast;
+
+/**
+ * Represents an integer constant whose value is not boxed.
+ */
+public class ASTIntConstant extends ASTConstant {
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final ASTIntConstant[] cache = new ASTIntConstant[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new ASTIntConstant(CACHE_LOW + i);
+        }
+    }
+
+    private final int value;
+
+    private ASTIntConstant(int value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the constant with the given value. Small values are taken from a cache.
+     * @param value the value
+     * @return the constant
+     */
+    static ASTIntConstant valueOf(int value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return cache[value - CACHE_LOW];
+        }
+        return new ASTIntConstant(value);
+    }
+
+    public int intValue() {
+        return value;
+    }
+
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof ASTIntConstant) {
+            return value == ((ASTIntConstant) o).value;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return Integer.toString(value);
+    }
+}
@@ -1,12 +1,23 @@
 package lambda.ast;
 
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Abstract super class for all lambda terms.
+ * Traversals of terms use explicit work stacks instead of recursion, so that the depth of a term is only limited by
+ * the heap and not by the java stack.
  */
 public abstract class ASTTerm {
+    // the tags which distinguish the hash codes of applications and abstractions with the same children
+    static final int APPLICATION_TAG = 0x2f0b3a49;
+    static final int ABSTRACTION_TAG = 0x6c8e9cf5;
+
+    // the free variables are cached, because terms are immutable
+    private Set<ASTVariable> freeVars;
+    // the generation of the term factory which interned this term, or null; two different terms of the same
+    // generation are never equal
+    private Object generation;
+
     /**
      * Returns the arguments of left-most outer-most applications inside this lambda term. For example, the term
      * (((a 1) (b a)) 2) results in {1, (b a), 2}.
@@ -22,7 +33,7 @@ public abstract class ASTTerm {
 
     /**
      * Returns a set of free variables of this term.
-     * @return a set of free variables
+     * @return an unmodifiable set of free variables
      */
     public abstract Set<ASTVariable> getFreeVars();
 
@@ -40,4 +51,214 @@ public abstract class ASTTerm {
      * @return
      */
     public abstract <T> T accept(LambdaVisitor<T> visitor);
+
+    /**
+     * Returns the number of nodes of the term, where a shared subterm is counted at each of its occurrences.
+     * @return the size, which saturates at Integer.MAX_VALUE
+     */
+    public int getSize() {
+        return 1;
+    }
+
+    /**
+     * Returns the size of a node with the given children, see {@link #getSize()}.
+     */
+    static int getSize(ASTTerm first, ASTTerm second) {
+        long size = 1L + first.getSize() + second.getSize();
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the hash code of a node with the given tag and children. The hash codes of the children are mixed like in
+     * MurmurHash3, so that terms which only differ in the distribution of a value among their children, e.g. the
+     * arguments of an accumulator, do not collide.
+     */
+    static int hash(int tag, int first, int second) {
+        int hash = mixIn(mixIn(tag, first), second);
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static int mixIn(int hash, int value) {
+        value *= 0xcc9e2d51;
+        value = Integer.rotateLeft(value, 15);
+        value *= 0x1b873593;
+        hash ^= value;
+        hash = Integer.rotateLeft(hash, 13);
+        return hash * 5 + 0xe6546b64;
+    }
+
+    /**
+     * Marks the term as the unique one of its structure in the given generation of a term factory.
+     */
+    void setGeneration(Object generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Returns whether both terms are interned by the same generation of a term factory, in which case they are only
+     * equal if they are the same object.
+     */
+    static boolean sameGeneration(ASTTerm first, ASTTerm second) {
+        return first.generation != null && first.generation == second.generation;
+    }
+
+    /**
+     * Compares two terms structurally.
+     * @param first the first term
+     * @param second the second term
+     * @return whether the terms are equal
+     */
+    static boolean equalTerms(ASTTerm first, ASTTerm second) {
+        Deque<ASTTerm> work = new ArrayDeque<>();
+        work.push(second);
+        work.push(first);
+
+        while (!work.isEmpty()) {
+            ASTTerm a = work.pop();
+            ASTTerm b = work.pop();
+            if (a == b) {
+                continue;
+            }
+            if (sameGeneration(a, b)) {
+                return false;
+            }
+            // boxed and unboxed constants with the same value are equal, although their classes differ
+            boolean constants = a instanceof ASTConstant && b instanceof ASTConstant;
+            if ((a.getClass() != b.getClass() && !constants) || a.hashCode() != b.hashCode()) {
+                return false;
+            }
+
+            if (a instanceof ASTApplication) {
+                work.push(((ASTApplication) b).getRight());
+                work.push(((ASTApplication) a).getRight());
+                work.push(((ASTApplication) b).getLeft());
+                work.push(((ASTApplication) a).getLeft());
+            }
+            else if (a instanceof ASTAbstraction) {
+                work.push(((ASTAbstraction) b).getOutput());
+                work.push(((ASTAbstraction) a).getOutput());
+                work.push(((ASTAbstraction) b).getInput());
+                work.push(((ASTAbstraction) a).getInput());
+            }
+            else if (!a.equals(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the free variables of the term. The sets are computed once for each application and abstraction and
+     * shared between the terms.
+     * @param term the term
+     * @return an unmodifiable set of free variables
+     */
+    static Set<ASTVariable> freeVariables(ASTTerm term) {
+        if (term.freeVars != null) {
+            return term.freeVars;
+        }
+
+        // post-order traversal, a term is visited again after the sets of its children are known
+        Deque<ASTTerm> work = new ArrayDeque<>();
+        work.push(term);
+        while (!work.isEmpty()) {
+            ASTTerm next = work.peek();
+            if (next.freeVars != null) {
+                work.pop();
+            }
+            else if (next instanceof ASTApplication) {
+                ASTTerm left = ((ASTApplication) next).getLeft();
+                ASTTerm right = ((ASTApplication) next).getRight();
+                if (left.freeVars == null || right.freeVars == null) {
+                    work.push(right);
+                    work.push(left);
+                }
+                else {
+                    work.pop();
+                    next.freeVars = union(left.freeVars, right.freeVars);
+                }
+            }
+            else if (next instanceof ASTAbstraction) {
+                ASTVariable input = ((ASTAbstraction) next).getInput();
+                ASTTerm output = ((ASTAbstraction) next).getOutput();
+                if (output.freeVars == null) {
+                    work.push(output);
+                }
+                else {
+                    // free variables of an abstraction are the free variables of the output without the bounded variable
+                    work.pop();
+                    if (output.freeVars.contains(input)) {
+                        Set<ASTVariable> vars = new HashSet<>(output.freeVars);
+                        vars.remove(input);
+                        next.freeVars = Collections.unmodifiableSet(vars);
+                    }
+                    else {
+                        next.freeVars = output.freeVars;
+                    }
+                }
+            }
+            else if (next instanceof ASTVariable) {
+                // a variable is always free
+                work.pop();
+                next.freeVars = Collections.singleton((ASTVariable) next);
+            }
+            else {
+                work.pop();
+                next.freeVars = Collections.emptySet();
+            }
+        }
+        return term.freeVars;
+    }
+
+    /**
+     * Returns the union of two unmodifiable sets, which is one of them if the other one is contained in it.
+     */
+    private static Set<ASTVariable> union(Set<ASTVariable> first, Set<ASTVariable> second) {
+        if (first.containsAll(second)) {
+            return first;
+        }
+        if (second.containsAll(first)) {
+            return second;
+        }
+        Set<ASTVariable> vars = new HashSet<>(first);
+        vars.addAll(second);
+        return Collections.unmodifiableSet(vars);
+    }
+
+    /**
+     * Returns the string representation of the term.
+     * @param term the term
+     * @return the string representation
+     */
+    static String print(ASTTerm term) {
+        StringBuilder builder = new StringBuilder();
+        // contains terms and strings which are printed as they are
+        Deque<Object> work = new ArrayDeque<>();
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+            if (next instanceof ASTApplication) {
+                work.push(")");
+                work.push(((ASTApplication) next).getRight());
+                work.push(" ");
+                work.push(((ASTApplication) next).getLeft());
+                builder.append("(");
+            }
+            else if (next instanceof ASTAbstraction) {
+                work.push(")");
+                work.push(((ASTAbstraction) next).getOutput());
+                builder.append("(\u03bb").append(((ASTAbstraction) next).getInput()).append(".");
+            }
+            else {
+                builder.append(next);
+            }
+        }
+        return builder.toString();
+    }
 }
@@ -6,7 +6,7 @@ import java.util.*;
  * Represents a variable.
  */
 public class ASTVariable extends ASTTerm {
-    private String name;
+    private final String name;
 
     public ASTVariable(String name) {
         assert(name != null);
@@ -18,12 +18,6 @@ public class ASTVariable extends ASTTerm {
         return name;
     }
 
-    public void setName(String name) {
-        assert(name != null);
-        assert(!name.trim().equals(""));
-        this.name = name;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -56,10 +50,7 @@ public class ASTVariable extends ASTTerm {
 
     @Override
     public Set<ASTVariable> getFreeVars() {
-        // a variable is always free
-        HashSet<ASTVariable> freeVars = new HashSet<>();
-        freeVars.add(this);
-        return freeVars;
+        return freeVariables(this);
     }
 
     @Override
@@ -0,0 +1,100 @@
+package lambda.ast;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A reusable buffer for the application spine of a term, i.e. its left-most outer-most term and the arguments it is
+ * applied to. Unwinding a term into the buffer does not allocate unless the buffer has to grow, so the same spine
+ * should be reused for many terms. The arguments are only valid until the next term is unwound.
+ */
+public class Spine {
+    private ASTTerm head;
+    private ASTTerm[] arguments;
+    private int size;
+    private final List<ASTTerm> argumentView;
+
+    public Spine() {
+        this.arguments = new ASTTerm[8];
+        this.size = 0;
+        this.argumentView = new AbstractList<ASTTerm>() {
+            @Override
+            public ASTTerm get(int index) {
+                return getArgument(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Unwinds the application spine of the term into this buffer. For example, the term (((a 1) (b a)) 2) results in
+     * the head a and the arguments {1, (b a), 2}.
+     * @param term the term
+     * @return this spine
+     */
+    public Spine unwind(ASTTerm term) {
+        // count the arguments first, so that they can be stored from right to left
+        int count = 0;
+        ASTTerm current = term;
+        while (current instanceof ASTApplication) {
+            current = ((ASTApplication) current).getLeft();
+            count++;
+        }
+        if (count > arguments.length) {
+            arguments = new ASTTerm[Math.max(count, 2 * arguments.length)];
+        }
+
+        head = current;
+        size = count;
+        current = term;
+        for (int i = count - 1; i >= 0; i--) {
+            arguments[i] = ((ASTApplication) current).getRight();
+            current = ((ASTApplication) current).getLeft();
+        }
+        // arguments of larger spines which are not needed anymore should not be kept alive
+        for (int i = count; i < arguments.length && arguments[i] != null; i++) {
+            arguments[i] = null;
+        }
+        return this;
+    }
+
+    /**
+     * Returns the left-most outer-most term (this will be something other than an application).
+     * @return the head of the spine
+     */
+    public ASTTerm getHead() {
+        return head;
+    }
+
+    /**
+     * Returns the number of arguments.
+     * @return the number of arguments
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the argument with the given index, starting at the left-most argument.
+     * @param index the index
+     * @return the argument
+     */
+    public ASTTerm getArgument(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Argument " + index + " of " + size);
+        }
+        return arguments[index];
+    }
+
+    /**
+     * Returns a read-only view of the arguments. The view is reused and changes when the next term is unwound.
+     * @return the arguments
+     */
+    public List<ASTTerm> getArguments() {
+        return argumentView;
+    }
+}
@@ -0,0 +1,155 @@
+package lambda.ast;
+
+import java.util.*;
+
+/**
+ * Substitutes the free occurrences of a variable in a term without recursion.
+ * Bound variables which would capture a free variable of the inserted term are renamed. The renaming is done in the
+ * same pass, i.e. the substitution under a renamed abstraction replaces the old and the new variable simultaneously.
+ */
+class Substitution {
+    private final ASTVariable var;
+    private final ASTTerm expr;
+    private final Set<ASTVariable> exprFreeVars;
+
+    Substitution(ASTVariable var, ASTTerm expr) {
+        assert(var != null);
+        assert(expr != null);
+
+        this.var = var;
+        this.expr = expr;
+        this.exprFreeVars = expr.getFreeVars();
+    }
+
+    /**
+     * Applies the substitution to the term.
+     * @param term the term
+     * @return the substituted term
+     */
+    ASTTerm apply(ASTTerm term) {
+        Map<ASTVariable, ASTTerm> initial = new HashMap<>();
+        initial.put(var, expr);
+
+        // the work stack contains terms to substitute and the nodes which are rebuilt from the results
+        Deque<Object> work = new ArrayDeque<>();
+        Deque<Map<ASTVariable, ASTTerm>> scopes = new ArrayDeque<>();
+        Deque<ASTTerm> results = new ArrayDeque<>();
+        work.push(term);
+        scopes.push(initial);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+
+            if (next instanceof Rebuild) {
+                Rebuild rebuild = (Rebuild) next;
+                if (rebuild.node instanceof ASTApplication) {
+                    ASTTerm right = results.pop();
+                    ASTTerm left = results.pop();
+                    results.push(new ASTApplication(left, right));
+                }
+                else {
+                    results.push(new ASTAbstraction(rebuild.input, results.pop()));
+                    scopes.pop();
+                }
+                continue;
+            }
+
+            Map<ASTVariable, ASTTerm> mapping = scopes.peek();
+            if (next instanceof ASTApplication) {
+                ASTApplication app = (ASTApplication) next;
+                work.push(new Rebuild(app, null));
+                work.push(app.getRight());
+                work.push(app.getLeft());
+            }
+            else if (next instanceof ASTAbstraction) {
+                ASTAbstraction abstraction = (ASTAbstraction) next;
+                ASTVariable input = abstraction.getInput();
+
+                // the input variable is bound by this term, so it is not replaced inside
+                Map<ASTVariable, ASTTerm> inner = mapping;
+                if (mapping.containsKey(input)) {
+                    inner = new HashMap<>(mapping);
+                    inner.remove(input);
+                }
+                if (inner.isEmpty()) {
+                    results.push(abstraction);
+                    continue;
+                }
+
+                Set<ASTVariable> insertedVars = getFreeVars(inner);
+                if (insertedVars.contains(input)) {
+                    // our input variable is a free variable of an inserted term, so we need to rename it
+                    // the new variable name must not be within the following set:
+                    insertedVars.addAll(abstraction.getOutput().getFreeVars());
+                    ASTVariable renamedVar = getFreshVariable(input, insertedVars);
+
+                    inner = new HashMap<>(inner);
+                    inner.put(input, renamedVar);
+                    input = renamedVar;
+                }
+
+                scopes.push(inner);
+                work.push(new Rebuild(abstraction, input));
+                work.push(abstraction.getOutput());
+            }
+            else if (next instanceof ASTVariable && mapping.containsKey(next)) {
+                results.push(mapping.get(next));
+            }
+            else {
+                // constants and other variables stay untouched
+                results.push((ASTTerm) next);
+            }
+        }
+
+        return results.pop();
+    }
+
+    /**
+     * Returns the free variables of the terms which are inserted by the mapping.
+     */
+    private Set<ASTVariable> getFreeVars(Map<ASTVariable, ASTTerm> mapping) {
+        Set<ASTVariable> freeVars = new HashSet<>();
+        for (ASTTerm inserted : mapping.values()) {
+            if (inserted == expr) {
+                freeVars.addAll(exprFreeVars);
+            }
+            else {
+                // the other inserted terms are renamed variables
+                freeVars.addAll(inserted.getFreeVars());
+            }
+        }
+        return freeVars;
+    }
+
+    /**
+     * Returns a fresh variable which does not occur in the specified set.
+     * @param input the variable which is renamed
+     * @param vars set of excluded variables
+     * @return
+     */
+    private static ASTVariable getFreshVariable(ASTVariable input, Set<ASTVariable> vars) {
+        // we simply add an index to the input variable
+        int index = 0;
+        ASTVariable freshVar = new ASTVariable(input.getName() + index);
+        // we need to make sure the index is not also a free variable
+        while (vars.contains(freshVar)) {
+            index++;
+            freshVar = new ASTVariable(input.getName() + index);
+        }
+
+        return freshVar;
+    }
+
+    /**
+     * Marks that the given node is rebuilt from the substituted children on top of the result stack.
+     */
+    private static class Rebuild {
+        private final ASTTerm node;
+        private final ASTVariable input;
+
+        private Rebuild(ASTTerm node, ASTVariable input) {
+            this.node = node;
+            this.input = input;
+        }
+    }
+}
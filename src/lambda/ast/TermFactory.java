@@ -0,0 +1,155 @@
+package lambda.ast;
+
+import java.util.*;
+
+/**
+ * Creates hash-consed lambda terms, i.e. structurally equal terms which are created by the same factory are the same
+ * object. Comparing or hashing such terms only needs to look at the node itself, because its children are already
+ * unique, so lookups of interned terms in hash maps take constant time. Two different applications or abstractions of
+ * the same factory are not equal without any comparison of their children.
+ */
+public class TermFactory {
+    private Map<ASTTerm, ASTTerm> terms;
+    // marks the terms which are unique, it changes when the terms are forgotten
+    private Object generation;
+
+    public TermFactory() {
+        terms = new HashMap<>();
+        generation = new Object();
+    }
+
+    /**
+     * Returns the unique variable with the given name.
+     * @param name the name
+     * @return the variable
+     */
+    public ASTVariable variable(String name) {
+        return (ASTVariable) unique(new ASTVariable(name));
+    }
+
+    /**
+     * Returns the unique constant with the given value. Primitive values are unboxed.
+     * @param value the value
+     * @return the constant
+     */
+    public ASTConstant constant(Object value) {
+        return (ASTConstant) unique(ASTConstant.of(value));
+    }
+
+    /**
+     * Returns the unique application of left to right.
+     * @param left the function
+     * @param right the argument
+     * @return the application
+     */
+    public ASTApplication application(ASTTerm left, ASTTerm right) {
+        return (ASTApplication) unique(new ASTApplication(intern(left), intern(right)));
+    }
+
+    /**
+     * Returns the unique abstraction of input and output.
+     * @param input the variable
+     * @param output the body
+     * @return the abstraction
+     */
+    public ASTAbstraction abstraction(ASTVariable input, ASTTerm output) {
+        return (ASTAbstraction) unique(new ASTAbstraction((ASTVariable) intern(input), intern(output)));
+    }
+
+    /**
+     * Returns the unique term which is structurally equal to the given term. Subterms which are already interned are
+     * not traversed again.
+     * @param term the term
+     * @return the interned term
+     */
+    public ASTTerm intern(ASTTerm term) {
+        // most terms are already interned, so they are looked up before any work stack is allocated
+        ASTTerm known = terms.get(term);
+        if (known != null) {
+            return known;
+        }
+        if (!(term instanceof ASTApplication) && !(term instanceof ASTAbstraction)) {
+            return unique(term);
+        }
+
+        // post-order traversal: the children are interned before their parent is rebuilt
+        Deque<ASTTerm> work = new ArrayDeque<>();
+        Deque<ASTTerm> results = new ArrayDeque<>();
+        Set<ASTTerm> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            ASTTerm next = work.peek();
+            ASTTerm interned = terms.get(next);
+            if (interned != null) {
+                work.pop();
+                results.push(interned);
+            }
+            else if (next instanceof ASTApplication) {
+                ASTApplication app = (ASTApplication) next;
+                if (expanded.add(app)) {
+                    work.push(app.getRight());
+                    work.push(app.getLeft());
+                }
+                else {
+                    work.pop();
+                    ASTTerm right = results.pop();
+                    ASTTerm left = results.pop();
+                    results.push(unique(new ASTApplication(left, right)));
+                }
+            }
+            else if (next instanceof ASTAbstraction) {
+                ASTAbstraction abs = (ASTAbstraction) next;
+                if (expanded.add(abs)) {
+                    work.push(abs.getOutput());
+                    work.push(abs.getInput());
+                }
+                else {
+                    work.pop();
+                    ASTTerm output = results.pop();
+                    ASTVariable input = (ASTVariable) results.pop();
+                    results.push(unique(new ASTAbstraction(input, output)));
+                }
+            }
+            else {
+                work.pop();
+                results.push(unique(next));
+            }
+        }
+
+        return results.pop();
+    }
+
+    /**
+     * Returns the number of different terms created by this factory.
+     * @return the number of terms
+     */
+    public int size() {
+        return terms.size();
+    }
+
+    /**
+     * Forgets all terms. Terms which were created before are still structurally equal to new ones, but not the same.
+     */
+    public void clear() {
+        terms.clear();
+        generation = new Object();
+    }
+
+    /**
+     * Returns the stored term which is equal to the given term, or stores the given term if there is none.
+     * The children of the term must already be interned.
+     */
+    private ASTTerm unique(ASTTerm term) {
+        ASTTerm interned = terms.putIfAbsent(term, term);
+        if (interned != null) {
+            return interned;
+        }
+        // variables and constants may be shared with other threads, but applications and abstractions are created by
+        // this factory, and they are only marked once they are stored, so that the lookup above stays structural
+        if (term instanceof ASTApplication || term instanceof ASTAbstraction) {
+            term.setGeneration(generation);
+        }
+        return term;
+    }
+}
@@ -0,0 +1,52 @@
+package lambda.debruijn;
+
+/**
+ * Represents a lambda abstraction in De Bruijn notation. The bound variable is the index 0 inside of the body.
+ * The name of the original variable is kept as a hint so that the term can be printed nicely again.
+ */
+public class DBAbstraction extends DBTerm {
+    private final String hint;
+    private final DBTerm body;
+    // the hash code is cached, because it would need a traversal of the term otherwise
+    private final int hash;
+
+    public DBAbstraction(String hint, DBTerm body) {
+        super(Math.max(body.getLooseBound() - 1, 0), body.hasFreeVariables());
+        assert(hint != null);
+        this.hint = hint;
+        this.body = body;
+        this.hash = 31 * body.hashCode() + 1;
+    }
+
+    public String getHint() {
+        return hint;
+    }
+
+    public DBTerm getBody() {
+        return body;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        // the hint is irrelevant: alpha equivalent terms are equal
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return equalTerms(this, (DBAbstraction) o);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return print(this);
+    }
+
+    @Override
+    public <T> T accept(DBVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
@@ -0,0 +1,49 @@
+package lambda.debruijn;
+
+/**
+ * Represents an application of a left to a right in De Bruijn notation.
+ */
+public class DBApplication extends DBTerm {
+    private final DBTerm left;
+    private final DBTerm right;
+    // the hash code is cached, because it would need a traversal of the term otherwise
+    private final int hash;
+
+    public DBApplication(DBTerm left, DBTerm right) {
+        super(Math.max(left.getLooseBound(), right.getLooseBound()), left.hasFreeVariables() || right.hasFreeVariables());
+        this.left = left;
+        this.right = right;
+        this.hash = 31 * left.hashCode() + right.hashCode();
+    }
+
+    public DBTerm getLeft() {
+        return left;
+    }
+
+    public DBTerm getRight() {
+        return right;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return equalTerms(this, (DBApplication) o);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return print(this);
+    }
+
+    @Override
+    public <T> T accept(DBVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
@@ -0,0 +1,50 @@
+package lambda.debruijn;
+
+import lambda.ast.ASTConstant;
+
+/**
+ * Represents a constant in De Bruijn notation. It simply wraps the named constant, so delta rules which only
+ * inspect constants can be applied without any conversion.
+ */
+public class DBConstant extends DBTerm {
+    private final ASTConstant constant;
+
+    public DBConstant(ASTConstant constant) {
+        super(0, false);
+        assert(constant != null);
+        this.constant = constant;
+    }
+
+    public ASTConstant getConstant() {
+        return constant;
+    }
+
+    public Object getValue() {
+        return constant.getValue();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        DBConstant that = (DBConstant) o;
+
+        return getConstant().equals(that.getConstant());
+    }
+
+    @Override
+    public int hashCode() {
+        return getConstant().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return constant.toString();
+    }
+
+    @Override
+    public <T> T accept(DBVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
@@ -0,0 +1,44 @@
+package lambda.debruijn;
+
+/**
+ * Represents a free variable, which is not bound by any abstraction of the term and therefore keeps its name.
+ */
+public class DBFreeVariable extends DBTerm {
+    private final String name;
+
+    public DBFreeVariable(String name) {
+        super(0, true);
+        assert(name != null);
+        assert(!name.trim().equals(""));
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        DBFreeVariable that = (DBFreeVariable) o;
+
+        return getName().equals(that.getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return getName().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    @Override
+    public <T> T accept(DBVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
@@ -0,0 +1,43 @@
+package lambda.debruijn;
+
+/**
+ * Represents a bound variable in De Bruijn notation, i.e. the number of binders between the variable and its binder.
+ */
+public class DBIndex extends DBTerm {
+    private final int index;
+
+    public DBIndex(int index) {
+        super(index + 1, false);
+        assert(index >= 0);
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        DBIndex that = (DBIndex) o;
+
+        return getIndex() == that.getIndex();
+    }
+
+    @Override
+    public int hashCode() {
+        return getIndex();
+    }
+
+    @Override
+    public String toString() {
+        return "#" + index;
+    }
+
+    @Override
+    public <T> T accept(DBVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
@@ -0,0 +1,200 @@
+package lambda.debruijn;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Abstract super class for lambda terms in De Bruijn notation.
+ * Bound variables are represented by their binding depth (an index), so terms are equal up to alpha conversion and
+ * substitution never needs to rename binders. Free variables keep their names (locally nameless representation).
+ *
+ * Each term caches the number of binders it needs from its context (see {@link #getLooseBound()}) and whether it
+ * contains named free variables, so that closedness checks and shifting closed terms cost O(1).
+ * Traversals use explicit work stacks instead of recursion, so the depth of a term is only limited by the heap.
+ */
+public abstract class DBTerm {
+    private final int looseBound;
+    private final boolean freeVariables;
+
+    protected DBTerm(int looseBound, boolean freeVariables) {
+        assert(looseBound >= 0);
+        this.looseBound = looseBound;
+        this.freeVariables = freeVariables;
+    }
+
+    /**
+     * Returns the smallest n such that every index of this term which is not bound inside of it is smaller than n.
+     * I.e. a term with a loose bound of 0 contains no dangling indices.
+     * @return the loose bound
+     */
+    public int getLooseBound() {
+        return looseBound;
+    }
+
+    /**
+     * Returns whether this term contains named free variables.
+     * @return whether there are named free variables
+     */
+    public boolean hasFreeVariables() {
+        return freeVariables;
+    }
+
+    /**
+     * Returns whether this term is closed, i.e. it neither contains dangling indices nor named free variables.
+     * @return whether the term is closed
+     */
+    public boolean isClosed() {
+        return looseBound == 0 && !freeVariables;
+    }
+
+    /**
+     * Adds d to every dangling index which is greater or equal to cutoff.
+     * @param d the shift amount
+     * @param cutoff the number of binders between this term and the binder which is shifted
+     * @return the shifted term
+     */
+    public DBTerm shift(int d, int cutoff) {
+        if (looseBound <= cutoff) {
+            return this;
+        }
+        return new IndexTransformation() {
+            @Override
+            DBTerm replace(DBTerm index, int depth) {
+                return new DBIndex(((DBIndex) index).getIndex() + d);
+            }
+        }.apply(this, cutoff);
+    }
+
+    /**
+     * Replaces the dangling index depth by the given term and decrements all greater dangling indices.
+     * This is the substitution t[0 / r] needed for a beta reduction, generalized to terms below depth binders.
+     * The replacement is specified relative to the outermost level and will be shifted where it is inserted.
+     * @param depth the number of binders between this term and the abstraction which is reduced
+     * @param replacement the term which replaces the index
+     * @return the instantiated term
+     */
+    public DBTerm instantiate(int depth, DBTerm replacement) {
+        if (looseBound <= depth) {
+            return this;
+        }
+        return new IndexTransformation() {
+            @Override
+            DBTerm replace(DBTerm leaf, int indexDepth) {
+                int index = ((DBIndex) leaf).getIndex();
+                if (index == indexDepth) {
+                    // this is the variable of the reduced abstraction
+                    return replacement.shift(indexDepth, 0);
+                }
+                // bound outside of the reduced abstraction, which just disappeared
+                return new DBIndex(index - 1);
+            }
+        }.apply(this, depth);
+    }
+
+    /**
+     * Binds the free variable with the given name by a new abstraction around this term. This is the inverse of
+     * instantiating the abstraction with the free variable.
+     * @param name the name of the free variable
+     * @param hint the name of the bound variable, which is used for printing
+     * @return the abstraction
+     */
+    public DBAbstraction bind(String name, String hint) {
+        DBTerm body = new IndexTransformation() {
+            @Override
+            boolean isUnchanged(DBTerm term, int depth) {
+                return !term.hasFreeVariables() && term.getLooseBound() <= depth;
+            }
+
+            @Override
+            DBTerm replace(DBTerm leaf, int depth) {
+                if (leaf instanceof DBIndex) {
+                    // a dangling index, which now has one more binder to skip
+                    return new DBIndex(((DBIndex) leaf).getIndex() + 1);
+                }
+                else if (leaf instanceof DBFreeVariable && ((DBFreeVariable) leaf).getName().equals(name)) {
+                    return new DBIndex(depth);
+                }
+                return leaf;
+            }
+        }.apply(this, 0);
+        return new DBAbstraction(hint, body);
+    }
+
+    /**
+     * Accepts a De Bruijn visitor and calls its visit method for the corresponding node.
+     * @param visitor
+     * @return
+     */
+    public abstract <T> T accept(DBVisitor<T> visitor);
+
+    /**
+     * Compares two terms structurally.
+     * @param first the first term
+     * @param second the second term
+     * @return whether the terms are equal
+     */
+    static boolean equalTerms(DBTerm first, DBTerm second) {
+        Deque<DBTerm> work = new ArrayDeque<>();
+        work.push(second);
+        work.push(first);
+
+        while (!work.isEmpty()) {
+            DBTerm a = work.pop();
+            DBTerm b = work.pop();
+            if (a == b) {
+                continue;
+            }
+            if (a.getClass() != b.getClass() || a.hashCode() != b.hashCode()) {
+                return false;
+            }
+
+            if (a instanceof DBApplication) {
+                work.push(((DBApplication) b).getRight());
+                work.push(((DBApplication) a).getRight());
+                work.push(((DBApplication) b).getLeft());
+                work.push(((DBApplication) a).getLeft());
+            }
+            else if (a instanceof DBAbstraction) {
+                // the hint is irrelevant: alpha equivalent terms are equal
+                work.push(((DBAbstraction) b).getBody());
+                work.push(((DBAbstraction) a).getBody());
+            }
+            else if (!a.equals(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the string representation of the term.
+     * @param term the term
+     * @return the string representation
+     */
+    static String print(DBTerm term) {
+        StringBuilder builder = new StringBuilder();
+        // contains terms and strings which are printed as they are
+        Deque<Object> work = new ArrayDeque<>();
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+            if (next instanceof DBApplication) {
+                work.push(")");
+                work.push(((DBApplication) next).getRight());
+                work.push(" ");
+                work.push(((DBApplication) next).getLeft());
+                builder.append("(");
+            }
+            else if (next instanceof DBAbstraction) {
+                work.push(")");
+                work.push(((DBAbstraction) next).getBody());
+                builder.append("(\u03bb.");
+            }
+            else {
+                builder.append(next);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package lambda.debruijn;
+
+/**
+ * Interface for visitors of lambda terms in De Bruijn notation.
+ */
+public interface DBVisitor<T> {
+    T visit(DBAbstraction node);
+    T visit(DBApplication node);
+    T visit(DBConstant node);
+    T visit(DBIndex node);
+    T visit(DBFreeVariable node);
+}
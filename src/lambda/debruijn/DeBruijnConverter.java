@@ -0,0 +1,220 @@
+package lambda.debruijn;
+
+import lambda.ast.*;
+
+import java.util.*;
+
+/**
+ * Converts lambda terms from the named representation to De Bruijn notation and back.
+ */
+public class DeBruijnConverter {
+    /**
+     * Converts a named lambda term to De Bruijn notation.
+     * @param term the named term
+     * @return the equivalent term in De Bruijn notation
+     */
+    public static DBTerm toDeBruijn(ASTTerm term) {
+        // the names of the enclosing binders, innermost first
+        Deque<String> binders = new ArrayDeque<>();
+        // the work stack contains terms to convert and the nodes which are rebuilt from the results
+        Deque<Object> work = new ArrayDeque<>();
+        Deque<DBTerm> results = new ArrayDeque<>();
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+
+            if (next instanceof Rebuild) {
+                Rebuild rebuild = (Rebuild) next;
+                if (rebuild.name == null) {
+                    DBTerm right = results.pop();
+                    DBTerm left = results.pop();
+                    results.push(new DBApplication(left, right));
+                }
+                else {
+                    binders.pop();
+                    results.push(new DBAbstraction(rebuild.name, results.pop()));
+                }
+            }
+            else if (next instanceof ASTApplication) {
+                ASTApplication app = (ASTApplication) next;
+                work.push(new Rebuild(null));
+                work.push(app.getRight());
+                work.push(app.getLeft());
+            }
+            else if (next instanceof ASTAbstraction) {
+                ASTAbstraction abstraction = (ASTAbstraction) next;
+                String name = abstraction.getInput().getName();
+                binders.push(name);
+                work.push(new Rebuild(name));
+                work.push(abstraction.getOutput());
+            }
+            else if (next instanceof ASTConstant) {
+                results.push(new DBConstant((ASTConstant) next));
+            }
+            else {
+                results.push(toDeBruijn((ASTVariable) next, binders));
+            }
+        }
+
+        return results.pop();
+    }
+
+    private static DBTerm toDeBruijn(ASTVariable variable, Deque<String> binders) {
+        // the index is the number of binders between the variable and its binder
+        int index = 0;
+        for (String binder : binders) {
+            if (binder.equals(variable.getName())) {
+                return new DBIndex(index);
+            }
+            index++;
+        }
+        return new DBFreeVariable(variable.getName());
+    }
+
+    /**
+     * Converts a term in De Bruijn notation back to a named lambda term. Bound variables get the names of their
+     * original variables unless this would capture another variable, in which case an index is added to the name.
+     * @param term the term in De Bruijn notation
+     * @return the equivalent named term
+     */
+    public static ASTTerm toNamed(DBTerm term) {
+        Names names = new Names(collectFreeNames(term));
+        Deque<Object> work = new ArrayDeque<>();
+        Deque<ASTTerm> results = new ArrayDeque<>();
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+
+            if (next instanceof Rebuild) {
+                Rebuild rebuild = (Rebuild) next;
+                if (rebuild.name == null) {
+                    ASTTerm right = results.pop();
+                    ASTTerm left = results.pop();
+                    results.push(new ASTApplication(left, right));
+                }
+                else {
+                    names.unbind();
+                    results.push(new ASTAbstraction(new ASTVariable(rebuild.name), results.pop()));
+                }
+            }
+            else if (next instanceof DBApplication) {
+                DBApplication app = (DBApplication) next;
+                work.push(new Rebuild(null));
+                work.push(app.getRight());
+                work.push(app.getLeft());
+            }
+            else if (next instanceof DBAbstraction) {
+                DBAbstraction abstraction = (DBAbstraction) next;
+                work.push(new Rebuild(names.bind(abstraction.getHint())));
+                work.push(abstraction.getBody());
+            }
+            else if (next instanceof DBConstant) {
+                results.push(((DBConstant) next).getConstant());
+            }
+            else if (next instanceof DBIndex) {
+                results.push(new ASTVariable(names.get(((DBIndex) next).getIndex())));
+            }
+            else {
+                results.push(new ASTVariable(((DBFreeVariable) next).getName()));
+            }
+        }
+
+        return results.pop();
+    }
+
+    private static Set<String> collectFreeNames(DBTerm term) {
+        Set<String> names = new HashSet<>();
+        Deque<DBTerm> work = new ArrayDeque<>();
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            DBTerm next = work.pop();
+            if (!next.hasFreeVariables()) {
+                continue;
+            }
+
+            if (next instanceof DBFreeVariable) {
+                names.add(((DBFreeVariable) next).getName());
+            }
+            else if (next instanceof DBAbstraction) {
+                work.push(((DBAbstraction) next).getBody());
+            }
+            else if (next instanceof DBApplication) {
+                work.push(((DBApplication) next).getRight());
+                work.push(((DBApplication) next).getLeft());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Marks that an application (without a name) or an abstraction is rebuilt from the results on top of the stack.
+     */
+    private static class Rebuild {
+        private final String name;
+
+        private Rebuild(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * The names chosen for the enclosing binders of a term which is converted back to the named representation.
+     */
+    private static class Names {
+        private final Set<String> freeNames;
+
+        // the names of the enclosing binders, innermost last
+        private final List<String> binders = new ArrayList<>();
+        // the number of enclosing binders with each name
+        private final Map<String, Integer> bound = new HashMap<>();
+
+        private Names(Set<String> freeNames) {
+            this.freeNames = freeNames;
+        }
+
+        /**
+         * Binds a name based on the hint which neither shadows an enclosing binder nor a free variable.
+         * @param hint the name of the original variable
+         * @return the fresh name
+         */
+        private String bind(String hint) {
+            String name = hint;
+            // we simply add an index to the hint
+            int index = 0;
+            while (isTaken(name)) {
+                name = hint + index;
+                index++;
+            }
+
+            binders.add(name);
+            bound.merge(name, 1, Integer::sum);
+            return name;
+        }
+
+        /**
+         * Removes the innermost binder.
+         */
+        private void unbind() {
+            String name = binders.remove(binders.size() - 1);
+            bound.computeIfPresent(name, (key, count) -> count == 1 ? null : count - 1);
+        }
+
+        /**
+         * Returns the name of the binder of an index.
+         * @param index the De Bruijn index
+         * @return the name
+         */
+        private String get(int index) {
+            int position = binders.size() - 1 - index;
+            assert(position >= 0);
+            return binders.get(position);
+        }
+
+        private boolean isTaken(String name) {
+            return freeNames.contains(name) || bound.containsKey(name);
+        }
+    }
+}
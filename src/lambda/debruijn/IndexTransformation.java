@@ -0,0 +1,91 @@
+package lambda.debruijn;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Replaces the dangling indices (or other leaves) of a term without recursion. Subterms which are unchanged at the
+ * current depth, by default the ones without dangling indices, are shared instead of copied.
+ */
+abstract class IndexTransformation {
+    /**
+     * Returns the term which replaces a leaf which is not unchanged, i.e. by default a dangling index.
+     * @param leaf the leaf
+     * @param depth the number of binders between the leaf and the root of the transformed term plus the initial depth
+     * @return the replacement
+     */
+    abstract DBTerm replace(DBTerm leaf, int depth);
+
+    /**
+     * Returns whether the transformation leaves the term unchanged.
+     * @param term the term
+     * @param depth the depth of the term, see {@link #replace(DBTerm, int)}
+     * @return whether the term is unchanged
+     */
+    boolean isUnchanged(DBTerm term, int depth) {
+        return term.getLooseBound() <= depth;
+    }
+
+    /**
+     * Applies the transformation to the term.
+     * @param term the term
+     * @param depth the initial depth, indices below it are not dangling
+     * @return the transformed term
+     */
+    DBTerm apply(DBTerm term, int depth) {
+        // the work stack contains terms to transform and the nodes which are rebuilt from the results
+        Deque<Object> work = new ArrayDeque<>();
+        Deque<DBTerm> results = new ArrayDeque<>();
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+
+            if (next instanceof Rebuild) {
+                DBTerm node = ((Rebuild) next).node;
+                if (node instanceof DBApplication) {
+                    DBTerm right = results.pop();
+                    DBTerm left = results.pop();
+                    results.push(new DBApplication(left, right));
+                }
+                else {
+                    results.push(new DBAbstraction(((DBAbstraction) node).getHint(), results.pop()));
+                    depth--;
+                }
+                continue;
+            }
+
+            DBTerm t = (DBTerm) next;
+            if (isUnchanged(t, depth)) {
+                results.push(t);
+            }
+            else if (t instanceof DBApplication) {
+                work.push(new Rebuild(t));
+                work.push(((DBApplication) t).getRight());
+                work.push(((DBApplication) t).getLeft());
+            }
+            else if (t instanceof DBAbstraction) {
+                // the body is transformed completely before the abstraction is rebuilt, so the depth is restored then
+                work.push(new Rebuild(t));
+                work.push(((DBAbstraction) t).getBody());
+                depth++;
+            }
+            else {
+                results.push(replace(t, depth));
+            }
+        }
+
+        return results.pop();
+    }
+
+    /**
+     * Marks that the given node is rebuilt from the transformed children on top of the result stack.
+     */
+    private static class Rebuild {
+        private final DBTerm node;
+
+        private Rebuild(DBTerm node) {
+            this.node = node;
+        }
+    }
+}
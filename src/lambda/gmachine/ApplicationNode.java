@@ -0,0 +1,52 @@
+package lambda.gmachine;
+
+/**
+ * Represents the application of a function node to an argument node.
+ */
+public class ApplicationNode extends Node {
+    private final Node function;
+    private Node argument;
+
+    // whether this application is known to be in weak head normal form
+    private boolean whnf;
+
+    // the function of the fixpoint if this node is the knot of fix f, i.e. the node f (itself)
+    private Node fixFunction;
+
+    public ApplicationNode(Node function, Node argument) {
+        this.function = function;
+        this.argument = argument;
+    }
+
+    /**
+     * Creates the cyclic application f (fix f), where the argument is the node itself.
+     * @param function the function f
+     * @return the knot
+     */
+    public static ApplicationNode createFix(Node function) {
+        ApplicationNode knot = new ApplicationNode(function, null);
+        knot.argument = knot;
+        knot.fixFunction = function;
+        return knot;
+    }
+
+    public Node getFunction() {
+        return function;
+    }
+
+    public Node getArgument() {
+        return argument;
+    }
+
+    public Node getFixFunction() {
+        return fixFunction;
+    }
+
+    public boolean isWHNF() {
+        return whnf;
+    }
+
+    public void markWHNF() {
+        this.whnf = true;
+    }
+}
@@ -0,0 +1,23 @@
+package lambda.gmachine;
+
+import lambda.ast.ASTConstant;
+
+/**
+ * Represents a constant without delta rules in the heap, e.g. a number or a constructor.
+ */
+public class ConstantNode extends Node {
+    private final ASTConstant constant;
+
+    public ConstantNode(ASTConstant constant) {
+        assert(constant != null);
+        this.constant = constant;
+    }
+
+    public ASTConstant getConstant() {
+        return constant;
+    }
+
+    public Object getValue() {
+        return constant.getValue();
+    }
+}
@@ -0,0 +1,547 @@
+package lambda.gmachine;
+
+import lambda.ast.ASTConstant;
+import lambda.debruijn.*;
+import lambda.reduction.delta.*;
+
+import java.util.*;
+
+import static lambda.gmachine.Instruction.*;
+
+/**
+ * Compiles a closed lambda term to G-machine code.
+ * First, every abstraction is lambda lifted to a supercombinator whose first arguments are the variables it captures.
+ * Structurally equal abstractions share the same supercombinator. Then the body of every supercombinator is compiled
+ * with the usual compilation schemes:
+ * R (the result of the supercombinator), E (strict evaluation to WHNF) and C (lazy construction of the graph).
+ * Saturated applications of if and of the arithmetic, boolean and char functions are compiled inline in strict
+ * contexts, all other predefined functions are supercombinators of their own.
+ */
+public class GCompiler {
+    // delta rules which only work on constants
+    private static final List<DeltaReduction> CONSTANT_RULES = Arrays.asList(
+            new ArithmeticReduction(), new BooleanReduction(), new BoolNotReduction(), new CharReduction());
+
+    private List<Supercombinator> globals;
+    private Map<DBAbstraction, Integer> liftedGlobals;
+    private Map<ASTConstant, Integer> predefinedGlobals;
+    private List<ASTConstant> constants;
+    private Map<ASTConstant, Integer> constantIndices;
+
+    // the bodies of the lifted supercombinators which still need to be compiled
+    private Deque<PendingBody> pending;
+
+    /**
+     * The body of a lambda lifted supercombinator together with the mapping of its indices to arguments.
+     */
+    private static class PendingBody {
+        private final Supercombinator supercombinator;
+        private final DBTerm body;
+        private final int[] map;
+
+        private PendingBody(Supercombinator supercombinator, DBTerm body, int[] map) {
+            this.supercombinator = supercombinator;
+            this.body = body;
+            this.map = map;
+        }
+    }
+
+    /**
+     * A growable code buffer.
+     */
+    private static class CodeBuilder {
+        private int[] code = new int[16];
+        private int size = 0;
+
+        private int emit(int opcode, int operand) {
+            if (size + 2 > code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+            }
+            code[size] = opcode;
+            code[size + 1] = operand;
+            size += 2;
+            return size - 2;
+        }
+
+        private int emit(int opcode) {
+            return emit(opcode, 0);
+        }
+
+        // sets the jump target of the instruction at the given address to the current end of the code
+        private void patch(int address) {
+            code[address + 1] = size;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(code, size);
+        }
+    }
+
+    /**
+     * Compiles a closed term.
+     * @param term the term in De Bruijn notation
+     * @return the compiled program
+     */
+    public GProgram compile(DBTerm term) {
+        if (!term.isClosed()) {
+            throw new IllegalArgumentException("Only closed terms can be compiled: " + term);
+        }
+
+        globals = new ArrayList<>();
+        liftedGlobals = new HashMap<>();
+        predefinedGlobals = new HashMap<>();
+        constants = new ArrayList<>();
+        constantIndices = new HashMap<>();
+        pending = new ArrayDeque<>();
+
+        // the term itself is a supercombinator without arguments
+        Supercombinator main = new Supercombinator("main", 0, term);
+        globals.add(main);
+        pending.push(new PendingBody(main, term, new int[0]));
+
+        while (!pending.isEmpty()) {
+            PendingBody next = pending.pop();
+            CodeBuilder code = new CodeBuilder();
+            compileR(next.body, next.map, next.supercombinator.getArity(), 0, code);
+            next.supercombinator.setCode(code.toArray());
+        }
+
+        return new GProgram(globals, constants, 0);
+    }
+
+    /**
+     * Returns the number of arguments a predefined function needs before its delta rule can be applied.
+     * @param constant the constant
+     * @return the number of arguments, or 0 if it has no delta rule
+     */
+    public static int getArity(ASTConstant constant) {
+        Object value = constant.getValue();
+        if (value.equals(PredefinedFunction.IF)) {
+            return 3;
+        }
+        if (value.equals(PredefinedFunction.SEQ) || value.equals(PredefinedFunction.PSEQ) ||
+                value.equals(PredefinedFunction.PAR)) {
+            return 2;
+        }
+        if (value.equals(PredefinedFunction.FIX) ||
+                value instanceof TupleReduction.IsATuple || value instanceof TupleReduction.Sel ||
+                value instanceof ConstructorReduction.IsA || value instanceof ConstructorReduction.ArgOf) {
+            return 1;
+        }
+        DeltaReduction rule = getConstantRule(constant);
+        return rule == null ? 0 : rule.getNumberOfArguments();
+    }
+
+    /**
+     * Returns the delta rule which only works on constants for the given predefined function.
+     * @param constant the constant
+     * @return the delta rule or null if there is none
+     */
+    public static DeltaReduction getConstantRule(ASTConstant constant) {
+        for (DeltaReduction rule : CONSTANT_RULES) {
+            if (rule.isConstantMatching(constant)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * R scheme: the code which computes the result of a supercombinator, updates the root of the redex and unwinds.
+     * The map contains the stack position of each index (see {@link #offset(int, int)}).
+     */
+    private void compileR(DBTerm term, int[] map, int arity, int depth, CodeBuilder code) {
+        ASTConstant head = getConstantHead(term);
+        List<DBTerm> args = getArguments(term);
+
+        if (head != null && head.getValue().equals(PredefinedFunction.IF) && args.size() == 3) {
+            // if c t e: the branch is the result
+            compileE(args.get(0), map, depth, code);
+            int jump = code.emit(JFALSE);
+            compileR(args.get(1), map, arity, depth, code);
+            code.patch(jump);
+            compileR(args.get(2), map, arity, depth, code);
+            return;
+        }
+        if (term instanceof DBApplication && getHead(term) instanceof DBAbstraction) {
+            // (\x.b) a: the argument is pushed and b is compiled with x referring to it
+            Let let = compileLet(term, map, depth, code);
+            compileR(let.body, let.map, arity, let.depth, code);
+            return;
+        }
+
+        if (head != null && isInlinePrimitive(head, args.size())) {
+            compileE(term, map, depth, code);
+        }
+        else {
+            compileC(term, map, depth, code);
+        }
+        code.emit(UPDATE, arity + depth);
+        code.emit(POP, arity + depth);
+        code.emit(UNWIND);
+    }
+
+    /**
+     * E scheme: the code which evaluates the term to weak head normal form and pushes the result.
+     */
+    private void compileE(DBTerm term, int[] map, int depth, CodeBuilder code) {
+        ASTConstant head = getConstantHead(term);
+        List<DBTerm> args = getArguments(term);
+
+        if (head != null && head.getValue().equals(PredefinedFunction.IF) && args.size() == 3) {
+            compileE(args.get(0), map, depth, code);
+            int jumpElse = code.emit(JFALSE);
+            compileE(args.get(1), map, depth, code);
+            int jumpEnd = code.emit(JUMP);
+            code.patch(jumpElse);
+            compileE(args.get(2), map, depth, code);
+            code.patch(jumpEnd);
+        }
+        else if (term instanceof DBApplication && getHead(term) instanceof DBAbstraction) {
+            Let let = compileLet(term, map, depth, code);
+            compileE(let.body, let.map, let.depth, code);
+            code.emit(SLIDE, let.depth - depth);
+        }
+        else if (head != null && isInlinePrimitive(head, args.size())) {
+            // evaluate the arguments from right to left, so that the first argument is on top of the stack
+            for (int i = args.size() - 1; i >= 0; i--) {
+                compileE(args.get(i), map, depth + (args.size() - 1 - i), code);
+            }
+            code.emit(PRIM, getConstantIndex(head));
+        }
+        else if (term instanceof DBConstant && getArity(((DBConstant) term).getConstant()) == 0 &&
+                !((DBConstant) term).getValue().equals(PredefinedFunction.BOT)) {
+            // constants are already in WHNF
+            compileC(term, map, depth, code);
+        }
+        else {
+            compileC(term, map, depth, code);
+            code.emit(EVAL);
+        }
+    }
+
+    /**
+     * C scheme: the code which builds the graph of the term and pushes it.
+     */
+    private void compileC(DBTerm term, int[] map, int depth, CodeBuilder code) {
+        if (term instanceof DBIndex) {
+            code.emit(PUSH, offset(map[((DBIndex) term).getIndex()], depth));
+        }
+        else if (term instanceof DBConstant) {
+            ASTConstant constant = ((DBConstant) term).getConstant();
+            if (getArity(constant) > 0 || constant.getValue().equals(PredefinedFunction.BOT)) {
+                code.emit(PUSHGLOBAL, getPredefinedGlobal(constant));
+            }
+            else {
+                code.emit(PUSHCONST, getConstantIndex(constant));
+            }
+        }
+        else if (term instanceof DBApplication && getHead(term) instanceof DBAbstraction) {
+            Let let = compileLet(term, map, depth, code);
+            compileC(let.body, let.map, let.depth, code);
+            code.emit(SLIDE, let.depth - depth);
+        }
+        else if (term instanceof DBApplication) {
+            DBApplication app = (DBApplication) term;
+            compileC(app.getRight(), map, depth, code);
+            compileC(app.getLeft(), map, depth + 1, code);
+            code.emit(MKAP);
+        }
+        else if (term instanceof DBAbstraction) {
+            // the abstraction is lifted to a supercombinator which is applied to the captured variables
+            DBAbstraction abstraction = (DBAbstraction) term;
+            List<Integer> captured = getLooseIndices(abstraction);
+            for (int i = captured.size() - 1; i >= 0; i--) {
+                code.emit(PUSH, offset(map[captured.get(i)], depth + (captured.size() - 1 - i)));
+            }
+            code.emit(PUSHGLOBAL, getLiftedGlobal(abstraction, captured));
+            for (int i = 0; i < captured.size(); i++) {
+                code.emit(MKAP);
+            }
+        }
+        else {
+            throw new IllegalArgumentException("Only closed terms can be compiled: " + term);
+        }
+    }
+
+    /**
+     * Returns the offset from the top of the stack of the given stack position.
+     * Positions of arguments are negative (the argument p has the position -p-1), positions of let bound nodes are
+     * the depth at which they were pushed.
+     * @param position the stack position
+     * @param depth the number of nodes above the arguments
+     * @return the offset for PUSH
+     */
+    private static int offset(int position, int depth) {
+        return depth - position - 1;
+    }
+
+    /**
+     * The body of a redex (\x.b) a after its arguments have been pushed.
+     */
+    private static class Let {
+        private final DBTerm body;
+        private final int[] map;
+        private final int depth;
+
+        private Let(DBTerm body, int[] map, int depth) {
+            this.body = body;
+            this.map = map;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * Compiles the arguments of a redex (\x1...\xm.b) a1 ... an like a let expression, i.e. the arguments are pushed
+     * and the variables refer to them. No supercombinator and no application node needs to be created for the redex.
+     * @param term the redex
+     * @param map the stack positions of the indices
+     * @param depth the number of nodes above the arguments
+     * @param code the code
+     * @return the remaining body, the new stack positions and the new depth
+     */
+    private Let compileLet(DBTerm term, int[] map, int depth, CodeBuilder code) {
+        DBTerm body = getHead(term);
+        List<DBTerm> args = getArguments(term);
+
+        int bound = 0;
+        while (bound < args.size() && body instanceof DBAbstraction) {
+            compileC(args.get(bound), map, depth + bound, code);
+            body = ((DBAbstraction) body).getBody();
+            bound++;
+        }
+
+        // the index i < bound refers to the argument bound-1-i, the others are shifted by bound
+        int[] newMap = new int[bound + map.length];
+        for (int i = 0; i < bound; i++) {
+            newMap[i] = depth + bound - 1 - i;
+        }
+        System.arraycopy(map, 0, newMap, bound, map.length);
+
+        // the remaining arguments are moved below the new binders
+        for (int i = bound; i < args.size(); i++) {
+            body = new DBApplication(body, args.get(i).shift(bound, 0));
+        }
+
+        return new Let(body, newMap, depth + bound);
+    }
+
+    /**
+     * Returns whether a saturated application of the constant is compiled inline in strict contexts.
+     */
+    private static boolean isInlinePrimitive(ASTConstant constant, int numberOfArguments) {
+        DeltaReduction rule = getConstantRule(constant);
+        return rule != null && rule.getNumberOfArguments() == numberOfArguments;
+    }
+
+    /**
+     * Returns the index of the supercombinator for the abstraction, which is created if necessary.
+     * @param abstraction the abstraction
+     * @param captured the loose indices of the abstraction, which become the first arguments
+     * @return the global index
+     */
+    private int getLiftedGlobal(DBAbstraction abstraction, List<Integer> captured) {
+        Integer index = liftedGlobals.get(abstraction);
+        if (index != null) {
+            return index;
+        }
+
+        // collect all directly nested abstractions, they become one supercombinator
+        int m = 0;
+        DBTerm body = abstraction;
+        while (body instanceof DBAbstraction) {
+            body = ((DBAbstraction) body).getBody();
+            m++;
+        }
+        int k = captured.size();
+
+        // inside the body, index i < m is the own argument k+m-1-i, the others are captured arguments
+        int[] map = new int[Math.max(body.getLooseBound(), m)];
+        for (int i = 0; i < m; i++) {
+            map[i] = -(k + m - 1 - i) - 1;
+        }
+        int[] outerToBinder = new int[abstraction.getLooseBound()];
+        for (int p = 0; p < k; p++) {
+            int outer = captured.get(p);
+            map[outer + m] = -p - 1;
+            outerToBinder[outer] = k - 1 - p;
+        }
+
+        // the term of the supercombinator binds the captured variables as well
+        DBTerm term = remap(abstraction, 0, outerToBinder);
+        for (int p = k - 1; p >= 0; p--) {
+            term = new DBAbstraction("c", term);
+        }
+
+        Supercombinator supercombinator = new Supercombinator("sc" + globals.size(), k + m, term);
+        index = globals.size();
+        globals.add(supercombinator);
+        liftedGlobals.put(abstraction, index);
+        pending.push(new PendingBody(supercombinator, body, map));
+
+        return index;
+    }
+
+    /**
+     * Returns the index of the supercombinator which implements the predefined function.
+     * @param constant the predefined function
+     * @return the global index
+     */
+    private int getPredefinedGlobal(ASTConstant constant) {
+        Integer index = predefinedGlobals.get(constant);
+        if (index != null) {
+            return index;
+        }
+
+        Object value = constant.getValue();
+        int arity = getArity(constant);
+        CodeBuilder code = new CodeBuilder();
+
+        if (value.equals(PredefinedFunction.BOT)) {
+            // bot -> bot
+            code.emit(JUMP, 0);
+        }
+        else if (value.equals(PredefinedFunction.IF)) {
+            code.emit(PUSH, 0);
+            code.emit(EVAL);
+            int jump = code.emit(JFALSE);
+            code.emit(PUSH, 1);
+            code.emit(UPDATE, 3);
+            code.emit(POP, 3);
+            code.emit(UNWIND);
+            code.patch(jump);
+            code.emit(PUSH, 2);
+            code.emit(UPDATE, 3);
+            code.emit(POP, 3);
+            code.emit(UNWIND);
+        }
+        else if (value.equals(PredefinedFunction.FIX)) {
+            code.emit(PUSH, 0);
+            code.emit(FIX);
+            code.emit(UPDATE, 1);
+            code.emit(POP, 1);
+            code.emit(UNWIND);
+        }
+        else if (value.equals(PredefinedFunction.SEQ) || value.equals(PredefinedFunction.PSEQ) ||
+                value.equals(PredefinedFunction.PAR)) {
+            // par is evaluated sequentially, i.e. its first argument is ignored
+            if (!value.equals(PredefinedFunction.PAR)) {
+                code.emit(PUSH, 0);
+                code.emit(EVAL);
+                code.emit(POP, 1);
+            }
+            code.emit(PUSH, 1);
+            code.emit(UPDATE, 2);
+            code.emit(POP, 2);
+            code.emit(UNWIND);
+        }
+        else {
+            // all other predefined functions are strict in all of their arguments
+            for (int i = 0; i < arity; i++) {
+                code.emit(PUSH, arity - 1);
+                code.emit(EVAL);
+            }
+            code.emit(PRIM, getConstantIndex(constant));
+            code.emit(UPDATE, arity);
+            code.emit(POP, arity);
+            code.emit(UNWIND);
+        }
+
+        index = globals.size();
+        globals.add(new Supercombinator(arity, constant, code.toArray()));
+        predefinedGlobals.put(constant, index);
+        return index;
+    }
+
+    private int getConstantIndex(ASTConstant constant) {
+        Integer index = constantIndices.get(constant);
+        if (index == null) {
+            index = constants.size();
+            constants.add(constant);
+            constantIndices.put(constant, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the sorted loose indices of a term.
+     * @param term the term
+     * @return the loose indices
+     */
+    private static List<Integer> getLooseIndices(DBTerm term) {
+        SortedSet<Integer> indices = new TreeSet<>();
+        collectLooseIndices(term, 0, indices);
+        return new ArrayList<>(indices);
+    }
+
+    private static void collectLooseIndices(DBTerm term, int depth, Set<Integer> indices) {
+        if (term.getLooseBound() <= depth) {
+            return;
+        }
+        if (term instanceof DBIndex) {
+            indices.add(((DBIndex) term).getIndex() - depth);
+        }
+        else if (term instanceof DBApplication) {
+            collectLooseIndices(((DBApplication) term).getLeft(), depth, indices);
+            collectLooseIndices(((DBApplication) term).getRight(), depth, indices);
+        }
+        else if (term instanceof DBAbstraction) {
+            collectLooseIndices(((DBAbstraction) term).getBody(), depth + 1, indices);
+        }
+    }
+
+    /**
+     * Replaces every loose index i of the term by map[i].
+     * @param term the term
+     * @param depth the number of binders between the term and the context of the loose indices
+     * @param map the new indices
+     * @return the remapped term
+     */
+    private static DBTerm remap(DBTerm term, int depth, int[] map) {
+        if (term.getLooseBound() <= depth) {
+            return term;
+        }
+        if (term instanceof DBIndex) {
+            return new DBIndex(map[((DBIndex) term).getIndex() - depth] + depth);
+        }
+        else if (term instanceof DBApplication) {
+            DBApplication app = (DBApplication) term;
+            return new DBApplication(remap(app.getLeft(), depth, map), remap(app.getRight(), depth, map));
+        }
+        else {
+            DBAbstraction abstraction = (DBAbstraction) term;
+            return new DBAbstraction(abstraction.getHint(), remap(abstraction.getBody(), depth + 1, map));
+        }
+    }
+
+    /**
+     * Returns the left-most outer-most term of the application spine.
+     */
+    private static DBTerm getHead(DBTerm term) {
+        while (term instanceof DBApplication) {
+            term = ((DBApplication) term).getLeft();
+        }
+        return term;
+    }
+
+    /**
+     * Returns the constant at the head of the application spine, or null if the head is not a constant.
+     */
+    private static ASTConstant getConstantHead(DBTerm term) {
+        DBTerm head = getHead(term);
+        return head instanceof DBConstant ? ((DBConstant) head).getConstant() : null;
+    }
+
+    /**
+     * Returns the arguments of the application spine, e.g. (((a 1) (b a)) 2) results in {1, (b a), 2}.
+     */
+    private static List<DBTerm> getArguments(DBTerm term) {
+        List<DBTerm> args = new ArrayList<>();
+        while (term instanceof DBApplication) {
+            args.add(((DBApplication) term).getRight());
+            term = ((DBApplication) term).getLeft();
+        }
+        Collections.reverse(args);
+        return args;
+    }
+}
@@ -0,0 +1,588 @@
+package lambda.gmachine;
+
+import lambda.ast.ASTConstant;
+import lambda.ast.ASTTerm;
+import lambda.debruijn.*;
+import lambda.reduction.BudgetMonitor;
+import lambda.reduction.EvaluationBudget;
+import lambda.reduction.LambdaReducer;
+import lambda.reduction.delta.*;
+
+import java.util.*;
+
+import static lambda.gmachine.Instruction.*;
+
+/**
+ * Evaluates closed lambda terms by compiling them to G-machine code and executing the code.
+ * The machine consists of a stack of heap nodes, the code of the current supercombinator, and a dump which saves the
+ * state of the machine while a node is evaluated by EVAL.
+ * Like the other reducers, the final result is printed like the WHNOReducer would print it, i.e. also the arguments
+ * of constructors are evaluated.
+ */
+public class GMachine implements LambdaReducer {
+    private static final int[] UNWIND_CODE = {UNWIND, 0};
+
+    private GCompiler compiler;
+
+    // the program which is executed and its global nodes
+    private GProgram program;
+    private Node[] globalNodes;
+    private DeltaReduction[] constantRules;
+    private int[] constantArities;
+
+    // the stack of the machine
+    private Node[] stack;
+    private int sp;
+
+    // the dump: saved code, program counters and stack bases
+    private int[][] dumpCode;
+    private int[] dumpPc;
+    private int[] dumpBase;
+    private int dp;
+
+    // counts the executed instructions of each evaluation and enforces its budget
+    private final BudgetMonitor monitor;
+
+    public GMachine() {
+        this.compiler = new GCompiler();
+        this.monitor = new BudgetMonitor();
+    }
+
+    /**
+     * Compiles the term and evaluates it. In verbose mode, the compiled code is printed instead of the reduction steps.
+     * @param term a closed term
+     * @param verbose whether the code should be printed
+     * @return the result
+     */
+    @Override
+    public ASTTerm reduceToWHNF(ASTTerm term, boolean verbose) {
+        GProgram program = compiler.compile(DeBruijnConverter.toDeBruijn(term));
+        if (verbose) {
+            System.out.println(term);
+            System.out.println(program);
+        }
+
+        ASTTerm result = monitor.checkResult(DeBruijnConverter.toNamed(execute(program)));
+        if (verbose) {
+            System.out.println(" => " + result + " (" + monitor.getSteps() + " instructions)");
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of instructions which were executed during the last evaluation.
+     * @return the number of instructions
+     */
+    public long getNumberOfSteps() {
+        return monitor.getSteps();
+    }
+
+    /**
+     * Sets the limits of each following evaluation. The size of the term is only checked for the result, since the
+     * machine evaluates a graph.
+     * @param budget the budget
+     */
+    @Override
+    public void setBudget(EvaluationBudget budget) {
+        monitor.setBudget(budget);
+    }
+
+    /**
+     * Executes a compiled program and reads back its result.
+     * @param program the program
+     * @return the result in De Bruijn notation
+     */
+    public DBTerm execute(GProgram program) {
+        this.program = program;
+        this.globalNodes = new Node[program.getGlobals().length];
+        for (int i = 0; i < globalNodes.length; i++) {
+            globalNodes[i] = new GlobalNode(program.getGlobals()[i]);
+        }
+        this.constantRules = new DeltaReduction[program.getConstants().length];
+        this.constantArities = new int[program.getConstants().length];
+        for (int i = 0; i < constantRules.length; i++) {
+            constantRules[i] = GCompiler.getConstantRule(program.getConstants()[i]);
+            constantArities[i] = GCompiler.getArity(program.getConstants()[i]);
+        }
+        this.stack = new Node[64];
+        this.dumpCode = new int[16][];
+        this.dumpPc = new int[16];
+        this.dumpBase = new int[16];
+        monitor.start();
+
+        Node root = globalNodes[program.getMain()];
+        normalize(root);
+        DBTerm result = readBack(root);
+
+        // release the heap
+        this.globalNodes = null;
+        this.stack = null;
+        return result;
+    }
+
+    /**
+     * Evaluates the node and, if its head is a constant, all of its arguments.
+     * @param root the node
+     */
+    private void normalize(Node root) {
+        Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Node> todo = new ArrayDeque<>();
+        todo.push(root);
+
+        while (!todo.isEmpty()) {
+            Node node = evaluate(todo.pop());
+            if (!visited.add(node)) {
+                // this node is a part of a cyclic data structure which has already been evaluated
+                continue;
+            }
+
+            Node head = node;
+            Deque<Node> args = new ArrayDeque<>();
+            while (head instanceof ApplicationNode) {
+                args.push(((ApplicationNode) head).getArgument());
+                head = ((ApplicationNode) head).getFunction().follow();
+            }
+            if (head instanceof ConstantNode ||
+                    (head instanceof GlobalNode && ((GlobalNode) head).getSupercombinator().isPredefined())) {
+                // the arguments are pushed in reversed order so they are evaluated from left to right
+                Iterator<Node> it = args.descendingIterator();
+                while (it.hasNext()) {
+                    todo.push(it.next());
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates a node to weak head normal form by running the machine.
+     * @param node the node
+     * @return the WHNF
+     */
+    private Node evaluate(Node node) {
+        sp = 0;
+        dp = 0;
+        push(node);
+        run(UNWIND_CODE);
+        return stack[0].follow();
+    }
+
+    /**
+     * The main loop of the machine. It returns when the node at the bottom of the stack is in WHNF.
+     * @param startCode the code to start with
+     */
+    private void run(int[] startCode) {
+        int[] code = startCode;
+        int pc = 0;
+        int base = 0;
+        ASTConstant[] constants = program.getConstants();
+
+        while (true) {
+            monitor.step();
+            int operand = code[pc + 1];
+            switch (code[pc]) {
+                case PUSHGLOBAL:
+                    push(globalNodes[operand]);
+                    pc += 2;
+                    break;
+                case PUSHCONST:
+                    monitor.allocate();
+                    push(new ConstantNode(constants[operand]));
+                    pc += 2;
+                    break;
+                case PUSH:
+                    push(stack[sp - 1 - operand]);
+                    pc += 2;
+                    break;
+                case MKAP: {
+                    Node function = stack[--sp];
+                    Node argument = stack[sp - 1];
+                    monitor.allocate();
+                    stack[sp - 1] = new ApplicationNode(function, argument);
+                    pc += 2;
+                    break;
+                }
+                case UPDATE: {
+                    Node result = stack[--sp];
+                    stack[sp - 1 - operand].update(result);
+                    pc += 2;
+                    break;
+                }
+                case POP:
+                    sp -= operand;
+                    pc += 2;
+                    break;
+                case EVAL: {
+                    Node top = stack[sp - 1].follow();
+                    stack[sp - 1] = top;
+                    if (top instanceof ConstantNode || (top instanceof ApplicationNode && ((ApplicationNode) top).isWHNF())) {
+                        // already evaluated
+                        pc += 2;
+                        break;
+                    }
+                    // save the current state and unwind the node on a new stack frame
+                    pushDump(code, pc + 2, base);
+                    base = sp - 1;
+                    code = UNWIND_CODE;
+                    pc = 0;
+                    break;
+                }
+                case JFALSE: {
+                    Node condition = stack[--sp].follow();
+                    if (!(condition instanceof ConstantNode) || !(((ConstantNode) condition).getValue() instanceof Boolean)) {
+                        throw new IllegalStateException("The condition of if is not a boolean.");
+                    }
+                    pc = (Boolean) ((ConstantNode) condition).getValue() ? pc + 2 : operand;
+                    break;
+                }
+                case JUMP:
+                    pc = operand;
+                    break;
+                case SLIDE:
+                    stack[sp - 1 - operand] = stack[sp - 1];
+                    sp -= operand;
+                    pc += 2;
+                    break;
+                case PRIM:
+                    primitive(operand, constants[operand]);
+                    pc += 2;
+                    break;
+                case FIX:
+                    stack[sp - 1] = ApplicationNode.createFix(stack[sp - 1]);
+                    pc += 2;
+                    break;
+                case UNWIND: {
+                    Node top = stack[sp - 1].follow();
+                    stack[sp - 1] = top;
+
+                    if (top instanceof ApplicationNode && !(sp - 1 == base && ((ApplicationNode) top).isWHNF())) {
+                        push(((ApplicationNode) top).getFunction());
+                        break;
+                    }
+
+                    if (top instanceof GlobalNode) {
+                        Supercombinator sc = ((GlobalNode) top).getSupercombinator();
+                        int arity = sc.getArity();
+                        int args = sp - 1 - base;
+                        if (args >= arity && !(arity > 0 && isWHNF(stack[sp - 1 - arity]))) {
+                            // replace the application nodes by their arguments, the root of the redex stays below them
+                            for (int i = 1; i <= arity; i++) {
+                                stack[sp - i] = ((ApplicationNode) stack[sp - 1 - i]).getArgument();
+                            }
+                            code = sc.getCode();
+                            pc = 0;
+                            break;
+                        }
+                    }
+
+                    // the root of this frame is in WHNF, so return to the saved state
+                    Node value = stack[base].follow();
+                    if (value instanceof ApplicationNode) {
+                        ((ApplicationNode) value).markWHNF();
+                    }
+                    sp = base + 1;
+                    stack[base] = value;
+                    if (dp == 0) {
+                        return;
+                    }
+                    dp--;
+                    code = dumpCode[dp];
+                    pc = dumpPc[dp];
+                    base = dumpBase[dp];
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown instruction " + code[pc]);
+            }
+        }
+    }
+
+    private static boolean isWHNF(Node node) {
+        return node instanceof ApplicationNode && ((ApplicationNode) node).isWHNF();
+    }
+
+    /**
+     * Pops the evaluated arguments of a predefined function and pushes the result of its delta rule. If no delta rule
+     * can be applied, the application is pushed as a value.
+     * @param index the index of the constant
+     * @param constant the predefined function
+     */
+    private void primitive(int index, ASTConstant constant) {
+        int arity = constantArities[index];
+        Node[] args = new Node[arity];
+        for (int i = 0; i < arity; i++) {
+            args[i] = stack[--sp].follow();
+        }
+
+        Node result = applyDeltaRule(index, constant, args);
+        if (result == null) {
+            // no delta rule could be applied, so the application is in WHNF
+            Node app = new ConstantNode(constant);
+            for (Node arg : args) {
+                app = new ApplicationNode(app, arg);
+            }
+            ((ApplicationNode) app).markWHNF();
+            result = app;
+        }
+        push(result);
+    }
+
+    /**
+     * Applies the delta rule of a predefined function to its evaluated arguments.
+     * @return the result or null if no rule could be applied
+     */
+    private Node applyDeltaRule(int index, ASTConstant constant, Node[] args) {
+        Object function = constant.getValue();
+        DeltaReduction rule = constantRules[index];
+
+        if (rule != null) {
+            if (args.length == 2 && function instanceof PredefinedFunction && args[0] instanceof ConstantNode &&
+                    args[1] instanceof ConstantNode) {
+                // fast path for the arithmetic on integers, which does not need to build lists of arguments
+                Object n0 = ((ConstantNode) args[0]).getValue();
+                Object n1 = ((ConstantNode) args[1]).getValue();
+                if (n0 instanceof Integer && n1 instanceof Integer) {
+                    Object result = IntegerArithmetic.apply((PredefinedFunction) function, (int) n0, (int) n1);
+                    if (result != null) {
+                        return new ConstantNode(ASTConstant.of(result));
+                    }
+                }
+            }
+
+            List<lambda.ast.ASTTerm> constantArgs = new ArrayList<>(args.length);
+            for (Node arg : args) {
+                if (!(arg instanceof ConstantNode)) {
+                    return null;
+                }
+                constantArgs.add(((ConstantNode) arg).getConstant());
+            }
+            Optional<lambda.ast.ASTTerm> result = rule.getRHS(constant, constantArgs);
+            if (result.isPresent() && result.get() instanceof ASTConstant) {
+                return new ConstantNode((ASTConstant) result.get());
+            }
+            return null;
+        }
+
+        Node arg = args[0];
+        Node constr = getHead(arg);
+        if (!(constr instanceof ConstantNode)) {
+            return null;
+        }
+        Object constrValue = ((ConstantNode) constr).getValue();
+
+        if (function instanceof TupleReduction.IsATuple || function instanceof TupleReduction.Sel) {
+            if (constrValue instanceof TupleReduction.TupleConstant) {
+                List<Node> tupleArgs = getArguments(arg);
+                if (function instanceof TupleReduction.IsATuple) {
+                    boolean isTuple = ((TupleReduction.IsATuple) function).getN() == tupleArgs.size();
+                    return new ConstantNode(new ASTConstant(isTuple));
+                }
+                TupleReduction.Sel sel = (TupleReduction.Sel) function;
+                if (sel.getN() == tupleArgs.size()) {
+                    // -1 because sel is starts counting at 1
+                    return tupleArgs.get(sel.getI() - 1);
+                }
+            }
+        }
+        else if (function instanceof ConstructorReduction.IsA) {
+            Object isaValue = ((ConstructorReduction.IsA) function).getValue();
+
+            // we can only reduce it to true or false if the constructor classes match our isa_constructor
+            if (((ConstructorReduction.IsA<?>) function).isApplicable(constrValue)) {
+                return new ConstantNode(new ASTConstant(constrValue.equals(isaValue)));
+            }
+        }
+        else if (function instanceof ConstructorReduction.ArgOf) {
+            if (constrValue.equals(((ConstructorReduction.ArgOf) function).getConstr())) {
+                List<Node> constrArgs = getArguments(arg);
+                if (constrArgs.size() == 1) {
+                    // there are no 1-sized tuples
+                    return constrArgs.get(0);
+                }
+                Node tuple = new ConstantNode(new ASTConstant(TupleReduction.getTupleConstructor(constrArgs.size())));
+                for (Node t : constrArgs) {
+                    tuple = new ApplicationNode(tuple, t);
+                }
+                return tuple;
+            }
+        }
+
+        return null;
+    }
+
+    private static Node getHead(Node node) {
+        node = node.follow();
+        while (node instanceof ApplicationNode) {
+            node = ((ApplicationNode) node).getFunction().follow();
+        }
+        return node;
+    }
+
+    private static List<Node> getArguments(Node node) {
+        List<Node> args = new ArrayList<>();
+        node = node.follow();
+        while (node instanceof ApplicationNode) {
+            args.add(((ApplicationNode) node).getArgument());
+            node = ((ApplicationNode) node).getFunction().follow();
+        }
+        Collections.reverse(args);
+        return args;
+    }
+
+    private void push(Node node) {
+        if (sp == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[sp++] = node;
+    }
+
+    private void pushDump(int[] code, int pc, int base) {
+        if (dp == dumpPc.length) {
+            dumpCode = Arrays.copyOf(dumpCode, dp * 2);
+            dumpPc = Arrays.copyOf(dumpPc, dp * 2);
+            dumpBase = Arrays.copyOf(dumpBase, dp * 2);
+        }
+        dumpCode[dp] = code;
+        dumpPc[dp] = pc;
+        dumpBase[dp] = base;
+        dp++;
+    }
+
+    /**
+     * Converts a node back to a term without evaluating it. Cycles are printed as fix applications.
+     * The graph is traversed with an explicit work stack, so the depth of the result is only limited by the heap.
+     * @param root the node
+     * @return the corresponding term
+     */
+    private DBTerm readBack(Node root) {
+        // the nodes and values which are currently being converted, i.e. the ancestors of the next node
+        Set<Node> path = Collections.newSetFromMap(new IdentityHashMap<>());
+        // the free variables which stand for values of the path which are referred to by their own terms
+        Map<Node, String> cycles = new IdentityHashMap<>();
+        int numberOfCycles = 0;
+        // the work stack contains nodes to convert and the terms which are rebuilt from the results
+        Deque<Object> work = new ArrayDeque<>();
+        Deque<DBTerm> results = new ArrayDeque<>();
+        work.push(root);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+
+            if (next instanceof FixKnot) {
+                results.push(new DBApplication(new DBConstant(new ASTConstant(PredefinedFunction.FIX)), results.pop()));
+                continue;
+            }
+            else if (next instanceof Rebuild) {
+                Rebuild rebuild = (Rebuild) next;
+                DBTerm result = rebuild.build(results);
+                path.remove(rebuild.node);
+                path.remove(rebuild.value);
+                String cycle = cycles.remove(rebuild.value);
+                if (cycle != null) {
+                    // the value refers to itself without a fix knot, so it is printed as fix (\x.t) where x is the value
+                    DBTerm fix = new DBConstant(new ASTConstant(PredefinedFunction.FIX));
+                    result = new DBApplication(fix, result.bind(cycle, "x"));
+                }
+                results.push(result);
+                continue;
+            }
+
+            Node node = (Node) next;
+            Node value = node.follow();
+            if (node instanceof ApplicationNode && ((ApplicationNode) node).getFixFunction() != null &&
+                    (!node.isUpdated() || path.contains(node) || path.contains(value))) {
+                work.push(new FixKnot());
+                work.push(((ApplicationNode) node).getFixFunction());
+                continue;
+            }
+            if (path.contains(value)) {
+                // the value is an ancestor of itself, so it is replaced by a free variable which is bound later
+                String cycle = cycles.get(value);
+                if (cycle == null) {
+                    cycle = "#" + numberOfCycles++;
+                    cycles.put(value, cycle);
+                }
+                results.push(new DBFreeVariable(cycle));
+                continue;
+            }
+
+            path.add(node);
+            path.add(value);
+
+            Node head = value;
+            List<Node> args = new ArrayList<>();
+            while (head instanceof ApplicationNode) {
+                args.add(((ApplicationNode) head).getArgument());
+                head = ((ApplicationNode) head).getFunction().follow();
+            }
+
+            DBTerm term;
+            int instantiated = 0;
+            if (head instanceof ConstantNode) {
+                term = new DBConstant(((ConstantNode) head).getConstant());
+            }
+            else {
+                Supercombinator sc = ((GlobalNode) head).getSupercombinator();
+                if (sc.isPredefined()) {
+                    term = new DBConstant(sc.getConstant());
+                }
+                else {
+                    // the arguments are substituted into the term of the supercombinator
+                    term = sc.getTerm();
+                    instantiated = Math.min(args.size(), sc.getArity());
+                }
+            }
+
+            // the arguments were collected in reversed order, so they are converted from left to right
+            work.push(new Rebuild(node, value, term, instantiated, args.size()));
+            for (Node arg : args) {
+                work.push(arg);
+            }
+        }
+
+        return results.pop();
+    }
+
+    /**
+     * Marks that the term on top of the result stack is the function of a fix knot.
+     */
+    private static class FixKnot {
+    }
+
+    /**
+     * Marks that the term of a node is rebuilt from the converted arguments on top of the result stack.
+     */
+    private static class Rebuild {
+        private final Node node;
+        private final Node value;
+        private final DBTerm term;
+        // the number of arguments which are substituted into the abstractions of the term
+        private final int instantiated;
+        private final int arguments;
+
+        private Rebuild(Node node, Node value, DBTerm term, int instantiated, int arguments) {
+            this.node = node;
+            this.value = value;
+            this.term = term;
+            this.instantiated = instantiated;
+            this.arguments = arguments;
+        }
+
+        private DBTerm build(Deque<DBTerm> results) {
+            DBTerm[] args = new DBTerm[arguments];
+            for (int i = arguments - 1; i >= 0; i--) {
+                args[i] = results.pop();
+            }
+
+            DBTerm result = term;
+            for (int i = 0; i < arguments; i++) {
+                if (i < instantiated) {
+                    result = ((DBAbstraction) result).getBody().instantiate(0, args[i]);
+                }
+                else {
+                    result = new DBApplication(result, args[i]);
+                }
+            }
+            return result;
+        }
+    }
+}
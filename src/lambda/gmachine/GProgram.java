@@ -0,0 +1,45 @@
+package lambda.gmachine;
+
+import lambda.ast.ASTConstant;
+
+import java.util.List;
+
+/**
+ * A compiled lambda term: the supercombinators with their code and the constant pool.
+ */
+public class GProgram {
+    private final Supercombinator[] globals;
+    private final ASTConstant[] constants;
+    private final int main;
+
+    public GProgram(List<Supercombinator> globals, List<ASTConstant> constants, int main) {
+        this.globals = globals.toArray(new Supercombinator[globals.size()]);
+        this.constants = constants.toArray(new ASTConstant[constants.size()]);
+        this.main = main;
+    }
+
+    public Supercombinator[] getGlobals() {
+        return globals;
+    }
+
+    public ASTConstant[] getConstants() {
+        return constants;
+    }
+
+    /**
+     * Returns the index of the supercombinator without arguments which represents the compiled term.
+     * @return the index of the main supercombinator
+     */
+    public int getMain() {
+        return main;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Supercombinator sc : globals) {
+            builder.append(sc).append(":\n").append(Instruction.toString(sc.getCode()));
+        }
+        return builder.toString();
+    }
+}
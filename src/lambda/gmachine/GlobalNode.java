@@ -0,0 +1,17 @@
+package lambda.gmachine;
+
+/**
+ * Represents a supercombinator in the heap.
+ */
+public class GlobalNode extends Node {
+    private final Supercombinator supercombinator;
+
+    public GlobalNode(Supercombinator supercombinator) {
+        assert(supercombinator != null);
+        this.supercombinator = supercombinator;
+    }
+
+    public Supercombinator getSupercombinator() {
+        return supercombinator;
+    }
+}
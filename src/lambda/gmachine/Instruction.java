@@ -0,0 +1,54 @@
+package lambda.gmachine;
+
+/**
+ * The instructions of the G-machine. Every instruction consists of its opcode followed by one operand, so the code
+ * of a supercombinator is simply an int array.
+ */
+public final class Instruction {
+    // pushes the node of the global with the given index
+    public static final int PUSHGLOBAL = 0;
+    // pushes the constant with the given index of the constant pool
+    public static final int PUSHCONST = 1;
+    // pushes the node with the given offset from the top of the stack
+    public static final int PUSH = 2;
+    // pops a function and an argument and pushes their application
+    public static final int MKAP = 3;
+    // pops the result and overwrites the root of the redex at the given offset with an indirection to it
+    public static final int UPDATE = 4;
+    // pops the given number of nodes
+    public static final int POP = 5;
+    // unwinds the spine of the top node and enters the supercombinator at its head
+    public static final int UNWIND = 6;
+    // evaluates the top node to weak head normal form
+    public static final int EVAL = 7;
+    // pops a boolean and jumps to the given address if it is false
+    public static final int JFALSE = 8;
+    // jumps to the given address
+    public static final int JUMP = 9;
+    // pops the evaluated arguments and applies the delta rule of the constant with the given index
+    public static final int PRIM = 10;
+    // pops f and pushes the cyclic graph f (fix f)
+    public static final int FIX = 11;
+    // pops the top node, pops the given number of nodes and pushes the top node again
+    public static final int SLIDE = 12;
+
+    private static final String[] NAMES = {
+            "PUSHGLOBAL", "PUSHCONST", "PUSH", "MKAP", "UPDATE", "POP", "UNWIND", "EVAL", "JFALSE", "JUMP", "PRIM", "FIX",
+            "SLIDE"
+    };
+
+    private Instruction() {}
+
+    /**
+     * Returns a readable listing of the given code.
+     * @param code the code
+     * @return the listing
+     */
+    public static String toString(int[] code) {
+        StringBuilder builder = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc += 2) {
+            builder.append(pc).append(": ").append(NAMES[code[pc]]).append(" ").append(code[pc + 1]).append("\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,36 @@
+package lambda.gmachine;
+
+/**
+ * Abstract super class for the nodes in the heap of the G-machine.
+ * The root of a redex is overwritten by an indirection to its result, so shared redexes are reduced only once.
+ */
+public abstract class Node {
+    private Node indirection;
+
+    /**
+     * Follows the indirections of this node.
+     * @return the node which currently represents the value of this node
+     */
+    public Node follow() {
+        Node node = this;
+        while (node.indirection != null) {
+            node = node.indirection;
+        }
+        return node;
+    }
+
+    /**
+     * Overwrites this node with an indirection to the given node.
+     * @param result the result of the redex this node is the root of
+     */
+    public void update(Node result) {
+        Node target = result.follow();
+        if (target != this) {
+            this.indirection = target;
+        }
+    }
+
+    public boolean isUpdated() {
+        return indirection != null;
+    }
+}
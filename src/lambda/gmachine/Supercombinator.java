@@ -0,0 +1,85 @@
+package lambda.gmachine;
+
+import lambda.ast.ASTConstant;
+import lambda.debruijn.DBTerm;
+
+/**
+ * A compiled supercombinator, i.e. a function without free variables which takes a fixed number of arguments.
+ * Supercombinators are either lambda lifted abstractions of the compiled term or predefined functions with delta
+ * rules.
+ */
+public class Supercombinator {
+    private final String name;
+    private final int arity;
+    private final DBTerm term;
+    private final ASTConstant constant;
+    private int[] code;
+
+    /**
+     * Creates a lambda lifted supercombinator.
+     * @param name the name (used for printing the code)
+     * @param arity the number of arguments
+     * @param term the closed term this supercombinator was compiled from, i.e. an abstraction over all arguments
+     */
+    public Supercombinator(String name, int arity, DBTerm term) {
+        this.name = name;
+        this.arity = arity;
+        this.term = term;
+        this.constant = null;
+    }
+
+    /**
+     * Creates a supercombinator which implements the delta rules of a predefined function.
+     * @param arity the number of arguments
+     * @param constant the predefined function
+     * @param code the code
+     */
+    public Supercombinator(int arity, ASTConstant constant, int[] code) {
+        this.name = constant.toString();
+        this.arity = arity;
+        this.term = null;
+        this.constant = constant;
+        this.code = code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * Returns the term this supercombinator was compiled from, or null if it is a predefined function.
+     * @return the term
+     */
+    public DBTerm getTerm() {
+        return term;
+    }
+
+    /**
+     * Returns the predefined function this supercombinator implements, or null if it was lambda lifted.
+     * @return the constant
+     */
+    public ASTConstant getConstant() {
+        return constant;
+    }
+
+    public boolean isPredefined() {
+        return constant != null;
+    }
+
+    public int[] getCode() {
+        return code;
+    }
+
+    public void setCode(int[] code) {
+        this.code = code;
+    }
+
+    @Override
+    public String toString() {
+        return name + "/" + arity;
+    }
+}
@@ -0,0 +1,52 @@
+package lambda.graph;
+
+/**
+ * Represents a (possibly unevaluated) application of a function node to an argument node.
+ * The argument node is shared between all places it is substituted for.
+ */
+public class ApplicationNode extends GraphNode {
+    private final GraphNode function;
+    private final GraphNode argument;
+
+    // whether this application is known to be in weak head normal form
+    private boolean whnf;
+
+    // the function of the fixpoint this node is a part of, if it is the knot of an unfolded fix application
+    private GraphNode fixFunction;
+
+    public ApplicationNode(GraphNode function, GraphNode argument) {
+        assert(function != null);
+        assert(argument != null);
+        this.function = function;
+        this.argument = argument;
+        this.whnf = false;
+    }
+
+    public GraphNode getFunction() {
+        return function;
+    }
+
+    public GraphNode getArgument() {
+        return argument;
+    }
+
+    public boolean isWHNF() {
+        return whnf;
+    }
+
+    public void markWHNF() {
+        this.whnf = true;
+    }
+
+    public GraphNode getFixFunction() {
+        return fixFunction;
+    }
+
+    /**
+     * Marks this application (fix f) as the knot of a cyclic graph, i.e. its result refers back to itself.
+     * @param fixFunction the function f
+     */
+    public void markFixKnot(GraphNode fixFunction) {
+        this.fixFunction = fixFunction;
+    }
+}
@@ -0,0 +1,26 @@
+package lambda.graph;
+
+import lambda.ast.ASTAbstraction;
+
+/**
+ * Represents a lambda abstraction together with the environment of its free variables.
+ * Its body is only instantiated when the closure is applied to an argument.
+ */
+public class ClosureNode extends GraphNode {
+    private final ASTAbstraction abstraction;
+    private final Environment environment;
+
+    public ClosureNode(ASTAbstraction abstraction, Environment environment) {
+        assert(abstraction != null);
+        this.abstraction = abstraction;
+        this.environment = environment;
+    }
+
+    public ASTAbstraction getAbstraction() {
+        return abstraction;
+    }
+
+    public Environment getEnvironment() {
+        return environment;
+    }
+}
@@ -0,0 +1,23 @@
+package lambda.graph;
+
+import lambda.ast.ASTConstant;
+
+/**
+ * Represents a constant, i.e. a value or a predefined function.
+ */
+public class ConstantNode extends GraphNode {
+    private final ASTConstant constant;
+
+    public ConstantNode(ASTConstant constant) {
+        assert(constant != null);
+        this.constant = constant;
+    }
+
+    public ASTConstant getConstant() {
+        return constant;
+    }
+
+    public Object getValue() {
+        return constant.getValue();
+    }
+}
@@ -0,0 +1,48 @@
+package lambda.graph;
+
+import lambda.ast.ASTVariable;
+
+/**
+ * An immutable mapping of bound variables to the (shared) nodes they stand for.
+ * Extending an environment does not copy it, so closures can share their environments.
+ */
+public class Environment {
+    private final ASTVariable variable;
+    private final GraphNode node;
+    private final Environment parent;
+
+    private Environment(ASTVariable variable, GraphNode node, Environment parent) {
+        this.variable = variable;
+        this.node = node;
+        this.parent = parent;
+    }
+
+    /**
+     * Returns a new environment which additionally binds the variable to the node.
+     * @param env the environment which is extended, or null for the empty environment
+     * @param variable the variable
+     * @param node the node
+     * @return the extended environment
+     */
+    public static Environment extend(Environment env, ASTVariable variable, GraphNode node) {
+        assert(variable != null);
+        assert(node != null);
+        return new Environment(variable, node, env);
+    }
+
+    /**
+     * Looks up the node of a variable.
+     * @param env the environment, or null for the empty environment
+     * @param variable the variable
+     * @return the node or null if the variable is not bound
+     */
+    public static GraphNode lookup(Environment env, ASTVariable variable) {
+        while (env != null) {
+            if (env.variable.equals(variable)) {
+                return env.node;
+            }
+            env = env.parent;
+        }
+        return null;
+    }
+}
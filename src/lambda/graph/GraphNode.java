@@ -0,0 +1,51 @@
+package lambda.graph;
+
+/**
+ * Abstract super class for nodes of the graph which is reduced by the graph reducer.
+ * When a node is reduced, it is overwritten by an indirection to its result, so every other node which shares it
+ * sees the result as well. This way, each shared subgraph is reduced at most once.
+ */
+public abstract class GraphNode {
+    private GraphNode indirection;
+
+    /**
+     * Follows the indirections of this node to the node which currently represents its value.
+     * @return the current node
+     */
+    public GraphNode follow() {
+        GraphNode node = this;
+        while (node.indirection != null) {
+            node = node.indirection;
+        }
+
+        // shorten the chain so that the next lookup is faster
+        GraphNode current = this;
+        while (current.indirection != null && current.indirection != node) {
+            GraphNode next = current.indirection;
+            current.indirection = node;
+            current = next;
+        }
+
+        return node;
+    }
+
+    /**
+     * Overwrites this node with an indirection to the given result.
+     * @param result the result of the reduction of this node
+     */
+    public void update(GraphNode result) {
+        assert(result != null);
+        GraphNode target = result.follow();
+        if (target != this) {
+            this.indirection = target;
+        }
+    }
+
+    /**
+     * Returns whether this node has been overwritten by an indirection.
+     * @return whether this node has been updated
+     */
+    public boolean isUpdated() {
+        return indirection != null;
+    }
+}
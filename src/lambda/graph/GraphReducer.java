@@ -0,0 +1,551 @@
+package lambda.graph;
+
+import lambda.ast.*;
+import lambda.reduction.BudgetMonitor;
+import lambda.reduction.EvaluationBudget;
+import lambda.reduction.LambdaReducer;
+import lambda.reduction.delta.*;
+
+import java.util.*;
+
+/**
+ * Reduces lambda terms by call-by-need graph reduction.
+ * In contrast to the WHNOReducer, a beta reduction does not copy the argument into every occurrence of the variable.
+ * Instead, all occurrences share the same node, which is overwritten with its result once it has been reduced.
+ * Thus, every argument is reduced at most once. The fix point combinator ties a knot, i.e. fix t becomes a cyclic
+ * graph t (fix t) where the inner fix t is the node itself.
+ * The final result is reduced in the same way as by the WHNOReducer, i.e. also the arguments of constructors are
+ * reduced.
+ */
+public class GraphReducer implements LambdaReducer {
+    // if True -> \x.\y.x, if False -> \x.\y.y
+    private static final ASTAbstraction IF_TRUE;
+    private static final ASTAbstraction IF_FALSE;
+    // seq a -> \y.y after a is evaluated, par a -> \y.y without evaluating a
+    private static final ASTAbstraction IDENTITY;
+
+    static {
+        ASTVariable x = new ASTVariable("x");
+        ASTVariable y = new ASTVariable("y");
+        IF_TRUE = new ASTAbstraction(x, new ASTAbstraction(y, x));
+        IF_FALSE = new ASTAbstraction(x, new ASTAbstraction(y, y));
+        IDENTITY = new ASTAbstraction(y, y);
+    }
+
+    // delta rules which only work on constants, so they can be applied to the wrapped constants directly
+    private List<DeltaReduction> constantRules;
+
+    // counts the reduction steps of each reduction and enforces its budget
+    private final BudgetMonitor monitor;
+
+    /**
+     * Represents the evaluation of one node to weak head normal form.
+     */
+    private static class Frame {
+        private final GraphNode root;
+        private final Deque<ApplicationNode> spine;
+
+        private Frame(GraphNode root) {
+            this.root = root;
+            this.spine = new ArrayDeque<>();
+        }
+    }
+
+    public GraphReducer() {
+        constantRules = new ArrayList<>();
+        constantRules.add(new ArithmeticReduction());
+        constantRules.add(new BooleanReduction());
+        constantRules.add(new BoolNotReduction());
+        constantRules.add(new CharReduction());
+        monitor = new BudgetMonitor();
+    }
+
+    /**
+     * Reduces a term to weak head order normal form.
+     * @param term the term
+     * @param verbose whether reduction steps should be printed
+     * @return the WHNF
+     */
+    @Override
+    public ASTTerm reduceToWHNF(ASTTerm term, boolean verbose) {
+        if (verbose) {
+            System.out.println(term);
+        }
+        monitor.start();
+
+        GraphNode root = instantiate(term, null);
+        normalize(root, verbose);
+
+        return monitor.checkResult(readBack(root));
+    }
+
+    /**
+     * Returns the number of reduction steps which were applied during the last reduction.
+     * @return the number of steps
+     */
+    public long getNumberOfSteps() {
+        return monitor.getSteps();
+    }
+
+    /**
+     * Sets the limits of each following reduction. The size of the term is only checked for the result, since the
+     * reducer shares the subterms of a graph.
+     * @param budget the budget
+     */
+    @Override
+    public void setBudget(EvaluationBudget budget) {
+        monitor.setBudget(budget);
+    }
+
+    /**
+     * Builds the graph of a term. Bound variables are replaced by the nodes they are bound to in the environment.
+     * @param term the term
+     * @param env the environment
+     * @return the graph node
+     */
+    private GraphNode instantiate(ASTTerm term, Environment env) {
+        monitor.allocate();
+        if (term instanceof ASTApplication) {
+            ASTApplication app = (ASTApplication) term;
+            return new ApplicationNode(instantiate(app.getLeft(), env), instantiate(app.getRight(), env));
+        }
+        else if (term instanceof ASTAbstraction) {
+            return new ClosureNode((ASTAbstraction) term, env);
+        }
+        else if (term instanceof ASTVariable) {
+            GraphNode node = Environment.lookup(env, (ASTVariable) term);
+            if (node == null) {
+                // this is a free variable of the whole term
+                node = new VariableNode((ASTVariable) term);
+            }
+            return node;
+        }
+        else {
+            assert(term instanceof ASTConstant);
+            return new ConstantNode((ASTConstant) term);
+        }
+    }
+
+    /**
+     * Reduces the graph like the WHNOReducer would: first the node itself is reduced to weak head normal form, and
+     * if its head is a constant or a free variable, then also its arguments are reduced.
+     * @param root the root of the graph
+     * @param verbose whether reduction steps should be printed
+     */
+    private void normalize(GraphNode root, boolean verbose) {
+        Set<GraphNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<GraphNode> todo = new ArrayDeque<>();
+        todo.push(root);
+
+        while (!todo.isEmpty()) {
+            GraphNode node = evaluate(todo.pop(), root, verbose);
+            if (!visited.add(node)) {
+                // this node is a part of a cyclic data structure which has already been reduced
+                continue;
+            }
+
+            // the arguments are pushed in reversed order so they are reduced from left to right
+            GraphNode head = node;
+            Deque<GraphNode> args = new ArrayDeque<>();
+            while (head instanceof ApplicationNode) {
+                args.push(((ApplicationNode) head).getArgument());
+                head = ((ApplicationNode) head).getFunction().follow();
+            }
+            if (head instanceof ConstantNode || head instanceof VariableNode) {
+                Iterator<GraphNode> it = args.descendingIterator();
+                while (it.hasNext()) {
+                    todo.push(it.next());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduces a node to weak head normal form. The node is updated with its result.
+     * Strict arguments of delta rules are evaluated on a new frame while the current frame is kept on the dump.
+     * @param node the node
+     * @param root the root of the whole graph (used for printing)
+     * @param verbose whether reduction steps should be printed
+     * @return the weak head normal form of the node
+     */
+    private GraphNode evaluate(GraphNode node, GraphNode root, boolean verbose) {
+        Deque<Frame> dump = new ArrayDeque<>();
+        Frame frame = new Frame(node);
+        GraphNode current = node;
+
+        while (true) {
+            // unwind the spine down to its head
+            GraphNode head = current.follow();
+            while (head instanceof ApplicationNode) {
+                frame.spine.push((ApplicationNode) head);
+                head = ((ApplicationNode) head).getFunction().follow();
+            }
+
+            GraphNode reduced = null;
+            GraphNode strictArgument = null;
+
+            if (head instanceof ClosureNode && !frame.spine.isEmpty()) {
+                // beta reduction: (\x.t) r -> t with x bound to the shared node r
+                ClosureNode closure = (ClosureNode) head;
+                ApplicationNode app = frame.spine.pop();
+                Environment env = Environment.extend(closure.getEnvironment(),
+                        closure.getAbstraction().getInput(), app.getArgument());
+                app.update(instantiate(closure.getAbstraction().getOutput(), env));
+                reduced = app;
+            }
+            else if (head instanceof ConstantNode) {
+                ConstantNode constant = (ConstantNode) head;
+                if (constant.getValue().equals(PredefinedFunction.BOT)) {
+                    // bot -> bot
+                    frame.spine.clear();
+                    reduced = frame.root;
+                }
+                else {
+                    int arity = getArity(constant);
+                    if (arity > 0 && frame.spine.size() >= arity) {
+                        // the saturated application is the arity-th node on the spine
+                        List<GraphNode> args = new ArrayList<>();
+                        ApplicationNode app = null;
+                        Iterator<ApplicationNode> it = frame.spine.iterator();
+                        for (int i = 0; i < arity; i++) {
+                            app = it.next();
+                            args.add(app.getArgument());
+                        }
+
+                        if (!constant.getValue().equals(PredefinedFunction.FIX) &&
+                                !constant.getValue().equals(PredefinedFunction.PAR)) {
+                            // all other delta rules are strict in all of their arguments
+                            for (GraphNode arg : args) {
+                                if (!isWHNF(arg)) {
+                                    strictArgument = arg;
+                                    break;
+                                }
+                            }
+                        }
+
+                        if (strictArgument == null) {
+                            Optional<GraphNode> result = applyDeltaRule(constant, args, app);
+                            if (result.isPresent()) {
+                                for (int i = 0; i < arity; i++) {
+                                    frame.spine.pop();
+                                }
+                                app.update(result.get());
+                                reduced = app;
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (reduced != null) {
+                monitor.step();
+                if (verbose) {
+                    System.out.println(" => " + readBack(root));
+                }
+                current = reduced;
+            }
+            else if (strictArgument != null) {
+                // evaluate the argument first and redo this frame afterwards
+                dump.push(frame);
+                frame = new Frame(strictArgument);
+                current = strictArgument;
+            }
+            else {
+                // the head cannot be reduced any further, so the root of the frame is in weak head normal form
+                GraphNode result = frame.root.follow();
+                if (result instanceof ApplicationNode) {
+                    ((ApplicationNode) result).markWHNF();
+                }
+
+                if (dump.isEmpty()) {
+                    return result;
+                }
+                frame = dump.pop();
+                frame.spine.clear();
+                current = frame.root;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the node is known to be in weak head normal form.
+     * @param node the node
+     * @return whether it is in WHNF
+     */
+    private static boolean isWHNF(GraphNode node) {
+        GraphNode n = node.follow();
+        return !(n instanceof ApplicationNode) || ((ApplicationNode) n).isWHNF();
+    }
+
+    /**
+     * Returns the number of arguments a constant needs before a delta rule can be applied.
+     * @param constant the constant
+     * @return the number of arguments or 0 if there is no delta rule for it
+     */
+    private int getArity(ConstantNode constant) {
+        Object value = constant.getValue();
+        if (value.equals(PredefinedFunction.IF) || value.equals(PredefinedFunction.FIX) ||
+                value.equals(PredefinedFunction.SEQ) || value.equals(PredefinedFunction.PSEQ) ||
+                value.equals(PredefinedFunction.PAR) || value instanceof TupleReduction.IsATuple || value instanceof TupleReduction.Sel ||
+                value instanceof ConstructorReduction.IsA || value instanceof ConstructorReduction.ArgOf) {
+            return 1;
+        }
+        for (DeltaReduction rule : constantRules) {
+            if (rule.isConstantMatching(constant.getConstant())) {
+                return rule.getNumberOfArguments();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Applies a delta rule to a saturated application of a constant.
+     * @param constant the constant
+     * @param args the arguments, which are already in weak head normal form except for the arguments of fix and par
+     * @param app the saturated application
+     * @return the result or empty if no rule could be applied
+     */
+    private Optional<GraphNode> applyDeltaRule(ConstantNode constant, List<GraphNode> args, ApplicationNode app) {
+        Object function = constant.getValue();
+
+        if (function.equals(PredefinedFunction.FIX)) {
+            // fix t -> t (fix t), where the inner fix t is the application itself
+            GraphNode t = args.get(0);
+            app.markFixKnot(t);
+            return Optional.of(new ApplicationNode(t, app));
+        }
+        else if (function.equals(PredefinedFunction.SEQ) || function.equals(PredefinedFunction.PSEQ) ||
+                function.equals(PredefinedFunction.PAR)) {
+            // the graph reducer evaluates par sequentially, i.e. it ignores the spark
+            return Optional.of(new ClosureNode(IDENTITY, null));
+        }
+        else if (function.equals(PredefinedFunction.IF)) {
+            GraphNode arg = args.get(0).follow();
+            if (arg instanceof ConstantNode && ((ConstantNode) arg).getValue() instanceof Boolean) {
+                boolean condition = (Boolean) ((ConstantNode) arg).getValue();
+                return Optional.of(new ClosureNode(condition ? IF_TRUE : IF_FALSE, null));
+            }
+        }
+        else if (function instanceof TupleReduction.IsATuple || function instanceof TupleReduction.Sel) {
+            GraphNode arg = args.get(0).follow();
+            GraphNode constr = getHead(arg);
+            if (constr instanceof ConstantNode && ((ConstantNode) constr).getValue() instanceof TupleReduction.TupleConstant) {
+                List<GraphNode> tupleArgs = getArguments(arg);
+                if (function instanceof TupleReduction.IsATuple) {
+                    boolean isTuple = ((TupleReduction.IsATuple) function).getN() == tupleArgs.size();
+                    return Optional.of(new ConstantNode(new ASTConstant(isTuple)));
+                }
+                else {
+                    TupleReduction.Sel sel = (TupleReduction.Sel) function;
+                    if (sel.getN() == tupleArgs.size()) {
+                        // -1 because sel is starts counting at 1
+                        return Optional.of(tupleArgs.get(sel.getI() - 1));
+                    }
+                }
+            }
+        }
+        else if (function instanceof ConstructorReduction.IsA) {
+            GraphNode constr = getHead(args.get(0).follow());
+            if (constr instanceof ConstantNode) {
+                Object constrValue = ((ConstantNode) constr).getValue();
+                Object isaValue = ((ConstructorReduction.IsA) function).getValue();
+
+                // we can only reduce it to true or false if the constructor classes match our isa_constructor
+                if (((ConstructorReduction.IsA<?>) function).isApplicable(constrValue)) {
+                    return Optional.of(new ConstantNode(new ASTConstant(constrValue.equals(isaValue))));
+                }
+            }
+        }
+        else if (function instanceof ConstructorReduction.ArgOf) {
+            GraphNode arg = args.get(0).follow();
+            GraphNode constr = getHead(arg);
+            ConstructorReduction.Constructor argofConstr = ((ConstructorReduction.ArgOf) function).getConstr();
+            if (constr instanceof ConstantNode && ((ConstantNode) constr).getValue().equals(argofConstr)) {
+                List<GraphNode> constrArgs = getArguments(arg);
+                if (constrArgs.size() == 1) {
+                    // there are no 1-sized tuples
+                    return Optional.of(constrArgs.get(0));
+                }
+                else {
+                    // return a tuple with the (shared) arguments
+                    GraphNode tuple = new ConstantNode(new ASTConstant(TupleReduction.getTupleConstructor(constrArgs.size())));
+                    for (GraphNode t : constrArgs) {
+                        tuple = new ApplicationNode(tuple, t);
+                    }
+                    return Optional.of(tuple);
+                }
+            }
+        }
+        else {
+            // the remaining rules only work on constants
+            List<ASTTerm> constantArgs = new ArrayList<>();
+            for (GraphNode arg : args) {
+                GraphNode value = arg.follow();
+                if (!(value instanceof ConstantNode)) {
+                    return Optional.empty();
+                }
+                constantArgs.add(((ConstantNode) value).getConstant());
+            }
+            for (DeltaReduction rule : constantRules) {
+                if (rule.getNumberOfArguments() == constantArgs.size() && rule.isConstantMatching(constant.getConstant())) {
+                    Optional<ASTTerm> result = rule.getRHS(constant.getConstant(), constantArgs);
+                    if (result.isPresent() && result.get() instanceof ASTConstant) {
+                        return Optional.of(new ConstantNode((ASTConstant) result.get()));
+                    }
+                }
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the left-most outer-most node of the application spine.
+     * @param node the node
+     * @return the head of its spine
+     */
+    private static GraphNode getHead(GraphNode node) {
+        node = node.follow();
+        while (node instanceof ApplicationNode) {
+            node = ((ApplicationNode) node).getFunction().follow();
+        }
+        return node;
+    }
+
+    /**
+     * Returns the arguments of the application spine, e.g. (((a 1) (b a)) 2) results in {1, (b a), 2}.
+     * @param node the node
+     * @return the arguments of its spine
+     */
+    private static List<GraphNode> getArguments(GraphNode node) {
+        List<GraphNode> args = new ArrayList<>();
+        node = node.follow();
+        while (node instanceof ApplicationNode) {
+            args.add(((ApplicationNode) node).getArgument());
+            node = ((ApplicationNode) node).getFunction().follow();
+        }
+        Collections.reverse(args);
+        return args;
+    }
+
+    /**
+     * Converts a graph back to a lambda term without reducing it. Cycles are printed as fix applications.
+     * The graph is traversed with an explicit work stack, so its depth is only limited by the heap.
+     * @param node the node
+     * @return the corresponding lambda term
+     */
+    private ASTTerm readBack(GraphNode node) {
+        // the nodes which are currently being converted, i.e. the ancestors of the next node
+        Set<GraphNode> path = Collections.newSetFromMap(new IdentityHashMap<>());
+        // the work stack contains nodes to convert and the terms which are rebuilt from the results
+        Deque<Object> work = new ArrayDeque<>();
+        Deque<ASTTerm> results = new ArrayDeque<>();
+        work.push(node);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+
+            if (next instanceof FixKnot) {
+                results.push(new ASTApplication(new ASTConstant(PredefinedFunction.FIX), results.pop()));
+                continue;
+            }
+            else if (next instanceof Rebuild) {
+                Rebuild rebuild = (Rebuild) next;
+                results.push(rebuild.build(results));
+                path.remove(rebuild.node);
+                path.remove(rebuild.value);
+                continue;
+            }
+
+            GraphNode current = (GraphNode) next;
+            GraphNode value = current.follow();
+            if (current instanceof ApplicationNode && ((ApplicationNode) current).getFixFunction() != null &&
+                    (path.contains(current) || path.contains(value))) {
+                // the knot of a fix application
+                work.push(new FixKnot());
+                work.push(((ApplicationNode) current).getFixFunction());
+                continue;
+            }
+
+            path.add(current);
+            path.add(value);
+
+            if (value instanceof ApplicationNode) {
+                ApplicationNode app = (ApplicationNode) value;
+                work.push(new Rebuild(current, value, null));
+                work.push(app.getArgument());
+                work.push(app.getFunction());
+            }
+            else if (value instanceof ClosureNode) {
+                // the bound variables of the environment are substituted into the abstraction
+                ClosureNode closure = (ClosureNode) value;
+                List<ASTVariable> vars = new ArrayList<>();
+                List<GraphNode> bound = new ArrayList<>();
+                for (ASTVariable var : closure.getAbstraction().getFreeVars()) {
+                    GraphNode boundNode = Environment.lookup(closure.getEnvironment(), var);
+                    if (boundNode != null) {
+                        vars.add(var);
+                        bound.add(boundNode);
+                    }
+                }
+                work.push(new Rebuild(current, value, vars));
+                for (int i = bound.size() - 1; i >= 0; i--) {
+                    work.push(bound.get(i));
+                }
+            }
+            else {
+                work.push(new Rebuild(current, value, null));
+            }
+        }
+
+        return results.pop();
+    }
+
+    /**
+     * Marks that the term on top of the result stack is the function of a fix knot.
+     */
+    private static class FixKnot {
+    }
+
+    /**
+     * Marks that the term of a node is rebuilt from the converted children on top of the result stack.
+     */
+    private static class Rebuild {
+        private final GraphNode node;
+        private final GraphNode value;
+        // the variables of a closure which are substituted, or null
+        private final List<ASTVariable> vars;
+
+        private Rebuild(GraphNode node, GraphNode value, List<ASTVariable> vars) {
+            this.node = node;
+            this.value = value;
+            this.vars = vars;
+        }
+
+        private ASTTerm build(Deque<ASTTerm> results) {
+            if (value instanceof ApplicationNode) {
+                ASTTerm argument = results.pop();
+                ASTTerm function = results.pop();
+                return new ASTApplication(function, argument);
+            }
+            else if (value instanceof ClosureNode) {
+                // the terms of the variables are on the stack in reversed order
+                ASTTerm[] terms = new ASTTerm[vars.size()];
+                for (int i = terms.length - 1; i >= 0; i--) {
+                    terms[i] = results.pop();
+                }
+                ASTTerm result = ((ClosureNode) value).getAbstraction();
+                for (int i = 0; i < terms.length; i++) {
+                    result = result.substitute(vars.get(i), terms[i]);
+                }
+                return result;
+            }
+            else if (value instanceof ConstantNode) {
+                return ((ConstantNode) value).getConstant();
+            }
+            else {
+                return ((VariableNode) value).getVariable();
+            }
+        }
+    }
+}
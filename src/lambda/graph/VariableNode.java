@@ -0,0 +1,19 @@
+package lambda.graph;
+
+import lambda.ast.ASTVariable;
+
+/**
+ * Represents a free variable of the reduced term. It cannot be reduced any further.
+ */
+public class VariableNode extends GraphNode {
+    private final ASTVariable variable;
+
+    public VariableNode(ASTVariable variable) {
+        assert(variable != null);
+        this.variable = variable;
+    }
+
+    public ASTVariable getVariable() {
+        return variable;
+    }
+}
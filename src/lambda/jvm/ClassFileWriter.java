@@ -0,0 +1,428 @@
+package lambda.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Writes a class file with the few features the compiler needs: a constant pool with classes, strings, integers,
+ * fields and methods, and methods with code. The class file version is 49 (Java 5), so the code does not need stack
+ * map frames and the verifier infers the types of the stack and the locals itself.
+ */
+public class ClassFileWriter {
+    private static final int VERSION = 49;
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    private final String name;
+    private final String superName;
+    private final ByteArrayOutputStream pool;
+    private final DataOutputStream poolOut;
+    private final Map<String, Integer> poolIndices;
+    private int poolSize;
+    private final List<MethodWriter> methods;
+
+    /**
+     * Creates a public final class.
+     * @param name the internal name of the class, e.g. lambda/jvm/generated/Program1
+     * @param superName the internal name of the super class
+     */
+    public ClassFileWriter(String name, String superName) {
+        this.name = name;
+        this.superName = superName;
+        this.pool = new ByteArrayOutputStream();
+        this.poolOut = new DataOutputStream(pool);
+        this.poolIndices = new HashMap<>();
+        this.poolSize = 1;
+        this.methods = new ArrayList<>();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Adds a method to the class. The code is written with the returned method writer.
+     * @param access the access flags
+     * @param methodName the name of the method
+     * @param descriptor the descriptor, e.g. (I)Ljava/lang/Object;
+     * @param parameterSlots the number of local slots used by this and the parameters
+     * @return the method writer
+     */
+    public MethodWriter addMethod(int access, String methodName, String descriptor, int parameterSlots) {
+        MethodWriter method = new MethodWriter(access, utf8(methodName), utf8(descriptor), parameterSlots);
+        methods.add(method);
+        return method;
+    }
+
+    /**
+     * Returns the bytes of the class file.
+     * @return the class file
+     */
+    public byte[] toByteArray() {
+        try {
+            int thisClass = classEntry(name);
+            int superClass = classEntry(superName);
+            int codeName = utf8("Code");
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolSize);
+            poolOut.flush();
+            pool.writeTo(out);
+
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+
+            out.writeShort(methods.size());
+            for (MethodWriter method : methods) {
+                method.writeTo(out, codeName);
+            }
+            out.writeShort(0); // attributes
+            out.flush();
+            return bytes.toByteArray();
+        }
+        catch (IOException e) {
+            // byte array streams do not throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /* constant pool */
+
+    private int utf8(String value) {
+        Integer index = poolIndices.get("U" + value);
+        if (index == null) {
+            index = addEntry("U" + value, 1);
+            emit(() -> poolOut.writeUTF(value));
+        }
+        return index;
+    }
+
+    private int classEntry(String className) {
+        Integer index = poolIndices.get("C" + className);
+        if (index == null) {
+            int nameIndex = utf8(className);
+            index = addEntry("C" + className, 7);
+            emit(() -> poolOut.writeShort(nameIndex));
+        }
+        return index;
+    }
+
+    private int integerEntry(int value) {
+        Integer index = poolIndices.get("I" + value);
+        if (index == null) {
+            index = addEntry("I" + value, 3);
+            emit(() -> poolOut.writeInt(value));
+        }
+        return index;
+    }
+
+    private int nameAndType(String memberName, String descriptor) {
+        String key = "N" + memberName + " " + descriptor;
+        Integer index = poolIndices.get(key);
+        if (index == null) {
+            int nameIndex = utf8(memberName);
+            int typeIndex = utf8(descriptor);
+            index = addEntry(key, 12);
+            emit(() -> {
+                poolOut.writeShort(nameIndex);
+                poolOut.writeShort(typeIndex);
+            });
+        }
+        return index;
+    }
+
+    private int memberEntry(int tag, String owner, String memberName, String descriptor) {
+        String key = tag + owner + "." + memberName + " " + descriptor;
+        Integer index = poolIndices.get(key);
+        if (index == null) {
+            int classIndex = classEntry(owner);
+            int typeIndex = nameAndType(memberName, descriptor);
+            index = addEntry(key, tag);
+            emit(() -> {
+                poolOut.writeShort(classIndex);
+                poolOut.writeShort(typeIndex);
+            });
+        }
+        return index;
+    }
+
+    private int addEntry(String key, int tag) {
+        if (poolSize >= 0xFFFF) {
+            throw new IllegalStateException("The constant pool of " + name + " is full");
+        }
+        emit(() -> poolOut.writeByte(tag));
+        int index = poolSize++;
+        poolIndices.put(key, index);
+        return index;
+    }
+
+    private interface Output {
+        void run() throws IOException;
+    }
+
+    private static void emit(Output output) {
+        try {
+            output.run();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Emits the code of a method. The maximum stack depth is tracked while the instructions are emitted, so every
+     * instruction has to state its effect on the stack. Jumps to labels are patched when the code is written.
+     */
+    public class MethodWriter {
+        private final int access;
+        private final int nameIndex;
+        private final int descriptorIndex;
+        private final ByteArrayOutputStream code;
+        private final DataOutputStream codeOut;
+        private final Set<Label> labels;
+        private int stack;
+        private int maxStack;
+        private int maxLocals;
+
+        private MethodWriter(int access, int nameIndex, int descriptorIndex, int parameterSlots) {
+            this.access = access;
+            this.nameIndex = nameIndex;
+            this.descriptorIndex = descriptorIndex;
+            this.code = new ByteArrayOutputStream();
+            this.codeOut = new DataOutputStream(code);
+            this.labels = Collections.newSetFromMap(new IdentityHashMap<>());
+            this.maxLocals = parameterSlots;
+        }
+
+        /**
+         * Returns a new label which can be used as a jump target.
+         * @return the label
+         */
+        public Label newLabel() {
+            return new Label();
+        }
+
+        /**
+         * Places the label at the current position. The stack depth at the label is the depth of the jump to it.
+         * @param label the label
+         */
+        public void mark(Label label) {
+            label.position = code.size();
+            if (label.stack >= 0) {
+                stack = label.stack;
+            }
+        }
+
+        /**
+         * Reserves a new local variable slot.
+         * @return the slot
+         */
+        public int newLocal() {
+            return maxLocals++;
+        }
+
+        /**
+         * Emits an instruction without operands.
+         * @param opcode the opcode
+         * @param stackEffect the change of the stack depth
+         */
+        public void op(int opcode, int stackEffect) {
+            emit(() -> codeOut.writeByte(opcode));
+            adjust(stackEffect);
+        }
+
+        public void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                op(Opcodes.ICONST_0 + value, 1);
+            }
+            else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                emit(() -> {
+                    codeOut.writeByte(Opcodes.BIPUSH);
+                    codeOut.writeByte(value);
+                });
+                adjust(1);
+            }
+            else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                emit(() -> {
+                    codeOut.writeByte(Opcodes.SIPUSH);
+                    codeOut.writeShort(value);
+                });
+                adjust(1);
+            }
+            else {
+                int index = integerEntry(value);
+                emit(() -> {
+                    codeOut.writeByte(Opcodes.LDC_W);
+                    codeOut.writeShort(index);
+                });
+                adjust(1);
+            }
+        }
+
+        public void iload(int slot) {
+            local(Opcodes.ILOAD, slot, 1);
+        }
+
+        public void aload(int slot) {
+            local(Opcodes.ALOAD, slot, 1);
+        }
+
+        public void astore(int slot) {
+            local(Opcodes.ASTORE, slot, -1);
+        }
+
+        private void local(int opcode, int slot, int stackEffect) {
+            emit(() -> {
+                codeOut.writeByte(opcode);
+                codeOut.writeByte(slot);
+            });
+            if (slot > 0xFF) {
+                throw new IllegalStateException("Too many local variables");
+            }
+            maxLocals = Math.max(maxLocals, slot + 1);
+            adjust(stackEffect);
+        }
+
+        /**
+         * Emits an instruction which refers to a class, i.e. new, anewarray or checkcast.
+         */
+        public void type(int opcode, String className, int stackEffect) {
+            int index = classEntry(className);
+            emit(() -> {
+                codeOut.writeByte(opcode);
+                codeOut.writeShort(index);
+            });
+            adjust(stackEffect);
+        }
+
+        /**
+         * Emits a field access.
+         */
+        public void field(int opcode, String owner, String fieldName, String descriptor, int stackEffect) {
+            int index = memberEntry(9, owner, fieldName, descriptor);
+            emit(() -> {
+                codeOut.writeByte(opcode);
+                codeOut.writeShort(index);
+            });
+            adjust(stackEffect);
+        }
+
+        /**
+         * Emits a method invocation.
+         */
+        public void invoke(int opcode, String owner, String methodName, String descriptor, int stackEffect) {
+            int index = memberEntry(10, owner, methodName, descriptor);
+            emit(() -> {
+                codeOut.writeByte(opcode);
+                codeOut.writeShort(index);
+            });
+            adjust(stackEffect);
+        }
+
+        /**
+         * Emits a jump to the label.
+         */
+        public void jump(int opcode, Label label, int stackEffect) {
+            label.sources.add(code.size());
+            emit(() -> {
+                codeOut.writeByte(opcode);
+                codeOut.writeShort(0);
+            });
+            adjust(stackEffect);
+            label.stack = stack;
+        }
+
+        /**
+         * Emits a tableswitch over the keys 0 to targets.length-1. The instruction is aligned to four bytes.
+         */
+        public void tableSwitch(Label defaultLabel, Label[] targets) {
+            int start = code.size();
+            adjust(-1);
+            emit(() -> {
+                codeOut.writeByte(Opcodes.TABLESWITCH);
+                while (code.size() % 4 != 0) {
+                    codeOut.writeByte(0);
+                }
+            });
+            defaultLabel.switches.add(new int[] {start, code.size()});
+            defaultLabel.stack = stack;
+            emit(() -> {
+                codeOut.writeInt(0);
+                codeOut.writeInt(0);
+                codeOut.writeInt(targets.length - 1);
+            });
+            for (Label target : targets) {
+                target.switches.add(new int[] {start, code.size()});
+                target.stack = stack;
+                emit(() -> codeOut.writeInt(0));
+            }
+        }
+
+        private void adjust(int stackEffect) {
+            stack += stackEffect;
+            assert(stack >= 0);
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void writeTo(DataOutputStream out, int codeName) throws IOException {
+            codeOut.flush();
+            byte[] bytes = code.toByteArray();
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalStateException("The code of a method is too large");
+            }
+            for (Label label : labels) {
+                for (int source : label.sources) {
+                    int offset = label.position - source;
+                    bytes[source + 1] = (byte) (offset >> 8);
+                    bytes[source + 2] = (byte) offset;
+                }
+                for (int[] entry : label.switches) {
+                    int offset = label.position - entry[0];
+                    bytes[entry[1]] = (byte) (offset >> 24);
+                    bytes[entry[1] + 1] = (byte) (offset >> 16);
+                    bytes[entry[1] + 2] = (byte) (offset >> 8);
+                    bytes[entry[1] + 3] = (byte) offset;
+                }
+            }
+
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(12 + bytes.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        }
+
+        /**
+         * A position in the code of this method.
+         */
+        public class Label {
+            private int position = -1;
+            private int stack = -1;
+            private final List<Integer> sources = new ArrayList<>();
+            private final List<int[]> switches = new ArrayList<>();
+
+            private Label() {
+                labels.add(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package lambda.jvm;
+
+import java.util.Arrays;
+
+/**
+ * A lambda lifted abstraction which is partially applied to its arguments. The first arguments are the variables
+ * captured by the abstraction. When all arguments are present, the code block of the abstraction is called.
+ */
+public final class Closure {
+    private final JvmProgram program;
+    private final int block;
+    private final int arity;
+    private final Thunk[] arguments;
+
+    public Closure(JvmProgram program, int block, int arity, Thunk[] arguments) {
+        assert(arguments.length < arity);
+
+        this.program = program;
+        this.block = block;
+        this.arity = arity;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Applies the closure to one more argument.
+     * @param argument the argument
+     * @return the result in WHNF, or a new closure if there are still arguments missing
+     */
+    public Object apply(Thunk argument) {
+        Thunk[] newArguments = Arrays.copyOf(arguments, arguments.length + 1);
+        newArguments[arguments.length] = argument;
+        if (newArguments.length == arity) {
+            return program.run(block, newArguments);
+        }
+        return new Closure(program, block, arity, newArguments);
+    }
+
+    public JvmProgram getProgram() {
+        return program;
+    }
+
+    public int getBlock() {
+        return block;
+    }
+
+    public Thunk[] getArguments() {
+        return arguments;
+    }
+}
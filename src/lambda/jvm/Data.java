@@ -0,0 +1,40 @@
+package lambda.jvm;
+
+import java.util.Arrays;
+
+/**
+ * A constructor or a tuple constructor applied to arguments. Data values are in WHNF, their arguments are not
+ * evaluated. Applying a data value to another argument creates a new data value.
+ */
+public final class Data {
+    private final Object constructor;
+    private final Thunk[] arguments;
+
+    public Data(Object constructor, Thunk[] arguments) {
+        this.constructor = constructor;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Returns the value of the constructor constant.
+     * @return the constructor
+     */
+    public Object getConstructor() {
+        return constructor;
+    }
+
+    public Thunk[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Returns the data value with one more argument.
+     * @param argument the argument
+     * @return the new data value
+     */
+    public Data apply(Thunk argument) {
+        Thunk[] newArguments = Arrays.copyOf(arguments, arguments.length + 1);
+        newArguments[arguments.length] = argument;
+        return new Data(constructor, newArguments);
+    }
+}
@@ -0,0 +1,20 @@
+package lambda.jvm;
+
+import lambda.reduction.BudgetMonitor;
+
+/**
+ * The thread of an evaluation of compiled code, which carries the budget monitor of the evaluation, so that the
+ * runtime can count the steps of the compiled code.
+ */
+class EvaluationThread extends Thread {
+    private final BudgetMonitor monitor;
+
+    EvaluationThread(Runnable evaluation, long stackSize, BudgetMonitor monitor) {
+        super(null, evaluation, "jvm-evaluation", stackSize);
+        this.monitor = monitor;
+    }
+
+    BudgetMonitor getMonitor() {
+        return monitor;
+    }
+}
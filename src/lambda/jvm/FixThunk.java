@@ -0,0 +1,22 @@
+package lambda.jvm;
+
+/**
+ * The thunk of fix f, which evaluates to f applied to the thunk itself.
+ */
+public class FixThunk extends Thunk {
+    private final Thunk function;
+
+    public FixThunk(Thunk function) {
+        super(null, -1, null);
+        this.function = function;
+    }
+
+    @Override
+    protected Object compute() {
+        return JvmRuntime.apply(function.force(), this);
+    }
+
+    public Thunk getFunction() {
+        return function;
+    }
+}
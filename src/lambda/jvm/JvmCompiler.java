@@ -0,0 +1,673 @@
+package lambda.jvm;
+
+import lambda.ast.ASTAbstraction;
+import lambda.ast.ASTConstant;
+import lambda.ast.ASTTerm;
+import lambda.debruijn.*;
+import lambda.gmachine.GCompiler;
+import lambda.jvm.ClassFileWriter.MethodWriter;
+import lambda.reduction.StrictnessAnalysis;
+import lambda.reduction.delta.DeltaReduction;
+import lambda.reduction.delta.PredefinedFunction;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static lambda.jvm.Opcodes.*;
+
+/**
+ * Compiles a closed lambda term to a JVM class, so that the JIT compiler of the JVM can optimize the program like
+ * ordinary Java code.
+ * Every abstraction is lambda lifted to a code block whose first arguments are the variables it captures, like in the
+ * {@link GCompiler}, and every lazily evaluated argument becomes a code block whose arguments are the variables the
+ * argument captures. Each code block is a method of the generated class. The bodies are compiled with two schemes:
+ * E (strict evaluation to WHNF, which leaves the value on the operand stack) and C (construction of a thunk).
+ * Saturated applications of if are compiled to jumps, the arguments of redexes (\x.b) a are stored in local variables
+ * and the delta rules on constants are called with the evaluated arguments.
+ * A function \f.\x1...\xn.b whose body calls f e1 ... en in tail position, e.g. the function of a fix, runs as a loop:
+ * if f is the closure of the same block, the call stores the new arguments and jumps back to the start of the block
+ * instead of nesting another call on the Java stack. The arguments which the function is strict in are evaluated
+ * before the jump, so that accumulators do not grow to long chains of thunks.
+ */
+public class JvmCompiler {
+    private static final String PROGRAM = "lambda/jvm/JvmProgram";
+    private static final String THUNK = "lambda/jvm/Thunk";
+    private static final String RUNTIME = "lambda/jvm/JvmRuntime";
+    private static final String CLOSURE = "lambda/jvm/Closure";
+    private static final String PRIMITIVE = "lambda/jvm/Primitive";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String BLOCK_DESCRIPTOR = "([L" + THUNK + ";)L" + OBJECT + ";";
+
+    private static final AtomicInteger NUMBER_OF_CLASSES = new AtomicInteger();
+
+    private ClassFileWriter classFile;
+    private List<DBTerm> terms;
+    private Map<DBTerm, Integer> functionBlocks;
+    private Map<DBTerm, Integer> thunkBlocks;
+    private List<ASTConstant> constants;
+    private Map<ASTConstant, Integer> constantIndices;
+
+    // the bodies of the code blocks which still need to be compiled
+    private Deque<PendingBody> pending;
+    // the loop of the block which is compiled at the moment, or null if the block is not a function of several
+    // arguments
+    private Loop loop;
+    private final StrictnessAnalysis strictnessAnalysis = new StrictnessAnalysis();
+
+    /**
+     * The body of a code block together with the mapping of its indices to arguments.
+     */
+    private static class PendingBody {
+        private final int block;
+        private final DBTerm body;
+        private final int[] map;
+        // the position of the first own argument of a function block, or -1
+        private final int self;
+
+        private PendingBody(int block, DBTerm body, int[] map, int self) {
+            this.block = block;
+            this.body = body;
+            this.map = map;
+            this.self = self;
+        }
+    }
+
+    /**
+     * The start of the code block of a function \f.\x1...\xn.b, which self tail calls f e1 ... en jump to.
+     */
+    private static class Loop {
+        private final int block;
+        private final int self;
+        private final int arity;
+        private final MethodWriter.Label start;
+        // the strict parameters of the function, which are computed for the first self tail call
+        private boolean[] strict;
+
+        private Loop(int block, int self, int arity, MethodWriter.Label start) {
+            this.block = block;
+            this.self = self;
+            this.arity = arity;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Loads each generated class with its own class loader, so that the class can be unloaded with its program.
+     */
+    private static class ProgramLoader extends ClassLoader {
+        private ProgramLoader() {
+            super(JvmProgram.class.getClassLoader());
+        }
+
+        private Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Compiles a closed term and loads the generated class.
+     * @param term the term in De Bruijn notation
+     * @return the compiled program
+     */
+    public JvmProgram compile(DBTerm term) {
+        if (!term.isClosed()) {
+            throw new IllegalArgumentException("Only closed terms can be compiled: " + term);
+        }
+
+        String name = "lambda/jvm/generated/Program" + NUMBER_OF_CLASSES.incrementAndGet();
+        classFile = new ClassFileWriter(name, PROGRAM);
+        terms = new ArrayList<>();
+        functionBlocks = new HashMap<>();
+        thunkBlocks = new HashMap<>();
+        constants = new ArrayList<>();
+        constantIndices = new HashMap<>();
+        pending = new ArrayDeque<>();
+
+        // the term itself is the block 0 without arguments
+        terms.add(term);
+        pending.push(new PendingBody(0, term, new int[0], -1));
+
+        while (!pending.isEmpty()) {
+            PendingBody next = pending.pop();
+            MethodWriter method = classFile.addMethod(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL,
+                    "block" + next.block, BLOCK_DESCRIPTOR, 2);
+            loop = null;
+            if (next.self >= 0) {
+                // the arguments after f are the parameters x1 ... xn
+                int arity = getNumberOfBinders(terms.get(next.block)) - next.self - 1;
+                loop = new Loop(next.block, next.self, arity, method.newLabel());
+                method.mark(loop.start);
+            }
+            compileE(next.body, next.map, method, true);
+            method.op(ARETURN, -1);
+        }
+        compileConstructor();
+        compileRun();
+
+        byte[] bytes = classFile.toByteArray();
+        try {
+            Class<?> programClass = new ProgramLoader().define(name.replace('/', '.'), bytes);
+            JvmProgram program = (JvmProgram) programClass.getDeclaredConstructor().newInstance();
+            program.initialize(constants, terms, bytes);
+            return program;
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The generated class can not be instantiated", e);
+        }
+    }
+
+    /**
+     * The constructor only calls the constructor of JvmProgram.
+     */
+    private void compileConstructor() {
+        MethodWriter method = classFile.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", "()V", 1);
+        method.aload(0);
+        method.invoke(INVOKESPECIAL, PROGRAM, "<init>", "()V", -1);
+        method.op(RETURN, 0);
+    }
+
+    /**
+     * run(block, arguments) calls the method of the block with a tableswitch.
+     */
+    private void compileRun() {
+        MethodWriter method = classFile.addMethod(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL,
+                "run", "(I[L" + THUNK + ";)L" + OBJECT + ";", 3);
+        MethodWriter.Label unknown = method.newLabel();
+        MethodWriter.Label[] targets = new MethodWriter.Label[terms.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = method.newLabel();
+        }
+
+        method.iload(1);
+        method.tableSwitch(unknown, targets);
+        for (int i = 0; i < targets.length; i++) {
+            method.mark(targets[i]);
+            method.aload(0);
+            method.aload(2);
+            method.invoke(INVOKEVIRTUAL, classFile.getName(), "block" + i, BLOCK_DESCRIPTOR, -1);
+            method.op(ARETURN, -1);
+        }
+        method.mark(unknown);
+        method.type(NEW, "java/lang/IllegalArgumentException", 1);
+        method.op(DUP, 1);
+        method.invoke(INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "()V", -1);
+        method.op(ATHROW, -1);
+    }
+
+    private void compileE(DBTerm term, int[] map, MethodWriter method) {
+        compileE(term, map, method, false);
+    }
+
+    /**
+     * E scheme: the code which evaluates the term to WHNF and pushes the value.
+     * The map contains the argument position p >= 0 or the local variable -p-1 of each index.
+     * The value of a term in tail position is the result of the block.
+     */
+    private void compileE(DBTerm term, int[] map, MethodWriter method, boolean tail) {
+        ASTConstant head = getConstantHead(term);
+        List<DBTerm> args = getArguments(term);
+
+        if (head != null && head.getValue().equals(PredefinedFunction.IF) && args.size() == 3) {
+            // if c t e: only the chosen branch is evaluated
+            MethodWriter.Label elseBranch = method.newLabel();
+            MethodWriter.Label end = method.newLabel();
+            compileE(args.get(0), map, method);
+            method.type(CHECKCAST, "java/lang/Boolean", 0);
+            method.invoke(INVOKEVIRTUAL, "java/lang/Boolean", "booleanValue", "()Z", 0);
+            method.jump(IFEQ, elseBranch, -1);
+            compileE(args.get(1), map, method, tail);
+            method.jump(GOTO, end, 0);
+            method.mark(elseBranch);
+            compileE(args.get(2), map, method, tail);
+            method.mark(end);
+        }
+        else if (tail && isSelfCall(term, map, args)) {
+            compileSelfCall(term, map, args, method);
+        }
+        else if (term instanceof DBApplication && getHead(term) instanceof DBAbstraction) {
+            Let let = compileLet(term, map, method);
+            compileE(let.body, let.map, method, tail);
+        }
+        else if (head != null && isInlinePrimitive(head, args.size())) {
+            // the delta rule is called with the evaluated arguments
+            loadConstant(head, method);
+            method.type(CHECKCAST, PRIMITIVE, 0);
+            for (DBTerm arg : args) {
+                compileE(arg, map, method);
+            }
+            String descriptor = args.size() == 1 ? "(L" + PRIMITIVE + ";L" + OBJECT + ";)L" + OBJECT + ";" :
+                    "(L" + PRIMITIVE + ";L" + OBJECT + ";L" + OBJECT + ";)L" + OBJECT + ";";
+            method.invoke(INVOKESTATIC, RUNTIME, "primitive" + args.size(), descriptor, -args.size());
+        }
+        else if (head != null && head.getValue().equals(PredefinedFunction.BOT)) {
+            method.invoke(INVOKESTATIC, RUNTIME, "bottom", "()L" + OBJECT + ";", 1);
+        }
+        else if (head != null && head.getValue().equals(PredefinedFunction.FIX) && args.size() >= 1) {
+            compileC(args.get(0), map, method);
+            method.invoke(INVOKESTATIC, RUNTIME, "fix", "(L" + THUNK + ";)L" + THUNK + ";", 0);
+            method.invoke(INVOKEVIRTUAL, THUNK, "force", "()L" + OBJECT + ";", 0);
+            compileApply(args.subList(1, args.size()), map, method);
+        }
+        else if (term instanceof DBIndex) {
+            loadThunk(map[((DBIndex) term).getIndex()], method);
+            method.invoke(INVOKEVIRTUAL, THUNK, "force", "()L" + OBJECT + ";", 0);
+        }
+        else if (term instanceof DBConstant) {
+            loadConstant(((DBConstant) term).getConstant(), method);
+        }
+        else if (term instanceof DBAbstraction) {
+            compileClosure((DBAbstraction) term, map, method);
+        }
+        else if (term instanceof DBApplication) {
+            compileE(getHead(term), map, method);
+            compileApply(args, map, method);
+        }
+        else {
+            throw new IllegalArgumentException("Only closed terms can be compiled: " + term);
+        }
+    }
+
+    /**
+     * Returns whether the term is f e1 ... en, where f is the first own argument of the function block which is
+     * compiled at the moment and n is the number of the other arguments.
+     */
+    private boolean isSelfCall(DBTerm term, int[] map, List<DBTerm> args) {
+        DBTerm head = getHead(term);
+        return loop != null && head instanceof DBIndex && map[((DBIndex) head).getIndex()] == loop.self &&
+                args.size() == loop.arity;
+    }
+
+    /**
+     * Compiles a call f e1 ... en in tail position. If f is the closure of this block with the same captured
+     * variables, the arguments e1 ... en replace x1 ... xn and the code jumps back to the start of the block.
+     * Otherwise f is applied as usual.
+     */
+    private void compileSelfCall(DBTerm term, int[] map, List<DBTerm> args, MethodWriter method) {
+        MethodWriter.Label call = method.newLabel();
+        loadThunk(loop.self, method);
+        method.invoke(INVOKEVIRTUAL, THUNK, "force", "()L" + OBJECT + ";", 0);
+        int function = method.newLocal();
+        method.astore(function);
+
+        method.aload(function);
+        method.aload(0);
+        method.pushInt(loop.block);
+        method.aload(1);
+        method.pushInt(loop.self + 1);
+        method.invoke(INVOKESTATIC, RUNTIME, "isSelfCall",
+                "(L" + OBJECT + ";L" + PROGRAM + ";I[L" + THUNK + ";I)Z", -4);
+        method.jump(IFEQ, call, -1);
+
+        // the new arguments may refer to the old ones, so they are all created before the first one is replaced
+        boolean[] strict = getStrictParameters();
+        int[] locals = new int[args.size()];
+        for (int i = 0; i < args.size(); i++) {
+            if (strict[i]) {
+                compileE(args.get(i), map, method);
+                method.invoke(INVOKESTATIC, RUNTIME, "evaluated", "(L" + OBJECT + ";)L" + THUNK + ";", 0);
+            }
+            else {
+                compileC(args.get(i), map, method);
+            }
+            locals[i] = method.newLocal();
+            method.astore(locals[i]);
+        }
+        // the argument array of a call belongs to the call, the thunks and closures copy the arguments they capture
+        for (int i = 0; i < args.size(); i++) {
+            method.aload(1);
+            method.pushInt(loop.self + 1 + i);
+            method.aload(locals[i]);
+            method.op(AASTORE, -3);
+        }
+        method.jump(GOTO, loop.start, 0);
+
+        method.mark(call);
+        method.aload(function);
+        compileApply(args, map, method);
+    }
+
+    /**
+     * Returns the strict parameters x1 ... xn of the function \f.\x1...\xn.b of the current loop, where f is assumed
+     * to be the fixpoint of the function.
+     */
+    private boolean[] getStrictParameters() {
+        if (loop.strict == null) {
+            // the term of the block binds the captured variables first
+            ASTTerm function = DeBruijnConverter.toNamed(terms.get(loop.block));
+            for (int i = 0; i < loop.self; i++) {
+                function = ((ASTAbstraction) function).getOutput();
+            }
+            loop.strict = strictnessAnalysis.getFixpointSignature((ASTAbstraction) function);
+        }
+        return loop.strict;
+    }
+
+    /**
+     * Applies the value on the stack to the arguments one after another.
+     */
+    private void compileApply(List<DBTerm> args, int[] map, MethodWriter method) {
+        for (DBTerm arg : args) {
+            compileC(arg, map, method);
+            method.invoke(INVOKESTATIC, RUNTIME, "apply", "(L" + OBJECT + ";L" + THUNK + ";)L" + OBJECT + ";", -1);
+        }
+    }
+
+    /**
+     * C scheme: the code which creates a thunk for the term and pushes it.
+     */
+    private void compileC(DBTerm term, int[] map, MethodWriter method) {
+        if (term instanceof DBIndex) {
+            loadThunk(map[((DBIndex) term).getIndex()], method);
+        }
+        else if (term instanceof DBConstant && !((DBConstant) term).getValue().equals(PredefinedFunction.BOT)) {
+            method.aload(0);
+            method.field(GETFIELD, PROGRAM, "constantThunks", "[L" + THUNK + ";", 0);
+            method.pushInt(getConstantIndex(((DBConstant) term).getConstant()));
+            method.op(AALOAD, -1);
+        }
+        else if (term instanceof DBAbstraction) {
+            // closures are already in WHNF
+            compileClosure((DBAbstraction) term, map, method);
+            method.invoke(INVOKESTATIC, RUNTIME, "evaluated", "(L" + OBJECT + ";)L" + THUNK + ";", 0);
+        }
+        else if (term instanceof DBApplication && getHead(term) instanceof DBAbstraction) {
+            Let let = compileLet(term, map, method);
+            compileC(let.body, let.map, method);
+        }
+        else {
+            // the term becomes a code block which is called by the thunk
+            List<Integer> captured = getLooseIndices(term);
+            int block = getThunkBlock(term, captured);
+            method.type(NEW, THUNK, 1);
+            method.op(DUP, 1);
+            method.aload(0);
+            method.pushInt(block);
+            compileArguments(captured, map, method);
+            method.invoke(INVOKESPECIAL, THUNK, "<init>", "(L" + PROGRAM + ";I[L" + THUNK + ";)V", -4);
+        }
+    }
+
+    /**
+     * Creates the closure of a lambda lifted abstraction which is applied to the captured variables.
+     */
+    private void compileClosure(DBAbstraction abstraction, int[] map, MethodWriter method) {
+        List<Integer> captured = getLooseIndices(abstraction);
+        int block = getFunctionBlock(abstraction, captured);
+        method.type(NEW, CLOSURE, 1);
+        method.op(DUP, 1);
+        method.aload(0);
+        method.pushInt(block);
+        method.pushInt(captured.size() + getNumberOfBinders(abstraction));
+        compileArguments(captured, map, method);
+        method.invoke(INVOKESPECIAL, CLOSURE, "<init>", "(L" + PROGRAM + ";II[L" + THUNK + ";)V", -5);
+    }
+
+    /**
+     * Pushes an array with the thunks of the captured indices.
+     */
+    private void compileArguments(List<Integer> captured, int[] map, MethodWriter method) {
+        method.pushInt(captured.size());
+        method.type(ANEWARRAY, THUNK, 0);
+        for (int p = 0; p < captured.size(); p++) {
+            method.op(DUP, 1);
+            method.pushInt(p);
+            loadThunk(map[captured.get(p)], method);
+            method.op(AASTORE, -3);
+        }
+    }
+
+    private void loadThunk(int position, MethodWriter method) {
+        if (position >= 0) {
+            method.aload(1);
+            method.pushInt(position);
+            method.op(AALOAD, -1);
+        }
+        else {
+            method.aload(-position - 1);
+        }
+    }
+
+    private void loadConstant(ASTConstant constant, MethodWriter method) {
+        method.aload(0);
+        method.field(GETFIELD, PROGRAM, "constants", "[L" + OBJECT + ";", 0);
+        method.pushInt(getConstantIndex(constant));
+        method.op(AALOAD, -1);
+    }
+
+    /**
+     * The body of a redex (\x.b) a after its arguments have been stored in local variables.
+     */
+    private static class Let {
+        private final DBTerm body;
+        private final int[] map;
+
+        private Let(DBTerm body, int[] map) {
+            this.body = body;
+            this.map = map;
+        }
+    }
+
+    /**
+     * Compiles the arguments of a redex (\x1...\xm.b) a1 ... an like a let expression, i.e. the thunks of the
+     * arguments are stored in new local variables and the variables refer to them.
+     * @param term the redex
+     * @param map the positions of the indices
+     * @param method the method
+     * @return the remaining body and the new positions
+     */
+    private Let compileLet(DBTerm term, int[] map, MethodWriter method) {
+        DBTerm body = getHead(term);
+        List<DBTerm> args = getArguments(term);
+
+        int bound = 0;
+        List<Integer> locals = new ArrayList<>();
+        while (bound < args.size() && body instanceof DBAbstraction) {
+            compileC(args.get(bound), map, method);
+            int local = method.newLocal();
+            method.astore(local);
+            locals.add(local);
+            body = ((DBAbstraction) body).getBody();
+            bound++;
+        }
+
+        // the index i < bound refers to the argument bound-1-i, the others are shifted by bound
+        int[] newMap = new int[bound + map.length];
+        for (int i = 0; i < bound; i++) {
+            newMap[i] = -locals.get(bound - 1 - i) - 1;
+        }
+        System.arraycopy(map, 0, newMap, bound, map.length);
+
+        // the remaining arguments are moved below the new binders
+        for (int i = bound; i < args.size(); i++) {
+            body = new DBApplication(body, args.get(i).shift(bound, 0));
+        }
+
+        return new Let(body, newMap);
+    }
+
+    /**
+     * Returns whether a saturated application of the constant calls its delta rule directly.
+     */
+    private static boolean isInlinePrimitive(ASTConstant constant, int numberOfArguments) {
+        DeltaReduction rule = GCompiler.getConstantRule(constant);
+        return rule != null && rule.getNumberOfArguments() == numberOfArguments &&
+                (numberOfArguments == 1 || numberOfArguments == 2);
+    }
+
+    /**
+     * Returns the code block of the lambda lifted abstraction, which is created if necessary.
+     * @param abstraction the abstraction
+     * @param captured the loose indices of the abstraction, which become the first arguments
+     * @return the index of the block
+     */
+    private int getFunctionBlock(DBAbstraction abstraction, List<Integer> captured) {
+        Integer index = functionBlocks.get(abstraction);
+        if (index != null) {
+            return index;
+        }
+
+        // collect all directly nested abstractions, they become one block
+        int m = getNumberOfBinders(abstraction);
+        DBTerm body = abstraction;
+        for (int i = 0; i < m; i++) {
+            body = ((DBAbstraction) body).getBody();
+        }
+        int k = captured.size();
+
+        // inside the body, index i < m is the own argument k+m-1-i, the others are captured arguments
+        int[] map = new int[Math.max(body.getLooseBound(), m)];
+        for (int i = 0; i < m; i++) {
+            map[i] = k + m - 1 - i;
+        }
+        for (int p = 0; p < k; p++) {
+            map[captured.get(p) + m] = p;
+        }
+
+        index = addBlock(abstraction, captured);
+        functionBlocks.put(abstraction, index);
+        // a function of several arguments can call itself in a loop
+        pending.push(new PendingBody(index, body, map, m > 1 ? k : -1));
+        return index;
+    }
+
+    /**
+     * Returns the code block which evaluates the term, which is created if necessary.
+     * @param term the term
+     * @param captured the loose indices of the term, which become the arguments
+     * @return the index of the block
+     */
+    private int getThunkBlock(DBTerm term, List<Integer> captured) {
+        Integer index = thunkBlocks.get(term);
+        if (index != null) {
+            return index;
+        }
+
+        int[] map = new int[term.getLooseBound()];
+        for (int p = 0; p < captured.size(); p++) {
+            map[captured.get(p)] = p;
+        }
+
+        index = addBlock(term, captured);
+        thunkBlocks.put(term, index);
+        pending.push(new PendingBody(index, term, map, -1));
+        return index;
+    }
+
+    /**
+     * Adds a block whose closed term binds the captured variables of the term.
+     */
+    private int addBlock(DBTerm term, List<Integer> captured) {
+        int k = captured.size();
+        int[] outerToBinder = new int[term.getLooseBound()];
+        for (int p = 0; p < k; p++) {
+            outerToBinder[captured.get(p)] = k - 1 - p;
+        }
+
+        DBTerm closed = remap(term, 0, outerToBinder);
+        for (int p = k - 1; p >= 0; p--) {
+            closed = new DBAbstraction("c", closed);
+        }
+        terms.add(closed);
+        return terms.size() - 1;
+    }
+
+    private int getConstantIndex(ASTConstant constant) {
+        Integer index = constantIndices.get(constant);
+        if (index == null) {
+            index = constants.size();
+            constants.add(constant);
+            constantIndices.put(constant, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of directly nested abstractions.
+     */
+    private static int getNumberOfBinders(DBTerm term) {
+        int m = 0;
+        while (term instanceof DBAbstraction) {
+            term = ((DBAbstraction) term).getBody();
+            m++;
+        }
+        return m;
+    }
+
+    /**
+     * Returns the sorted loose indices of a term.
+     * @param term the term
+     * @return the loose indices
+     */
+    private static List<Integer> getLooseIndices(DBTerm term) {
+        SortedSet<Integer> indices = new TreeSet<>();
+        collectLooseIndices(term, 0, indices);
+        return new ArrayList<>(indices);
+    }
+
+    private static void collectLooseIndices(DBTerm term, int depth, Set<Integer> indices) {
+        if (term.getLooseBound() <= depth) {
+            return;
+        }
+        if (term instanceof DBIndex) {
+            indices.add(((DBIndex) term).getIndex() - depth);
+        }
+        else if (term instanceof DBApplication) {
+            collectLooseIndices(((DBApplication) term).getLeft(), depth, indices);
+            collectLooseIndices(((DBApplication) term).getRight(), depth, indices);
+        }
+        else if (term instanceof DBAbstraction) {
+            collectLooseIndices(((DBAbstraction) term).getBody(), depth + 1, indices);
+        }
+    }
+
+    /**
+     * Replaces every loose index i of the term by map[i].
+     */
+    private static DBTerm remap(DBTerm term, int depth, int[] map) {
+        if (term.getLooseBound() <= depth) {
+            return term;
+        }
+        if (term instanceof DBIndex) {
+            return new DBIndex(map[((DBIndex) term).getIndex() - depth] + depth);
+        }
+        else if (term instanceof DBApplication) {
+            DBApplication app = (DBApplication) term;
+            return new DBApplication(remap(app.getLeft(), depth, map), remap(app.getRight(), depth, map));
+        }
+        else {
+            DBAbstraction abstraction = (DBAbstraction) term;
+            return new DBAbstraction(abstraction.getHint(), remap(abstraction.getBody(), depth + 1, map));
+        }
+    }
+
+    /**
+     * Returns the left-most outer-most term of the application spine.
+     */
+    private static DBTerm getHead(DBTerm term) {
+        while (term instanceof DBApplication) {
+            term = ((DBApplication) term).getLeft();
+        }
+        return term;
+    }
+
+    /**
+     * Returns the constant at the head of the application spine, or null if the head is not a constant.
+     */
+    private static ASTConstant getConstantHead(DBTerm term) {
+        DBTerm head = getHead(term);
+        return head instanceof DBConstant ? ((DBConstant) head).getConstant() : null;
+    }
+
+    /**
+     * Returns the arguments of the application spine, e.g. (((a 1) (b a)) 2) results in {1, (b a), 2}.
+     */
+    private static List<DBTerm> getArguments(DBTerm term) {
+        List<DBTerm> args = new ArrayList<>();
+        while (term instanceof DBApplication) {
+            args.add(((DBApplication) term).getRight());
+            term = ((DBApplication) term).getLeft();
+        }
+        Collections.reverse(args);
+        return args;
+    }
+}
@@ -0,0 +1,72 @@
+package lambda.jvm;
+
+import lambda.ast.ASTConstant;
+import lambda.debruijn.DBTerm;
+
+import java.util.List;
+
+/**
+ * The base class of the classes which are generated by the {@link JvmCompiler}. Every code block of the program is a
+ * method of the generated class which takes the arguments of the block and returns the result in WHNF.
+ * Code blocks are either lambda lifted abstractions, whose first arguments are the captured variables, or the bodies
+ * of thunks, whose arguments are the captured variables. The block 0 is the main term.
+ */
+public abstract class JvmProgram {
+    // the values of the constants and evaluated thunks of them, which are used by the generated code
+    protected Object[] constants;
+    protected Thunk[] constantThunks;
+
+    private DBTerm[] terms;
+    private byte[] classFile;
+
+    /**
+     * Calls a code block.
+     * @param block the index of the block
+     * @param arguments the arguments
+     * @return the result in WHNF
+     */
+    public abstract Object run(int block, Thunk[] arguments);
+
+    /**
+     * Sets the constants and the terms of the code blocks after the generated class has been loaded.
+     */
+    void initialize(List<ASTConstant> constantList, List<DBTerm> termList, byte[] classFile) {
+        this.constants = new Object[constantList.size()];
+        this.constantThunks = new Thunk[constantList.size()];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = JvmRuntime.valueOf(constantList.get(i));
+            constantThunks[i] = JvmRuntime.evaluated(constants[i]);
+        }
+        this.terms = termList.toArray(new DBTerm[termList.size()]);
+        this.classFile = classFile;
+    }
+
+    /**
+     * Evaluates the main term to WHNF.
+     * @return the result
+     */
+    public Object evaluate() {
+        return run(0, new Thunk[0]);
+    }
+
+    /**
+     * Returns the closed term of a code block, which binds all arguments of the block.
+     * @param block the index of the block
+     * @return the term in De Bruijn notation
+     */
+    public DBTerm getTerm(int block) {
+        return terms[block];
+    }
+
+    public int getNumberOfBlocks() {
+        return terms.length;
+    }
+
+    /**
+     * Returns the generated class file.
+     * @return the bytes of the class file
+     */
+    public byte[] getClassFile() {
+        return classFile;
+    }
+}
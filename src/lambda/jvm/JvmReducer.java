@@ -0,0 +1,278 @@
+package lambda.jvm;
+
+import lambda.ast.ASTConstant;
+import lambda.ast.ASTTerm;
+import lambda.debruijn.*;
+import lambda.reduction.BudgetMonitor;
+import lambda.reduction.EvaluationBudget;
+import lambda.reduction.LambdaReducer;
+import lambda.reduction.delta.PredefinedFunction;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Evaluates terms by compiling them to JVM classes with the {@link JvmCompiler}.
+ * The compiled code uses the Java stack for nested evaluations, so the evaluation runs in its own thread with a large
+ * stack. The result is normalized like by the other reducers, i.e. the arguments of constructors and predefined
+ * functions are evaluated as well, and read back to a term.
+ * The reducer keeps the programs of the last compiled terms, so a term which is evaluated again is not compiled again.
+ */
+public class JvmReducer implements LambdaReducer {
+    public static final long DEFAULT_STACK_SIZE = 1L << 30;
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private final JvmCompiler compiler;
+    // the programs of the last compiled terms, the least recently used one is removed first
+    private final Map<ASTTerm, JvmProgram> programs;
+    private int compilations;
+    private final long stackSize;
+    // counts the applications, thunk evaluations and loop iterations of each evaluation and enforces its budget
+    private final BudgetMonitor monitor;
+
+    public JvmReducer() {
+        this(DEFAULT_STACK_SIZE);
+    }
+
+    /**
+     * Creates a reducer whose evaluation threads have the given stack size.
+     * @param stackSize the stack size in bytes
+     */
+    public JvmReducer(long stackSize) {
+        this.compiler = new JvmCompiler();
+        this.stackSize = stackSize;
+        this.monitor = new BudgetMonitor();
+        this.programs = new LinkedHashMap<ASTTerm, JvmProgram>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ASTTerm, JvmProgram> eldest) {
+                return size() > DEFAULT_CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Compiles the term and evaluates it. In verbose mode, the size of the generated class is printed.
+     * @param term a closed term
+     * @param verbose whether information about the compilation should be printed
+     * @return the result
+     */
+    @Override
+    public ASTTerm reduceToWHNF(ASTTerm term, boolean verbose) {
+        JvmProgram program = programs.computeIfAbsent(term, t -> {
+            compilations++;
+            return compiler.compile(DeBruijnConverter.toDeBruijn(t));
+        });
+        if (verbose) {
+            System.out.println(term);
+            System.out.println(" compiled to " + program.getClass().getName() + " with " +
+                    program.getNumberOfBlocks() + " blocks (" + program.getClassFile().length + " bytes)");
+        }
+
+        long start = System.nanoTime();
+        // the result is converted in the evaluation thread as well, since it may be as deep as the evaluation
+        ASTTerm result = run(() -> monitor.checkResult(DeBruijnConverter.toNamed(readBack(program.evaluate()))));
+        if (verbose) {
+            System.out.println(" => " + result + " (" + (System.nanoTime() - start) / 1000000 + " ms)");
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of terms which were compiled, i.e. which were not evaluated by a kept program.
+     * @return the number of compilations
+     */
+    public int getNumberOfCompilations() {
+        return compilations;
+    }
+
+    /**
+     * Discards the kept programs.
+     */
+    @Override
+    public void reset() {
+        programs.clear();
+    }
+
+    /**
+     * Evaluates a compiled program in a new thread and reads back its result.
+     * @param program the program
+     * @return the result in De Bruijn notation
+     */
+    public DBTerm execute(JvmProgram program) {
+        return run(() -> readBack(program.evaluate()));
+    }
+
+    /**
+     * Runs an evaluation in a new thread with the stack size of this reducer.
+     * @param evaluation the evaluation
+     * @return its result
+     */
+    private <T> T run(Supplier<T> evaluation) {
+        List<T> result = new ArrayList<>(1);
+        Throwable[] error = new Throwable[1];
+        Thread thread = new EvaluationThread(() -> {
+            try {
+                result.add(evaluation.get());
+            }
+            catch (RuntimeException | Error e) {
+                error[0] = e;
+            }
+        }, stackSize, monitor);
+
+        monitor.start();
+        thread.start();
+        try {
+            thread.join();
+        }
+        catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The evaluation was interrupted", e);
+        }
+
+        if (error[0] instanceof RuntimeException) {
+            throw (RuntimeException) error[0];
+        }
+        if (error[0] != null) {
+            throw (Error) error[0];
+        }
+        return result.get(0);
+    }
+
+    /**
+     * Sets the limits of each following evaluation. The compiled code has no term, so the size of the term is only
+     * checked for the result.
+     * @param budget the budget
+     */
+    @Override
+    public void setBudget(EvaluationBudget budget) {
+        monitor.setBudget(budget);
+    }
+
+    /**
+     * Reads back a normalized value in WHNF, i.e. the arguments of constructors and predefined functions are evaluated,
+     * unless the value has already been visited (e.g. because it is a part of a cyclic structure). The values are
+     * traversed with an explicit work stack, so the depth of the result is only limited by the heap.
+     * @param value the value
+     * @return the corresponding term
+     */
+    private DBTerm readBack(Object value) {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        // the work stack contains the parts to read back and the terms which are rebuilt from the results
+        Deque<Object> work = new ArrayDeque<>();
+        Deque<DBTerm> results = new ArrayDeque<>();
+        work.push(new Part(value, true));
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+            if (next instanceof Rebuild) {
+                results.push(((Rebuild) next).build(results));
+                continue;
+            }
+
+            Part part = (Part) next;
+            Object item = part.item;
+            boolean normalize = part.normalize;
+            if (item instanceof Thunk) {
+                Thunk thunk = (Thunk) item;
+                if (thunk instanceof FixThunk) {
+                    // the fixed point refers to itself, so it is read back as fix f
+                    DBTerm fix = new DBConstant(new ASTConstant(PredefinedFunction.FIX));
+                    work.push(new Rebuild(fix, false, 1));
+                    work.push(new Part(((FixThunk) thunk).getFunction(), false));
+                    continue;
+                }
+                if (!normalize && thunk.getProgram() != null) {
+                    // thunks which are not normalized are read back as the term of their block
+                    DBTerm term = thunk.getProgram().getTerm(thunk.getBlock());
+                    push(work, new Rebuild(term, true, thunk.getEnvironment().length), thunk.getEnvironment(), false);
+                    continue;
+                }
+                item = thunk.force();
+            }
+
+            if (item instanceof Closure) {
+                // the term of the block is instantiated with the arguments, which stay unevaluated
+                Closure closure = (Closure) item;
+                DBTerm term = closure.getProgram().getTerm(closure.getBlock());
+                push(work, new Rebuild(term, true, closure.getArguments().length), closure.getArguments(), false);
+                continue;
+            }
+
+            boolean normalizeArgs = normalize && visited.add(item);
+            if (item instanceof Data) {
+                Data data = (Data) item;
+                DBTerm head = new DBConstant(new ASTConstant(data.getConstructor()));
+                push(work, new Rebuild(head, false, data.getArguments().length), data.getArguments(), normalizeArgs);
+            }
+            else if (item instanceof Primitive) {
+                Primitive primitive = (Primitive) item;
+                DBTerm head = new DBConstant(primitive.getConstant());
+                push(work, new Rebuild(head, false, primitive.getArguments().length), primitive.getArguments(),
+                        normalizeArgs);
+            }
+            else {
+                results.push(new DBConstant(ASTConstant.of(item)));
+            }
+        }
+
+        return results.pop();
+    }
+
+    /**
+     * Pushes the rebuild of a term and then its parts in reversed order, so they are read back from left to right.
+     */
+    private static void push(Deque<Object> work, Rebuild rebuild, Thunk[] parts, boolean normalize) {
+        work.push(rebuild);
+        for (int i = parts.length - 1; i >= 0; i--) {
+            work.push(new Part(parts[i], normalize));
+        }
+    }
+
+    /**
+     * A thunk or a value which is read back, where normalized thunks are evaluated.
+     */
+    private static class Part {
+        private final Object item;
+        private final boolean normalize;
+
+        private Part(Object item, boolean normalize) {
+            this.item = item;
+            this.normalize = normalize;
+        }
+    }
+
+    /**
+     * Marks that a term is rebuilt from the parts on top of the result stack.
+     */
+    private static class Rebuild {
+        private final DBTerm term;
+        // whether the parts are substituted into the abstractions of the term or are its arguments
+        private final boolean instantiate;
+        private final int parts;
+
+        private Rebuild(DBTerm term, boolean instantiate, int parts) {
+            this.term = term;
+            this.instantiate = instantiate;
+            this.parts = parts;
+        }
+
+        private DBTerm build(Deque<DBTerm> results) {
+            DBTerm[] converted = new DBTerm[parts];
+            for (int i = parts - 1; i >= 0; i--) {
+                converted[i] = results.pop();
+            }
+
+            DBTerm result = term;
+            for (DBTerm part : converted) {
+                if (instantiate) {
+                    result = ((DBAbstraction) result).getBody().instantiate(0, part);
+                }
+                else {
+                    result = new DBApplication(result, part);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package lambda.jvm;
+
+import lambda.ast.ASTConstant;
+import lambda.ast.ASTTerm;
+import lambda.gmachine.GCompiler;
+import lambda.reduction.delta.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The functions which are called by the compiled code.
+ * Values in WHNF are represented as follows: constants by their value (e.g. Integer or Boolean), constructors and
+ * tuple constructors by {@link Data}, predefined functions by {@link Primitive} and abstractions by {@link Closure}.
+ */
+public final class JvmRuntime {
+    private JvmRuntime() {
+    }
+
+    /**
+     * Counts a step of the evaluation of the current thread, i.e. an application, the evaluation of a thunk or an
+     * iteration of a loop, each of which runs a finite piece of code.
+     */
+    static void step() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof EvaluationThread) {
+            ((EvaluationThread) thread).getMonitor().step();
+        }
+    }
+
+    /**
+     * Counts a thunk which the evaluation of the current thread allocates.
+     */
+    static void allocate() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof EvaluationThread) {
+            ((EvaluationThread) thread).getMonitor().allocate();
+        }
+    }
+
+    /**
+     * Returns the value which represents a constant.
+     * @param constant the constant
+     * @return the value
+     */
+    public static Object valueOf(ASTConstant constant) {
+        Object value = constant.getValue();
+        if (value instanceof ConstructorReduction.Constructor || value instanceof TupleReduction.TupleConstant) {
+            return new Data(value, new Thunk[0]);
+        }
+        if (GCompiler.getArity(constant) > 0 || value.equals(PredefinedFunction.BOT)) {
+            return new Primitive(constant);
+        }
+        return value;
+    }
+
+    /**
+     * Applies a value in WHNF to an argument.
+     * @param function the function
+     * @param argument the argument
+     * @return the result in WHNF
+     */
+    public static Object apply(Object function, Thunk argument) {
+        step();
+        if (function instanceof Closure) {
+            return ((Closure) function).apply(argument);
+        }
+        if (function instanceof Primitive) {
+            return ((Primitive) function).apply(argument);
+        }
+        if (function instanceof Data) {
+            return ((Data) function).apply(argument);
+        }
+        throw new IllegalStateException("Can not apply " + function);
+    }
+
+    /**
+     * Returns a thunk which is already evaluated.
+     * @param value the value
+     * @return the thunk
+     */
+    public static Thunk evaluated(Object value) {
+        return new Thunk(value);
+    }
+
+    /**
+     * Returns the thunk of fix f.
+     * @param function the thunk of f
+     * @return the thunk of the fixed point
+     */
+    public static Thunk fix(Thunk function) {
+        return new FixThunk(function);
+    }
+
+    /**
+     * Returns whether a function is a closure of the block whose arguments are the first arguments of a call of the
+     * block, i.e. whether applying the function to the remaining arguments calls the block with the same environment.
+     * @param function the function in WHNF
+     * @param program the program of the block
+     * @param block the index of the block
+     * @param arguments the arguments of the current call of the block
+     * @param length the number of arguments which must be the same
+     * @return whether the application is a call of the same block
+     */
+    public static boolean isSelfCall(Object function, JvmProgram program, int block, Thunk[] arguments, int length) {
+        // every iteration of a loop checks its call, so the loop counts its iterations here
+        step();
+        if (!(function instanceof Closure)) {
+            return false;
+        }
+
+        Closure closure = (Closure) function;
+        Thunk[] closureArguments = closure.getArguments();
+        if (closure.getProgram() != program || closure.getBlock() != block || closureArguments.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (closureArguments[i] != arguments[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates bot, i.e. does not terminate.
+     * @return never
+     */
+    public static Object bottom() {
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("The evaluation of bot was interrupted");
+            }
+            step();
+        }
+    }
+
+    /**
+     * Applies a predefined function to all of its arguments.
+     * @param primitive the predefined function
+     * @param arguments the arguments
+     * @return the result in WHNF
+     */
+    public static Object reduce(Primitive primitive, Thunk[] arguments) {
+        Object function = primitive.getConstant().getValue();
+
+        if (function.equals(PredefinedFunction.IF)) {
+            boolean condition = (Boolean) arguments[0].force();
+            return condition ? arguments[1].force() : arguments[2].force();
+        }
+        if (function.equals(PredefinedFunction.FIX)) {
+            return fix(arguments[0]).force();
+        }
+        if (function.equals(PredefinedFunction.SEQ) || function.equals(PredefinedFunction.PSEQ)) {
+            arguments[0].force();
+            return arguments[1].force();
+        }
+        if (function.equals(PredefinedFunction.PAR)) {
+            // compiled code evaluates par sequentially
+            return arguments[1].force();
+        }
+        if (primitive.getRule() != null) {
+            if (arguments.length == 1) {
+                return primitive1(primitive, arguments[0].force());
+            }
+            if (arguments.length == 2) {
+                return primitive2(primitive, arguments[0].force(), arguments[1].force());
+            }
+            throw new IllegalStateException("Unsupported arity of " + function);
+        }
+        return reduceConstructorFunction(function, arguments[0].force());
+    }
+
+    /**
+     * Applies a delta rule with one argument in WHNF.
+     */
+    public static Object primitive1(Primitive primitive, Object argument) {
+        List<ASTTerm> constants = new ArrayList<>(1);
+        constants.add(ASTConstant.of(argument));
+        return applyRule(primitive, constants);
+    }
+
+    /**
+     * Applies a delta rule with two arguments in WHNF. The arithmetic on integers does not need to create terms.
+     */
+    public static Object primitive2(Primitive primitive, Object argument0, Object argument1) {
+        Object function = primitive.getConstant().getValue();
+        if (argument0 instanceof Integer && argument1 instanceof Integer && function instanceof PredefinedFunction) {
+            Object result = IntegerArithmetic.apply((PredefinedFunction) function, (int) argument0, (int) argument1);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        List<ASTTerm> constants = new ArrayList<>(2);
+        constants.add(ASTConstant.of(argument0));
+        constants.add(ASTConstant.of(argument1));
+        return applyRule(primitive, constants);
+    }
+
+    private static Object applyRule(Primitive primitive, List<ASTTerm> constants) {
+        Optional<ASTTerm> result = primitive.getRule().getRHS(primitive.getConstant(), constants);
+        if (!result.isPresent() || !(result.get() instanceof ASTConstant)) {
+            throw new IllegalStateException("Can not apply " + primitive.getConstant() + " to " + constants);
+        }
+        return ((ASTConstant) result.get()).getValue();
+    }
+
+    /**
+     * Applies isa_, argof_ or sel_ to a value in WHNF.
+     */
+    private static Object reduceConstructorFunction(Object function, Object argument) {
+        Object constructor = argument instanceof Data ? ((Data) argument).getConstructor() : argument;
+        Thunk[] arguments = argument instanceof Data ? ((Data) argument).getArguments() : new Thunk[0];
+
+        if (function instanceof TupleReduction.IsATuple || function instanceof TupleReduction.Sel) {
+            if (constructor instanceof TupleReduction.TupleConstant) {
+                if (function instanceof TupleReduction.IsATuple) {
+                    return ((TupleReduction.IsATuple) function).getN() == arguments.length;
+                }
+                TupleReduction.Sel sel = (TupleReduction.Sel) function;
+                if (sel.getN() == arguments.length) {
+                    // -1 because sel is starts counting at 1
+                    return arguments[sel.getI() - 1].force();
+                }
+            }
+        }
+        else if (function instanceof ConstructorReduction.IsA) {
+            Object isaValue = ((ConstructorReduction.IsA) function).getValue();
+
+            // we can only reduce it to true or false if the constructor classes match our isa_constructor
+            if (((ConstructorReduction.IsA<?>) function).isApplicable(constructor)) {
+                return constructor.equals(isaValue);
+            }
+        }
+        else if (function instanceof ConstructorReduction.ArgOf) {
+            if (constructor.equals(((ConstructorReduction.ArgOf) function).getConstr())) {
+                if (arguments.length == 1) {
+                    // there are no 1-sized tuples
+                    return arguments[0].force();
+                }
+                return new Data(TupleReduction.getTupleConstructor(arguments.length), arguments);
+            }
+        }
+
+        throw new IllegalStateException("Can not apply " + function + " to " + constructor);
+    }
+}
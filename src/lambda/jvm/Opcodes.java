@@ -0,0 +1,34 @@
+package lambda.jvm;
+
+/**
+ * The JVM opcodes which are emitted by the compiler.
+ */
+public final class Opcodes {
+    public static final int ACONST_NULL = 0x01;
+    public static final int ICONST_0 = 0x03;
+    public static final int BIPUSH = 0x10;
+    public static final int SIPUSH = 0x11;
+    public static final int LDC_W = 0x13;
+    public static final int ILOAD = 0x15;
+    public static final int ALOAD = 0x19;
+    public static final int ASTORE = 0x3A;
+    public static final int AALOAD = 0x32;
+    public static final int AASTORE = 0x53;
+    public static final int DUP = 0x59;
+    public static final int IFEQ = 0x99;
+    public static final int GOTO = 0xA7;
+    public static final int TABLESWITCH = 0xAA;
+    public static final int ARETURN = 0xB0;
+    public static final int RETURN = 0xB1;
+    public static final int GETFIELD = 0xB4;
+    public static final int INVOKEVIRTUAL = 0xB6;
+    public static final int INVOKESPECIAL = 0xB7;
+    public static final int INVOKESTATIC = 0xB8;
+    public static final int NEW = 0xBB;
+    public static final int ANEWARRAY = 0xBD;
+    public static final int ATHROW = 0xBF;
+    public static final int CHECKCAST = 0xC0;
+
+    private Opcodes() {
+    }
+}
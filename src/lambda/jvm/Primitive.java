@@ -0,0 +1,63 @@
+package lambda.jvm;
+
+import lambda.ast.ASTConstant;
+import lambda.gmachine.GCompiler;
+import lambda.reduction.delta.DeltaReduction;
+
+import java.util.Arrays;
+
+/**
+ * A predefined function which is partially applied to its arguments. The delta rule is applied as soon as all
+ * arguments are present.
+ */
+public final class Primitive {
+    private final ASTConstant constant;
+    private final int arity;
+    private final DeltaReduction rule;
+    private final Thunk[] arguments;
+
+    /**
+     * Creates the predefined function without any arguments.
+     * @param constant the predefined function
+     */
+    public Primitive(ASTConstant constant) {
+        this(constant, GCompiler.getArity(constant), GCompiler.getConstantRule(constant), new Thunk[0]);
+    }
+
+    private Primitive(ASTConstant constant, int arity, DeltaReduction rule, Thunk[] arguments) {
+        this.constant = constant;
+        this.arity = arity;
+        this.rule = rule;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Applies the function to one more argument.
+     * @param argument the argument
+     * @return the result in WHNF, or a new primitive if there are still arguments missing
+     */
+    public Object apply(Thunk argument) {
+        Thunk[] newArguments = Arrays.copyOf(arguments, arguments.length + 1);
+        newArguments[arguments.length] = argument;
+        if (newArguments.length == arity) {
+            return JvmRuntime.reduce(this, newArguments);
+        }
+        return new Primitive(constant, arity, rule, newArguments);
+    }
+
+    public ASTConstant getConstant() {
+        return constant;
+    }
+
+    /**
+     * Returns the delta rule which only works on constants, or null for if, fix, seq, par and the constructor functions.
+     * @return the delta rule
+     */
+    public DeltaReduction getRule() {
+        return rule;
+    }
+
+    public Thunk[] getArguments() {
+        return arguments;
+    }
+}
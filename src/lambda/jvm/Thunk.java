@@ -0,0 +1,71 @@
+package lambda.jvm;
+
+/**
+ * A suspended computation of a compiled program. The thunk calls the code block of the program with its environment
+ * when it is forced the first time and then remembers the result, so the computation is shared.
+ * The block and the environment are kept after the evaluation, so that the thunk can be read back as a term.
+ */
+public class Thunk {
+    private final JvmProgram program;
+    private final int block;
+    private final Thunk[] environment;
+    private Object value;
+
+    /**
+     * Creates a suspended call of a code block.
+     * @param program the program
+     * @param block the index of the code block
+     * @param environment the arguments of the code block
+     */
+    public Thunk(JvmProgram program, int block, Thunk[] environment) {
+        JvmRuntime.allocate();
+        this.program = program;
+        this.block = block;
+        this.environment = environment;
+    }
+
+    /**
+     * Creates a thunk which is already evaluated.
+     * @param value the value in WHNF
+     */
+    public Thunk(Object value) {
+        this(null, -1, null);
+        this.value = value;
+    }
+
+    /**
+     * Evaluates the thunk to weak head normal form, unless it has already been evaluated.
+     * @return the value
+     */
+    public final Object force() {
+        if (value == null) {
+            JvmRuntime.step();
+            value = compute();
+        }
+        return value;
+    }
+
+    /**
+     * Computes the value of the thunk.
+     * @return the value in WHNF
+     */
+    protected Object compute() {
+        return program.run(block, environment);
+    }
+
+    public boolean isEvaluated() {
+        return value != null;
+    }
+
+    public JvmProgram getProgram() {
+        return program;
+    }
+
+    public int getBlock() {
+        return block;
+    }
+
+    public Thunk[] getEnvironment() {
+        return environment;
+    }
+}
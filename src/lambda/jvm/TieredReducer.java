@@ -0,0 +1,79 @@
+package lambda.jvm;
+
+import lambda.ast.ASTTerm;
+import lambda.reduction.EvaluationBudget;
+import lambda.reduction.LambdaReducer;
+import lambda.reduction.WHNOReducer;
+
+/**
+ * Evaluates terms with the {@link WHNOReducer} first and switches to compiled code for long evaluations.
+ * The WHNO reducer counts how often each recursive binding, i.e. the function of a fix, is entered. When a binding
+ * is entered more often than the threshold, the interpretation stops and the remaining term is compiled to a JVM
+ * class by the {@link JvmReducer}. Short evaluations do not pay for the compilation, while long evaluations run their
+ * hot loops as compiled code. Since the counts are kept for the whole program, later evaluations which use a hot
+ * binding are compiled as soon as they enter it.
+ */
+public class TieredReducer implements LambdaReducer {
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    private final WHNOReducer interpreter;
+    private final JvmReducer compiler;
+    private final int threshold;
+
+    // the number of evaluations which were finished by compiled code
+    private int compilations;
+
+    public TieredReducer() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a tiered reducer which compiles a term as soon as a binding has been entered the given number of times.
+     * @param threshold the number of unfoldings of a binding
+     */
+    public TieredReducer(int threshold) {
+        this.interpreter = new WHNOReducer();
+        this.interpreter.setHotThreshold(threshold);
+        this.compiler = new JvmReducer();
+        this.threshold = threshold;
+    }
+
+    @Override
+    public ASTTerm reduceToWHNF(ASTTerm term, boolean verbose) {
+        ASTTerm result = interpreter.reduceToWHNF(term, verbose);
+        if (interpreter.getHotBinding() == null) {
+            return result;
+        }
+
+        if (verbose) {
+            System.out.println("Compiling after hot binding " + interpreter.getHotBinding());
+        }
+        compilations++;
+        return compiler.reduceToWHNF(result, verbose);
+    }
+
+    @Override
+    public void reset() {
+        interpreter.reset();
+        compiler.reset();
+    }
+
+    /**
+     * Sets the limits of each following evaluation. The compiled code would count its steps and time from the start
+     * again, so evaluations with a limited budget are not compiled.
+     * @param budget the budget
+     */
+    @Override
+    public void setBudget(EvaluationBudget budget) {
+        interpreter.setBudget(budget);
+        interpreter.setHotThreshold(budget.isUnlimited() ? threshold : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of evaluations which were continued in compiled code.
+     * @return the number of compilations
+     */
+    public int getNumberOfCompilations() {
+        return compilations;
+    }
+}
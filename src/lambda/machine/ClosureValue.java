@@ -0,0 +1,25 @@
+package lambda.machine;
+
+import lambda.debruijn.DBAbstraction;
+
+/**
+ * Represents a lambda abstraction together with the environment of its dangling indices.
+ */
+public class ClosureValue extends Value {
+    private final DBAbstraction abstraction;
+    private final Environment environment;
+
+    public ClosureValue(DBAbstraction abstraction, Environment environment) {
+        assert(abstraction != null);
+        this.abstraction = abstraction;
+        this.environment = environment;
+    }
+
+    public DBAbstraction getAbstraction() {
+        return abstraction;
+    }
+
+    public Environment getEnvironment() {
+        return environment;
+    }
+}
@@ -0,0 +1,43 @@
+package lambda.machine;
+
+/**
+ * An immutable environment of the abstract machine. The De Bruijn index i refers to the i-th thunk of the
+ * environment, so extending an environment for a beta reduction neither copies it nor substitutes anything.
+ */
+public class Environment {
+    private final Thunk thunk;
+    private final Environment parent;
+    private final int size;
+
+    private Environment(Thunk thunk, Environment parent) {
+        this.thunk = thunk;
+        this.parent = parent;
+        this.size = parent == null ? 1 : parent.size + 1;
+    }
+
+    /**
+     * Returns a new environment where the index 0 refers to the given thunk and all other indices are shifted by one.
+     * @param env the environment which is extended, or null for the empty environment
+     * @param thunk the thunk
+     * @return the extended environment
+     */
+    public static Environment extend(Environment env, Thunk thunk) {
+        assert(thunk != null);
+        return new Environment(thunk, env);
+    }
+
+    /**
+     * Returns the thunk the given index refers to.
+     * @param env the environment
+     * @param index the De Bruijn index
+     * @return the thunk
+     */
+    public static Thunk get(Environment env, int index) {
+        assert(env != null && index < env.size);
+        while (index > 0) {
+            env = env.parent;
+            index--;
+        }
+        return env.thunk;
+    }
+}
@@ -0,0 +1,585 @@
+package lambda.machine;
+
+import lambda.ast.ASTConstant;
+import lambda.ast.ASTTerm;
+import lambda.debruijn.*;
+import lambda.reduction.BudgetMonitor;
+import lambda.reduction.EvaluationBudget;
+import lambda.reduction.LambdaReducer;
+import lambda.reduction.delta.*;
+
+import java.util.*;
+
+/**
+ * A lazy Krivine machine which evaluates lambda terms in De Bruijn notation.
+ * Instead of substituting arguments into the body of an abstraction, the machine evaluates the body in an environment
+ * of shared thunks. The continuation is an explicit stack of frames, so every step of the machine takes constant time
+ * (except for looking up an index in the environment) and the term is never rebuilt.
+ * Evaluated thunks are updated with their value (call-by-need). The delta rules of lambda.reduction.delta are
+ * implemented natively on the values of the machine.
+ */
+public class KrivineMachine implements LambdaReducer {
+    // if True -> \x.\y.x, if False -> \x.\y.y
+    private static final DBAbstraction IF_TRUE = new DBAbstraction("x", new DBAbstraction("y", new DBIndex(1)));
+    private static final DBAbstraction IF_FALSE = new DBAbstraction("x", new DBAbstraction("y", new DBIndex(0)));
+    // seq a -> \y.y after a is evaluated, par a -> \y.y without evaluating a
+    private static final DBAbstraction IDENTITY = new DBAbstraction("y", new DBIndex(0));
+
+    // the code of a fix thunk: the function (#0) applied to the fix thunk itself (#1)
+    private static final DBTerm FIX_CODE = new DBApplication(new DBIndex(0), new DBIndex(1));
+
+    // delta rules which only work on constants, so they can be applied to the wrapped constants directly
+    private List<DeltaReduction> constantRules;
+
+    // counts the machine steps of each evaluation and enforces its budget
+    private final BudgetMonitor monitor;
+
+    /**
+     * Represents a frame of the continuation stack.
+     */
+    private static abstract class Frame {
+    }
+
+    /**
+     * The value is applied to the argument of this frame.
+     */
+    private static class ArgumentFrame extends Frame {
+        private final Thunk argument;
+
+        private ArgumentFrame(Thunk argument) {
+            this.argument = argument;
+        }
+    }
+
+    /**
+     * The thunk of this frame is updated with the value.
+     */
+    private static class UpdateFrame extends Frame {
+        private final Thunk thunk;
+
+        private UpdateFrame(Thunk thunk) {
+            this.thunk = thunk;
+        }
+    }
+
+    /**
+     * The value is the strict argument with the given index of the saturated delta rule application.
+     */
+    private static class DeltaFrame extends Frame {
+        private final SpineValue application;
+        private final int index;
+
+        private DeltaFrame(SpineValue application, int index) {
+            this.application = application;
+            this.index = index;
+        }
+    }
+
+    public KrivineMachine() {
+        constantRules = new ArrayList<>();
+        constantRules.add(new ArithmeticReduction());
+        constantRules.add(new BooleanReduction());
+        constantRules.add(new BoolNotReduction());
+        constantRules.add(new CharReduction());
+        monitor = new BudgetMonitor();
+    }
+
+    /**
+     * Evaluates a term like the WHNOReducer would, i.e. the term is evaluated to weak head normal form and if its
+     * head is a constant or a free variable, then also its arguments are evaluated.
+     * The machine does not build intermediate terms, so in verbose mode only the term and its result are printed.
+     * @param term the term
+     * @param verbose whether the term and its result should be printed
+     * @return the resulting term
+     */
+    @Override
+    public ASTTerm reduceToWHNF(ASTTerm term, boolean verbose) {
+        if (verbose) {
+            System.out.println(term);
+        }
+        monitor.start();
+
+        Thunk root = new Thunk(DeBruijnConverter.toDeBruijn(term), null);
+        normalize(root);
+        ASTTerm result = DeBruijnConverter.toNamed(readBack(root));
+        monitor.checkResult(result);
+
+        if (verbose) {
+            System.out.println(" => " + result + " (" + monitor.getSteps() + " machine steps)");
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of machine steps of the last evaluation.
+     * @return the number of steps
+     */
+    public long getNumberOfSteps() {
+        return monitor.getSteps();
+    }
+
+    /**
+     * Sets the limits of each following evaluation. The size of the term is only checked for the result, since the
+     * machine does not build intermediate terms.
+     * @param budget the budget
+     */
+    @Override
+    public void setBudget(EvaluationBudget budget) {
+        monitor.setBudget(budget);
+    }
+
+    /**
+     * Evaluates the thunk and, if its head is a constant or a free variable, all of its arguments.
+     * @param root the thunk
+     */
+    private void normalize(Thunk root) {
+        Set<Thunk> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Thunk> todo = new ArrayDeque<>();
+        todo.push(root);
+
+        while (!todo.isEmpty()) {
+            Thunk thunk = todo.pop();
+            if (!visited.add(thunk)) {
+                // this thunk is a part of a cyclic data structure which has already been evaluated
+                continue;
+            }
+
+            Value value = evaluate(thunk);
+            if (value instanceof SpineValue) {
+                // the arguments are pushed in reversed order so they are evaluated from left to right
+                List<Thunk> args = ((SpineValue) value).getArguments();
+                for (int i = args.size() - 1; i >= 0; i--) {
+                    todo.push(args.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the machine until the thunk is evaluated to weak head normal form.
+     * @param thunk the thunk
+     * @return its value
+     */
+    private Value evaluate(Thunk thunk) {
+        if (thunk.isEvaluated()) {
+            return thunk.getValue();
+        }
+
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new UpdateFrame(thunk));
+        DBTerm term = thunk.getTerm();
+        Environment env = thunk.getEnvironment();
+        Value value = null;
+
+        while (true) {
+            monitor.step();
+
+            if (value == null) {
+                // evaluate the term in the environment
+                if (term instanceof DBApplication) {
+                    DBApplication app = (DBApplication) term;
+                    stack.push(new ArgumentFrame(suspend(app.getRight(), env)));
+                    term = app.getLeft();
+                }
+                else if (term instanceof DBIndex) {
+                    Thunk t = Environment.get(env, ((DBIndex) term).getIndex());
+                    if (t.isEvaluated()) {
+                        value = t.getValue();
+                    }
+                    else {
+                        stack.push(new UpdateFrame(t));
+                        term = t.getTerm();
+                        env = t.getEnvironment();
+                    }
+                }
+                else if (term instanceof DBAbstraction) {
+                    value = new ClosureValue((DBAbstraction) term, env);
+                }
+                else if (term instanceof DBConstant) {
+                    // bot -> bot, i.e. the machine keeps evaluating bot
+                    if (!((DBConstant) term).getValue().equals(PredefinedFunction.BOT)) {
+                        value = new SpineValue(term);
+                    }
+                }
+                else {
+                    value = new SpineValue(term);
+                }
+                continue;
+            }
+
+            // return the value to the top frame of the stack
+            if (stack.isEmpty()) {
+                return value;
+            }
+            Frame frame = stack.pop();
+
+            SpineValue application;
+            int start;
+            if (frame instanceof UpdateFrame) {
+                ((UpdateFrame) frame).thunk.update(value);
+                continue;
+            }
+            else if (frame instanceof ArgumentFrame) {
+                Thunk argument = ((ArgumentFrame) frame).argument;
+                if (value instanceof ClosureValue) {
+                    // beta reduction: evaluate the body with the index 0 bound to the argument
+                    ClosureValue closure = (ClosureValue) value;
+                    term = closure.getAbstraction().getBody();
+                    env = Environment.extend(closure.getEnvironment(), argument);
+                    value = null;
+                    continue;
+                }
+
+                application = ((SpineValue) value).apply(argument);
+                value = application;
+                if (!application.isConstant() || getArity(application) != application.getArguments().size()) {
+                    continue;
+                }
+                start = 0;
+            }
+            else {
+                // the strict argument with the index of the frame has been evaluated
+                DeltaFrame deltaFrame = (DeltaFrame) frame;
+                application = deltaFrame.application;
+                value = application;
+                start = deltaFrame.index + 1;
+            }
+
+            // the application is saturated, so evaluate its strict arguments and then apply the delta rule
+            Thunk next;
+            int pending = findUnevaluatedArgument(application, start);
+            if (pending >= 0) {
+                stack.push(new DeltaFrame(application, pending));
+                next = application.getArguments().get(pending);
+            }
+            else {
+                next = applyDeltaRule(application);
+                if (next == null) {
+                    // no delta rule is applicable, so the application is a value
+                    continue;
+                }
+            }
+
+            if (next.isEvaluated()) {
+                value = next.getValue();
+            }
+            else {
+                stack.push(new UpdateFrame(next));
+                term = next.getTerm();
+                env = next.getEnvironment();
+                value = null;
+            }
+        }
+    }
+
+    /**
+     * Suspends a term in an environment. Indices and constants do not need a new thunk.
+     * @param term the term
+     * @param env the environment
+     * @return the thunk
+     */
+    private Thunk suspend(DBTerm term, Environment env) {
+        if (term instanceof DBIndex) {
+            // share the thunk of the variable
+            return Environment.get(env, ((DBIndex) term).getIndex());
+        }
+        monitor.allocate();
+        if (term instanceof DBConstant) {
+            return new Thunk(new SpineValue(term));
+        }
+        return new Thunk(term, env);
+    }
+
+    /**
+     * Returns the index of the first strict argument of the saturated application which is not evaluated yet.
+     * @param application the saturated application
+     * @param start the index of the first argument which has not been checked yet
+     * @return the index of the argument or -1 if all strict arguments are evaluated
+     */
+    private static int findUnevaluatedArgument(SpineValue application, int start) {
+        // fix and par are the only delta rules which are not strict in their argument
+        Object function = ((DBConstant) application.getHead()).getValue();
+        if (function.equals(PredefinedFunction.FIX) || function.equals(PredefinedFunction.PAR)) {
+            return -1;
+        }
+
+        List<Thunk> args = application.getArguments();
+        for (int i = start; i < args.size(); i++) {
+            if (!args.get(i).isEvaluated()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of arguments a constant needs before a delta rule can be applied.
+     * @param application the application of the constant
+     * @return the number of arguments or 0 if there is no delta rule for it
+     */
+    private int getArity(SpineValue application) {
+        ASTConstant constant = ((DBConstant) application.getHead()).getConstant();
+        Object value = constant.getValue();
+        if (value.equals(PredefinedFunction.IF) || value.equals(PredefinedFunction.FIX) ||
+                value.equals(PredefinedFunction.SEQ) || value.equals(PredefinedFunction.PSEQ) ||
+                value.equals(PredefinedFunction.PAR) || value instanceof TupleReduction.IsATuple || value instanceof TupleReduction.Sel ||
+                value instanceof ConstructorReduction.IsA || value instanceof ConstructorReduction.ArgOf) {
+            return 1;
+        }
+        for (DeltaReduction rule : constantRules) {
+            if (rule.isConstantMatching(constant)) {
+                return rule.getNumberOfArguments();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Applies a delta rule to a saturated application whose strict arguments are evaluated.
+     * @param application the saturated application
+     * @return the thunk of the result or null if no rule could be applied
+     */
+    private Thunk applyDeltaRule(SpineValue application) {
+        DBConstant constant = (DBConstant) application.getHead();
+        Object function = constant.getValue();
+        List<Thunk> args = application.getArguments();
+
+        if (function.equals(PredefinedFunction.FIX)) {
+            // fix t -> t (fix t), where the inner fix t is the thunk itself
+            return Thunk.createFix(args.get(0), FIX_CODE);
+        }
+        else if (function.equals(PredefinedFunction.SEQ) || function.equals(PredefinedFunction.PSEQ) ||
+                function.equals(PredefinedFunction.PAR)) {
+            // the machine evaluates par sequentially, i.e. it ignores the spark
+            return new Thunk(new ClosureValue(IDENTITY, null));
+        }
+        else if (function.equals(PredefinedFunction.IF)) {
+            Value arg = args.get(0).getValue();
+            if (arg instanceof SpineValue && isConstant((SpineValue) arg, Boolean.class)) {
+                boolean condition = (Boolean) ((DBConstant) ((SpineValue) arg).getHead()).getValue();
+                return new Thunk(new ClosureValue(condition ? IF_TRUE : IF_FALSE, null));
+            }
+        }
+        else if (function instanceof TupleReduction.IsATuple || function instanceof TupleReduction.Sel) {
+            Value arg = args.get(0).getValue();
+            if (arg instanceof SpineValue && isConstant((SpineValue) arg, TupleReduction.TupleConstant.class)) {
+                List<Thunk> tupleArgs = ((SpineValue) arg).getArguments();
+                if (function instanceof TupleReduction.IsATuple) {
+                    boolean isTuple = ((TupleReduction.IsATuple) function).getN() == tupleArgs.size();
+                    return constantThunk(new ASTConstant(isTuple));
+                }
+                else {
+                    TupleReduction.Sel sel = (TupleReduction.Sel) function;
+                    if (sel.getN() == tupleArgs.size()) {
+                        // -1 because sel is starts counting at 1
+                        return tupleArgs.get(sel.getI() - 1);
+                    }
+                }
+            }
+        }
+        else if (function instanceof ConstructorReduction.IsA) {
+            Value arg = args.get(0).getValue();
+            if (arg instanceof SpineValue && ((SpineValue) arg).isConstant()) {
+                Object constrValue = ((DBConstant) ((SpineValue) arg).getHead()).getValue();
+                Object isaValue = ((ConstructorReduction.IsA) function).getValue();
+
+                // we can only reduce it to true or false if the constructor classes match our isa_constructor
+                if (((ConstructorReduction.IsA<?>) function).isApplicable(constrValue)) {
+                    return constantThunk(new ASTConstant(constrValue.equals(isaValue)));
+                }
+            }
+        }
+        else if (function instanceof ConstructorReduction.ArgOf) {
+            Value arg = args.get(0).getValue();
+            ConstructorReduction.Constructor argofConstr = ((ConstructorReduction.ArgOf) function).getConstr();
+            if (arg instanceof SpineValue && ((SpineValue) arg).isConstant() &&
+                    ((DBConstant) ((SpineValue) arg).getHead()).getValue().equals(argofConstr)) {
+                List<Thunk> constrArgs = ((SpineValue) arg).getArguments();
+                if (constrArgs.size() == 1) {
+                    // there are no 1-sized tuples
+                    return constrArgs.get(0);
+                }
+                else {
+                    // return a tuple with the (shared) arguments
+                    DBTerm tuple = new DBConstant(new ASTConstant(TupleReduction.getTupleConstructor(constrArgs.size())));
+                    return new Thunk(new SpineValue(tuple, constrArgs));
+                }
+            }
+        }
+        else {
+            // the remaining rules only work on constants
+            List<ASTTerm> constantArgs = new ArrayList<>();
+            for (Thunk arg : args) {
+                Value value = arg.getValue();
+                if (!(value instanceof SpineValue) || !((SpineValue) value).isConstant() ||
+                        !((SpineValue) value).getArguments().isEmpty()) {
+                    return null;
+                }
+                constantArgs.add(((DBConstant) ((SpineValue) value).getHead()).getConstant());
+            }
+            for (DeltaReduction rule : constantRules) {
+                if (rule.getNumberOfArguments() == constantArgs.size() && rule.isConstantMatching(constant.getConstant())) {
+                    Optional<ASTTerm> result = rule.getRHS(constant.getConstant(), constantArgs);
+                    if (result.isPresent() && result.get() instanceof ASTConstant) {
+                        return constantThunk((ASTConstant) result.get());
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns whether the head of the value is a constant whose value is of the given class.
+     * @param value the value
+     * @param valueClass the class
+     * @return whether the head is such a constant
+     */
+    private static boolean isConstant(SpineValue value, Class<?> valueClass) {
+        return value.isConstant() && valueClass.isInstance(((DBConstant) value.getHead()).getValue());
+    }
+
+    private static Thunk constantThunk(ASTConstant constant) {
+        return new Thunk(new SpineValue(new DBConstant(constant)));
+    }
+
+    /**
+     * Converts a thunk back to a term without evaluating it. Cycles are printed as fix applications.
+     * The thunks are traversed with an explicit work stack, so the depth of the result is only limited by the heap.
+     * @param root the thunk
+     * @return the corresponding term
+     */
+    private DBTerm readBack(Thunk root) {
+        // the thunks which are currently being converted, i.e. the ancestors of the next thunk
+        Set<Thunk> path = Collections.newSetFromMap(new IdentityHashMap<>());
+        // the free variables which stand for thunks of the path which are referred to by their own terms
+        Map<Thunk, String> cycles = new IdentityHashMap<>();
+        int numberOfCycles = 0;
+        // the work stack contains thunks to convert and the terms which are rebuilt from the results
+        Deque<Object> work = new ArrayDeque<>();
+        Deque<DBTerm> results = new ArrayDeque<>();
+        work.push(root);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+
+            if (next instanceof FixKnot) {
+                results.push(new DBApplication(new DBConstant(new ASTConstant(PredefinedFunction.FIX)), results.pop()));
+                continue;
+            }
+            else if (next instanceof Rebuild) {
+                Rebuild rebuild = (Rebuild) next;
+                DBTerm result = rebuild.build(results);
+                path.remove(rebuild.thunk);
+                String cycle = cycles.remove(rebuild.thunk);
+                if (cycle != null) {
+                    // the thunk refers to itself without a fix knot, so it is printed as fix (\x.t) where x is the thunk
+                    DBTerm fix = new DBConstant(new ASTConstant(PredefinedFunction.FIX));
+                    result = new DBApplication(fix, result.bind(cycle, "x"));
+                }
+                results.push(result);
+                continue;
+            }
+
+            Thunk thunk = (Thunk) next;
+            if (thunk.getFixFunction() != null && (!thunk.isEvaluated() || path.contains(thunk))) {
+                work.push(new FixKnot());
+                work.push(thunk.getFixFunction());
+                continue;
+            }
+            if (!path.add(thunk)) {
+                // the thunk is an ancestor of itself, so it is replaced by a free variable which is bound later
+                String cycle = cycles.get(thunk);
+                if (cycle == null) {
+                    cycle = "#" + numberOfCycles++;
+                    cycles.put(thunk, cycle);
+                }
+                results.push(new DBFreeVariable(cycle));
+                continue;
+            }
+
+            Rebuild rebuild;
+            List<Thunk> parts = new ArrayList<>();
+            if (!thunk.isEvaluated()) {
+                rebuild = new Rebuild(thunk, thunk.getTerm(), true, addEnvironment(thunk.getTerm(), thunk.getEnvironment(), parts));
+            }
+            else if (thunk.getValue() instanceof ClosureValue) {
+                ClosureValue closure = (ClosureValue) thunk.getValue();
+                DBTerm abstraction = closure.getAbstraction();
+                rebuild = new Rebuild(thunk, abstraction, true, addEnvironment(abstraction, closure.getEnvironment(), parts));
+            }
+            else {
+                SpineValue spine = (SpineValue) thunk.getValue();
+                parts.addAll(spine.getArguments());
+                rebuild = new Rebuild(thunk, spine.getHead(), false, parts.size());
+            }
+
+            // the parts are pushed in reversed order so they are converted from left to right
+            work.push(rebuild);
+            for (int i = parts.size() - 1; i >= 0; i--) {
+                work.push(parts.get(i));
+            }
+        }
+
+        return results.pop();
+    }
+
+    /**
+     * Adds the thunks of the dangling indices of a term to the list.
+     * @param term the term
+     * @param env its environment
+     * @param thunks the list
+     * @return the number of added thunks
+     */
+    private static int addEnvironment(DBTerm term, Environment env, List<Thunk> thunks) {
+        int n = term.getLooseBound();
+        for (int i = 0; i < n; i++) {
+            thunks.add(Environment.get(env, i));
+        }
+        return n;
+    }
+
+    /**
+     * Marks that the term on top of the result stack is the function of a fix knot.
+     */
+    private static class FixKnot {
+    }
+
+    /**
+     * Marks that the term of a thunk is rebuilt from the converted parts on top of the result stack.
+     */
+    private static class Rebuild {
+        private final Thunk thunk;
+        private final DBTerm term;
+        // whether the parts replace the dangling indices of the term or are its arguments
+        private final boolean environment;
+        private final int parts;
+
+        private Rebuild(Thunk thunk, DBTerm term, boolean environment, int parts) {
+            this.thunk = thunk;
+            this.term = term;
+            this.environment = environment;
+            this.parts = parts;
+        }
+
+        private DBTerm build(Deque<DBTerm> results) {
+            DBTerm[] converted = new DBTerm[parts];
+            for (int i = parts - 1; i >= 0; i--) {
+                converted[i] = results.pop();
+            }
+
+            DBTerm result = term;
+            for (DBTerm part : converted) {
+                if (environment) {
+                    // the replaced index 0 is removed, so the next thunk of the environment is always referred to by 0
+                    result = result.instantiate(0, part);
+                }
+                else {
+                    result = new DBApplication(result, part);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package lambda.machine;
+
+import lambda.debruijn.DBConstant;
+import lambda.debruijn.DBTerm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a constant or a free variable applied to (possibly unevaluated) arguments, e.g. a constructor
+ * application or a partial application of a predefined function.
+ */
+public class SpineValue extends Value {
+    private final DBTerm head;
+    private final List<Thunk> arguments;
+
+    public SpineValue(DBTerm head) {
+        this(head, Collections.emptyList());
+    }
+
+    public SpineValue(DBTerm head, List<Thunk> arguments) {
+        assert(head != null);
+        this.head = head;
+        this.arguments = arguments;
+    }
+
+    public DBTerm getHead() {
+        return head;
+    }
+
+    public List<Thunk> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Returns whether the head of this value is a constant.
+     * @return whether the head is a constant
+     */
+    public boolean isConstant() {
+        return head instanceof DBConstant;
+    }
+
+    /**
+     * Returns a new value with the given argument appended.
+     * @param argument the argument
+     * @return the new spine value
+     */
+    public SpineValue apply(Thunk argument) {
+        List<Thunk> args = new ArrayList<>(arguments.size() + 1);
+        args.addAll(arguments);
+        args.add(argument);
+        return new SpineValue(head, args);
+    }
+}
@@ -0,0 +1,71 @@
+package lambda.machine;
+
+import lambda.debruijn.DBTerm;
+
+/**
+ * A shared, updatable suspension of a term in an environment. Once the thunk has been evaluated, it only keeps its
+ * value, so every later access is O(1) and the environment can be garbage collected.
+ */
+public class Thunk {
+    private DBTerm term;
+    private Environment environment;
+    private Value value;
+
+    // the function of the fixpoint if this thunk is the knot of fix t
+    private Thunk fixFunction;
+
+    public Thunk(DBTerm term, Environment environment) {
+        assert(term != null);
+        this.term = term;
+        this.environment = environment;
+    }
+
+    public Thunk(Value value) {
+        assert(value != null);
+        this.value = value;
+    }
+
+    /**
+     * Creates the knot of fix t, i.e. a thunk which evaluates to t applied to the thunk itself.
+     * @param function the thunk of t
+     * @param application the term (#0 #1), i.e. t applied to the fix thunk
+     * @return the fix thunk
+     */
+    public static Thunk createFix(Thunk function, DBTerm application) {
+        Thunk fix = new Thunk(application, null);
+        fix.environment = Environment.extend(Environment.extend(null, fix), function);
+        fix.fixFunction = function;
+        return fix;
+    }
+
+    public DBTerm getTerm() {
+        return term;
+    }
+
+    public Environment getEnvironment() {
+        return environment;
+    }
+
+    public Value getValue() {
+        return value;
+    }
+
+    public boolean isEvaluated() {
+        return value != null;
+    }
+
+    public Thunk getFixFunction() {
+        return fixFunction;
+    }
+
+    /**
+     * Overwrites this thunk with its value.
+     * @param value the value
+     */
+    public void update(Value value) {
+        assert(value != null);
+        this.value = value;
+        this.term = null;
+        this.environment = null;
+    }
+}
@@ -0,0 +1,7 @@
+package lambda.machine;
+
+/**
+ * Abstract super class for the values of the abstract machine, i.e. terms in weak head normal form.
+ */
+public abstract class Value {
+}
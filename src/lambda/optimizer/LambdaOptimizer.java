@@ -0,0 +1,367 @@
+package lambda.optimizer;
+
+import lambda.ast.*;
+import lambda.reduction.delta.*;
+
+import java.util.*;
+
+/**
+ * Simplifies a type checked lambda term before it is reduced. The translation from haskell introduces many
+ * administrative redexes, which are removed by the following rewrite rules:
+ * - constant folding: predefined functions on integers, floats, chars and booleans are applied to constant arguments
+ * - case of known constructor: if, isa_, argof_ and sel_ are reduced if the constructor of their argument is known
+ * - linear beta reduction: (\x.b) a => b[x/a] if x occurs at most once in b and not inside an abstraction, or if a is
+ *   a variable or constant. Thus no work is duplicated.
+ * - eta reduction: (\x.f x) => f if x is not free in f and f is an abstraction or a constant other than bot, so that
+ *   f is already in WHNF and the reduction does not change the termination of the term.
+ * The rules are applied bottom-up until none of them can be applied anymore. Every rule makes the term smaller, so
+ * this terminates. The rules are applied inside of abstractions as well.
+ */
+public class LambdaOptimizer {
+    private final DeltaDispatcher folding;
+    private final Spine spine;
+
+    private int foldedConstants;
+    private int knownCases;
+    private int betaReductions;
+    private int etaReductions;
+    private int sizeBefore;
+    private int sizeAfter;
+
+    public LambdaOptimizer() {
+        // only the rules which compute values from constants, not fix or bot
+        this.folding = new DeltaDispatcher(Arrays.asList(
+                new ArithmeticReduction(),
+                new BooleanReduction(),
+                new BoolNotReduction(),
+                new CharReduction()));
+        this.spine = new Spine();
+    }
+
+    /**
+     * Optimizes the term. The statistics of the optimization can be queried afterwards.
+     * @param term a closed lambda term
+     * @return the optimized term, which reduces to the same WHNF
+     */
+    public ASTTerm optimize(ASTTerm term) {
+        foldedConstants = 0;
+        knownCases = 0;
+        betaReductions = 0;
+        etaReductions = 0;
+        sizeBefore = size(term);
+
+        ASTTerm current = term;
+        while (true) {
+            ASTTerm next = pass(current);
+            if (next == current) {
+                break;
+            }
+            current = next;
+        }
+
+        sizeAfter = size(current);
+        return current;
+    }
+
+    /**
+     * Rewrites every subterm once in post-order. Subterms which do not change are reused.
+     * @return the rewritten term, or the same term if nothing was rewritten
+     */
+    private ASTTerm pass(ASTTerm term) {
+        // the work stack contains terms to rewrite and markers for the nodes which are rebuilt from the results
+        Deque<Object> work = new ArrayDeque<>();
+        Deque<ASTTerm> results = new ArrayDeque<>();
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            Object next = work.pop();
+            ASTTerm rebuilt;
+            if (next instanceof Rebuild) {
+                ASTTerm node = ((Rebuild) next).node;
+                if (node instanceof ASTApplication) {
+                    ASTApplication app = (ASTApplication) node;
+                    ASTTerm right = results.pop();
+                    ASTTerm left = results.pop();
+                    rebuilt = (left == app.getLeft() && right == app.getRight()) ? app : new ASTApplication(left, right);
+                }
+                else {
+                    ASTAbstraction abs = (ASTAbstraction) node;
+                    ASTTerm output = results.pop();
+                    rebuilt = (output == abs.getOutput()) ? abs : new ASTAbstraction(abs.getInput(), output);
+                }
+            }
+            else if (next instanceof ASTApplication) {
+                work.push(new Rebuild((ASTTerm) next));
+                work.push(((ASTApplication) next).getRight());
+                work.push(((ASTApplication) next).getLeft());
+                continue;
+            }
+            else if (next instanceof ASTAbstraction) {
+                work.push(new Rebuild((ASTTerm) next));
+                work.push(((ASTAbstraction) next).getOutput());
+                continue;
+            }
+            else {
+                rebuilt = (ASTTerm) next;
+            }
+            results.push(rewrite(rebuilt));
+        }
+
+        return results.pop();
+    }
+
+    /**
+     * Applies the rewrite rules at the root of the term as long as one of them can be applied.
+     */
+    private ASTTerm rewrite(ASTTerm term) {
+        while (true) {
+            Optional<ASTTerm> result = Optional.empty();
+            if (term instanceof ASTApplication) {
+                result = rewriteApplication((ASTApplication) term);
+            }
+            else if (term instanceof ASTAbstraction) {
+                result = etaReduce((ASTAbstraction) term);
+            }
+
+            if (!result.isPresent()) {
+                return term;
+            }
+            term = result.get();
+        }
+    }
+
+    private Optional<ASTTerm> rewriteApplication(ASTApplication node) {
+        if (node.getLeft() instanceof ASTAbstraction) {
+            return betaReduce((ASTAbstraction) node.getLeft(), node.getRight());
+        }
+
+        spine.unwind(node);
+        if (!(spine.getHead() instanceof ASTConstant)) {
+            return Optional.empty();
+        }
+        ASTConstant head = (ASTConstant) spine.getHead();
+        List<ASTTerm> args = new ArrayList<>(spine.getArguments());
+
+        Optional<ASTTerm> result = knownCase(head, args);
+        if (result.isPresent()) {
+            knownCases++;
+            return result;
+        }
+
+        if (head.getValue() instanceof PredefinedFunction && head.getValue() != PredefinedFunction.IF) {
+            try {
+                result = node.accept(folding);
+            }
+            catch (ArithmeticException e) {
+                // e.g. a division by zero, which must only fail if it is actually evaluated
+                return Optional.empty();
+            }
+            if (result.isPresent()) {
+                foldedConstants++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reduces if, isa_, argof_ and sel_ if the constructor of the argument is known. In contrast to the delta rules,
+     * the arguments of the constructor do not need to be closed.
+     */
+    private Optional<ASTTerm> knownCase(ASTConstant head, List<ASTTerm> args) {
+        Object function = head.getValue();
+
+        if (function == PredefinedFunction.IF) {
+            if (args.size() == 3 && args.get(0) instanceof ASTConstant &&
+                    ((ASTConstant) args.get(0)).getValue() instanceof Boolean) {
+                boolean condition = (Boolean) ((ASTConstant) args.get(0)).getValue();
+                return Optional.of(condition ? args.get(1) : args.get(2));
+            }
+            return Optional.empty();
+        }
+
+        boolean constructorFunction = function instanceof ConstructorReduction.IsA ||
+                function instanceof ConstructorReduction.ArgOf || function instanceof TupleReduction.IsATuple ||
+                function instanceof TupleReduction.Sel;
+        if (!constructorFunction || args.size() != 1) {
+            return Optional.empty();
+        }
+
+        spine.unwind(args.get(0));
+        if (!(spine.getHead() instanceof ASTConstant)) {
+            return Optional.empty();
+        }
+        Object constructor = ((ASTConstant) spine.getHead()).getValue();
+        List<ASTTerm> constructorArgs = spine.getArguments();
+
+        if (function instanceof ConstructorReduction.IsA) {
+            // predefined functions have a different class than the constructors and literals
+            Object isaValue = ((ConstructorReduction.IsA<?>) function).getValue();
+            if (((ConstructorReduction.IsA<?>) function).isApplicable(constructor)) {
+                return Optional.of(ASTConstant.of(constructor.equals(isaValue)));
+            }
+        }
+        else if (function instanceof ConstructorReduction.ArgOf) {
+            if (constructor.equals(((ConstructorReduction.ArgOf) function).getConstr())) {
+                if (constructorArgs.size() == 1) {
+                    return Optional.of(constructorArgs.get(0));
+                }
+                ASTTerm tuple = new ASTConstant(TupleReduction.getTupleConstructor(constructorArgs.size()));
+                for (ASTTerm t : constructorArgs) {
+                    tuple = new ASTApplication(tuple, t);
+                }
+                return Optional.of(tuple);
+            }
+        }
+        else if (constructor instanceof TupleReduction.TupleConstant) {
+            if (function instanceof TupleReduction.IsATuple) {
+                return Optional.of(ASTConstant.of(((TupleReduction.IsATuple) function).getN() == constructorArgs.size()));
+            }
+            TupleReduction.Sel sel = (TupleReduction.Sel) function;
+            if (sel.getN() == constructorArgs.size()) {
+                // sel starts counting at 1
+                return Optional.of(constructorArgs.get(sel.getI() - 1));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Reduces (\x.b) a if this does not duplicate work, i.e. if x occurs at most once and not inside an abstraction in
+     * b, or if a is a variable or a constant.
+     */
+    private Optional<ASTTerm> betaReduce(ASTAbstraction function, ASTTerm argument) {
+        ASTVariable input = function.getInput();
+        ASTTerm body = function.getOutput();
+        boolean atomic = argument instanceof ASTVariable || argument instanceof ASTConstant;
+
+        if (!body.getFreeVars().contains(input)) {
+            // the argument is never evaluated
+            betaReductions++;
+            return Optional.of(body);
+        }
+        if (atomic || isLinear(input, body)) {
+            betaReductions++;
+            return Optional.of(body.substitute(input, argument));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns whether the free variable occurs exactly once in the term and not inside an abstraction.
+     */
+    private static boolean isLinear(ASTVariable var, ASTTerm term) {
+        int occurrences = 0;
+        Deque<ASTTerm> work = new ArrayDeque<>();
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            ASTTerm next = work.pop();
+            if (!next.getFreeVars().contains(var)) {
+                continue;
+            }
+            if (next instanceof ASTAbstraction) {
+                // the abstraction could be applied several times
+                return false;
+            }
+            else if (next instanceof ASTApplication) {
+                work.push(((ASTApplication) next).getRight());
+                work.push(((ASTApplication) next).getLeft());
+            }
+            else if (++occurrences > 1) {
+                return false;
+            }
+        }
+        return occurrences == 1;
+    }
+
+    /**
+     * Reduces \x.f x to f if x is not free in f and f is an abstraction or a constant other than bot, which is the only
+     * constant that diverges, e.g. seq (\x.bot x) 1 is 1, but seq bot 1 does not terminate.
+     */
+    private Optional<ASTTerm> etaReduce(ASTAbstraction node) {
+        if (!(node.getOutput() instanceof ASTApplication)) {
+            return Optional.empty();
+        }
+
+        ASTApplication body = (ASTApplication) node.getOutput();
+        ASTTerm function = body.getLeft();
+        boolean isWHNF = function instanceof ASTAbstraction || (function instanceof ASTConstant &&
+                ((ASTConstant) function).getValue() != PredefinedFunction.BOT);
+        if (isWHNF && body.getRight().equals(node.getInput()) && !function.getFreeVars().contains(node.getInput())) {
+            etaReductions++;
+            return Optional.of(function);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the number of nodes of the term.
+     */
+    private static int size(ASTTerm term) {
+        int size = 0;
+        Deque<ASTTerm> work = new ArrayDeque<>();
+        work.push(term);
+
+        while (!work.isEmpty()) {
+            ASTTerm next = work.pop();
+            size++;
+            if (next instanceof ASTApplication) {
+                work.push(((ASTApplication) next).getRight());
+                work.push(((ASTApplication) next).getLeft());
+            }
+            else if (next instanceof ASTAbstraction) {
+                work.push(((ASTAbstraction) next).getOutput());
+            }
+        }
+        return size;
+    }
+
+    public int getNumberOfFoldedConstants() {
+        return foldedConstants;
+    }
+
+    public int getNumberOfKnownCases() {
+        return knownCases;
+    }
+
+    public int getNumberOfBetaReductions() {
+        return betaReductions;
+    }
+
+    public int getNumberOfEtaReductions() {
+        return etaReductions;
+    }
+
+    /**
+     * Returns the number of nodes of the last term before it was optimized.
+     * @return the size of the term
+     */
+    public int getSizeBefore() {
+        return sizeBefore;
+    }
+
+    /**
+     * Returns the number of nodes of the last optimized term.
+     * @return the size of the term
+     */
+    public int getSizeAfter() {
+        return sizeAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + foldedConstants + " folded constants, " + knownCases + " known cases, " + betaReductions +
+                " beta reductions, " + etaReductions + " eta reductions, size " + sizeBefore + " -> " + sizeAfter + ")";
+    }
+
+    /**
+     * Marks a node whose children have been rewritten.
+     */
+    private static class Rebuild {
+        private final ASTTerm node;
+
+        private Rebuild(ASTTerm node) {
+            this.node = node;
+        }
+    }
+}
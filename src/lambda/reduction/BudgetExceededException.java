@@ -0,0 +1,78 @@
+package lambda.reduction;
+
+/**
+ * This exception is thrown when an evaluation exceeds a limit of its {@link EvaluationBudget} or when its thread is
+ * interrupted. It reports how far the evaluation got until it was aborted.
+ */
+public class BudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The limits of a budget.
+     */
+    public enum Limit {
+        STEPS, TIME, TERM_SIZE,
+        /**
+         * The evaluation did not exceed a limit, but its thread was interrupted.
+         */
+        INTERRUPTED
+    }
+
+    private final Limit limit;
+    private final long steps;
+    private final long elapsedMillis;
+    private final int termSize;
+
+    /**
+     * Creates the exception with the statistics of the aborted evaluation.
+     * @param limit the limit which was exceeded, or INTERRUPTED
+     * @param steps the number of reduction steps until the abort
+     * @param elapsedMillis the time of the evaluation until the abort
+     * @param termSize the size of the term when it was last measured, or -1 if the reducer does not measure it
+     */
+    public BudgetExceededException(Limit limit, long steps, long elapsedMillis, int termSize) {
+        assert(limit != null);
+        this.limit = limit;
+        this.steps = steps;
+        this.elapsedMillis = elapsedMillis;
+        this.termSize = termSize;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getTermSize() {
+        return termSize;
+    }
+
+    @Override
+    public String getMessage() {
+        String statistics = " after " + steps + " steps in " + elapsedMillis + " ms" +
+                (termSize >= 0 ? ", the term had a size of " + termSize : "") + ".";
+        if (limit == Limit.INTERRUPTED) {
+            return "The evaluation was interrupted" + statistics;
+        }
+        String name;
+        switch (limit) {
+            case STEPS:
+                name = "number of steps";
+                break;
+            case TIME:
+                name = "time";
+                break;
+            default:
+                name = "term size";
+                break;
+        }
+        return "The evaluation exceeded its maximum " + name + statistics;
+    }
+}
@@ -0,0 +1,95 @@
+package lambda.reduction;
+
+import lambda.ast.ASTTerm;
+
+/**
+ * Counts the steps of the evaluations of a reducer and aborts an evaluation which exceeds its
+ * {@link EvaluationBudget}. It is used by the reducers which evaluate graphs or machine states instead of terms: they
+ * count their steps and the nodes they allocate, and the monitor checks the time and the number of allocated nodes
+ * periodically in their step loops. The allocated nodes bound the size of the graph from above, since nodes which are
+ * no longer reachable are still counted, and the size of the result is checked exactly.
+ */
+public class BudgetMonitor {
+    // the number of steps after which the time is checked
+    private static final int CHECK_INTERVAL = 1024;
+
+    private EvaluationBudget budget;
+    private long steps;
+    private long allocations;
+    private long startTime;
+
+    public BudgetMonitor() {
+        this.budget = EvaluationBudget.UNLIMITED;
+    }
+
+    public void setBudget(EvaluationBudget budget) {
+        assert(budget != null);
+        this.budget = budget;
+    }
+
+    /**
+     * Starts a new evaluation.
+     */
+    public void start() {
+        steps = 0;
+        allocations = 0;
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Counts a step of the evaluation.
+     * @throws BudgetExceededException if the evaluation exceeds the number of steps, the time or the term size of the
+     * budget, or if the thread was interrupted
+     */
+    public void step() {
+        steps++;
+        if (steps > budget.getMaxSteps()) {
+            throw exceeded(BudgetExceededException.Limit.STEPS, -1);
+        }
+        if (steps % CHECK_INTERVAL == 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw exceeded(BudgetExceededException.Limit.INTERRUPTED, -1);
+            }
+            if (System.nanoTime() - startTime > budget.getTimeoutNanos()) {
+                throw exceeded(BudgetExceededException.Limit.TIME, -1);
+            }
+            if (allocations > budget.getMaxTermSize()) {
+                throw exceeded(BudgetExceededException.Limit.TERM_SIZE, (int) Math.min(allocations, Integer.MAX_VALUE));
+            }
+        }
+    }
+
+    /**
+     * Counts a node of the graph or the machine state which the evaluation allocates. The number of allocated nodes is
+     * checked against the term size of the budget with the time.
+     */
+    public void allocate() {
+        allocations++;
+    }
+
+    /**
+     * Checks the size of the result of the evaluation.
+     * @param result the result
+     * @return the result
+     * @throws BudgetExceededException if the result is larger than the term size of the budget
+     */
+    public ASTTerm checkResult(ASTTerm result) {
+        if (result.getSize() > budget.getMaxTermSize()) {
+            throw exceeded(BudgetExceededException.Limit.TERM_SIZE, result.getSize());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of steps of the current or last evaluation.
+     * @return the number of steps
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    private BudgetExceededException exceeded(BudgetExceededException.Limit limit, int termSize) {
+        long elapsedMillis = (System.nanoTime() - startTime) / 1000000;
+        return new BudgetExceededException(limit, steps, elapsedMillis, termSize);
+    }
+}
@@ -0,0 +1,65 @@
+package lambda.reduction;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The limits of a single evaluation: the maximum number of reduction steps, the maximum time and the maximum size of
+ * the term which is reduced. A reducer which exceeds one of them aborts the evaluation with a
+ * {@link BudgetExceededException}. Budgets are immutable, so one budget can be used for many evaluations.
+ */
+public final class EvaluationBudget {
+    public static final EvaluationBudget UNLIMITED = new EvaluationBudget(Long.MAX_VALUE, Long.MAX_VALUE,
+            Integer.MAX_VALUE);
+
+    private final long maxSteps;
+    private final long timeoutMillis;
+    private final int maxTermSize;
+
+    /**
+     * Creates a budget. Long.MAX_VALUE and Integer.MAX_VALUE stand for no limit.
+     * @param maxSteps the maximum number of reduction steps
+     * @param timeoutMillis the maximum time of the evaluation in milliseconds
+     * @param maxTermSize the maximum size of the term, see {@link lambda.ast.ASTTerm#getSize()}, which the reducers
+     * without terms apply to the number of nodes they allocate, see {@link BudgetMonitor}
+     */
+    public EvaluationBudget(long maxSteps, long timeoutMillis, int maxTermSize) {
+        assert(maxSteps >= 0 && timeoutMillis >= 0 && maxTermSize >= 0);
+        this.maxSteps = maxSteps;
+        this.timeoutMillis = timeoutMillis;
+        this.maxTermSize = maxTermSize;
+    }
+
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int getMaxTermSize() {
+        return maxTermSize;
+    }
+
+    /**
+     * Returns whether none of the limits is set.
+     * @return whether the budget is unlimited
+     */
+    public boolean isUnlimited() {
+        return maxSteps == Long.MAX_VALUE && timeoutMillis == Long.MAX_VALUE && maxTermSize == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the maximum time of the evaluation in nanoseconds, which saturates at Long.MAX_VALUE.
+     */
+    long getTimeoutNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "steps: " + (maxSteps == Long.MAX_VALUE ? "unlimited" : maxSteps) +
+                ", time: " + (timeoutMillis == Long.MAX_VALUE ? "unlimited" : timeoutMillis + " ms") +
+                ", term size: " + (maxTermSize == Integer.MAX_VALUE ? "unlimited" : maxTermSize);
+    }
+}
@@ -0,0 +1,39 @@
+package lambda.reduction;
+
+import lambda.ast.ASTTerm;
+
+/**
+ * Common interface for evaluation strategies which reduce lambda terms to weak head normal form.
+ */
+public interface LambdaReducer {
+    /**
+     * Reduces a term to weak head normal form.
+     * @param term the term
+     * @param verbose whether reduction steps should be printed
+     * @return the WHNF
+     */
+    ASTTerm reduceToWHNF(ASTTerm term, boolean verbose);
+
+    /**
+     * Reduces a term to weak head normal form.
+     * @param term the term
+     * @return the WHNF
+     */
+    default ASTTerm reduceToWHNF(ASTTerm term) {
+        return reduceToWHNF(term, false);
+    }
+
+    /**
+     * Discards all results which the reducer remembers from previous reductions, e.g. because the program changed.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Sets the limits of each following evaluation. An evaluation which exceeds them throws a
+     * {@link BudgetExceededException}. Reducers which do not build intermediate terms only check the size of the
+     * result.
+     * @param budget the budget
+     */
+    void setBudget(EvaluationBudget budget);
+}
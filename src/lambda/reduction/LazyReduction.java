@@ -2,40 +2,143 @@ package lambda.reduction;
 
 import lambda.ast.*;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 /**
  * Represents the lazy evaluation of lambda terms.
  * I.e. previous results get stored, and application results get looked up before they get calculated.
+ * The results are stored like a union-find structure: each term points to the term it was reduced to, and looking up
+ * a term follows these pointers to the latest known result and compresses the path on the way.
+ * At most a given number of results is stored, the least recently used ones are evicted first. Evicting a term in the
+ * middle of a chain is harmless, the lookup then returns an earlier result which still is a reduct of the term.
+ * A lazy reduction belongs to one reducer and is not thread-safe, concurrent evaluations use reducers of their own.
  */
 public class LazyReduction implements LambdaTransformation {
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    private final int capacity;
     private Map<ASTTerm, ASTTerm> reductionResults;
+    private long lookups;
+    private long hits;
+    private long evictions;
 
     public LazyReduction() {
-        reductionResults = new HashMap<>();
+        this(DEFAULT_CAPACITY);
     }
 
-    public void rememberResult(ASTTerm previous, ASTTerm result) {
-        // remember the current result
-        reductionResults.put(previous, result);
-
-        // ensure transitivity is stored
-        // i.e.: if (a => b) and b == previous, then update it to (a => result)
-        for (Map.Entry<ASTTerm, ASTTerm> entry : reductionResults.entrySet()) {
-            ASTTerm otherResult = entry.getValue();
-            if (otherResult.equals(previous)) {
-                entry.setValue(result);
+    /**
+     * Creates a lazy reduction which stores at most the given number of results.
+     * @param capacity the maximum number of results
+     */
+    public LazyReduction(int capacity) {
+        assert(capacity > 0);
+        this.capacity = capacity;
+        // the access order makes the map evict the least recently used result
+        reductionResults = new LinkedHashMap<ASTTerm, ASTTerm>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ASTTerm, ASTTerm> eldest) {
+                if (size() > LazyReduction.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
             }
+        };
+        lookups = 0;
+        hits = 0;
+        evictions = 0;
+    }
+
+    public void rememberResult(ASTTerm previous, ASTTerm result) {
+        // transitivity is ensured by the lookup: if (a => b) and (b => result), then a is looked up as result
+        // a result which is already known to reduce to previous would create a cycle, so it is not stored
+        if (!find(result).equals(previous) || result.equals(previous)) {
+            reductionResults.put(previous, result);
         }
     }
 
     public Optional<ASTTerm> visit(ASTApplication node) {
         // try to reduce this application
+        lookups++;
         if (reductionResults.containsKey(node)) {
-            return Optional.of(reductionResults.get(node));
+            hits++;
+            return Optional.of(find(node));
         }
         return Optional.empty();
     }
+
+    /**
+     * Removes all stored results, e.g. because the program changed. The counters are kept.
+     */
+    public void clear() {
+        reductionResults.clear();
+    }
+
+    /**
+     * Returns the number of stored results.
+     * @return the number of results
+     */
+    public int size() {
+        return reductionResults.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of applications which were looked up.
+     * @return the number of lookups
+     */
+    public long getNumberOfLookups() {
+        return lookups;
+    }
+
+    /**
+     * Returns the number of applications whose result was already known.
+     * @return the number of hits
+     */
+    public long getNumberOfHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of applications whose result was not known.
+     * @return the number of misses
+     */
+    public long getNumberOfMisses() {
+        return lookups - hits;
+    }
+
+    /**
+     * Returns the number of results which were removed because the capacity was exceeded.
+     * @return the number of evictions
+     */
+    public long getNumberOfEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the latest known result of the term, or the term itself if it has not been reduced yet.
+     */
+    private ASTTerm find(ASTTerm term) {
+        List<ASTTerm> path = new ArrayList<>();
+        ASTTerm current = term;
+        ASTTerm next = reductionResults.get(current);
+        while (next != null && !next.equals(current)) {
+            path.add(current);
+            current = next;
+            next = reductionResults.get(current);
+        }
+
+        // path compression: every term on the path points to the result directly
+        for (int i = 0; i < path.size() - 1; i++) {
+            reductionResults.put(path.get(i), current);
+        }
+        return current;
+    }
 }
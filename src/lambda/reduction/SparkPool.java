@@ -0,0 +1,196 @@
+package lambda.reduction;
+
+import lambda.ast.ASTTerm;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates the first arguments of par, the sparks, on a work-stealing pool while the reducer continues with the
+ * second argument. Every thread of the pool reduces sparks with its own WHNO reducer, which shares this spark pool, so
+ * sparks may create further sparks. The reducers belong to the spark pool rather than to the threads, so they are
+ * collected together with the pool although the threads of the common pool live as long as the JVM.
+ * A spark is only a hint: when the reducer needs a sparked term whose evaluation has not started yet, the spark
+ * fizzles and the reducer evaluates the term itself. If the evaluation has started, the reducer waits for its WHNF.
+ * A spark which fails, e.g. because of a division by zero, is evaluated again by the reducer if it is needed, so the
+ * error only occurs if the term is actually needed.
+ */
+public class SparkPool {
+    private final ForkJoinPool pool;
+    private final Map<ASTTerm, Spark> sparks;
+    // the reducer of each thread which evaluated a spark
+    private final Map<Thread, WHNOReducer> reducers;
+
+    /**
+     * Creates a spark pool which uses the common pool of the JVM.
+     */
+    public SparkPool() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a spark pool which evaluates the sparks on the given pool.
+     * @param pool the pool
+     */
+    public SparkPool(ForkJoinPool pool) {
+        this.pool = pool;
+        this.sparks = new ConcurrentHashMap<>();
+        this.reducers = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Starts the evaluation of a closed term to WHNF, unless the term is already in WHNF or has been sparked before.
+     * @param term the term
+     */
+    public void spark(ASTTerm term) {
+        if (!StrictnessAnalysis.needsEvaluation(term) || sparks.containsKey(term)) {
+            return;
+        }
+
+        Spark spark = new Spark(term);
+        if (sparks.putIfAbsent(term, spark) == null) {
+            pool.execute(spark);
+        }
+    }
+
+    /**
+     * Returns the WHNF of a sparked term. A spark which has not been started yet fizzles, and a spark which is being
+     * evaluated is waited for.
+     * @param term the term
+     * @return the WHNF, or empty if the term was not sparked or the caller has to evaluate it itself
+     */
+    public Optional<ASTTerm> getResult(ASTTerm term) {
+        Spark spark = sparks.get(term);
+        if (spark == null || spark.isRunBy(Thread.currentThread())) {
+            // the reducer of a spark must not wait for the spark itself
+            return Optional.empty();
+        }
+
+        sparks.remove(term, spark);
+        if (spark.fizzle()) {
+            return Optional.empty();
+        }
+        spark.join();
+        return Optional.ofNullable(spark.result);
+    }
+
+    /**
+     * Returns whether there are sparks whose results have not been requested.
+     * @return whether there are sparks
+     */
+    public boolean hasSparks() {
+        return !sparks.isEmpty();
+    }
+
+    /**
+     * Cancels all sparks, e.g. because the reduction which created them is finished. Sparks which are not started yet
+     * are never started, and the reductions of the others are interrupted.
+     */
+    public void cancel() {
+        for (Spark spark : sparks.values()) {
+            spark.cancelEvaluation();
+        }
+        sparks.clear();
+    }
+
+    /**
+     * Drops the reducers of the threads together with the results they remember.
+     */
+    public void reset() {
+        reducers.clear();
+    }
+
+    /**
+     * Returns the reducer of the current thread, which shares this spark pool.
+     */
+    private WHNOReducer getReducer() {
+        return reducers.computeIfAbsent(Thread.currentThread(),
+                thread -> new WHNOReducer(LazyReduction.DEFAULT_CAPACITY, this));
+    }
+
+    /**
+     * The evaluation of a sparked term.
+     */
+    private class Spark extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private static final int NEW = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+
+        private final ASTTerm term;
+        // the WHNF, or null if the evaluation failed; the join makes it visible to the waiting reducer
+        private ASTTerm result;
+        private int state;
+        private Thread runner;
+        // whether the runner was interrupted by the cancellation of this spark
+        private boolean cancelled;
+
+        private Spark(ASTTerm term) {
+            this.term = term;
+            this.state = NEW;
+        }
+
+        @Override
+        protected void compute() {
+            synchronized (this) {
+                if (state != NEW) {
+                    return;
+                }
+                state = RUNNING;
+                runner = Thread.currentThread();
+            }
+            // the thread may run the spark while it waits for another one, whose interruption must not get lost
+            boolean interrupted = Thread.currentThread().isInterrupted();
+
+            try {
+                result = getReducer().reduceHead(term);
+            }
+            catch (RuntimeException | StackOverflowError e) {
+                // the reducer evaluates the term again if it needs it, so that it gets the error itself
+                result = null;
+            }
+            finally {
+                synchronized (this) {
+                    state = DONE;
+                    runner = null;
+                    // the interruption of a cancelled spark is only meant for its evaluation, it must not affect the
+                    // next task of the thread or the evaluation which ran the spark; any other one is kept, and no
+                    // interruption can arrive for this spark after it is done
+                    if (cancelled) {
+                        Thread.interrupted();
+                        if (interrupted) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Prevents the evaluation if it has not started yet.
+         * @return whether the spark fizzled
+         */
+        private synchronized boolean fizzle() {
+            if (state == NEW) {
+                state = DONE;
+                return true;
+            }
+            return false;
+        }
+
+        private synchronized boolean isRunBy(Thread thread) {
+            return runner == thread;
+        }
+
+        private synchronized void cancelEvaluation() {
+            if (!fizzle() && state == RUNNING) {
+                cancelled = true;
+                runner.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package lambda.reduction;
+
+import lambda.ast.*;
+import lambda.reduction.delta.ConstructorReduction;
+import lambda.reduction.delta.PredefinedFunction;
+import lambda.reduction.delta.TupleReduction;
+
+import java.util.*;
+
+/**
+ * Finds the arguments which a function certainly evaluates, i.e. the parameters x of \x1...\xn.b such that the
+ * reduction of b to WHNF reduces x to WHNF. These arguments can be evaluated before the function is applied, which
+ * does not change the result, but keeps chains of unevaluated arithmetic out of the substituted terms.
+ * The analysis is conservative: predefined functions on numbers, chars and booleans are strict in their arguments,
+ * if is strict in its condition and in the variables which both branches need, isa_, argof_ and sel_ are strict in
+ * their argument, par a b is only strict in b and a fixpoint fix (\f.\x1...\xn.b) is strict in the arguments which b
+ * needs when recursive calls of f are assumed to be strict in the same arguments. Constructors and unknown functions
+ * are not strict.
+ */
+public class StrictnessAnalysis {
+    public static final int DEFAULT_CAPACITY = 10000;
+    // deeper terms are not analyzed, they are treated as if they did not need the variable
+    private static final int MAX_DEPTH = 100;
+
+    private final Map<ASTTerm, boolean[]> signatures;
+    // the signatures of the functions \f.\x1...\xn.b of fixpoints, which do not include f
+    private final Map<ASTTerm, boolean[]> fixpointSignatures;
+    // the assumed signatures of the fixpoints which are analyzed at the moment
+    private final Map<ASTTerm, boolean[]> assumptions;
+
+    public StrictnessAnalysis() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a strictness analysis which remembers the results for at most the given number of functions.
+     * @param capacity the maximum number of results
+     */
+    public StrictnessAnalysis(int capacity) {
+        assert(capacity > 0);
+        signatures = createCache(capacity);
+        fixpointSignatures = createCache(capacity);
+        assumptions = new HashMap<>();
+    }
+
+    private static Map<ASTTerm, boolean[]> createCache(int capacity) {
+        // the access order makes the map evict the least recently used result
+        return new LinkedHashMap<ASTTerm, boolean[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ASTTerm, boolean[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the strict parameters of the abstraction \x1...\xn.b, where n is the number of nested abstractions.
+     * @param function the abstraction
+     * @return whether the parameter at each position is strict
+     */
+    public boolean[] getSignature(ASTAbstraction function) {
+        boolean[] signature = signatures.get(function);
+        if (signature == null) {
+            signature = analyze(function, new HashMap<>());
+            signatures.put(function, signature);
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the strict parameters of the recursive function fix (\f.\x1...\xn.b), i.e. of \x1...\xn.b where f is
+     * the fixpoint itself.
+     * @param fixFunction the function \f.\x1...\xn.b
+     * @return whether the parameter xi is strict at the position i-1
+     */
+    public boolean[] getFixpointSignature(ASTAbstraction fixFunction) {
+        return analyzeFixpoint(fixFunction, new HashMap<>());
+    }
+
+    /**
+     * Returns whether the term can still be reduced at its head, i.e. whether it is not in WHNF. Applications of
+     * constructors, partial applications of predefined functions and applications of variables are in WHNF.
+     * @param term a closed term
+     * @return whether the term needs to be evaluated
+     */
+    public static boolean needsEvaluation(ASTTerm term) {
+        if (!(term instanceof ASTApplication)) {
+            return false;
+        }
+
+        ASTTerm head = term.getLMOMTerm();
+        if (head instanceof ASTAbstraction) {
+            return true;
+        }
+        if (head instanceof ASTConstant) {
+            return term.getLMOMArguments().size() >= getArity((ASTConstant) head);
+        }
+        return false;
+    }
+
+    /**
+     * Forgets all results, e.g. because the program changed.
+     */
+    public void clear() {
+        signatures.clear();
+        fixpointSignatures.clear();
+    }
+
+    /**
+     * Returns the number of arguments which a constant needs to be reducible, or Integer.MAX_VALUE if it is never
+     * reducible, e.g. a constructor.
+     */
+    private static int getArity(ASTConstant constant) {
+        Object value = constant.getValue();
+        if (value instanceof PredefinedFunction) {
+            switch ((PredefinedFunction) value) {
+                case BOT:
+                    return 0;
+                case IF:
+                case FIX:
+                case NOT:
+                    return 1;
+                default:
+                    return 2;
+            }
+        }
+        if (value instanceof ConstructorReduction.IsA || value instanceof ConstructorReduction.ArgOf ||
+                value instanceof TupleReduction.IsATuple || value instanceof TupleReduction.Sel) {
+            return 1;
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Computes the strict parameters of an abstraction, where the given variables are bound to functions with known
+     * signatures.
+     */
+    private boolean[] analyze(ASTAbstraction function, Map<ASTVariable, boolean[]> functions) {
+        List<ASTVariable> parameters = new ArrayList<>();
+        ASTTerm body = function;
+        while (body instanceof ASTAbstraction) {
+            parameters.add(((ASTAbstraction) body).getInput());
+            body = ((ASTAbstraction) body).getOutput();
+        }
+
+        Map<ASTVariable, boolean[]> inner = new HashMap<>(functions);
+        inner.keySet().removeAll(parameters);
+
+        boolean[] signature = new boolean[parameters.size()];
+        for (int i = 0; i < signature.length; i++) {
+            // a parameter which is shadowed by a later one is never used
+            ASTVariable parameter = parameters.get(i);
+            boolean shadowed = parameters.subList(i + 1, parameters.size()).contains(parameter);
+            signature[i] = !shadowed && isStrict(parameter, body, inner, 0);
+        }
+        return signature;
+    }
+
+    /**
+     * Computes the strict parameters of the function of a fixpoint fix (\f.\x1...\xn.b) by starting with the assumption
+     * that all parameters are strict and weakening it until it holds for the body.
+     */
+    private boolean[] analyzeFixpoint(ASTAbstraction fixFunction, Map<ASTVariable, boolean[]> functions) {
+        boolean[] known = fixpointSignatures.get(fixFunction);
+        if (known != null) {
+            return known;
+        }
+        known = assumptions.get(fixFunction);
+        if (known != null) {
+            // a recursive call inside of the analysis of the same fixpoint
+            return known;
+        }
+        if (!(fixFunction.getOutput() instanceof ASTAbstraction)) {
+            return new boolean[0];
+        }
+
+        ASTAbstraction function = (ASTAbstraction) fixFunction.getOutput();
+        int parameters = 0;
+        for (ASTTerm body = function; body instanceof ASTAbstraction; body = ((ASTAbstraction) body).getOutput()) {
+            parameters++;
+        }
+        boolean[] signature = new boolean[parameters];
+        Arrays.fill(signature, true);
+
+        while (true) {
+            assumptions.put(fixFunction, signature);
+            Map<ASTVariable, boolean[]> inner = new HashMap<>(functions);
+            inner.put(fixFunction.getInput(), signature);
+            boolean[] next = analyze(function, inner);
+            // the assumption only becomes weaker, so this terminates
+            for (int i = 0; i < next.length; i++) {
+                next[i] &= signature[i];
+            }
+            if (Arrays.equals(next, signature)) {
+                break;
+            }
+            signature = next;
+        }
+        assumptions.remove(fixFunction);
+
+        // results which depend on assumptions about other fixpoints may be too optimistic, so they are not stored
+        if (assumptions.isEmpty()) {
+            fixpointSignatures.put(fixFunction, signature);
+        }
+        return signature;
+    }
+
+    /**
+     * Returns whether the reduction of the term to WHNF certainly reduces the variable to WHNF.
+     */
+    private boolean isStrict(ASTVariable x, ASTTerm term, Map<ASTVariable, boolean[]> functions, int depth) {
+        if (depth > MAX_DEPTH || !term.getFreeVars().contains(x)) {
+            // a term which does not contain x might still diverge, but then x is not needed either
+            return isBottom(term);
+        }
+        if (term instanceof ASTVariable) {
+            return term.equals(x);
+        }
+        if (!(term instanceof ASTApplication)) {
+            // abstractions are in WHNF
+            return false;
+        }
+
+        ASTTerm head = term.getLMOMTerm();
+        List<ASTTerm> args = term.getLMOMArguments();
+
+        if (head instanceof ASTVariable) {
+            return head.equals(x) || isStrictCall(x, functions.get(head), args, 0, functions, depth);
+        }
+        else if (head instanceof ASTAbstraction) {
+            // (\z1...\zk.c) a1 ... am reduces c and c needs x or an argument for a parameter which c needs
+            List<ASTVariable> parameters = new ArrayList<>();
+            ASTTerm body = head;
+            while (body instanceof ASTAbstraction && parameters.size() < args.size()) {
+                parameters.add(((ASTAbstraction) body).getInput());
+                body = ((ASTAbstraction) body).getOutput();
+            }
+
+            Map<ASTVariable, boolean[]> inner = new HashMap<>(functions);
+            inner.keySet().removeAll(parameters);
+            if (!parameters.contains(x) && isStrict(x, body, inner, depth + 1)) {
+                return true;
+            }
+            for (int i = 0; i < parameters.size(); i++) {
+                boolean shadowed = parameters.subList(i + 1, parameters.size()).contains(parameters.get(i));
+                if (!shadowed && isStrict(x, args.get(i), functions, depth + 1) &&
+                        isStrict(parameters.get(i), body, inner, depth + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        else if (head instanceof ASTConstant) {
+            Object value = ((ASTConstant) head).getValue();
+            if (value == PredefinedFunction.BOT) {
+                return true;
+            }
+            if (value == PredefinedFunction.FIX) {
+                if (args.size() >= 1 && args.get(0) instanceof ASTAbstraction) {
+                    boolean[] signature = analyzeFixpoint((ASTAbstraction) args.get(0), functions);
+                    return isStrictCall(x, signature, args, 1, functions, depth);
+                }
+                return false;
+            }
+            if (value == PredefinedFunction.PAR) {
+                // the first argument is only evaluated speculatively
+                return args.size() >= 2 && isStrict(x, args.get(1), functions, depth + 1);
+            }
+            if (value == PredefinedFunction.IF) {
+                if (args.size() >= 1 && isStrict(x, args.get(0), functions, depth + 1)) {
+                    return true;
+                }
+                return args.size() >= 3 && isStrict(x, args.get(1), functions, depth + 1) &&
+                        isStrict(x, args.get(2), functions, depth + 1);
+            }
+
+            // the other reducible constants need all of their arguments
+            int arity = getArity((ASTConstant) head);
+            if (arity == Integer.MAX_VALUE || args.size() < arity) {
+                return false;
+            }
+            for (int i = 0; i < arity; i++) {
+                if (isStrict(x, args.get(i), functions, depth + 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether a call of a function with the given signature to the arguments, starting at offset, needs x.
+     */
+    private boolean isStrictCall(ASTVariable x, boolean[] signature, List<ASTTerm> args, int offset,
+                                 Map<ASTVariable, boolean[]> functions, int depth) {
+        // a partial application is in WHNF
+        if (signature == null || args.size() - offset < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] && isStrict(x, args.get(offset + i), functions, depth + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the term is bot, which is strict in every variable.
+     */
+    private static boolean isBottom(ASTTerm term) {
+        return term instanceof ASTConstant && ((ASTConstant) term).getValue() == PredefinedFunction.BOT;
+    }
+}
@@ -8,97 +8,649 @@ import java.util.*;
 /**
  * A class which can perform weak head normal order reductions to a lambda term.
  */
-public class WHNOReducer implements LambdaTransformation {
+public class WHNOReducer implements LambdaTransformation, LambdaReducer {
+    // the number of iterations of the reduction loop after which the time and the term size are checked
+    private static final int BUDGET_CHECK_INTERVAL = 1024;
+
     private List<LambdaTransformation> transformations;
+    private FixReduction fixReduction;
     private LazyReduction lazyReduction;
+    private TermFactory termFactory;
+    private Set<ASTTerm> normalForms;
+    // finds the arguments which are evaluated before a function is applied, or null for a purely lazy reduction
+    private StrictnessAnalysis strictnessAnalysis;
+    private final Spine spine;
+    // the application which the context was shortened to because it waits for a strict argument
+    private ASTApplication strictFocus;
+    // evaluates the first arguments of par in parallel, or null if par ignores them
+    private SparkPool sparkPool;
+    // the limits of each evaluation, and the steps and the start of the current one
+    private EvaluationBudget budget;
+    private long steps;
+    private long startTime;
+
+    // how often the function of each fix f was entered, and the first f which was entered too often
+    private Map<ASTTerm, Integer> unfoldings;
+    private int hotThreshold;
+    private ASTTerm hotBinding;
 
     /**
      * This standard constructor creates a WHNO reducer with standard beta and delta rules.
      */
     public WHNOReducer() {
+        this(LazyReduction.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a WHNO reducer with standard beta and delta rules which remembers at most the given number of results.
+     * @param capacity the capacity of the lazy reduction
+     */
+    public WHNOReducer(int capacity) {
+        this(capacity, new SparkPool());
+    }
+
+    /**
+     * Creates a reducer of the sparks of the given pool, which uses the same pool for the sparks it creates.
+     */
+    WHNOReducer(int capacity, SparkPool sparkPool) {
         transformations = new ArrayList<>();
 
         transformations.add(new BetaReduction());
 
-        transformations.add(new ArithmeticReduction());
-        transformations.add(new BooleanReduction());
-        transformations.add(new BoolNotReduction());
-        transformations.add(new CharReduction());
-        transformations.add(new BotReduction());
-        transformations.add(new BranchReduction());
-        transformations.add(new FixReduction());
-        transformations.add(new TupleReduction());
-        transformations.add(new ConstructorReduction());
+        // the delta rules are looked up by the head constant
+        fixReduction = new FixReduction();
+        transformations.add(new DeltaDispatcher(Arrays.asList(
+                new ArithmeticReduction(),
+                new BooleanReduction(),
+                new BoolNotReduction(),
+                new CharReduction(),
+                new BotReduction(),
+                new BranchReduction(),
+                fixReduction,
+                new SeqReduction(),
+                new ParReduction(this::spark),
+                new TupleReduction(),
+                new ConstructorReduction())));
 
-        lazyReduction = new LazyReduction();
+        lazyReduction = new LazyReduction(capacity);
+        termFactory = new TermFactory();
+        // applications which contain no redex are not searched again, at most capacity of them are remembered
+        normalForms = Collections.newSetFromMap(new LinkedHashMap<ASTTerm, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ASTTerm, Boolean> eldest) {
+                return size() > capacity;
+            }
+        });
+        unfoldings = new HashMap<>();
+        hotThreshold = Integer.MAX_VALUE;
+        strictnessAnalysis = new StrictnessAnalysis(capacity);
+        spine = new Spine();
+        this.sparkPool = sparkPool;
+        budget = EvaluationBudget.UNLIMITED;
     }
 
     @Override
     public Optional<ASTTerm> visit(ASTApplication node) {
+        // search the first reducible application in a left-most inner-most fashion, i.e. the application itself,
+        // then its left and then its right; the path to the current application is kept on an explicit stack
+        Deque<SearchFrame> path = new ArrayDeque<>();
+        path.push(new SearchFrame(node));
+        ASTTerm result = null;
+
+        while (!path.isEmpty()) {
+            SearchFrame frame = path.peek();
+            if (frame.state == SearchFrame.SELF) {
+                frame.state = SearchFrame.LEFT;
+                Optional<ASTTerm> reduced = reduceApplication(frame.node);
+                if (reduced.isPresent()) {
+                    result = reduced.get();
+                    break;
+                }
+                if (frame.node.getLeft() instanceof ASTApplication) {
+                    path.push(new SearchFrame((ASTApplication) frame.node.getLeft()));
+                }
+            }
+            else if (frame.state == SearchFrame.LEFT) {
+                frame.state = SearchFrame.RIGHT;
+                if (frame.node.getRight() instanceof ASTApplication) {
+                    path.push(new SearchFrame((ASTApplication) frame.node.getRight()));
+                }
+            }
+            else {
+                // neither the application nor its children can be reduced
+                path.pop();
+            }
+        }
+
+        if (result == null) {
+            return Optional.empty();
+        }
+
+        // rebuild the applications on the path with the reduced child and remember their results
+        path.pop();
+        while (!path.isEmpty()) {
+            SearchFrame parent = path.pop();
+            ASTApplication reducedApplication;
+            if (parent.state == SearchFrame.LEFT) {
+                reducedApplication = termFactory.application(result, parent.node.getRight());
+            }
+            else {
+                reducedApplication = termFactory.application(parent.node.getLeft(), result);
+            }
+            lazyReduction.rememberResult(parent.node, reducedApplication);
+            result = reducedApplication;
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Tries to reduce the application itself, i.e. without reducing its children.
+     * @param node the application
+     * @return the result or empty
+     */
+    private Optional<ASTTerm> reduceApplication(ASTApplication node) {
+        if (node.getLeft() instanceof ASTConstant &&
+                ((ASTConstant) node.getLeft()).getValue() == PredefinedFunction.FIX) {
+            countUnfolding(node.getRight());
+        }
+
+        // the term may have been evaluated by a spark in the meantime
+        if (sparkPool != null && sparkPool.hasSparks()) {
+            Optional<ASTTerm> sparkResult = sparkPool.getResult(node);
+            if (sparkResult.isPresent() && !sparkResult.get().equals(node)) {
+                ASTTerm result = termFactory.intern(sparkResult.get());
+                lazyReduction.rememberResult(node, result);
+                return Optional.of(result);
+            }
+        }
+
         // lazy evaluation: try to look up the result of this application from previous reductions
         Optional<ASTTerm> previousResult = node.accept(lazyReduction);
         if (previousResult.isPresent()) {
             return previousResult;
         }
 
+        // a function which is applied to an unevaluated strict argument waits for the argument
+        if (getStrictArgument(node) >= 0) {
+            return Optional.empty();
+        }
+
         // first, try to do apply a reduction on this term
         Optional<ASTTerm> reduced;
         for (LambdaTransformation transformation : transformations) {
             reduced = node.accept(transformation);
             if (reduced.isPresent()) {
                 // remember the result of this reduction
-                lazyReduction.rememberResult(node, reduced.get());
+                ASTTerm reducedTerm = termFactory.intern(reduced.get());
+                lazyReduction.rememberResult(node, reducedTerm);
                 // and return it, of course
-                return reduced;
+                return Optional.of(reducedTerm);
             }
         }
+        return Optional.empty();
+    }
 
-        // try to apply the reduction in a left-most inner-most fashion
-        Optional<ASTTerm> result = node.getLeft().accept(this);
-        if (result.isPresent()) {
-            ASTApplication reducedApplication = new ASTApplication(result.get(), node.getRight());
-            lazyReduction.rememberResult(node, reducedApplication);
-            return Optional.of(reducedApplication);
+    /**
+     * Reduces a term to weak head order normal form.
+     * @param term the term
+     * @param verbose whether reduction steps should be printed
+     * @return the WHNF
+     */
+    @Override
+    public ASTTerm reduceToWHNF(ASTTerm term, boolean verbose) {
+        try {
+            return reduce(term, verbose, false);
         }
-        else {
-            result = node.getRight().accept(this);
-            if (result.isPresent()) {
-                ASTApplication reducedApplication = new ASTApplication(node.getLeft(), result.get());
-                lazyReduction.rememberResult(node, reducedApplication);
-                return Optional.of(reducedApplication);
-            }
-            else {
-                return Optional.empty();
+        finally {
+            // the sparks which are still running are not needed anymore
+            if (sparkPool != null) {
+                sparkPool.cancel();
             }
         }
     }
 
     /**
-     * Reduces a term to weak head order normal form.
+     * Reduces a closed term only until it is in WHNF, i.e. in contrast to {@link #reduceToWHNF(ASTTerm)} the arguments
+     * of constructors and of partial applications are not evaluated.
      * @param term the term
-     * @param verbose whether reduction steps should be printed
      * @return the WHNF
      */
-    public ASTTerm reduceToWHNF(ASTTerm term, boolean verbose) {
+    public ASTTerm reduceHead(ASTTerm term) {
+        return reduce(term, false, true);
+    }
+
+    /**
+     * Reduces a term, where a weak reduction stops as soon as the whole term is in WHNF.
+     */
+    private ASTTerm reduce(ASTTerm term, boolean verbose, boolean weak) {
         if (verbose) {
             System.out.println(term);
         }
 
-        ASTTerm currentTerm = term;
+        // the reducer keeps a focus on the current subterm and the applications around it as context, so that the
+        // search for the next redex continues at the last one instead of starting at the root again
+        Deque<SearchFrame> context = new ArrayDeque<>();
+        // interned terms can be looked up by the lazy reduction in constant time
+        ASTTerm focus = termFactory.intern(term);
+        boolean reducedInPass = false;
+        hotBinding = null;
+        strictFocus = null;
+        steps = 0;
+        startTime = System.nanoTime();
+        boolean limited = !budget.isUnlimited();
+        int iterations = 0;
+
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw exceeded(BudgetExceededException.Limit.INTERRUPTED, context, focus);
+            }
+            if (limited && ++iterations % BUDGET_CHECK_INTERVAL == 0) {
+                checkBudget(context, focus);
+            }
+            if (weak && context.isEmpty() && !StrictnessAnalysis.needsEvaluation(focus)) {
+                break;
+            }
+
+            if (!context.isEmpty() && context.peek().strictFrames > 0 && !StrictnessAnalysis.needsEvaluation(focus)) {
+                // the strict argument is evaluated, so continue with the application which needed it
+                focus = leaveStrictArgument(context, focus);
+            }
+
+            boolean searchFocus = focus instanceof ASTApplication && !normalForms.contains(focus);
+            Optional<ASTTerm> reduced = Optional.empty();
+            if (searchFocus) {
+                reduced = reduceApplication((ASTApplication) focus);
+            }
+
+            if (reduced.isPresent()) {
+                reducedInPass = true;
+                do {
+                    focus = reduced.get();
+                    if (++steps > budget.getMaxSteps()) {
+                        throw exceeded(BudgetExceededException.Limit.STEPS, context, focus);
+                    }
+
+                    // the interned terms are bounded like the results, forgetting them only makes lookups slower
+                    if (termFactory.size() > lazyReduction.getCapacity()) {
+                        termFactory.clear();
+                    }
 
-        // try to reduce the term as long as possible
-        Optional<ASTTerm> reducedTerm = currentTerm.accept(this);
-        while(reducedTerm.isPresent()) {
-            currentTerm = reducedTerm.get();
+                    if (verbose) {
+                        System.out.println(" => " + plug(context, focus));
+                    }
 
-            if (verbose) {
-                System.out.println(" => " + currentTerm);
+                    if (hotBinding != null) {
+                        // stop early, so that the caller can continue with a faster form of the term
+                        return plug(context, focus);
+                    }
+
+                    // the new subterm may have made an application around it reducible
+                    reduced = reduceContext(context, focus);
+                } while (reduced.isPresent());
+
+                if (strictFocus != null) {
+                    focus = strictFocus;
+                    strictFocus = null;
+                }
+            }
+            else if (searchFocus && getStrictArgument((ASTApplication) focus) >= 0) {
+                // evaluate the strict argument before the function is applied to it
+                focus = enterStrictArgument(context, (ASTApplication) focus);
             }
+            else if (searchFocus) {
+                // the application itself can not be reduced, so continue with its left
+                SearchFrame frame = new SearchFrame((ASTApplication) focus);
+                frame.state = SearchFrame.LEFT;
+                context.push(frame);
+                focus = frame.node.getLeft();
+            }
+            else {
+                // the subterm at the focus is irreducible, so go up until there is a right subterm left to search
+                while (!context.isEmpty() && context.peek().state == SearchFrame.RIGHT) {
+                    focus = ascend(context.pop(), focus);
+                    normalForms.add(focus);
+                }
+
+                if (weak && isRootSpine(context)) {
+                    // the head of the term is irreducible, so its arguments are only evaluated if it still needs them
+                    ASTTerm root = plug(context, focus);
+                    if (!StrictnessAnalysis.needsEvaluation(root)) {
+                        focus = root;
+                        break;
+                    }
+                }
+
+                if (!context.isEmpty()) {
+                    SearchFrame frame = context.peek();
+                    frame.node = ascend(frame, focus);
+                    frame.state = SearchFrame.RIGHT;
+                    focus = frame.node.getRight();
+                }
+                else if (reducedInPass) {
+                    // another pass from the root finds redexes which are not detected from the context, e.g. delta
+                    // rules whose arguments have become closed
+                    reducedInPass = false;
+                    normalForms.clear();
+                }
+                else {
+                    break;
+                }
+            }
+        }
 
-            reducedTerm = currentTerm.accept(this);
+        if (limited && focus.getSize() > budget.getMaxTermSize()) {
+            // a short evaluation may not have reached a check of the budget, the focus is the whole term here
+            throw exceeded(BudgetExceededException.Limit.TERM_SIZE, new ArrayDeque<>(), focus);
         }
 
-        return currentTerm;
+        if (verbose) {
+            System.out.println("(" + lazyReduction.getNumberOfHits() + " hits, " + lazyReduction.getNumberOfMisses() +
+                    " misses, " + lazyReduction.getNumberOfEvictions() + " evictions of previous results)");
+        }
+
+        return focus;
+    }
+
+    /**
+     * Aborts the evaluation if it takes too long or the term is too large.
+     */
+    private void checkBudget(Deque<SearchFrame> context, ASTTerm focus) {
+        if (System.nanoTime() - startTime > budget.getTimeoutNanos()) {
+            throw exceeded(BudgetExceededException.Limit.TIME, context, focus);
+        }
+        if (getSize(context, focus) > budget.getMaxTermSize()) {
+            throw exceeded(BudgetExceededException.Limit.TERM_SIZE, context, focus);
+        }
+    }
+
+    private BudgetExceededException exceeded(BudgetExceededException.Limit limit, Deque<SearchFrame> context,
+                                             ASTTerm focus) {
+        long elapsedMillis = (System.nanoTime() - startTime) / 1000000;
+        return new BudgetExceededException(limit, steps, elapsedMillis, getSize(context, focus));
+    }
+
+    /**
+     * Returns the size of the whole term without plugging the focus into the context.
+     */
+    private static int getSize(Deque<SearchFrame> context, ASTTerm focus) {
+        long size = focus.getSize();
+        for (SearchFrame frame : context) {
+            // the other child of each application on the path is up to date
+            ASTTerm other = frame.state == SearchFrame.LEFT ? frame.node.getRight() : frame.node.getLeft();
+            size += 1 + other.getSize();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns whether the context is a part of the left spine of the whole term.
+     */
+    private static boolean isRootSpine(Deque<SearchFrame> context) {
+        for (SearchFrame frame : context) {
+            if (frame.state != SearchFrame.LEFT) {
+                return false;
+            }
+        }
+        return !context.isEmpty();
+    }
+
+    /**
+     * Tries to reduce an application around the focus whose head or arguments contain the focus. The outer-most
+     * reducible application is reduced and the context is shortened accordingly.
+     * @param context the context, the inner-most application is on top
+     * @param focus the subterm at the focus
+     * @return the result of the reduction or empty
+     */
+    private Optional<ASTTerm> reduceContext(Deque<SearchFrame> context, ASTTerm focus) {
+        // only applications on the left spine above the focus, and the ones above the argument containing it,
+        // are affected by a change of the focus
+        List<ASTApplication> candidates = new ArrayList<>();
+        List<SearchFrame> frames = new ArrayList<>();
+        boolean argument = false;
+        ASTTerm current = focus;
+        for (SearchFrame frame : context) {
+            if (frame.state == SearchFrame.RIGHT) {
+                if (argument) {
+                    break;
+                }
+                argument = true;
+            }
+            current = plug(frame, current);
+            candidates.add((ASTApplication) current);
+            frames.add(frame);
+        }
+
+        // a function which waits for a strict argument must not be applied to the arguments before it either
+        int waiting = -1;
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            if (waiting >= 0 && frames.get(i + 1).state == SearchFrame.LEFT) {
+                continue;
+            }
+            waiting = -1;
+            if (getStrictArgument(candidates.get(i)) >= 0) {
+                waiting = i;
+                continue;
+            }
+
+            Optional<ASTTerm> reduced = reduceApplication(candidates.get(i));
+            if (reduced.isPresent()) {
+                popContext(context, candidates, i);
+                return reduced;
+            }
+        }
+
+        if (waiting >= 0 && frames.get(0).state == SearchFrame.LEFT) {
+            // the focus is the function of the waiting application, so the search continues at the application
+            popContext(context, candidates, waiting);
+            strictFocus = candidates.get(waiting);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Removes the frames of the candidates up to the given index from the context.
+     */
+    private void popContext(Deque<SearchFrame> context, List<ASTApplication> candidates, int index) {
+        // the applications which are left are remembered with their current form
+        for (int j = 0; j <= index; j++) {
+            SearchFrame frame = context.pop();
+            if (frame.node != candidates.get(j)) {
+                lazyReduction.rememberResult(frame.node, candidates.get(j));
+            }
+        }
+    }
+
+    /**
+     * Replaces the subterm of the application in the frame by the given term.
+     * @param frame the frame
+     * @param child the new left or right
+     * @return the new application
+     */
+    private ASTApplication plug(SearchFrame frame, ASTTerm child) {
+        ASTTerm old = frame.state == SearchFrame.LEFT ? frame.node.getLeft() : frame.node.getRight();
+        if (old == child) {
+            return frame.node;
+        }
+
+        ASTApplication application;
+        if (frame.state == SearchFrame.LEFT) {
+            application = termFactory.application(child, frame.node.getRight());
+        }
+        else {
+            application = termFactory.application(frame.node.getLeft(), child);
+        }
+        return application;
+    }
+
+    /**
+     * Replaces the subterm of the application in the frame and remembers the new application as its result.
+     */
+    private ASTApplication ascend(SearchFrame frame, ASTTerm child) {
+        ASTApplication application = plug(frame, child);
+        if (application != frame.node) {
+            lazyReduction.rememberResult(frame.node, application);
+        }
+        return application;
+    }
+
+    /**
+     * Returns the whole term with the given term at the focus, without changing the context.
+     */
+    private ASTTerm plug(Deque<SearchFrame> context, ASTTerm focus) {
+        ASTTerm current = focus;
+        for (SearchFrame frame : context) {
+            current = plug(frame, current);
+        }
+        return current;
+    }
+
+    /**
+     * Returns the position of the first argument of an application (\x1...\xn.b) a1 ... am which the function is
+     * strict in and which is not in WHNF yet.
+     * @param node the application
+     * @return the index of the argument, or -1 if the function can be applied
+     */
+    private int getStrictArgument(ASTApplication node) {
+        if (strictnessAnalysis == null || !(node.getLMOMTerm() instanceof ASTAbstraction)) {
+            return -1;
+        }
+
+        spine.unwind(node);
+        boolean[] signature = strictnessAnalysis.getSignature((ASTAbstraction) spine.getHead());
+        if (spine.size() < signature.length) {
+            // a partial application is in WHNF, so it does not evaluate its arguments
+            return -1;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] && StrictnessAnalysis.needsEvaluation(spine.getArgument(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the focus from an application to its first unevaluated strict argument. The frame of the argument
+     * remembers how many frames lead back to the application.
+     * @return the argument
+     */
+    private ASTTerm enterStrictArgument(Deque<SearchFrame> context, ASTApplication node) {
+        int index = getStrictArgument(node);
+        int depth = spine.size() - index;
+
+        // descend along the left spine to the application whose right is the argument
+        ASTApplication current = node;
+        for (int i = 1; i < depth; i++) {
+            SearchFrame frame = new SearchFrame(current);
+            frame.state = SearchFrame.LEFT;
+            context.push(frame);
+            current = (ASTApplication) current.getLeft();
+        }
+        SearchFrame frame = new SearchFrame(current);
+        frame.state = SearchFrame.RIGHT;
+        frame.strictFrames = depth;
+        context.push(frame);
+        return current.getRight();
+    }
+
+    /**
+     * Moves the focus from an evaluated strict argument back to the application which needed it.
+     * @return the application with the evaluated argument
+     */
+    private ASTTerm leaveStrictArgument(Deque<SearchFrame> context, ASTTerm argument) {
+        ASTTerm current = argument;
+        int frames = context.peek().strictFrames;
+        for (int i = 0; i < frames; i++) {
+            current = ascend(context.pop(), current);
+        }
+        return current;
+    }
+
+    /**
+     * Sets the limits of each following evaluation. An evaluation which exceeds them throws a
+     * {@link BudgetExceededException}, after which the reducer can be used for further evaluations.
+     * @param budget the budget
+     */
+    @Override
+    public void setBudget(EvaluationBudget budget) {
+        assert(budget != null);
+        this.budget = budget;
+    }
+
+    /**
+     * Hands the first argument of par to the spark pool.
+     */
+    private void spark(ASTTerm term) {
+        if (sparkPool != null) {
+            sparkPool.spark(term);
+        }
+    }
+
+    /**
+     * Sets the pool which evaluates the first arguments of par in parallel.
+     * @param sparkPool the spark pool, or null to ignore the first arguments
+     */
+    public void setSparkPool(SparkPool sparkPool) {
+        this.sparkPool = sparkPool;
+    }
+
+    /**
+     * Sets whether arguments which a function certainly needs are evaluated before the function is applied. This does
+     * not change the result of a reduction, but avoids long chains of unevaluated arithmetic in accumulators.
+     * @param strict whether the strictness analysis is used
+     */
+    public void setStrictEvaluation(boolean strict) {
+        strictnessAnalysis = strict ? new StrictnessAnalysis(lazyReduction.getCapacity()) : null;
+    }
+
+    /**
+     * Counts that the function of fix f was entered. The first function which is entered hotThreshold times is
+     * remembered as the hot binding.
+     */
+    private void countUnfolding(ASTTerm function) {
+        int count = unfoldings.merge(function, 1, Integer::sum);
+        if (count >= hotThreshold && hotBinding == null) {
+            hotBinding = function;
+        }
+    }
+
+    /**
+     * Sets how often the function of a fix may be entered before the reduction stops. When a reduction stops early,
+     * {@link #reduceToWHNF(ASTTerm, boolean)} returns the current term, which is not necessarily in WHNF, and
+     * {@link #getHotBinding()} returns the function. The counts are kept until the reducer is reset, so a binding
+     * which became hot in one evaluation stops the next evaluation at its first unfolding.
+     * @param hotThreshold the number of unfoldings, or Integer.MAX_VALUE to never stop
+     */
+    public void setHotThreshold(int hotThreshold) {
+        assert(hotThreshold > 0);
+        this.hotThreshold = hotThreshold;
+    }
+
+    /**
+     * Returns the function of the fix whose unfoldings stopped the last reduction.
+     * @return the hot function, or null if the last reduction reached the WHNF
+     */
+    public ASTTerm getHotBinding() {
+        return hotBinding;
+    }
+
+    @Override
+    public void reset() {
+        lazyReduction.clear();
+        fixReduction.clear();
+        termFactory.clear();
+        normalForms.clear();
+        unfoldings.clear();
+        if (strictnessAnalysis != null) {
+            strictnessAnalysis.clear();
+        }
+        if (sparkPool != null) {
+            sparkPool.reset();
+        }
+    }
+
+    public LazyReduction getLazyReduction() {
+        return lazyReduction;
     }
 
     /**
@@ -106,6 +658,7 @@ public class WHNOReducer implements LambdaTransformation {
      * @param term the term
      * @return the WHNF
      */
+    @Override
     public ASTTerm reduceToWHNF(ASTTerm term) {
         return reduceToWHNF(term, false);
     }
@@ -138,4 +691,23 @@ public class WHNOReducer implements LambdaTransformation {
             return Optional.empty();
         }
     }
+
+    /**
+     * An application on the search path and which part of it is searched at the moment.
+     */
+    private static class SearchFrame {
+        private static final int SELF = 0;
+        private static final int LEFT = 1;
+        private static final int RIGHT = 2;
+
+        private ASTApplication node;
+        private int state;
+        // for the frame of a strict argument: the number of frames up to the application which needs it
+        private int strictFrames;
+
+        private SearchFrame(ASTApplication node) {
+            this.node = node;
+            this.state = SELF;
+        }
+    }
 }
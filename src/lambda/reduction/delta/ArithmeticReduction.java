@@ -1,13 +1,16 @@
 package lambda.reduction.delta;
 
 import lambda.ast.ASTConstant;
+import lambda.ast.ASTFloatConstant;
+import lambda.ast.ASTIntConstant;
 import lambda.ast.ASTTerm;
 
 import java.util.List;
 import java.util.Optional;
 
 /**
- * Represents the delta rules for arithmetic operations on integers and floats.
+ * Represents the delta rules for arithmetic operations on integers and floats. Integers have arbitrary precision,
+ * see {@link IntegerArithmetic}.
  */
 public class ArithmeticReduction extends DeltaReduction {
     @Override
@@ -88,104 +91,67 @@ public class ArithmeticReduction extends DeltaReduction {
         if (!(terms.get(0) instanceof ASTConstant) || !(terms.get(1) instanceof ASTConstant)) {
             return Optional.empty();
         }
-        ASTConstant c0 = (ASTConstant) terms.get(0);
-        ASTConstant c1 = (ASTConstant) terms.get(1);
+        ASTConstant c0 = ASTConstant.unboxed((ASTConstant) terms.get(0));
+        ASTConstant c1 = ASTConstant.unboxed((ASTConstant) terms.get(1));
 
         // and both constants must be of the same type
-        if (c0.getValue() instanceof Integer && c1.getValue() instanceof Integer) {
-            int n0 = (int) c0.getValue();
-            int n1 = (int) c1.getValue();
+        if (c0 instanceof ASTIntConstant && c1 instanceof ASTIntConstant) {
+            int n0 = ((ASTIntConstant) c0).intValue();
+            int n1 = ((ASTIntConstant) c1).intValue();
 
-            // now we calculate the result
-            Object result;
-            switch (op) {
-                case PLUS:
-                    result = n0 + n1;
-                    break;
-                case MINUS:
-                    result = n0 - n1;
-                    break;
-                case MULT:
-                    result = n0 * n1;
-                    break;
-                case DIV:
-                    result = n0 / n1;
-                    break;
-                case MOD:
-                    result = n0 % n1;
-                    break;
-                case POW:
-                    result = (int) Math.pow(n0, n1);
-                    break;
-                case LESS:
-                    result = n0 < n1;
-                    break;
-                case GREATER:
-                    result = n0 > n1;
-                    break;
-                case LESSEQ:
-                    result = n0 <= n1;
-                    break;
-                case GREATEREQ:
-                    result = n0 >= n1;
-                    break;
-                case EQUAL:
-                    result = n0 == n1;
-                    break;
-                case INEQUAL:
-                    result = n0 != n1;
-                    break;
-                default:
-                    return Optional.empty();
-            }
-
-            return Optional.of(new ASTConstant(result));
+            Object result = IntegerArithmetic.apply(op, n0, n1);
+            return result == null ? Optional.empty() : Optional.of(ASTConstant.of(result));
+        }
+        else if (IntegerArithmetic.isInteger(c0.getValue()) && IntegerArithmetic.isInteger(c1.getValue())) {
+            // at least one of the values does not fit into an int
+            Object result = IntegerArithmetic.apply(op, c0.getValue(), c1.getValue());
+            return result == null ? Optional.empty() : Optional.of(ASTConstant.of(result));
         }
-        else if (c0.getValue() instanceof Float && c1.getValue() instanceof Float) {
-            float n0 = (float) c0.getValue();
-            float n1 = (float) c1.getValue();
+        else if (c0 instanceof ASTFloatConstant && c1 instanceof ASTFloatConstant) {
+            float n0 = ((ASTFloatConstant) c0).floatValue();
+            float n1 = ((ASTFloatConstant) c1).floatValue();
 
-            // now we calculate the result
-            Object result;
+            // now we calculate the result without boxing it
+            ASTConstant result;
             switch (op) {
                 case PLUSF:
-                    result = n0 + n1;
+                    result = ASTConstant.of(n0 + n1);
                     break;
                 case MINUSF:
-                    result = n0 - n1;
+                    result = ASTConstant.of(n0 - n1);
                     break;
                 case MULTF:
-                    result = n0 * n1;
+                    result = ASTConstant.of(n0 * n1);
                     break;
                 case DIVF:
-                    result = n0 / n1;
+                    result = ASTConstant.of(n0 / n1);
                     break;
                 case POWF:
-                    result = (float) Math.pow(n0, n1);
+                    result = ASTConstant.of((float) Math.pow(n0, n1));
                     break;
                 case LESSF:
-                    result = n0 < n1;
+                    result = ASTConstant.of(n0 < n1);
                     break;
                 case GREATERF:
-                    result = n0 > n1;
+                    result = ASTConstant.of(n0 > n1);
                     break;
                 case LESSEQF:
-                    result = n0 <= n1;
+                    result = ASTConstant.of(n0 <= n1);
                     break;
                 case GREATEREQF:
-                    result = n0 >= n1;
+                    result = ASTConstant.of(n0 >= n1);
                     break;
                 case EQUALF:
-                    result = n0 == n1;
+                    result = ASTConstant.of(n0 == n1);
                     break;
                 case INEQUALF:
-                    result = n0 != n1;
+                    result = ASTConstant.of(n0 != n1);
                     break;
                 default:
                     return Optional.empty();
             }
 
-            return Optional.of(new ASTConstant(result));
+            return Optional.of(result);
         }
         else {
             return Optional.empty();
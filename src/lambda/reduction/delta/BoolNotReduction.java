@@ -1,5 +1,6 @@
 package lambda.reduction.delta;
 
+import lambda.ast.ASTBoolConstant;
 import lambda.ast.ASTConstant;
 import lambda.ast.ASTTerm;
 
@@ -25,12 +26,12 @@ public class BoolNotReduction extends DeltaReduction {
         // the constant must be NOT and it has one argument
         if (isSignatureMatching(constant, terms)) {
             if (terms.get(0) instanceof ASTConstant) {
-                ASTConstant c = (ASTConstant) terms.get(0);
+                ASTConstant c = ASTConstant.unboxed((ASTConstant) terms.get(0));
 
                 // the result is the negated boolean
-                if (c.getValue() instanceof Boolean) {
-                    Boolean b = (Boolean) c.getValue();
-                    return Optional.of(new ASTConstant(!b));
+                if (c instanceof ASTBoolConstant) {
+                    boolean b = ((ASTBoolConstant) c).booleanValue();
+                    return Optional.of(ASTConstant.of(!b));
                 }
             }
         }
@@ -1,5 +1,6 @@
 package lambda.reduction.delta;
 
+import lambda.ast.ASTBoolConstant;
 import lambda.ast.ASTConstant;
 import lambda.ast.ASTTerm;
 
@@ -52,16 +53,16 @@ public class BooleanReduction extends DeltaReduction {
         if (!(terms.get(0) instanceof ASTConstant) || !(terms.get(1) instanceof ASTConstant)) {
             return Optional.empty();
         }
-        ASTConstant c0 = (ASTConstant) terms.get(0);
-        ASTConstant c1 = (ASTConstant) terms.get(1);
+        ASTConstant c0 = ASTConstant.unboxed((ASTConstant) terms.get(0));
+        ASTConstant c1 = ASTConstant.unboxed((ASTConstant) terms.get(1));
 
         // and both constants must be booleans
-        if (c0.getValue() instanceof Boolean && c1.getValue() instanceof Boolean) {
-            boolean b0 = (boolean) c0.getValue();
-            boolean b1 = (boolean) c1.getValue();
+        if (c0 instanceof ASTBoolConstant && c1 instanceof ASTBoolConstant) {
+            boolean b0 = ((ASTBoolConstant) c0).booleanValue();
+            boolean b1 = ((ASTBoolConstant) c1).booleanValue();
 
             // now we calculate the result
-            Object result;
+            boolean result;
             switch (op) {
                 case AND:
                     result = b0 && b1;
@@ -82,7 +83,7 @@ public class BooleanReduction extends DeltaReduction {
                     return Optional.empty();
             }
 
-            return Optional.of(new ASTConstant(result));
+            return Optional.of(ASTConstant.of(result));
         }
         else {
             return Optional.empty();
@@ -27,7 +27,10 @@ public class BranchReduction extends DeltaReduction {
             boolean condition;
 
             // condition must be a boolean constant
-            if (cond instanceof ASTConstant && ((ASTConstant) cond).getValue() instanceof Boolean) {
+            if (cond instanceof ASTBoolConstant) {
+                condition = ((ASTBoolConstant) cond).booleanValue();
+            }
+            else if (cond instanceof ASTConstant && ((ASTConstant) cond).getValue() instanceof Boolean) {
                 condition = (Boolean) ((ASTConstant) cond).getValue();
             }
             else {
@@ -1,5 +1,6 @@
 package lambda.reduction.delta;
 
+import lambda.ast.ASTCharConstant;
 import lambda.ast.ASTConstant;
 import lambda.ast.ASTTerm;
 
@@ -46,16 +47,16 @@ public class CharReduction extends DeltaReduction {
         if (!(terms.get(0) instanceof ASTConstant) || !(terms.get(1) instanceof ASTConstant)) {
             return Optional.empty();
         }
-        ASTConstant c0 = (ASTConstant) terms.get(0);
-        ASTConstant c1 = (ASTConstant) terms.get(1);
+        ASTConstant c0 = ASTConstant.unboxed((ASTConstant) terms.get(0));
+        ASTConstant c1 = ASTConstant.unboxed((ASTConstant) terms.get(1));
 
         // and both constants must be characters
-        if (c0.getValue() instanceof Character && c1.getValue() instanceof Character) {
-            char ch1 = (char) c0.getValue();
-            char ch2 = (char) c1.getValue();
+        if (c0 instanceof ASTCharConstant && c1 instanceof ASTCharConstant) {
+            char ch1 = ((ASTCharConstant) c0).charValue();
+            char ch2 = ((ASTCharConstant) c1).charValue();
 
             // now we calculate the result
-            Object result;
+            boolean result;
             switch (op) {
                 case EQUALC:
                     result = ch1 == ch2;
@@ -67,7 +68,7 @@ public class CharReduction extends DeltaReduction {
                     return Optional.empty();
             }
 
-            return Optional.of(new ASTConstant(result));
+            return Optional.of(ASTConstant.of(result));
         }
         else {
             return Optional.empty();
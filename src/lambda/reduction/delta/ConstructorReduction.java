@@ -3,6 +3,7 @@ package lambda.reduction.delta;
 import lambda.ast.ASTApplication;
 import lambda.ast.ASTConstant;
 import lambda.ast.ASTTerm;
+import lambda.ast.Spine;
 
 import java.util.List;
 import java.util.Optional;
@@ -64,6 +65,17 @@ public class ConstructorReduction extends DeltaReduction {
             return value;
         }
 
+        /**
+         * Returns whether the constructor or literal is of the same kind as the value of this isa, so that isa can be
+         * reduced to true or false. Integers of any size are of the same kind.
+         * @param constructor the constructor or the value of the literal
+         * @return whether isa can be applied to it
+         */
+        public boolean isApplicable(Object constructor) {
+            return constructor.getClass().isInstance(value) ||
+                    (IntegerArithmetic.isInteger(constructor) && IntegerArithmetic.isInteger(value));
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -137,6 +149,9 @@ public class ConstructorReduction extends DeltaReduction {
         return new ArgOf(constr);
     }
 
+    // the spine buffer is reused for every argument
+    private final Spine argumentSpine = new Spine();
+
     @Override
     public int getNumberOfArguments() {
         return 1;
@@ -156,8 +171,9 @@ public class ConstructorReduction extends DeltaReduction {
             return Optional.empty();
         }
 
-        ASTTerm constructorTerm = terms.get(0).getLMOMTerm();
-        List<ASTTerm> args = terms.get(0).getLMOMArguments();
+        argumentSpine.unwind(terms.get(0));
+        ASTTerm constructorTerm = argumentSpine.getHead();
+        List<ASTTerm> args = argumentSpine.getArguments();
 
         // check if the argument is a constructor
         if (!(constructorTerm instanceof ASTConstant)) {
@@ -172,12 +188,12 @@ public class ConstructorReduction extends DeltaReduction {
             IsA isaFunction = (IsA) function.getValue();
 
             // we can only reduce it to true or false if the constructor classes match our isa_constructor
-            if (constructor.getValue().getClass().isInstance(isaFunction.getValue())) {
+            if (isaFunction.isApplicable(constructor.getValue())) {
                 // now we can check if the constructor values actually match
                 if (constructor.getValue().equals(isaFunction.getValue())) {
-                    return Optional.of(new ASTConstant(true));
+                    return Optional.of(ASTConstant.of(true));
                 } else {
-                    return Optional.of(new ASTConstant(false));
+                    return Optional.of(ASTConstant.of(false));
                 }
             }
         }
@@ -213,8 +229,7 @@ public class ConstructorReduction extends DeltaReduction {
         }
         else if (name.startsWith("isa_int_")) {
             String val = name.substring(8);
-            int n = Integer.parseInt(val);
-            return Optional.of(new ASTConstant(getIsaOperator(n)));
+            return Optional.of(new ASTConstant(getIsaOperator(IntegerArithmetic.parse(val))));
         }
         else if (name.startsWith("isa_char_")) {
             String val = name.substring(9);
@@ -0,0 +1,132 @@
+package lambda.reduction.delta;
+
+import lambda.ast.*;
+import lambda.reduction.LambdaTransformation;
+
+import java.util.*;
+
+/**
+ * Applies a set of delta rules by looking up the rule for the head constant of an application, instead of trying
+ * every rule in sequence. Predefined functions are looked up in an enum map, the other constants (isa_, argof_, sel_)
+ * by their class. The spine of the application is unwound into a reused buffer.
+ * A saturated if with a boolean condition is reduced to the chosen branch directly.
+ */
+public class DeltaDispatcher implements LambdaTransformation {
+    private final List<DeltaReduction> rules;
+    private final Map<PredefinedFunction, Optional<DeltaReduction>> functionRules;
+    private final Map<Class<?>, Optional<DeltaReduction>> classRules;
+    private final Spine spine;
+
+    /**
+     * Creates a dispatcher for the given rules. If several rules match a constant, the first one is used.
+     * @param rules the delta rules
+     */
+    public DeltaDispatcher(List<DeltaReduction> rules) {
+        this.rules = new ArrayList<>(rules);
+        this.functionRules = new EnumMap<>(PredefinedFunction.class);
+        this.classRules = new HashMap<>();
+        this.spine = new Spine();
+
+        for (PredefinedFunction function : PredefinedFunction.values()) {
+            functionRules.put(function, findRule(new ASTConstant(function)));
+        }
+    }
+
+    /**
+     * Creates a dispatcher with all standard delta rules.
+     */
+    public DeltaDispatcher() {
+        this(Arrays.asList(
+                new ArithmeticReduction(),
+                new BooleanReduction(),
+                new BoolNotReduction(),
+                new CharReduction(),
+                new BotReduction(),
+                new BranchReduction(),
+                new FixReduction(),
+                new SeqReduction(),
+                new ParReduction(),
+                new TupleReduction(),
+                new ConstructorReduction()));
+    }
+
+    @Override
+    public Optional<ASTTerm> visit(ASTApplication node) {
+        // unwind the spine to find the head constant and count the arguments
+        spine.unwind(node);
+        int numberOfArguments = spine.size();
+        if (!(spine.getHead() instanceof ASTConstant)) {
+            return Optional.empty();
+        }
+
+        ASTConstant constant = (ASTConstant) spine.getHead();
+        if (constant.getValue() == PredefinedFunction.IF && numberOfArguments == 3) {
+            Optional<ASTTerm> branch = getBranch(node);
+            if (branch.isPresent()) {
+                return branch;
+            }
+        }
+
+        Optional<DeltaReduction> rule = getRule(constant);
+        if (!rule.isPresent() || rule.get().getNumberOfArguments() != numberOfArguments) {
+            return Optional.empty();
+        }
+        return rule.get().getRHS(constant, spine.getArguments());
+    }
+
+    @Override
+    public Optional<ASTTerm> visit(ASTConstant node) {
+        // try to apply the delta rule only to the constant
+        Optional<DeltaReduction> rule = getRule(node);
+        if (!rule.isPresent() || rule.get().getNumberOfArguments() != 0) {
+            return Optional.empty();
+        }
+        return rule.get().getRHS(node, new ArrayList<>());
+    }
+
+    /**
+     * Reduces if c a b to a or b if c is a boolean constant.
+     * @param node the application of if to three arguments
+     * @return the branch or empty
+     */
+    private Optional<ASTTerm> getBranch(ASTApplication node) {
+        ASTApplication ifThen = (ASTApplication) node.getLeft();
+        ASTTerm cond = ((ASTApplication) ifThen.getLeft()).getRight();
+
+        if (cond instanceof ASTConstant && ((ASTConstant) cond).getValue() instanceof Boolean) {
+            boolean condition = (Boolean) ((ASTConstant) cond).getValue();
+            return Optional.of(condition ? ifThen.getRight() : node.getRight());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the delta rule for the constant.
+     */
+    private Optional<DeltaReduction> getRule(ASTConstant constant) {
+        Object value = constant.getValue();
+        if (value instanceof PredefinedFunction) {
+            return functionRules.get(value);
+        }
+
+        // the other rules only depend on the class of the constant
+        Optional<DeltaReduction> rule = classRules.get(value.getClass());
+        if (rule == null) {
+            rule = findRule(constant);
+            classRules.put(value.getClass(), rule);
+        }
+        return rule;
+    }
+
+    /**
+     * Returns the first rule which matches the constant.
+     */
+    private Optional<DeltaReduction> findRule(ASTConstant constant) {
+        for (DeltaReduction rule : rules) {
+            if (rule.isConstantMatching(constant)) {
+                return Optional.of(rule);
+            }
+        }
+        return Optional.empty();
+    }
+}
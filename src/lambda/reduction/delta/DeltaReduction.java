@@ -12,15 +12,17 @@ import java.util.Optional;
  * However, every delta rule in the same class must take the same number of arguments and the same types of constants.
  */
 public abstract class DeltaReduction implements LambdaTransformation {
+    // the spine buffer is reused for every application
+    private final Spine spine = new Spine();
+
     @Override
     public Optional<ASTTerm> visit(ASTApplication node) {
         // check whether the application is a constant with the correct number of arguments for this delta rule
-        ASTTerm lmomTerm = node.getLMOMTerm();
-        List<ASTTerm> arguments = node.getLMOMArguments();
+        spine.unwind(node);
 
-        if (lmomTerm instanceof ASTConstant && arguments.size() == getNumberOfArguments()) {
+        if (spine.getHead() instanceof ASTConstant && spine.size() == getNumberOfArguments()) {
             // this is a constant with the right number of arguments, so try to apply the delta rule
-            Optional<ASTTerm> result = getRHS((ASTConstant) lmomTerm, arguments);
+            Optional<ASTTerm> result = getRHS((ASTConstant) spine.getHead(), spine.getArguments());
             if (result.isPresent()) {
                 return result;
             }
@@ -65,8 +67,8 @@ public abstract class DeltaReduction implements LambdaTransformation {
         }
 
         // check if the terms are closed
-        for (ASTTerm t : terms) {
-            if (t.getFreeVars().size() > 0) {
+        for (int i = 0; i < terms.size(); i++) {
+            if (terms.get(i).getFreeVars().size() > 0) {
                 return false;
             }
         }
@@ -1,16 +1,45 @@
 package lambda.reduction.delta;
 
+import lambda.ast.ASTAbstraction;
 import lambda.ast.ASTApplication;
 import lambda.ast.ASTConstant;
 import lambda.ast.ASTTerm;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Represents the fixpoint operator.
+ * A recursive function fix (\f.e) is unfolded to e[f / fix (\f.e)] in one step. The unfolding of each function is
+ * only created once: it contains the fix term it was created for, and reducing that fix term again returns the same
+ * unfolding. Thus the knot is tied through this rule, and recursive calls do not copy the body of the function again.
  */
 public class FixReduction extends DeltaReduction {
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private final Map<ASTTerm, ASTTerm> unfoldings;
+
+    public FixReduction() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a fix reduction which remembers the unfoldings of at most the given number of functions.
+     * @param capacity the maximum number of unfoldings
+     */
+    public FixReduction(int capacity) {
+        assert(capacity > 0);
+        // the access order makes the map evict the least recently used unfolding
+        unfoldings = new LinkedHashMap<ASTTerm, ASTTerm>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ASTTerm, ASTTerm> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
     @Override
     public int getNumberOfArguments() {
         return 1;
@@ -26,6 +55,18 @@ public class FixReduction extends DeltaReduction {
         // the constant must be FIX and it has only one argument
         if (isSignatureMatching(constant, terms)) {
             ASTTerm t = terms.get(0);
+            if (t instanceof ASTAbstraction) {
+                // fix (\f.e) -> e[f / fix (\f.e)]
+                ASTTerm unfolding = unfoldings.get(t);
+                if (unfolding == null) {
+                    ASTAbstraction function = (ASTAbstraction) t;
+                    ASTApplication fix = new ASTApplication(constant, t);
+                    unfolding = function.getOutput().substitute(function.getInput(), fix);
+                    unfoldings.put(t, unfolding);
+                }
+                return Optional.of(unfolding);
+            }
+
             // fix t -> t (fix t)
             ASTApplication fix = new ASTApplication(t, new ASTApplication(new ASTConstant(PredefinedFunction.FIX), t));
             return Optional.of(fix);
@@ -34,4 +75,19 @@ public class FixReduction extends DeltaReduction {
             return Optional.empty();
         }
     }
+
+    /**
+     * Forgets all unfoldings, e.g. because the program changed.
+     */
+    public void clear() {
+        unfoldings.clear();
+    }
+
+    /**
+     * Returns the number of functions whose unfolding is stored.
+     * @return the number of unfoldings
+     */
+    public int size() {
+        return unfoldings.size();
+    }
 }
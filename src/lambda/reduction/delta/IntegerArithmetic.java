@@ -0,0 +1,232 @@
+package lambda.reduction.delta;
+
+import java.math.BigInteger;
+
+/**
+ * The arithmetic on values of type Integer, which have arbitrary precision. A value is stored as an Integer if it
+ * fits into an int, as a Long if it fits into a long and as a BigInteger otherwise, so that equal values are always
+ * equal objects. The operations compute with longs and detect overflows with the exact methods of Math, only then they
+ * fall back to BigIntegers.
+ */
+public final class IntegerArithmetic {
+    private static final BigInteger MIN_LONG = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger MAX_LONG = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private IntegerArithmetic() {
+    }
+
+    /**
+     * Returns whether the object is a value of type Integer.
+     * @param value the object
+     * @return whether it is an Integer, a Long or a BigInteger
+     */
+    public static boolean isInteger(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof BigInteger;
+    }
+
+    /**
+     * Returns the value in its smallest representation.
+     * @param value the value
+     * @return an Integer or a Long
+     */
+    public static Object valueOf(long value) {
+        if ((int) value == value) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value in its smallest representation.
+     * @param value the value
+     * @return an Integer, a Long or a BigInteger
+     */
+    public static Object valueOf(BigInteger value) {
+        if (value.compareTo(MIN_LONG) >= 0 && value.compareTo(MAX_LONG) <= 0) {
+            return valueOf(value.longValue());
+        }
+        return value;
+    }
+
+    /**
+     * Parses a decimal integer literal of any length.
+     * @param literal the literal
+     * @return the value in its smallest representation
+     */
+    public static Object parse(String literal) {
+        try {
+            return valueOf(Long.parseLong(literal));
+        }
+        catch (NumberFormatException e) {
+            return valueOf(new BigInteger(literal));
+        }
+    }
+
+    /**
+     * Applies an operation on integers to two ints. Except for pow, the results of ints fit into longs.
+     * @param op the operation
+     * @param n0 the first argument
+     * @param n1 the second argument
+     * @return the result or null if op is not an operation on integers
+     * @throws ArithmeticException for a division by zero or a negative exponent
+     */
+    public static Object apply(PredefinedFunction op, int n0, int n1) {
+        switch (op) {
+            case PLUS:
+                return valueOf((long) n0 + n1);
+            case MINUS:
+                return valueOf((long) n0 - n1);
+            case MULT:
+                return valueOf((long) n0 * n1);
+            case DIV:
+                return valueOf((long) n0 / n1);
+            case MOD:
+                return n0 % n1;
+            case POW:
+                return apply(op, (Object) n0, (Object) n1);
+            case LESS:
+                return n0 < n1;
+            case GREATER:
+                return n0 > n1;
+            case LESSEQ:
+                return n0 <= n1;
+            case GREATEREQ:
+                return n0 >= n1;
+            case EQUAL:
+                return n0 == n1;
+            case INEQUAL:
+                return n0 != n1;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Applies an operation on integers to two values of type Integer.
+     * @param op the operation
+     * @param n0 the first argument
+     * @param n1 the second argument
+     * @return the result or null if op is not an operation on integers
+     * @throws ArithmeticException for a division by zero or a negative exponent
+     */
+    public static Object apply(PredefinedFunction op, Object n0, Object n1) {
+        if (n0 instanceof Integer && n1 instanceof Integer && op != PredefinedFunction.POW) {
+            return apply(op, (int) n0, (int) n1);
+        }
+        if (!(n0 instanceof BigInteger) && !(n1 instanceof BigInteger)) {
+            try {
+                return apply(op, ((Number) n0).longValue(), ((Number) n1).longValue());
+            }
+            catch (ArithmeticException e) {
+                // the result does not fit into a long, or the operation fails with BigIntegers as well
+            }
+        }
+        return apply(op, toBigInteger(n0), toBigInteger(n1));
+    }
+
+    private static Object apply(PredefinedFunction op, long n0, long n1) {
+        switch (op) {
+            case PLUS:
+                return valueOf(Math.addExact(n0, n1));
+            case MINUS:
+                return valueOf(Math.subtractExact(n0, n1));
+            case MULT:
+                return valueOf(Math.multiplyExact(n0, n1));
+            case DIV:
+                if (n0 == Long.MIN_VALUE && n1 == -1) {
+                    throw new ArithmeticException("long overflow");
+                }
+                return valueOf(n0 / n1);
+            case MOD:
+                return valueOf(n0 % n1);
+            case POW:
+                return valueOf(pow(n0, n1));
+            case LESS:
+                return n0 < n1;
+            case GREATER:
+                return n0 > n1;
+            case LESSEQ:
+                return n0 <= n1;
+            case GREATEREQ:
+                return n0 >= n1;
+            case EQUAL:
+                return n0 == n1;
+            case INEQUAL:
+                return n0 != n1;
+            default:
+                return null;
+        }
+    }
+
+    private static Object apply(PredefinedFunction op, BigInteger n0, BigInteger n1) {
+        switch (op) {
+            case PLUS:
+                return valueOf(n0.add(n1));
+            case MINUS:
+                return valueOf(n0.subtract(n1));
+            case MULT:
+                return valueOf(n0.multiply(n1));
+            case DIV:
+                return valueOf(n0.divide(n1));
+            case MOD:
+                return valueOf(n0.remainder(n1));
+            case POW:
+                return valueOf(pow(n0, n1));
+            case LESS:
+                return n0.compareTo(n1) < 0;
+            case GREATER:
+                return n0.compareTo(n1) > 0;
+            case LESSEQ:
+                return n0.compareTo(n1) <= 0;
+            case GREATEREQ:
+                return n0.compareTo(n1) >= 0;
+            case EQUAL:
+                return n0.equals(n1);
+            case INEQUAL:
+                return !n0.equals(n1);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Computes the power by squaring.
+     * @throws ArithmeticException if the result does not fit into a long or the exponent is negative
+     */
+    private static long pow(long base, long exponent) {
+        if (exponent < 0) {
+            throw new ArithmeticException("Negative exponent");
+        }
+
+        long result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result = Math.multiplyExact(result, base);
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                base = Math.multiplyExact(base, base);
+            }
+        }
+        return result;
+    }
+
+    private static BigInteger pow(BigInteger base, BigInteger exponent) {
+        if (exponent.signum() < 0) {
+            throw new ArithmeticException("Negative exponent");
+        }
+        // only 0, 1 and -1 can be raised to exponents beyond the range of int without running out of memory
+        if (base.abs().compareTo(BigInteger.ONE) <= 0) {
+            return base.signum() == 0 ? (exponent.signum() == 0 ? BigInteger.ONE : BigInteger.ZERO) :
+                    base.pow(exponent.testBit(0) ? 1 : 2);
+        }
+        return base.pow(exponent.intValueExact());
+    }
+
+    private static BigInteger toBigInteger(Object value) {
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        }
+        return BigInteger.valueOf(((Number) value).longValue());
+    }
+}
@@ -0,0 +1,50 @@
+package lambda.reduction.delta;
+
+import lambda.ast.ASTConstant;
+import lambda.ast.ASTTerm;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Represents the delta rule of par: par a b -> b, where a is handed to a consumer which may evaluate it in parallel.
+ * The first argument is only a hint, the result does not depend on it.
+ */
+public class ParReduction extends DeltaReduction {
+    private final Consumer<ASTTerm> sparks;
+
+    /**
+     * Creates a par rule which ignores its first argument.
+     */
+    public ParReduction() {
+        this(term -> { });
+    }
+
+    /**
+     * Creates a par rule which sparks its first argument.
+     * @param sparks the consumer of the first arguments
+     */
+    public ParReduction(Consumer<ASTTerm> sparks) {
+        this.sparks = sparks;
+    }
+
+    @Override
+    public int getNumberOfArguments() {
+        return 2;
+    }
+
+    @Override
+    public boolean isConstantMatching(ASTConstant c) {
+        return c.getValue().equals(PredefinedFunction.PAR);
+    }
+
+    @Override
+    public Optional<ASTTerm> getRHS(ASTConstant constant, List<ASTTerm> terms) {
+        if (isSignatureMatching(constant, terms)) {
+            sparks.accept(terms.get(0));
+            return Optional.of(terms.get(1));
+        }
+        return Optional.empty();
+    }
+}
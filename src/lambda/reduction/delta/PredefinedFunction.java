@@ -58,7 +58,16 @@ public enum PredefinedFunction {
 
     // fix :: (a -> a) -> a
     FIX(new ASTFuncType(new ASTFuncType(new ASTVariable("a"), new ASTVariable("a")),
-            new ASTVariable("a")));
+            new ASTVariable("a"))),
+
+    // par :: a -> b -> b, evaluates the first argument in parallel
+    PAR(new ASTFuncType(new ASTVariable("a"), new ASTFuncType(new ASTVariable("b"), new ASTVariable("b")))),
+
+    // pseq :: a -> b -> b, evaluates the first argument before the second one
+    PSEQ(new ASTFuncType(new ASTVariable("a"), new ASTFuncType(new ASTVariable("b"), new ASTVariable("b")))),
+
+    // seq :: a -> b -> b
+    SEQ(new ASTFuncType(new ASTVariable("a"), new ASTFuncType(new ASTVariable("b"), new ASTVariable("b"))));
 
     private ASTType type;
 
@@ -0,0 +1,32 @@
+package lambda.reduction.delta;
+
+import lambda.ast.ASTConstant;
+import lambda.ast.ASTTerm;
+import lambda.reduction.StrictnessAnalysis;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Represents the delta rules of seq and pseq: seq a b -> b as soon as a is in WHNF. The rule can not be applied
+ * before, so the reducer has to evaluate a first.
+ */
+public class SeqReduction extends DeltaReduction {
+    @Override
+    public int getNumberOfArguments() {
+        return 2;
+    }
+
+    @Override
+    public boolean isConstantMatching(ASTConstant c) {
+        return c.getValue().equals(PredefinedFunction.SEQ) || c.getValue().equals(PredefinedFunction.PSEQ);
+    }
+
+    @Override
+    public Optional<ASTTerm> getRHS(ASTConstant constant, List<ASTTerm> terms) {
+        if (isSignatureMatching(constant, terms) && !StrictnessAnalysis.needsEvaluation(terms.get(0))) {
+            return Optional.of(terms.get(1));
+        }
+        return Optional.empty();
+    }
+}
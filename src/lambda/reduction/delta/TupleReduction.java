@@ -6,6 +6,7 @@ import haskell.ast.ASTType;
 import haskell.ast.ASTVariable;
 import lambda.ast.ASTConstant;
 import lambda.ast.ASTTerm;
+import lambda.ast.Spine;
 import lambda.type.PredefinedType;
 
 import java.util.ArrayList;
@@ -205,6 +206,9 @@ public class TupleReduction extends DeltaReduction {
         return new Sel(n, i);
     }
 
+    // the spine buffer is reused for every argument
+    private final Spine argumentSpine = new Spine();
+
     @Override
     public int getNumberOfArguments() {
         return 1;
@@ -226,8 +230,9 @@ public class TupleReduction extends DeltaReduction {
 
         // check if the argument is a n-tupel
         ASTTerm tupel = terms.get(0);
-        ASTTerm constr = tupel.getLMOMTerm();
-        List<ASTTerm> args = tupel.getLMOMArguments();
+        argumentSpine.unwind(tupel);
+        ASTTerm constr = argumentSpine.getHead();
+        List<ASTTerm> args = argumentSpine.getArguments();
 
         // we can only check if it's a tupel-constructor if it's actually a fully reduced function constant
         if (constr instanceof ASTConstant) {
@@ -239,10 +244,10 @@ public class TupleReduction extends DeltaReduction {
                     // it's isa
                     IsATuple op = (IsATuple) function.getValue();
                     if (op.getN() == args.size()) {
-                        return Optional.of(new ASTConstant(true));
+                        return Optional.of(ASTConstant.of(true));
                     }
                     else {
-                        return Optional.of(new ASTConstant(false));
+                        return Optional.of(ASTConstant.of(false));
                     }
                 }
                 else {
@@ -3,6 +3,7 @@ package lambda.type;
 import haskell.ast.*;
 import lambda.ast.ASTConstant;
 import lambda.reduction.delta.ConstructorReduction;
+import lambda.reduction.delta.IntegerArithmetic;
 import lambda.reduction.delta.PredefinedFunction;
 import lambda.reduction.delta.TupleReduction;
 
@@ -25,7 +26,7 @@ public class ConstantTypeResolver {
         Object value = node.getValue();
         ASTType type;
 
-        if (value instanceof Integer) {
+        if (IntegerArithmetic.isInteger(value)) {
             type = PredefinedType.INTEGER.getType();
         }
         else if (value instanceof Float) {
@@ -114,7 +115,7 @@ public class ConstantTypeResolver {
 
     private static Optional<ASTType> getType(ConstructorReduction.IsA isaConstr, List<ASTDataDecl> dataDecls) {
         ASTType type;
-        if (isaConstr.getValue() instanceof Integer) {
+        if (IntegerArithmetic.isInteger(isaConstr.getValue())) {
             // isa_INT :: Integer -> Bool
             type = new ASTFuncType(PredefinedType.INTEGER.getType(), PredefinedType.BOOL.getType());
         }
@@ -6,11 +6,13 @@ import lambda.ast.*;
 import lambda.ast.ASTApplication;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class can check the type of a lambda term.
  * It will return the type of a lambda term if it is correctly typed,
  * and it will throw a type exception if the lambda term is incorrectly typed.
+ * Every check uses its own assumptions, so several threads can check terms at once.
  */
 public class TypeChecker implements LambdaVisitor<Optional<ASTType>> {
     private TypeUnifier typeUnifier;
@@ -22,16 +24,28 @@ public class TypeChecker implements LambdaVisitor<Optional<ASTType>> {
     // map of type assumptions
     private Map<ASTVariable, ASTType> assumptions;
 
+    // the types of the free variables which stand for definitions
+    private Map<lambda.ast.ASTVariable, ASTType> environment;
+
     // the exception in case there was one
     private Optional<TypeException> error;
 
     private int freshVarIndex;
 
     public TypeChecker(){
+        // checks read the data declarations while they may be added
+        this(new CopyOnWriteArrayList<>());
+    }
+
+    /**
+     * Creates a type checker for a single check which shares the given data declarations.
+     */
+    private TypeChecker(List<ASTDataDecl> dataDeclarations) {
         this.typeUnifier = new TypeUnifier(this);
         this.substituter = new TypeSubstituter();
-        this.dataDeclarations = new ArrayList<>();
+        this.dataDeclarations = dataDeclarations;
         this.assumptions = new HashMap<>();
+        this.environment = Collections.emptyMap();
         this.error = Optional.empty();
         this.freshVarIndex = 0;
     }
@@ -40,7 +54,7 @@ public class TypeChecker implements LambdaVisitor<Optional<ASTType>> {
      * Adds a new data declaration.
      * @param newDataDecl the declaration
      */
-    public void addDataDeclaration(ASTDataDecl newDataDecl) throws TypeException.InconsistentDataDeclException {
+    public synchronized void addDataDeclaration(ASTDataDecl newDataDecl) throws TypeException.InconsistentDataDeclException {
         // check if neither the data type nor it's constructors have been added already
         for (ASTDataDecl oldDataDecl : dataDeclarations) {
             if (oldDataDecl.getTyConstr().equals(newDataDecl.getTyConstr())) {
@@ -67,10 +81,51 @@ public class TypeChecker implements LambdaVisitor<Optional<ASTType>> {
      * @throws TypeException
      */
     public ASTType checkType(ASTTerm term) throws TypeException {
-        init(term);
+        TypeChecker checker = new TypeChecker(dataDeclarations);
+        checker.init(term);
 
-        Optional<ASTType> type = term.accept(this);
-        return type.orElseThrow(() -> error.get());
+        Optional<ASTType> type = term.accept(checker);
+        return type.orElseThrow(() -> checker.error.get());
+    }
+
+    /**
+     * Checks the type of a lambda term whose free variables stand for closed terms of the given types, see
+     * {@link #checkDefinitionType(ASTTerm)}. Like a predefined function, every occurrence of such a variable gets a
+     * fresh instance of its type, which is the same as checking the term with the closed terms substituted.
+     * @param environment the types of the free variables
+     * @return the type of the lambda term
+     * @throws TypeException
+     */
+    public ASTType checkType(ASTTerm term, Map<lambda.ast.ASTVariable, ASTType> environment) throws TypeException {
+        TypeChecker checker = new TypeChecker(dataDeclarations);
+        checker.environment = environment;
+        checker.init(term);
+
+        Optional<ASTType> type = term.accept(checker);
+        return type.orElseThrow(() -> checker.error.get());
+    }
+
+    /**
+     * Checks the type of a closed lambda term, e.g. the translation of a function declaration. The type variables of
+     * the result are called a0, a1, ..., so that it can be used in the environment of
+     * {@link #checkType(ASTTerm, Map)}.
+     * @return the type of the closed lambda term
+     * @throws TypeException
+     */
+    public ASTType checkDefinitionType(ASTTerm term) throws TypeException {
+        TypeChecker checker = new TypeChecker(dataDeclarations);
+        checker.init(term);
+
+        Optional<ASTType> type = term.accept(checker);
+        ASTType result = checker.applyAssumptions(type.orElseThrow(() -> checker.error.get()));
+
+        // the fresh variables all start with "b", so renaming them one after the other cannot merge two of them
+        int index = 0;
+        for (ASTVariable var : result.getAllVariables()) {
+            result = substituter.substituteVariable(var, new ASTVariable("a" + index), result);
+            index++;
+        }
+        return result;
     }
 
     private void init(ASTTerm term) {
@@ -158,17 +213,20 @@ public class TypeChecker implements LambdaVisitor<Optional<ASTType>> {
             return type;
         }
         // replace the type variables with new fresh ones
-        for (ASTVariable var : type.get().getAllVariables()) {
-            type = Optional.of(substituter.substituteVariable(var, getFreshVariable(), type.get()));
-        }
-
-        return type;
+        return Optional.of(instantiate(type.get()));
     }
 
     @Override
     public Optional<ASTType> visit(lambda.ast.ASTVariable node) {
         ASTVariable var = new ASTVariable(node.getName());
 
+        // a variable of the environment gets a fresh instance of its type, bound variables never occur here since
+        // abstractions replace them by fresh variables
+        ASTType definitionType = environment.get(node);
+        if (definitionType != null) {
+            return Optional.of(instantiate(definitionType));
+        }
+
         // look up if this variable already has a type assumption
         if (assumptions.containsKey(var)) {
             return Optional.of(assumptions.get(var));
@@ -232,6 +290,16 @@ public class TypeChecker implements LambdaVisitor<Optional<ASTType>> {
         return type;
     }
 
+    /**
+     * Replaces the type variables of a predefined function or a definition with new fresh ones.
+     */
+    private ASTType instantiate(ASTType type) {
+        for (ASTVariable var : type.getAllVariables()) {
+            type = substituter.substituteVariable(var, getFreshVariable(), type);
+        }
+        return type;
+    }
+
     /**
      * Returns the assumed type of the given variable.
      * Default assumption is the identity.
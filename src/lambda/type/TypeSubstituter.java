@@ -7,11 +7,9 @@ import java.util.stream.Collectors;
 
 /**
  * Helper class which can substitute variables with another type.
+ * It has no state, so one instance can be used by several threads at once.
  */
-public class TypeSubstituter implements TypeVisitor<ASTType> {
-    private ASTVariable var;
-    private ASTType type;
-
+public class TypeSubstituter {
     public TypeSubstituter() {
     }
 
@@ -23,37 +21,48 @@ public class TypeSubstituter implements TypeVisitor<ASTType> {
      * @return
      */
     public ASTType substituteVariable(ASTVariable var, ASTType type, ASTType target) {
-        this.var = var;
-        this.type = type;
-        return target.accept(this);
+        return target.accept(new Substitution(var, type));
     }
 
-    @Override
-    public ASTType visit(ASTVariable node) {
-        if (node.equals(var)) {
-            return type;
+    /**
+     * The visitor which does one substitution.
+     */
+    private static class Substitution implements TypeVisitor<ASTType> {
+        private final ASTVariable var;
+        private final ASTType type;
+
+        Substitution(ASTVariable var, ASTType type) {
+            this.var = var;
+            this.type = type;
         }
-        else {
-            return node;
+
+        @Override
+        public ASTType visit(ASTVariable node) {
+            if (node.equals(var)) {
+                return type;
+            }
+            else {
+                return node;
+            }
         }
-    }
 
-    @Override
-    public ASTType visit(ASTTupleType node) {
-        List<ASTType> types = node.getTypes().stream().map(type -> type.accept(this)).collect(Collectors.toList());
-        return new ASTTupleType(types);
-    }
+        @Override
+        public ASTType visit(ASTTupleType node) {
+            List<ASTType> types = node.getTypes().stream().map(type -> type.accept(this)).collect(Collectors.toList());
+            return new ASTTupleType(types);
+        }
 
-    @Override
-    public ASTType visit(ASTFuncType node) {
-        ASTType from = node.getFrom().accept(this);
-        ASTType to = node.getTo().accept(this);
-        return new ASTFuncType(from, to);
-    }
+        @Override
+        public ASTType visit(ASTFuncType node) {
+            ASTType from = node.getFrom().accept(this);
+            ASTType to = node.getTo().accept(this);
+            return new ASTFuncType(from, to);
+        }
 
-    @Override
-    public ASTType visit(ASTTypeConstr node) {
-        List<ASTType> types = node.getTypes().stream().map(type -> type.accept(this)).collect(Collectors.toList());
-        return new ASTTypeConstr(node.getTyConstr(), types);
+        @Override
+        public ASTType visit(ASTTypeConstr node) {
+            List<ASTType> types = node.getTypes().stream().map(type -> type.accept(this)).collect(Collectors.toList());
+            return new ASTTypeConstr(node.getTyConstr(), types);
+        }
     }
 }
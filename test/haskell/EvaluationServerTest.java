@@ -0,0 +1,114 @@
+package haskell;
+
+import haskell.ast.ASTProgram;
+import haskell.parser.ASTGenerator;
+import lambda.reduction.EvaluationBudget;
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the evaluation server.
+ */
+public class EvaluationServerTest {
+    private EvaluationServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        String programCode = "fact n = if (lesseq n 1) then 1 else (mult n (fact (minus n 1)))\n" +
+                "loop n = (loop (plus n 1))\n";
+        Optional<ASTProgram> program = new ASTGenerator().parseProgram(new ANTLRInputStream(programCode));
+        assertTrue(program.isPresent());
+
+        HaskellInterpreter interpreter = new HaskellInterpreter();
+        interpreter.addProgram(program.get());
+
+        // one evaluation at a time and no queue, so that a second request is rejected
+        server = new EvaluationServer(interpreter, 0, 1, 0, new EvaluationBudget(Long.MAX_VALUE, 5000,
+                Integer.MAX_VALUE));
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * Posts the expression and returns the status and the body of the response.
+     */
+    private String[] post(String query, String expression) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + EvaluationServer.EVALUATE_PATH +
+                (query.isEmpty() ? "" : "?" + query));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(expression.getBytes(StandardCharsets.UTF_8));
+        }
+
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new String[] {String.valueOf(status), new String(in.readAllBytes(), StandardCharsets.UTF_8).trim()};
+        }
+    }
+
+    @Test
+    public void testEvaluate() throws Exception {
+        assertArrayEquals(new String[] {"200", "3628800"}, post("", "(fact 10)"));
+        assertEquals("400", post("", "(fact 10")[0]);
+        assertEquals("422", post("", "(fact 'a')")[0]);
+        assertEquals("400", post("depth=3", "(fact 10)")[0]);
+    }
+
+    @Test
+    public void testRuntimeError() throws Exception {
+        String[] response = post("", "(div 1 0)");
+        assertEquals("422", response[0]);
+        assertTrue(response[1].startsWith("Error: "));
+
+        // the server still answers afterwards
+        assertArrayEquals(new String[] {"200", "6"}, post("", "(fact 3)"));
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        String[] response = post("steps=1000", "(loop 0)");
+        assertEquals("422", response[0]);
+        assertTrue(response[1].contains("number of steps"));
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        // the loop occupies the only evaluation until it times out
+        CompletableFuture<String[]> loop = CompletableFuture.supplyAsync(() -> {
+            try {
+                return post("timeout=2000", "(loop 0)");
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        while (server.getNumberOfRequests() == 0) {
+            Thread.sleep(10);
+        }
+
+        String[] response = post("", "(fact 3)");
+        assertEquals("429", response[0]);
+
+        assertEquals("422", loop.get()[0]);
+        assertArrayEquals(new String[] {"200", "6"}, post("", "(fact 3)"));
+    }
+}
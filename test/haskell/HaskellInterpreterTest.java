@@ -3,10 +3,20 @@ package haskell;
 import haskell.ast.*;
 import lambda.ast.ASTConstant;
 import lambda.ast.ASTTerm;
+import lambda.reduction.WHNOReducer;
 import lambda.type.TypeException;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
 import static org.junit.Assert.*;
 
 /**
@@ -215,4 +225,91 @@ public class HaskellInterpreterTest {
     public void testFactLenAppend() {
         testExpression(factLenAppend, new ASTConstant(120));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentEvaluations() throws Exception {
+        // several threads evaluate expressions of the same program at once
+        ASTExpression[] exps = {square2, lenList4, factLenList3, factPlusToIntEven63, factLenAppend};
+        ASTTerm[] expected = {new ASTConstant(4), new ASTConstant(4), new ASTConstant(6), new ASTConstant(24),
+                new ASTConstant(120)};
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ASTTerm>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                ASTExpression exp = exps[i % exps.length];
+                results.add(executor.submit(() -> interpreter.evaluate(exp)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(expected[i % exps.length], results.get(i).get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testEvaluateAll() throws Exception {
+        // an incorrectly typed expression only fails its own evaluation
+        ASTExpression squareTrue = new ASTApplication(new ASTVariable("square"), new ASTBoolean(true));
+        List<ASTExpression> exps = Arrays.asList(square2, squareTrue, lenList4, factLenList3, factLenAppend);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<EvaluationResult> results = interpreter.evaluateAll(exps, executor);
+            assertEquals(exps.size(), results.size());
+            assertEquals(Optional.of(new ASTConstant(4)), results.get(0).getResult());
+            assertTrue(results.get(1).getError().orElse(null) instanceof TypeException);
+            assertEquals(Optional.of(new ASTConstant(4)), results.get(2).getResult());
+            assertEquals(Optional.of(new ASTConstant(6)), results.get(3).getResult());
+            assertEquals(Optional.of(new ASTConstant(120)), results.get(4).getResult());
+
+            // the results which are passed as soon as they are complete belong to the same expressions
+            List<EvaluationResult> completed = new ArrayList<>();
+            interpreter.evaluateAll(exps.stream(), executor, completed::add);
+            assertEquals(exps.size(), completed.size());
+            for (EvaluationResult result : completed) {
+                assertSame(exps.get(result.getIndex()), result.getExpression());
+                assertEquals(results.get(result.getIndex()).getResult(), result.getResult());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testEvaluateAllWithErrors() throws Exception {
+        // a reducer which fails with an error instead of an exception for one of the expressions
+        HaskellInterpreter failing = new HaskellInterpreter(() -> new WHNOReducer() {
+            @Override
+            public ASTTerm reduceToWHNF(ASTTerm term, boolean verbose) {
+                if (term.equals(new ASTConstant(13))) {
+                    throw new LinkageError("Expected error");
+                }
+                return super.reduceToWHNF(term, verbose);
+            }
+        });
+        List<ASTExpression> exps = Arrays.asList(new ASTInteger(12), new ASTInteger(13), new ASTInteger(14));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<EvaluationResult> results = failing.evaluateAll(exps, executor);
+            assertEquals(Optional.of(new ASTConstant(12)), results.get(0).getResult());
+            assertTrue(results.get(1).getError().orElse(null) instanceof LinkageError);
+            assertEquals(Optional.of(new ASTConstant(14)), results.get(2).getResult());
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        // the expressions which the executor rejects get the rejection as result
+        List<EvaluationResult> rejected = failing.evaluateAll(exps, command -> {
+            throw new RejectedExecutionException();
+        });
+        for (EvaluationResult result : rejected) {
+            assertTrue(result.getError().orElse(null) instanceof RejectedExecutionException);
+        }
+    }
+}
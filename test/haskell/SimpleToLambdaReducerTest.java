@@ -64,6 +64,19 @@ public class SimpleToLambdaReducerTest {
         assertEquals(fixFact5, result);
     }
 
+    @Test
+    public void testNonRecursiveLet() {
+        // let y = 5 * 2 in y - 1 does not need a fixpoint
+        ASTVariable y = new ASTVariable("y");
+        ASTExpression value = new ASTApplication(new ASTApplication(times, new ASTInteger(5)), new ASTInteger(2));
+        ASTExpression program = new ASTLet(Collections.singletonList(new ASTPatDecl(y, value)),
+                new ASTApplication(new ASTApplication(minus, y), new ASTInteger(1)));
+
+        lambda.ast.ASTTerm result = program.accept(simpleToLambdaReducer);
+        assertFalse(result.toString().contains("FIX"));
+        assertEquals(new lambda.ast.ASTConstant(9), reducer.reduceToWHNF(result));
+    }
+
     @Test
     public void testIsaTuple() {
         // isa_3-tuple (5, \\x -> x, 'c')
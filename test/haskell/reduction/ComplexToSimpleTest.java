@@ -2,6 +2,7 @@ package haskell.reduction;
 
 import haskell.HaskellInterpreter;
 import haskell.ast.ASTExpression;
+import haskell.ast.ASTLet;
 import haskell.ast.ASTProgram;
 import haskell.parser.ASTGenerator;
 import lambda.ast.ASTConstant;
@@ -54,4 +55,40 @@ public class ComplexToSimpleTest {
             fail(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParallelDecls() {
+        // enough declarations for the parallel reduction, with variables that look like fresh ones
+        String programCode = "f0 x0 = (plus x0 1)\n" +
+                "f1 (x0, x1) = (plus x0 x1)\n" +
+                "f2 x0 = (f1 (x0, (f0 x0)))\n" +
+                "f3 0 = 1\n" +
+                "f3 x0 = (mult x0 (f3 (minus x0 1)))\n" +
+                "f4 x0 = (case x0 of { 0 -> 1; x1 -> (f4 (minus x1 1)) })\n" +
+                "f5 x0 = (let { (x1, x2) = (x0, x0) } in (plus x1 x2))\n" +
+                "f6 x0 = (f5 (f4 (f3 x0)))\n" +
+                "f7 x0 = (f6 (f2 x0))\n";
+        Optional<ASTProgram> program = generator.parseProgram(new ANTLRInputStream(programCode));
+        assertTrue(program.isPresent());
+        assertTrue(program.get().getDecls().size() >= ComplexToSimpleReducer.PARALLEL_THRESHOLD);
+
+        Optional<ASTExpression> exp = generator.parseExpression(new ANTLRInputStream("(f7 1)"));
+        assertTrue(exp.isPresent());
+
+        // the fresh variables do not depend on the scheduling of the parallel reduction
+        ComplexHaskellCopier copier = new ComplexHaskellCopier();
+        ComplexToSimpleReducer reducer = new ComplexToSimpleReducer();
+        ASTExpression let = new ASTLet(program.get().getDecls(), exp.get());
+        assertEquals(reducer.reduceToSimple(copier.copy(let)).toString(),
+                reducer.reduceToSimple(copier.copy(let)).toString());
+
+        HaskellInterpreter interpreter = new HaskellInterpreter();
+        try {
+            interpreter.addProgram(program.get());
+            assertEquals(new ASTConstant(2), interpreter.evaluate(exp.get()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+    }
+}
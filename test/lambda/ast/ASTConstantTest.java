@@ -0,0 +1,55 @@
+package lambda.ast;
+
+import lambda.reduction.delta.ArithmeticReduction;
+import lambda.reduction.delta.PredefinedFunction;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the unboxed constants.
+ */
+public class ASTConstantTest {
+    @Test
+    public void testUnboxedEquality() {
+        // unboxed and boxed constants with the same value are equal and have the same hash code
+        assertEquals(new ASTConstant(5), ASTConstant.of(5));
+        assertEquals(ASTConstant.of(5), new ASTConstant(5));
+        assertEquals(new ASTConstant(5).hashCode(), ASTConstant.of(5).hashCode());
+        assertEquals(new ASTConstant(2.5f), ASTConstant.of(2.5f));
+        assertEquals(new ASTConstant('c'), ASTConstant.of('c'));
+        assertEquals(new ASTConstant(true), ASTConstant.of(true));
+        assertNotEquals(ASTConstant.of(true), ASTConstant.of(false));
+        assertNotEquals(ASTConstant.of(1), ASTConstant.of(1.0f));
+
+        // structurally equal terms may contain both kinds of constants
+        ASTTerm boxed = new ASTApplication(new ASTConstant(PredefinedFunction.NOT), new ASTConstant(false));
+        ASTTerm unboxed = new ASTApplication(new ASTConstant(PredefinedFunction.NOT), ASTConstant.of(false));
+        assertEquals(boxed, unboxed);
+        assertEquals("'c'", ASTConstant.of('c').toString());
+    }
+
+    @Test
+    public void testCache() {
+        assertSame(ASTConstant.of(42), ASTConstant.of(42));
+        assertSame(ASTConstant.of('a'), ASTConstant.of('a'));
+        assertSame(ASTBoolConstant.TRUE, ASTConstant.of(true));
+        assertSame(ASTConstant.of(7), ASTConstant.of((Object) 7));
+        assertEquals(100000, ASTConstant.of(100000).intValue());
+    }
+
+    @Test
+    public void testArithmetic() {
+        // the arithmetic rules accept boxed constants, but return unboxed ones
+        ArithmeticReduction rule = new ArithmeticReduction();
+        ASTTerm sum = rule.getRHS(new ASTConstant(PredefinedFunction.PLUS),
+                Arrays.asList(new ASTConstant(40), ASTConstant.of(2))).get();
+        assertSame(ASTConstant.of(42), sum);
+
+        ASTTerm less = rule.getRHS(new ASTConstant(PredefinedFunction.LESSF),
+                Arrays.asList(ASTConstant.of(1.5f), ASTConstant.of(2.5f))).get();
+        assertSame(ASTBoolConstant.TRUE, less);
+    }
+}
@@ -0,0 +1,56 @@
+package lambda.ast;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the unwinding of application spines.
+ */
+public class SpineTest {
+    private static ASTVariable a, b;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        a = new ASTVariable("a");
+        b = new ASTVariable("b");
+    }
+
+    @Test
+    public void testUnwind() {
+        // (((a 1) (b a)) 2) results in a and {1, (b a), 2}
+        ASTTerm ba = new ASTApplication(b, a);
+        ASTTerm term = new ASTApplication(new ASTApplication(new ASTApplication(a, new ASTConstant(1)), ba), new ASTConstant(2));
+        Spine spine = new Spine().unwind(term);
+
+        assertEquals(a, spine.getHead());
+        assertEquals(3, spine.size());
+        assertEquals(Arrays.asList(new ASTConstant(1), ba, new ASTConstant(2)), spine.getArguments());
+        assertEquals(term.getLMOMArguments(), spine.getArguments());
+    }
+
+    @Test
+    public void testReuse() {
+        // the buffer grows for long spines and is reused for shorter ones
+        Spine spine = new Spine();
+        ASTTerm term = a;
+        for (int i = 0; i < 20; i++) {
+            term = new ASTApplication(term, new ASTConstant(i));
+        }
+        spine.unwind(term);
+        assertEquals(20, spine.size());
+        assertEquals(new ASTConstant(19), spine.getArgument(19));
+
+        spine.unwind(new ASTApplication(b, a));
+        assertEquals(b, spine.getHead());
+        assertEquals(1, spine.size());
+        assertEquals(a, spine.getArgument(0));
+
+        spine.unwind(a);
+        assertEquals(a, spine.getHead());
+        assertTrue(spine.getArguments().isEmpty());
+    }
+}
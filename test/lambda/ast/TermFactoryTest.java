@@ -0,0 +1,83 @@
+package lambda.ast;
+
+import lambda.reduction.delta.PredefinedFunction;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the hash-consing of lambda terms.
+ */
+public class TermFactoryTest {
+    private static TermFactory factory;
+    private static ASTVariable x;
+    private static ASTConstant plus;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        factory = new TermFactory();
+        x = new ASTVariable("x");
+        plus = new ASTConstant(PredefinedFunction.PLUS);
+    }
+
+    @Test
+    public void testSharing() {
+        // \x.plus x 1 is created twice but only stored once
+        ASTTerm first = factory.abstraction(x, factory.application(factory.application(plus, x), factory.constant(1)));
+        ASTTerm second = factory.abstraction(factory.variable("x"),
+                factory.application(factory.application(plus, x), new ASTConstant(1)));
+
+        assertSame(first, second);
+        assertSame(((ASTAbstraction) first).getInput(), ((ASTAbstraction) second).getInput());
+    }
+
+    @Test
+    public void testIntern() {
+        // interning returns the same object for structurally equal terms, but keeps the structural equality
+        ASTTerm term = new ASTApplication(new ASTApplication(plus, x), x);
+        ASTTerm interned = factory.intern(term);
+        ASTTerm other = factory.intern(new ASTApplication(new ASTApplication(plus, x), x));
+
+        assertEquals(term, interned);
+        assertSame(interned, other);
+        assertSame(((ASTApplication) interned).getRight(), ((ASTApplication) ((ASTApplication) interned).getLeft()).getRight());
+    }
+
+    @Test
+    public void testDifferentTerms() {
+        ASTTerm plusX = factory.application(plus, x);
+        ASTTerm plusY = factory.application(plus, factory.variable("y"));
+
+        assertNotSame(plusX, plusY);
+        assertNotEquals(plusX, plusY);
+    }
+
+    @Test
+    public void testAccumulatorHashes() {
+        // the arguments of count n acc with the same sum must not collide
+        Set<Integer> hashes = new HashSet<>();
+        ASTVariable count = new ASTVariable("count");
+        for (int n = 0; n < 1000; n++) {
+            hashes.add(new ASTApplication(new ASTApplication(count, new ASTConstant(n)), new ASTConstant(1000 - n))
+                    .hashCode());
+        }
+        assertEquals(1000, hashes.size());
+    }
+
+    @Test
+    public void testClear() {
+        // terms of an older generation are still compared structurally with the new ones
+        TermFactory factory = new TermFactory();
+        ASTTerm before = factory.application(plus, x);
+        factory.clear();
+        ASTTerm after = factory.application(plus, x);
+
+        assertNotSame(before, after);
+        assertEquals(before, after);
+        assertNotEquals(after, factory.application(plus, factory.variable("y")));
+    }
+}
@@ -0,0 +1,75 @@
+package lambda.debruijn;
+
+import lambda.ast.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the De Bruijn representation and its conversion from and to named terms.
+ */
+public class DeBruijnConverterTest {
+    private static ASTVariable x, y;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        x = new ASTVariable("x");
+        y = new ASTVariable("y");
+    }
+
+    @Test
+    public void testConversion() {
+        // \x.\y.(x y z) => \.\.((#1 #0) z)
+        ASTTerm lambda = new ASTAbstraction(x, new ASTAbstraction(y,
+                new ASTApplication(new ASTApplication(x, y), new ASTVariable("z"))));
+        DBTerm dbTerm = DeBruijnConverter.toDeBruijn(lambda);
+        System.out.println(lambda + " = " + dbTerm);
+
+        DBTerm expected = new DBAbstraction("x", new DBAbstraction("y",
+                new DBApplication(new DBApplication(new DBIndex(1), new DBIndex(0)), new DBFreeVariable("z"))));
+        assertEquals(expected, dbTerm);
+        assertFalse(dbTerm.isClosed());
+        assertEquals(lambda, DeBruijnConverter.toNamed(dbTerm));
+    }
+
+    @Test
+    public void testAlphaEquivalence() {
+        // \x.x and \y.y are the same term in De Bruijn notation
+        DBTerm idX = DeBruijnConverter.toDeBruijn(new ASTAbstraction(x, x));
+        DBTerm idY = DeBruijnConverter.toDeBruijn(new ASTAbstraction(y, y));
+        assertEquals(idX, idY);
+        assertTrue(idX.isClosed());
+    }
+
+    @Test
+    public void testCaptureAvoidingPrinting() {
+        // (\x.\y.x) y => \y0.y, the bound y must not capture the free y
+        DBTerm body = DeBruijnConverter.toDeBruijn(new ASTAbstraction(x, new ASTAbstraction(y, x)));
+        DBTerm result = ((DBAbstraction) body).getBody().instantiate(0, new DBFreeVariable("y"));
+
+        ASTVariable y0 = new ASTVariable("y0");
+        assertEquals(new ASTAbstraction(y0, y), DeBruijnConverter.toNamed(result));
+    }
+
+    @Test
+    public void testDeepTerm() {
+        // \x.f (f (... (f x))) is far deeper than the java stack could handle
+        ASTVariable f = new ASTVariable("f");
+        ASTTerm body = x;
+        DBTerm expectedBody = new DBConstant(new ASTConstant(1));
+        for (int i = 0; i < 100000; i++) {
+            body = new ASTApplication(f, body);
+            expectedBody = new DBApplication(new DBFreeVariable("f"), expectedBody);
+        }
+        ASTTerm lambda = new ASTAbstraction(x, body);
+        DBTerm dbTerm = DeBruijnConverter.toDeBruijn(lambda);
+        assertEquals(lambda, DeBruijnConverter.toNamed(dbTerm));
+
+        // instantiating x with 1 reaches the index at the bottom
+        DBTerm result = ((DBAbstraction) dbTerm).getBody().instantiate(0, new DBConstant(new ASTConstant(1)));
+        assertEquals(expectedBody, result);
+        assertEquals(expectedBody.toString(), result.toString());
+        assertEquals(result, result.shift(1, 0));
+    }
+}
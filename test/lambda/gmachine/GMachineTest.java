@@ -0,0 +1,153 @@
+package lambda.gmachine;
+
+import lambda.ast.*;
+import lambda.debruijn.DeBruijnConverter;
+import lambda.reduction.WHNOReducerTest;
+import lambda.reduction.delta.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the G-machine and its compiler.
+ */
+public class GMachineTest {
+    private static GMachine machine;
+    private static ASTVariable x, y;
+    private static ASTConstant plus;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        machine = new GMachine();
+        x = new ASTVariable("x");
+        y = new ASTVariable("y");
+        plus = new ASTConstant(PredefinedFunction.PLUS);
+    }
+
+    @Test
+    public void testClosure() {
+        // (\x.\y.plus x y) (plus 1 2) => \y.plus 3 y, the arguments of the supercombinator are substituted
+        ASTTerm plusXY = new ASTApplication(new ASTApplication(plus, x), y);
+        ASTTerm onePlusTwo = new ASTApplication(new ASTApplication(plus, new ASTConstant(1)), new ASTConstant(2));
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, new ASTAbstraction(y, plusXY)), onePlusTwo);
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTAbstraction(y, new ASTApplication(new ASTApplication(plus, onePlusTwo), y)), result);
+    }
+
+    @Test
+    public void testCompile() {
+        // the inner abstraction of \x.\y.plus x y is lifted to a supercombinator
+        ASTTerm plusXY = new ASTApplication(new ASTApplication(plus, x), y);
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, new ASTAbstraction(y, plusXY)), new ASTConstant(1));
+        GProgram program = new GCompiler().compile(DeBruijnConverter.toDeBruijn(lambda));
+        System.out.println(program);
+
+        assertEquals(0, program.getGlobals()[program.getMain()].getArity());
+        assertEquals(2, program.getGlobals().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenTerm() {
+        // free variables can not be compiled
+        new GCompiler().compile(DeBruijnConverter.toDeBruijn(new ASTApplication(x, new ASTConstant(4))));
+    }
+
+    @Test
+    public void testRecursion() {
+        // fact 5 = 120
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getFactFunction(), new ASTConstant(5));
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+        assertEquals(new ASTConstant(120), result);
+    }
+
+    @Test
+    public void testLongReduction() {
+        // count n = if n <= 0 then 0 else count (n-1), which needs far more steps than the java stack could handle
+        ASTVariable count = new ASTVariable("count");
+        ASTTerm decrementX = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.MINUS), x), new ASTConstant(1));
+        ASTTerm cond = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.LESSEQ), x), new ASTConstant(0));
+        ASTTerm branch = new ASTApplication(new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.IF), cond),
+                new ASTConstant(0)), new ASTApplication(count, decrementX));
+        ASTTerm countFunction = new ASTApplication(new ASTConstant(PredefinedFunction.FIX),
+                new ASTAbstraction(count, new ASTAbstraction(x, branch)));
+
+        ASTTerm lambda = new ASTApplication(countFunction, new ASTConstant(100000));
+        ASTTerm result = machine.reduceToWHNF(lambda);
+        assertEquals(new ASTConstant(0), result);
+    }
+
+    @Test
+    public void testDeepResult() {
+        // genList 100000 => Cons 100000 (... (Cons 1 Nil)), which is far deeper than the java stack could handle
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getGenListFunction(), new ASTConstant(100000));
+        ASTTerm result = machine.reduceToWHNF(lambda);
+        assertEquals(WHNOReducerTest.getList(100000), result);
+    }
+
+    @Test
+    public void testCyclicResult() {
+        // fix (\x.Cons 1 ((\y.y) x)) => Cons 1 (fix (\x.Cons 1 ((\y.y) x))), the cycle is printed as its fix knot
+        ASTConstant Cons = new ASTConstant(ConstructorReduction.getConstructor("Cons"));
+        ASTConstant fix = new ASTConstant(PredefinedFunction.FIX);
+        ASTTerm id = new ASTAbstraction(y, y);
+        ASTTerm ones = new ASTApplication(new ASTApplication(Cons, new ASTConstant(1)), new ASTApplication(id, x));
+        ASTTerm lambda = new ASTApplication(fix, new ASTAbstraction(x, ones));
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTApplication(new ASTApplication(Cons, new ASTConstant(1)), lambda), result);
+    }
+
+    @Test
+    public void testWeakHeadNormalOrder() {
+        // (\x.42) (\x.xx) (\x.xx) => 42
+        ASTTerm xXX = new ASTAbstraction(x, new ASTApplication(x, x));
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, new ASTConstant(42)), new ASTApplication(xXX, xXX));
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTConstant(42), result);
+    }
+
+    @Test
+    public void testNegativeIsa() {
+        ASTTerm lambda = new ASTApplication(
+                new ASTConstant(ConstructorReduction.getIsaOperator(5)),
+                new ASTConstant(6));
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTConstant(false), result);
+    }
+
+    @Test
+    public void testArgof() {
+        ConstructorReduction.Constructor Nil = ConstructorReduction.getConstructor("Nil");
+        ConstructorReduction.Constructor Cons = ConstructorReduction.getConstructor("Cons");
+
+        // argof_Cons (Cons (plus 40 2) Nil) => (42, Nil)
+        ASTTerm fortyTwo = new ASTApplication(new ASTApplication(plus, new ASTConstant(40)), new ASTConstant(2));
+        ASTTerm list1 = new ASTApplication(new ASTApplication(new ASTConstant(Cons), fortyTwo), new ASTConstant(Nil));
+        ASTTerm lambda = new ASTApplication(new ASTConstant(ConstructorReduction.getArgOfOperator(Cons)), list1);
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        ASTTerm tupleResult = new ASTApplication(
+                new ASTApplication(new ASTConstant(TupleReduction.getTupleConstructor(2)), new ASTConstant(42)),
+                new ASTConstant(Nil)
+        );
+        assertEquals(tupleResult, result);
+    }
+
+    @Test
+    public void testSel() {
+        ConstructorReduction.Constructor Nil = ConstructorReduction.getConstructor("Nil");
+
+        ASTTerm tuple = new ASTApplication(
+                new ASTApplication(new ASTConstant(TupleReduction.getTupleConstructor(2)), new ASTConstant(42)),
+                new ASTConstant(Nil)
+        );
+        ASTTerm lambda = new ASTApplication(new ASTConstant(TupleReduction.getSelOperator(2, 1)), tuple);
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTConstant(42), result);
+    }
+}
@@ -0,0 +1,126 @@
+package lambda.graph;
+
+import lambda.ast.*;
+import lambda.reduction.WHNOReducerTest;
+import lambda.reduction.delta.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the graph reducer.
+ */
+public class GraphReducerTest {
+    private static GraphReducer reducer;
+    private static ASTVariable x, y;
+    private static ASTConstant plus;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        reducer = new GraphReducer();
+        x = new ASTVariable("x");
+        y = new ASTVariable("y");
+        plus = new ASTConstant(PredefinedFunction.PLUS);
+    }
+
+    @Test
+    public void testVariableReplacement() {
+        // (\xy.xy) y 4 => y 4
+        ASTTerm b = new ASTAbstraction(y, new ASTApplication(x, y));
+        ASTTerm a = new ASTAbstraction(x, b);
+        ASTTerm lambda = new ASTApplication(new ASTApplication(a, y), new ASTConstant(4));
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTApplication(y, new ASTConstant(4)), result);
+    }
+
+    @Test
+    public void testSharing() {
+        // (\x.plus x x) (plus 1 2) => 6, but plus 1 2 is only reduced once
+        ASTTerm plusXX = new ASTApplication(new ASTApplication(plus, x), x);
+        ASTTerm onePlusTwo = new ASTApplication(new ASTApplication(plus, new ASTConstant(1)), new ASTConstant(2));
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, plusXX), onePlusTwo);
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTConstant(6), result);
+        // one beta reduction and two additions
+        assertEquals(3, reducer.getNumberOfSteps());
+    }
+
+    @Test
+    public void testTypeSafeIntFloat() {
+        // (plus int float) => not reducible
+        ASTTerm lambda = new ASTApplication(new ASTApplication(plus, new ASTConstant(3.0f)), new ASTConstant(-5.0f));
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+        assertEquals(lambda, result);
+    }
+
+    @Test
+    public void testRecursion() {
+        // fact 5 = 120
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getFactFunction(), new ASTConstant(5));
+        ASTTerm result = reducer.reduceToWHNF(lambda);
+        assertEquals(new ASTConstant(120), result);
+    }
+
+    @Test
+    public void testDeepResult() {
+        // genList 100000 => Cons 100000 (... (Cons 1 Nil)), which is far deeper than the java stack could handle
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getGenListFunction(), new ASTConstant(100000));
+        ASTTerm result = reducer.reduceToWHNF(lambda);
+        assertEquals(WHNOReducerTest.getList(100000), result);
+    }
+
+    @Test
+    public void testUnreducedFix() {
+        // (\x.\y.x) (fix (\x.x)) => \y.fix (\x.x), the cyclic graph is printed as fix again
+        ASTTerm fixId = new ASTApplication(new ASTConstant(PredefinedFunction.FIX), new ASTAbstraction(x, x));
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, new ASTAbstraction(y, x)), fixId);
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTAbstraction(y, fixId), result);
+    }
+
+    @Test
+    public void testWeakHeadNormalOrder() {
+        // (\x.y) (\x.xx) (\x.xx) => y
+        ASTTerm xXX = new ASTAbstraction(x, new ASTApplication(x, x));
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, y), new ASTApplication(xXX, xXX));
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        assertEquals(y, result);
+    }
+
+    @Test
+    public void testArgof() {
+        ConstructorReduction.Constructor Nil = ConstructorReduction.getConstructor("Nil");
+        ConstructorReduction.Constructor Cons = ConstructorReduction.getConstructor("Cons");
+
+        // argof_Cons (Cons (plus 40 2) Nil) => (42, Nil), the arguments of the result are reduced as well
+        ASTTerm fortyTwo = new ASTApplication(new ASTApplication(plus, new ASTConstant(40)), new ASTConstant(2));
+        ASTTerm list1 = new ASTApplication(new ASTApplication(new ASTConstant(Cons), fortyTwo), new ASTConstant(Nil));
+        ASTTerm lambda = new ASTApplication(new ASTConstant(ConstructorReduction.getArgOfOperator(Cons)), list1);
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        ASTTerm tupleResult = new ASTApplication(
+                new ASTApplication(new ASTConstant(TupleReduction.getTupleConstructor(2)), new ASTConstant(42)),
+                new ASTConstant(Nil)
+        );
+        assertEquals(tupleResult, result);
+    }
+
+    @Test
+    public void testSel() {
+        ConstructorReduction.Constructor Nil = ConstructorReduction.getConstructor("Nil");
+
+        ASTTerm tuple = new ASTApplication(
+                new ASTApplication(new ASTConstant(TupleReduction.getTupleConstructor(2)), new ASTConstant(42)),
+                new ASTConstant(Nil)
+        );
+        ASTTerm lambda = new ASTApplication(new ASTConstant(TupleReduction.getSelOperator(2, 1)), tuple);
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTConstant(42), result);
+    }
+}
@@ -0,0 +1,148 @@
+package lambda.jvm;
+
+import lambda.ast.*;
+import lambda.debruijn.DeBruijnConverter;
+import lambda.reduction.WHNOReducerTest;
+import lambda.reduction.delta.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the compilation of lambda terms to JVM classes.
+ */
+public class JvmReducerTest {
+    private static JvmReducer reducer;
+    private static ASTVariable x, y;
+    private static ASTConstant plus;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        reducer = new JvmReducer();
+        x = new ASTVariable("x");
+        y = new ASTVariable("y");
+        plus = new ASTConstant(PredefinedFunction.PLUS);
+    }
+
+    @Test
+    public void testClosure() {
+        // (\x.\y.plus x y) (plus 1 2) => \y.plus (plus 1 2) y, the captured thunk is read back as its term
+        ASTTerm plusXY = new ASTApplication(new ASTApplication(plus, x), y);
+        ASTTerm onePlusTwo = new ASTApplication(new ASTApplication(plus, new ASTConstant(1)), new ASTConstant(2));
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, new ASTAbstraction(y, plusXY)), onePlusTwo);
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTAbstraction(y, new ASTApplication(new ASTApplication(plus, onePlusTwo), y)), result);
+    }
+
+    @Test
+    public void testCompile() {
+        // the generated class contains the main block and the lifted abstraction
+        ASTTerm plusXY = new ASTApplication(new ASTApplication(plus, x), y);
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, new ASTAbstraction(y, plusXY)), new ASTConstant(1));
+        JvmProgram program = new JvmCompiler().compile(DeBruijnConverter.toDeBruijn(lambda));
+        byte[] classFile = program.getClassFile();
+
+        assertEquals(2, program.getNumberOfBlocks());
+        assertEquals(0xCA, classFile[0] & 0xFF);
+        assertEquals(0xFE, classFile[1] & 0xFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenTerm() {
+        // free variables can not be compiled
+        new JvmCompiler().compile(DeBruijnConverter.toDeBruijn(new ASTApplication(x, new ASTConstant(4))));
+    }
+
+    @Test
+    public void testRecursion() {
+        // fact 5 = 120
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getFactFunction(), new ASTConstant(5));
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+        assertEquals(new ASTConstant(120), result);
+    }
+
+    @Test
+    public void testLongReduction() {
+        // count n = if n <= 0 then 0 else count (n-1), the evaluation thread has a large enough stack
+        ASTVariable count = new ASTVariable("count");
+        ASTTerm decrementX = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.MINUS), x), new ASTConstant(1));
+        ASTTerm cond = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.LESSEQ), x), new ASTConstant(0));
+        ASTTerm branch = new ASTApplication(new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.IF), cond),
+                new ASTConstant(0)), new ASTApplication(count, decrementX));
+        ASTTerm countFunction = new ASTApplication(new ASTConstant(PredefinedFunction.FIX),
+                new ASTAbstraction(count, new ASTAbstraction(x, branch)));
+
+        ASTTerm lambda = new ASTApplication(countFunction, new ASTConstant(100000));
+        ASTTerm result = reducer.reduceToWHNF(lambda);
+        assertEquals(new ASTConstant(0), result);
+    }
+
+    @Test
+    public void testTailCallLoop() {
+        // count n acc = if n <= 0 then acc else count (n-1) (acc+1) runs as a loop, so a small stack is enough
+        ASTVariable count = new ASTVariable("count");
+        ASTTerm decrementX = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.MINUS), x), new ASTConstant(1));
+        ASTTerm incrementY = new ASTApplication(new ASTApplication(plus, y), new ASTConstant(1));
+        ASTTerm cond = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.LESSEQ), x), new ASTConstant(0));
+        ASTTerm branch = new ASTApplication(new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.IF), cond),
+                y), new ASTApplication(new ASTApplication(count, decrementX), incrementY));
+        ASTTerm countFunction = new ASTApplication(new ASTConstant(PredefinedFunction.FIX),
+                new ASTAbstraction(count, new ASTAbstraction(x, new ASTAbstraction(y, branch))));
+
+        ASTTerm lambda = new ASTApplication(new ASTApplication(countFunction, new ASTConstant(1000000)), new ASTConstant(0));
+        ASTTerm result = new JvmReducer(1 << 18).reduceToWHNF(lambda);
+        assertEquals(new ASTConstant(1000000), result);
+    }
+
+    @Test
+    public void testDeepResult() {
+        // genList 100000 => Cons 100000 (... (Cons 1 Nil)), the list is built lazily, so a small stack is enough
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getGenListFunction(), new ASTConstant(100000));
+        ASTTerm result = new JvmReducer(1 << 18).reduceToWHNF(lambda);
+        assertEquals(WHNOReducerTest.getList(100000), result);
+    }
+
+    @Test
+    public void testKeptPrograms() {
+        // the program of a term is kept, so evaluating the term again does not compile it again
+        JvmReducer jvmReducer = new JvmReducer();
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getFactFunction(), new ASTConstant(5));
+        assertEquals(new ASTConstant(120), jvmReducer.reduceToWHNF(lambda));
+        assertEquals(new ASTConstant(120), jvmReducer.reduceToWHNF(lambda));
+        assertEquals(1, jvmReducer.getNumberOfCompilations());
+
+        jvmReducer.reset();
+        assertEquals(new ASTConstant(120), jvmReducer.reduceToWHNF(lambda));
+        assertEquals(2, jvmReducer.getNumberOfCompilations());
+    }
+
+    @Test
+    public void testWeakHeadNormalOrder() {
+        // (\x.42) (\x.xx) (\x.xx) => 42
+        ASTTerm xXX = new ASTAbstraction(x, new ASTApplication(x, x));
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, new ASTConstant(42)), new ASTApplication(xXX, xXX));
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTConstant(42), result);
+    }
+
+    @Test
+    public void testArgof() {
+        ConstructorReduction.Constructor Nil = ConstructorReduction.getConstructor("Nil");
+        ConstructorReduction.Constructor Cons = ConstructorReduction.getConstructor("Cons");
+
+        // argof_Cons (Cons (plus 40 2) Nil) => (42, Nil), the arguments of the tuple are evaluated
+        ASTTerm fortyTwo = new ASTApplication(new ASTApplication(plus, new ASTConstant(40)), new ASTConstant(2));
+        ASTTerm list1 = new ASTApplication(new ASTApplication(new ASTConstant(Cons), fortyTwo), new ASTConstant(Nil));
+        ASTTerm lambda = new ASTApplication(new ASTConstant(ConstructorReduction.getArgOfOperator(Cons)), list1);
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        ASTTerm tupleResult = new ASTApplication(
+                new ASTApplication(new ASTConstant(TupleReduction.getTupleConstructor(2)), new ASTConstant(42)),
+                new ASTConstant(Nil)
+        );
+        assertEquals(tupleResult, result);
+    }
+}
@@ -0,0 +1,47 @@
+package lambda.jvm;
+
+import lambda.ast.*;
+import lambda.reduction.WHNOReducerTest;
+import lambda.reduction.delta.PredefinedFunction;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the switch from the WHNO reducer to compiled code.
+ */
+public class TieredReducerTest {
+    @Test
+    public void testShortEvaluation() {
+        // fact 5 does not enter fact often enough to be compiled
+        TieredReducer reducer = new TieredReducer(100);
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getFactFunction(), new ASTConstant(5));
+        ASTTerm result = reducer.reduceToWHNF(lambda);
+
+        assertEquals(new ASTConstant(120), result);
+        assertEquals(0, reducer.getNumberOfCompilations());
+    }
+
+    @Test
+    public void testHotBinding() {
+        // count n = if n <= 0 then 0 else count (n-1) becomes hot and is finished by compiled code
+        ASTVariable count = new ASTVariable("count");
+        ASTVariable x = new ASTVariable("x");
+        ASTTerm decrementX = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.MINUS), x), new ASTConstant(1));
+        ASTTerm cond = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.LESSEQ), x), new ASTConstant(0));
+        ASTTerm branch = new ASTApplication(new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.IF), cond),
+                new ASTConstant(0)), new ASTApplication(count, decrementX));
+        ASTTerm countFunction = new ASTApplication(new ASTConstant(PredefinedFunction.FIX),
+                new ASTAbstraction(count, new ASTAbstraction(x, branch)));
+
+        TieredReducer reducer = new TieredReducer(100);
+        ASTTerm result = reducer.reduceToWHNF(new ASTApplication(countFunction, new ASTConstant(10000)), true);
+        assertEquals(new ASTConstant(0), result);
+        assertEquals(1, reducer.getNumberOfCompilations());
+
+        // the binding is still hot, so the next evaluation is compiled right away
+        result = reducer.reduceToWHNF(new ASTApplication(countFunction, new ASTConstant(50)));
+        assertEquals(new ASTConstant(0), result);
+        assertEquals(2, reducer.getNumberOfCompilations());
+    }
+}
@@ -0,0 +1,147 @@
+package lambda.machine;
+
+import lambda.ast.*;
+import lambda.reduction.WHNOReducerTest;
+import lambda.reduction.delta.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the Krivine machine.
+ */
+public class KrivineMachineTest {
+    private static KrivineMachine machine;
+    private static ASTVariable x, y;
+    private static ASTConstant plus;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        machine = new KrivineMachine();
+        x = new ASTVariable("x");
+        y = new ASTVariable("y");
+        plus = new ASTConstant(PredefinedFunction.PLUS);
+    }
+
+    @Test
+    public void testVariableReplacement() {
+        // (\xy.xy) y 4 => y 4
+        ASTTerm b = new ASTAbstraction(y, new ASTApplication(x, y));
+        ASTTerm a = new ASTAbstraction(x, b);
+        ASTTerm lambda = new ASTApplication(new ASTApplication(a, y), new ASTConstant(4));
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTApplication(y, new ASTConstant(4)), result);
+    }
+
+    @Test
+    public void testClosure() {
+        // (\x.\y.plus x y) (plus 1 2) => \y.plus 3 y, the environment is substituted when the closure is printed
+        ASTTerm plusXY = new ASTApplication(new ASTApplication(plus, x), y);
+        ASTTerm onePlusTwo = new ASTApplication(new ASTApplication(plus, new ASTConstant(1)), new ASTConstant(2));
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, new ASTAbstraction(y, plusXY)), onePlusTwo);
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTAbstraction(y, new ASTApplication(new ASTApplication(plus, onePlusTwo), y)), result);
+    }
+
+    @Test
+    public void testRecursion() {
+        // fact 5 = 120
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getFactFunction(), new ASTConstant(5));
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+        assertEquals(new ASTConstant(120), result);
+    }
+
+    @Test
+    public void testLongReduction() {
+        // count n = if n <= 0 then 0 else count (n-1), which needs far more steps than the java stack could handle
+        ASTVariable count = new ASTVariable("count");
+        ASTTerm decrementX = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.MINUS), x), new ASTConstant(1));
+        ASTTerm cond = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.LESSEQ), x), new ASTConstant(0));
+        ASTTerm branch = new ASTApplication(new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.IF), cond),
+                new ASTConstant(0)), new ASTApplication(count, decrementX));
+        ASTTerm countFunction = new ASTApplication(new ASTConstant(PredefinedFunction.FIX),
+                new ASTAbstraction(count, new ASTAbstraction(x, branch)));
+
+        ASTTerm lambda = new ASTApplication(countFunction, new ASTConstant(100000));
+        ASTTerm result = machine.reduceToWHNF(lambda);
+        assertEquals(new ASTConstant(0), result);
+    }
+
+    @Test
+    public void testDeepResult() {
+        // genList 100000 => Cons 100000 (... (Cons 1 Nil)), which is far deeper than the java stack could handle
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getGenListFunction(), new ASTConstant(100000));
+        ASTTerm result = machine.reduceToWHNF(lambda);
+        assertEquals(WHNOReducerTest.getList(100000), result);
+    }
+
+    @Test
+    public void testCyclicResult() {
+        // fix (\x.Cons 1 ((\y.y) x)) => Cons 1 (fix (\x.Cons 1 x)), the cycle through the shared argument ends
+        ASTConstant Cons = new ASTConstant(ConstructorReduction.getConstructor("Cons"));
+        ASTConstant fix = new ASTConstant(PredefinedFunction.FIX);
+        ASTTerm id = new ASTAbstraction(y, y);
+        ASTTerm ones = new ASTApplication(new ASTApplication(Cons, new ASTConstant(1)), new ASTApplication(id, x));
+        ASTTerm lambda = new ASTApplication(fix, new ASTAbstraction(x, ones));
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        ASTTerm cycle = new ASTApplication(fix, new ASTAbstraction(x,
+                new ASTApplication(new ASTApplication(Cons, new ASTConstant(1)), x)));
+        assertEquals(new ASTApplication(new ASTApplication(Cons, new ASTConstant(1)), cycle), result);
+    }
+
+    @Test
+    public void testWeakHeadNormalOrder() {
+        // (\x.y) (\x.xx) (\x.xx) => y
+        ASTTerm xXX = new ASTAbstraction(x, new ASTApplication(x, x));
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, y), new ASTApplication(xXX, xXX));
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(y, result);
+    }
+
+    @Test
+    public void testNegativeIsa() {
+        ASTTerm lambda = new ASTApplication(
+                new ASTConstant(ConstructorReduction.getIsaOperator(5)),
+                new ASTConstant(6));
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTConstant(false), result);
+    }
+
+    @Test
+    public void testArgof() {
+        ConstructorReduction.Constructor Nil = ConstructorReduction.getConstructor("Nil");
+        ConstructorReduction.Constructor Cons = ConstructorReduction.getConstructor("Cons");
+
+        // argof_Cons (Cons (plus 40 2) Nil) => (42, Nil)
+        ASTTerm fortyTwo = new ASTApplication(new ASTApplication(plus, new ASTConstant(40)), new ASTConstant(2));
+        ASTTerm list1 = new ASTApplication(new ASTApplication(new ASTConstant(Cons), fortyTwo), new ASTConstant(Nil));
+        ASTTerm lambda = new ASTApplication(new ASTConstant(ConstructorReduction.getArgOfOperator(Cons)), list1);
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        ASTTerm tupleResult = new ASTApplication(
+                new ASTApplication(new ASTConstant(TupleReduction.getTupleConstructor(2)), new ASTConstant(42)),
+                new ASTConstant(Nil)
+        );
+        assertEquals(tupleResult, result);
+    }
+
+    @Test
+    public void testSel() {
+        ConstructorReduction.Constructor Nil = ConstructorReduction.getConstructor("Nil");
+
+        ASTTerm tuple = new ASTApplication(
+                new ASTApplication(new ASTConstant(TupleReduction.getTupleConstructor(2)), new ASTConstant(42)),
+                new ASTConstant(Nil)
+        );
+        ASTTerm lambda = new ASTApplication(new ASTConstant(TupleReduction.getSelOperator(2, 1)), tuple);
+        ASTTerm result = machine.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTConstant(42), result);
+    }
+}
@@ -0,0 +1,108 @@
+package lambda.optimizer;
+
+import lambda.ast.*;
+import lambda.reduction.WHNOReducer;
+import lambda.reduction.WHNOReducerTest;
+import lambda.reduction.delta.ConstructorReduction;
+import lambda.reduction.delta.PredefinedFunction;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the optimization of lambda terms before their reduction.
+ */
+public class LambdaOptimizerTest {
+    private static ASTVariable x, y;
+    private static ASTConstant plus, div;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        x = new ASTVariable("x");
+        y = new ASTVariable("y");
+        plus = new ASTConstant(PredefinedFunction.PLUS);
+        div = new ASTConstant(PredefinedFunction.DIV);
+    }
+
+    @Test
+    public void testConstantFolding() {
+        // \y. y + (1 + 2) => \y. y + 3
+        LambdaOptimizer optimizer = new LambdaOptimizer();
+        ASTTerm sum = new ASTApplication(new ASTApplication(plus, new ASTConstant(1)), new ASTConstant(2));
+        ASTTerm lambda = new ASTAbstraction(y, new ASTApplication(new ASTApplication(plus, y), sum));
+        ASTTerm result = optimizer.optimize(lambda);
+
+        assertEquals(new ASTAbstraction(y, new ASTApplication(new ASTApplication(plus, y), new ASTConstant(3))), result);
+        assertEquals(1, optimizer.getNumberOfFoldedConstants());
+
+        // a division by zero is only an error if it is evaluated
+        ASTTerm division = new ASTApplication(new ASTApplication(div, new ASTConstant(1)), new ASTConstant(0));
+        assertEquals(division, optimizer.optimize(division));
+    }
+
+    @Test
+    public void testKnownCase() {
+        // if (isa_Cons (Cons y)) then argof_Cons (Cons y) else 0 => y, although y is free
+        LambdaOptimizer optimizer = new LambdaOptimizer();
+        ConstructorReduction.Constructor cons = ConstructorReduction.getConstructor("Cons");
+        ASTTerm value = new ASTApplication(new ASTConstant(cons), y);
+        ASTTerm isa = new ASTApplication(new ASTConstant(ConstructorReduction.getIsaOperator(cons)), value);
+        ASTTerm argof = new ASTApplication(new ASTConstant(ConstructorReduction.getArgOfOperator(cons)), value);
+        ASTTerm branch = new ASTApplication(new ASTApplication(new ASTApplication(
+                new ASTConstant(PredefinedFunction.IF), isa), argof), new ASTConstant(0));
+        ASTTerm result = optimizer.optimize(new ASTAbstraction(y, branch));
+
+        assertEquals(new ASTAbstraction(y, y), result);
+        assertEquals(3, optimizer.getNumberOfKnownCases());
+    }
+
+    @Test
+    public void testLinearBeta() {
+        // (\x. plus x 1) (plus y 2) => plus (plus y 2) 1
+        LambdaOptimizer optimizer = new LambdaOptimizer();
+        ASTTerm argument = new ASTApplication(new ASTApplication(plus, y), new ASTConstant(2));
+        ASTTerm function = new ASTAbstraction(x, new ASTApplication(new ASTApplication(plus, x), new ASTConstant(1)));
+        ASTTerm result = optimizer.optimize(new ASTAbstraction(y, new ASTApplication(function, argument)));
+
+        assertEquals(new ASTAbstraction(y, new ASTApplication(new ASTApplication(plus, argument), new ASTConstant(1))), result);
+        assertEquals(1, optimizer.getNumberOfBetaReductions());
+
+        // (\x. plus x x) (plus y 2) is not reduced, because plus y 2 would be evaluated twice
+        ASTTerm twice = new ASTAbstraction(x, new ASTApplication(new ASTApplication(plus, x), x));
+        ASTTerm shared = new ASTAbstraction(y, new ASTApplication(twice, argument));
+        assertEquals(shared, optimizer.optimize(shared));
+        assertEquals(0, optimizer.getNumberOfBetaReductions());
+    }
+
+    @Test
+    public void testEta() {
+        // \y. plus y => plus
+        LambdaOptimizer optimizer = new LambdaOptimizer();
+        ASTTerm result = optimizer.optimize(new ASTAbstraction(y, new ASTApplication(plus, y)));
+
+        assertEquals(plus, result);
+        assertEquals(1, optimizer.getNumberOfEtaReductions());
+        assertTrue(optimizer.getSizeAfter() < optimizer.getSizeBefore());
+
+        // \y. fix f y is not reduced, because fix f is not in WHNF
+        ASTTerm fix = new ASTApplication(new ASTConstant(PredefinedFunction.FIX), new ASTVariable("f"));
+        ASTTerm lambda = new ASTAbstraction(y, new ASTApplication(fix, y));
+        assertEquals(lambda, optimizer.optimize(lambda));
+
+        // \y. bot y is not reduced, because bot diverges but the abstraction does not
+        ASTTerm bot = new ASTAbstraction(y, new ASTApplication(new ASTConstant(PredefinedFunction.BOT), y));
+        assertEquals(bot, optimizer.optimize(bot));
+        ASTTerm seq = new ASTApplication(new ASTApplication(new ASTConstant(PredefinedFunction.SEQ), bot),
+                new ASTConstant(1));
+        assertEquals(new ASTConstant(1), new WHNOReducer().reduceToWHNF(optimizer.optimize(seq)));
+    }
+
+    @Test
+    public void testSameResult() {
+        // the optimized factorial function computes the same result
+        ASTTerm fact = new ASTApplication(WHNOReducerTest.getFactFunction(), new ASTConstant(6));
+        ASTTerm optimized = new LambdaOptimizer().optimize(fact);
+        assertEquals(new ASTConstant(720), new WHNOReducer().reduceToWHNF(optimized));
+    }
+}
@@ -0,0 +1,176 @@
+package lambda.reduction;
+
+import lambda.ast.*;
+import lambda.gmachine.GMachine;
+import lambda.graph.GraphReducer;
+import lambda.jvm.JvmReducer;
+import lambda.jvm.TieredReducer;
+import lambda.machine.KrivineMachine;
+import lambda.reduction.delta.PredefinedFunction;
+import lambda.reduction.delta.TupleReduction;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the budgets of evaluations by the WHNO reducer and the other reducers.
+ */
+public class EvaluationBudgetTest {
+    private static final ASTVariable f = new ASTVariable("f");
+    private static final ASTVariable n = new ASTVariable("n");
+
+    private static ASTTerm apply(ASTTerm function, ASTTerm... args) {
+        ASTTerm result = function;
+        for (ASTTerm arg : args) {
+            result = new ASTApplication(result, arg);
+        }
+        return result;
+    }
+
+    private static ASTTerm constant(PredefinedFunction function) {
+        return new ASTConstant(function);
+    }
+
+    /**
+     * Returns fix (\f.\n. f n) 0, which never terminates.
+     */
+    private static ASTTerm getLoop() {
+        return apply(constant(PredefinedFunction.FIX), new ASTAbstraction(f, new ASTAbstraction(n, apply(f, n))),
+                new ASTConstant(0));
+    }
+
+    /**
+     * Returns genList 0, where genList n = (n, genList (n + 1)) is an infinite list.
+     */
+    private static ASTTerm getInfiniteList() {
+        ASTTerm body = apply(new ASTConstant(TupleReduction.getTupleConstructor(2)), n,
+                apply(f, apply(constant(PredefinedFunction.PLUS), n, new ASTConstant(1))));
+        return apply(constant(PredefinedFunction.FIX), new ASTAbstraction(f, new ASTAbstraction(n, body)),
+                new ASTConstant(0));
+    }
+
+    @Test
+    public void testSteps() {
+        WHNOReducer reducer = new WHNOReducer();
+        reducer.setBudget(new EvaluationBudget(1000, Long.MAX_VALUE, Integer.MAX_VALUE));
+        try {
+            reducer.reduceToWHNF(getLoop());
+            fail("The loop should exceed the steps");
+        }
+        catch (BudgetExceededException e) {
+            assertEquals(BudgetExceededException.Limit.STEPS, e.getLimit());
+            assertEquals(1001, e.getSteps());
+        }
+
+        // the reducer can still be used afterwards
+        assertEquals(new ASTConstant(3), reducer.reduceToWHNF(apply(constant(PredefinedFunction.PLUS),
+                new ASTConstant(1), new ASTConstant(2))));
+    }
+
+    @Test
+    public void testTime() {
+        WHNOReducer reducer = new WHNOReducer();
+        reducer.setBudget(new EvaluationBudget(Long.MAX_VALUE, 100, Integer.MAX_VALUE));
+        try {
+            reducer.reduceToWHNF(getLoop());
+            fail("The loop should exceed the time");
+        }
+        catch (BudgetExceededException e) {
+            assertEquals(BudgetExceededException.Limit.TIME, e.getLimit());
+            assertTrue(e.getElapsedMillis() >= 100);
+            assertTrue(e.getSteps() > 0);
+        }
+    }
+
+    @Test
+    public void testTermSize() {
+        WHNOReducer reducer = new WHNOReducer();
+        reducer.setBudget(new EvaluationBudget(Long.MAX_VALUE, Long.MAX_VALUE, 10000));
+        try {
+            reducer.reduceToWHNF(getInfiniteList());
+            fail("The list should exceed the term size");
+        }
+        catch (BudgetExceededException e) {
+            assertEquals(BudgetExceededException.Limit.TERM_SIZE, e.getLimit());
+            assertTrue(e.getTermSize() > 10000);
+        }
+    }
+
+    @Test
+    public void testInterruption() {
+        // the reducers which evaluate in the current thread stop when it is interrupted
+        for (LambdaReducer reducer : Arrays.asList(new WHNOReducer(), new GraphReducer(), new KrivineMachine(),
+                new GMachine())) {
+            String name = reducer.getClass().getSimpleName();
+            Thread.currentThread().interrupt();
+            try {
+                reducer.reduceToWHNF(getLoop());
+                fail(name + " should stop when it is interrupted");
+            }
+            catch (BudgetExceededException e) {
+                assertEquals(name, BudgetExceededException.Limit.INTERRUPTED, e.getLimit());
+            }
+            finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Test
+    public void testAllReducers() {
+        // the reducers without intermediate terms count their steps and allocated nodes and check the size of their result
+        for (LambdaReducer reducer : Arrays.asList(new GraphReducer(), new KrivineMachine(), new GMachine(),
+                new JvmReducer(), new TieredReducer())) {
+            String name = reducer.getClass().getSimpleName();
+
+            reducer.setBudget(new EvaluationBudget(1000, Long.MAX_VALUE, Integer.MAX_VALUE));
+            try {
+                reducer.reduceToWHNF(getLoop());
+                fail(name + " should exceed the steps");
+            }
+            catch (BudgetExceededException e) {
+                assertEquals(name, BudgetExceededException.Limit.STEPS, e.getLimit());
+            }
+
+            reducer.setBudget(new EvaluationBudget(Long.MAX_VALUE, 100, Integer.MAX_VALUE));
+            try {
+                reducer.reduceToWHNF(getLoop());
+                fail(name + " should exceed the time");
+            }
+            catch (BudgetExceededException e) {
+                assertEquals(name, BudgetExceededException.Limit.TIME, e.getLimit());
+            }
+
+            // (1 + 2, 3) has a size of 3 after its arguments are evaluated
+            ASTTerm tuple = apply(new ASTConstant(TupleReduction.getTupleConstructor(2)),
+                    apply(constant(PredefinedFunction.PLUS), new ASTConstant(1), new ASTConstant(2)),
+                    new ASTConstant(3));
+            reducer.setBudget(new EvaluationBudget(Long.MAX_VALUE, Long.MAX_VALUE, 2));
+            try {
+                reducer.reduceToWHNF(tuple);
+                fail(name + " should exceed the term size");
+            }
+            catch (BudgetExceededException e) {
+                assertEquals(name, BudgetExceededException.Limit.TERM_SIZE, e.getLimit());
+            }
+
+            // the infinite list is aborted by the number of its allocated nodes instead of the time
+            reducer.setBudget(new EvaluationBudget(Long.MAX_VALUE, 60000, 10000));
+            try {
+                reducer.reduceToWHNF(getInfiniteList());
+                fail(name + " should exceed the term size of the list");
+            }
+            catch (BudgetExceededException e) {
+                assertEquals(name, BudgetExceededException.Limit.TERM_SIZE, e.getLimit());
+                assertTrue(name, e.getElapsedMillis() < 60000);
+            }
+
+            // the reducer can still be used afterwards
+            reducer.setBudget(new EvaluationBudget(1000, 1000, 100));
+            assertEquals(name, new ASTConstant(3), reducer.reduceToWHNF(apply(constant(PredefinedFunction.PLUS),
+                    new ASTConstant(1), new ASTConstant(2))));
+        }
+    }
+}
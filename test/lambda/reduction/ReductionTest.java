@@ -0,0 +1,48 @@
+package lambda.reduction;
+
+import lambda.ast.*;
+import lambda.gmachine.GMachine;
+import lambda.graph.GraphReducer;
+import lambda.jvm.JvmReducer;
+import lambda.jvm.TieredReducer;
+import lambda.machine.KrivineMachine;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests properties which all reducers of the interactive environment share.
+ */
+public class ReductionTest {
+    // the stack size of the thread which calls the reducers, which is smaller than the default stack size
+    private static final long STACK_SIZE = 1 << 19;
+
+    @Test
+    public void testDeepResult() throws Exception {
+        // genList 100000 => Cons 100000 (... (Cons 1 Nil)), the depth of a result is only limited by the heap
+        ASTTerm lambda = new ASTApplication(WHNOReducerTest.getGenListFunction(), new ASTConstant(100000));
+        ASTTerm expected = WHNOReducerTest.getList(100000);
+
+        for (LambdaReducer reducer : Arrays.asList(new WHNOReducer(), new GraphReducer(), new KrivineMachine(),
+                new GMachine(), new JvmReducer(), new TieredReducer())) {
+            String name = reducer.getClass().getSimpleName();
+            ASTTerm[] result = new ASTTerm[1];
+            Throwable[] error = new Throwable[1];
+            Thread thread = new Thread(null, () -> {
+                try {
+                    result[0] = reducer.reduceToWHNF(lambda);
+                }
+                catch (Throwable e) {
+                    error[0] = e;
+                }
+            }, name, STACK_SIZE);
+            thread.start();
+            thread.join();
+
+            assertNull(name + " failed with " + error[0], error[0]);
+            assertEquals(name, expected, result[0]);
+        }
+    }
+}
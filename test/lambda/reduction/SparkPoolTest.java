@@ -0,0 +1,122 @@
+package lambda.reduction;
+
+import lambda.ast.*;
+import lambda.gmachine.GMachine;
+import lambda.graph.GraphReducer;
+import lambda.jvm.JvmReducer;
+import lambda.machine.KrivineMachine;
+import lambda.reduction.delta.PredefinedFunction;
+import lambda.reduction.delta.TupleReduction;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests par and seq and the parallel evaluation of sparks by the WHNO reducer.
+ */
+public class SparkPoolTest {
+    private static final ASTVariable n = new ASTVariable("n");
+    private static final ASTVariable acc = new ASTVariable("acc");
+    private static final ASTVariable sum = new ASTVariable("sum");
+
+    private static ASTTerm apply(ASTTerm function, ASTTerm... args) {
+        ASTTerm result = function;
+        for (ASTTerm arg : args) {
+            result = new ASTApplication(result, arg);
+        }
+        return result;
+    }
+
+    private static ASTTerm constant(PredefinedFunction function) {
+        return new ASTConstant(function);
+    }
+
+    /**
+     * Returns sum n 0, where sum n acc = if n <= 0 then acc else sum (n - 1) (acc + n)
+     */
+    private static ASTTerm getSum(int count) {
+        ASTTerm cond = apply(constant(PredefinedFunction.LESSEQ), n, new ASTConstant(0));
+        ASTTerm recCall = apply(sum, apply(constant(PredefinedFunction.MINUS), n, new ASTConstant(1)),
+                apply(constant(PredefinedFunction.PLUS), acc, n));
+        ASTTerm body = apply(constant(PredefinedFunction.IF), cond, acc, recCall);
+        ASTTerm function = new ASTAbstraction(sum, new ASTAbstraction(n, new ASTAbstraction(acc, body)));
+        return apply(constant(PredefinedFunction.FIX), function, new ASTConstant(count), new ASTConstant(0));
+    }
+
+    @Test
+    public void testPar() {
+        // par a (a + b) has the same result as a + b
+        ASTTerm a = getSum(1000);
+        ASTTerm term = apply(constant(PredefinedFunction.PAR), a,
+                apply(constant(PredefinedFunction.PLUS), a, getSum(2000)));
+
+        WHNOReducer parallel = new WHNOReducer();
+        parallel.setSparkPool(new SparkPool(new ForkJoinPool(2)));
+        assertEquals(new ASTConstant(500500 + 2001000), parallel.reduceToWHNF(term));
+
+        WHNOReducer sequential = new WHNOReducer();
+        sequential.setSparkPool(null);
+        assertEquals(new ASTConstant(500500 + 2001000), sequential.reduceToWHNF(term));
+    }
+
+    @Test
+    public void testFailingSpark() {
+        // the division by zero is never needed, so its error is ignored
+        ASTTerm term = apply(constant(PredefinedFunction.PAR),
+                apply(constant(PredefinedFunction.DIV), new ASTConstant(1), new ASTConstant(0)), new ASTConstant(2));
+        assertEquals(new ASTConstant(2), new WHNOReducer().reduceToWHNF(term));
+    }
+
+    @Test
+    public void testSeq() {
+        // par (1 + 2) (seq (5 - 1) 7) is 7 for all reducers, which evaluate par sequentially
+        ASTTerm term = apply(constant(PredefinedFunction.PAR),
+                apply(constant(PredefinedFunction.PLUS), new ASTConstant(1), new ASTConstant(2)),
+                apply(constant(PredefinedFunction.SEQ),
+                        apply(constant(PredefinedFunction.MINUS), new ASTConstant(5), new ASTConstant(1)),
+                        new ASTConstant(7)));
+
+        for (LambdaReducer reducer : Arrays.asList(new WHNOReducer(), new GraphReducer(), new KrivineMachine(),
+                new GMachine(), new JvmReducer())) {
+            assertEquals(new ASTConstant(7), reducer.reduceToWHNF(term));
+        }
+    }
+
+    @Test
+    public void testReduceHead() {
+        // the arguments of a tuple in WHNF are not evaluated
+        ASTTerm first = apply(constant(PredefinedFunction.PLUS), new ASTConstant(1), new ASTConstant(2));
+        ASTTerm tuple = apply(new ASTConstant(TupleReduction.getTupleConstructor(2)), first, new ASTConstant(3));
+        ASTTerm term = apply(new ASTAbstraction(n, n), tuple);
+
+        WHNOReducer reducer = new WHNOReducer();
+        assertEquals(tuple, reducer.reduceHead(term));
+        assertEquals(apply(new ASTConstant(TupleReduction.getTupleConstructor(2)), new ASTConstant(3),
+                new ASTConstant(3)), reducer.reduceToWHNF(term));
+    }
+
+    @Test
+    public void testSparkPoolIsCollected() throws InterruptedException {
+        // the threads of the common pool must not keep the spark pool or its reducers alive
+        WHNOReducer reducer = new WHNOReducer();
+        SparkPool pool = new SparkPool();
+        reducer.setSparkPool(pool);
+        // the reducer evaluates the second sum first, so that the spark is started in the meantime
+        ASTTerm a = getSum(1000);
+        assertEquals(new ASTConstant(2001000 + 500500), reducer.reduceToWHNF(apply(constant(PredefinedFunction.PAR),
+                a, apply(constant(PredefinedFunction.PLUS), getSum(2000), a))));
+
+        WeakReference<SparkPool> poolReference = new WeakReference<>(pool);
+        reducer = null;
+        pool = null;
+        for (int i = 0; i < 50 && poolReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(poolReference.get());
+    }
+}
@@ -0,0 +1,80 @@
+package lambda.reduction;
+
+import lambda.ast.*;
+import lambda.reduction.delta.PredefinedFunction;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the strictness analysis and the evaluation of strict arguments by the WHNO reducer.
+ */
+public class StrictnessAnalysisTest {
+    private static final ASTVariable n = new ASTVariable("n");
+    private static final ASTVariable acc = new ASTVariable("acc");
+    private static final ASTVariable sum = new ASTVariable("sum");
+
+    private static ASTTerm apply(ASTTerm function, ASTTerm... args) {
+        ASTTerm result = function;
+        for (ASTTerm arg : args) {
+            result = new ASTApplication(result, arg);
+        }
+        return result;
+    }
+
+    private static ASTTerm constant(PredefinedFunction function) {
+        return new ASTConstant(function);
+    }
+
+    /**
+     * Returns sum n acc = if n <= 0 then acc else sum (n - 1) (acc + n)
+     */
+    private static ASTAbstraction getSumFunction() {
+        ASTTerm cond = apply(constant(PredefinedFunction.LESSEQ), n, new ASTConstant(0));
+        ASTTerm recCall = apply(sum, apply(constant(PredefinedFunction.MINUS), n, new ASTConstant(1)),
+                apply(constant(PredefinedFunction.PLUS), acc, n));
+        ASTTerm body = apply(constant(PredefinedFunction.IF), cond, acc, recCall);
+        return new ASTAbstraction(sum, new ASTAbstraction(n, new ASTAbstraction(acc, body)));
+    }
+
+    @Test
+    public void testAccumulator() {
+        // sum is strict in both arguments, because the recursive call needs acc + n
+        StrictnessAnalysis analysis = new StrictnessAnalysis();
+        ASTTerm fixSum = apply(constant(PredefinedFunction.FIX), getSumFunction());
+        ASTAbstraction wrapper = new ASTAbstraction(n, apply(fixSum, n, new ASTConstant(0)));
+        assertArrayEquals(new boolean[] {true}, analysis.getSignature(wrapper));
+
+        ASTAbstraction unfolded = (ASTAbstraction) getSumFunction().getOutput();
+        assertArrayEquals(new boolean[] {true, false}, analysis.getSignature(unfolded));
+    }
+
+    @Test
+    public void testLazyArguments() {
+        // \x.\y. if y then x else 0 is strict in y, but not in x
+        ASTVariable x = new ASTVariable("x");
+        ASTVariable y = new ASTVariable("y");
+        ASTAbstraction function = new ASTAbstraction(x, new ASTAbstraction(y,
+                apply(constant(PredefinedFunction.IF), y, x, new ASTConstant(0))));
+        assertArrayEquals(new boolean[] {false, true}, new StrictnessAnalysis().getSignature(function));
+
+        // so bot is never evaluated
+        WHNOReducer reducer = new WHNOReducer();
+        ASTTerm result = reducer.reduceToWHNF(apply(function, constant(PredefinedFunction.BOT), new ASTConstant(false)));
+        assertEquals(new ASTConstant(0), result);
+    }
+
+    @Test
+    public void testStrictEvaluation() {
+        // the strict and the lazy evaluation of sum 2000 0 have the same result
+        ASTTerm term = apply(apply(constant(PredefinedFunction.FIX), getSumFunction()), new ASTConstant(2000),
+                new ASTConstant(0));
+
+        WHNOReducer strict = new WHNOReducer();
+        assertEquals(new ASTConstant(2001000), strict.reduceToWHNF(term));
+
+        WHNOReducer lazy = new WHNOReducer();
+        lazy.setStrictEvaluation(false);
+        assertEquals(new ASTConstant(2001000), lazy.reduceToWHNF(term));
+    }
+}
@@ -5,6 +5,9 @@ import lambda.reduction.delta.*;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 /**
@@ -43,6 +46,42 @@ public class WHNOReducerTest {
         return fixFact;
     }
 
+    /**
+     * Returns the following list generator: genList x = if x <= 0 then Nil else Cons x (genList (x-1))
+     * @return
+     */
+    public static ASTTerm getGenListFunction() {
+        ASTVariable x = new ASTVariable("x");
+        ASTVariable genList = new ASTVariable("genList");
+        ASTConstant minus = new ASTConstant(PredefinedFunction.MINUS);
+        ASTConstant lesseq = new ASTConstant(PredefinedFunction.LESSEQ);
+        ASTConstant Nil = new ASTConstant(ConstructorReduction.getConstructor("Nil"));
+        ASTConstant Cons = new ASTConstant(ConstructorReduction.getConstructor("Cons"));
+
+        ASTTerm decrementX = new ASTApplication(new ASTApplication(minus, x), new ASTConstant(1));
+        ASTTerm cons = new ASTApplication(new ASTApplication(Cons, x), new ASTApplication(genList, decrementX));
+        ASTTerm cond = new ASTApplication(new ASTApplication(lesseq, x), new ASTConstant(0));
+        ASTTerm branch = new ASTApplication(new ASTApplication(new ASTApplication(
+                new ASTConstant(PredefinedFunction.IF), cond), Nil), cons);
+
+        return new ASTApplication(new ASTConstant(PredefinedFunction.FIX),
+                new ASTAbstraction(genList, new ASTAbstraction(x, branch)));
+    }
+
+    /**
+     * Returns the list Cons n (Cons (n-1) (... (Cons 1 Nil))), i.e. the result of genList n.
+     * @param n the length of the list
+     * @return
+     */
+    public static ASTTerm getList(int n) {
+        ASTConstant Cons = new ASTConstant(ConstructorReduction.getConstructor("Cons"));
+        ASTTerm list = new ASTConstant(ConstructorReduction.getConstructor("Nil"));
+        for (int i = 1; i <= n; i++) {
+            list = new ASTApplication(new ASTApplication(Cons, new ASTConstant(i)), list);
+        }
+        return list;
+    }
+
     @BeforeClass
     public static void setUp() throws Exception {
         reducer = new WHNOReducer();
@@ -111,6 +150,21 @@ public class WHNOReducerTest {
         assertEquals(result, new ASTConstant(120));
     }
 
+    @Test
+    public void testFixUnfolding() {
+        // fix (\fact.\x. ...) is unfolded once, and the unfolding contains the fix term itself
+        FixReduction fix = new FixReduction();
+        ASTApplication fixFact = (ASTApplication) getFactFunction();
+        ASTConstant fixConstant = (ASTConstant) fixFact.getLeft();
+        List<ASTTerm> args = Collections.singletonList(fixFact.getRight());
+
+        ASTTerm unfolding = fix.getRHS(fixConstant, args).get();
+        assertTrue(unfolding instanceof ASTAbstraction);
+        assertSame(unfolding, fix.getRHS(fixConstant, args).get());
+        assertTrue(unfolding.toString().contains(fixFact.toString()));
+        assertEquals(1, fix.size());
+    }
+
     @Test
     public void testWeakHeadNormalOrder() {
         // (\x.y) (\x.xx) (\x.xx) => y (this would not terminate if one didn't use WHNO)
@@ -181,4 +235,103 @@ public class WHNOReducerTest {
 
         assertEquals(new ASTConstant(42), result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLazyReduction() {
+        // a => b and b => c, so a is looked up as c
+        LazyReduction lazy = new LazyReduction();
+        ASTApplication a = new ASTApplication(plus, x);
+        ASTApplication b = new ASTApplication(plus, y);
+        ASTApplication c = new ASTApplication(plus, new ASTConstant(1));
+        lazy.rememberResult(a, b);
+        lazy.rememberResult(b, c);
+
+        assertEquals(c, a.accept(lazy).get());
+        assertEquals(c, b.accept(lazy).get());
+        assertFalse(c.accept(lazy).isPresent());
+        assertEquals(3, lazy.getNumberOfLookups());
+        assertEquals(2, lazy.getNumberOfHits());
+    }
+
+    @Test
+    public void testLazyReductionEviction() {
+        // only two results are stored, so the least recently used one is evicted
+        LazyReduction lazy = new LazyReduction(2);
+        ASTApplication a = new ASTApplication(plus, x);
+        ASTApplication b = new ASTApplication(plus, y);
+        ASTApplication c = new ASTApplication(plus, new ASTConstant(1));
+        lazy.rememberResult(a, new ASTConstant(1));
+        lazy.rememberResult(b, new ASTConstant(2));
+        assertTrue(a.accept(lazy).isPresent());
+        lazy.rememberResult(c, new ASTConstant(3));
+
+        assertEquals(2, lazy.size());
+        assertEquals(1, lazy.getNumberOfEvictions());
+        assertTrue(a.accept(lazy).isPresent());
+        assertFalse(b.accept(lazy).isPresent());
+        assertEquals(1, lazy.getNumberOfMisses());
+    }
+
+    @Test
+    public void testBoundedReducer() {
+        // fact 5 = 120 still works if almost nothing can be remembered
+        WHNOReducer bounded = new WHNOReducer(1);
+        ASTTerm lambda = new ASTApplication(getFactFunction(), new ASTConstant(5));
+        ASTTerm result = bounded.reduceToWHNF(lambda);
+
+        assertEquals(new ASTConstant(120), result);
+        assertEquals(1, bounded.getLazyReduction().size());
+        bounded.reset();
+        assertEquals(0, bounded.getLazyReduction().size());
+    }
+
+    @Test
+    public void testDeepTerm() {
+        // (\x.f (f (... (f x)))) 1 => f (f (... (f 1))), which is far deeper than the java stack could handle
+        ASTVariable f = new ASTVariable("f");
+        ASTTerm body = x;
+        ASTTerm expected = new ASTConstant(1);
+        for (int i = 0; i < 100000; i++) {
+            body = new ASTApplication(f, body);
+            expected = new ASTApplication(f, expected);
+        }
+        ASTTerm lambda = new ASTApplication(new ASTAbstraction(x, body), new ASTConstant(1));
+        ASTTerm result = reducer.reduceToWHNF(lambda);
+
+        assertEquals(expected, result);
+        assertEquals(expected.toString(), result.toString());
+        assertTrue(result.getFreeVars().contains(f));
+    }
+
+    @Test
+    public void testReductionInArguments() {
+        // plus (plus 1 2) ((\x.x) 3) => plus 3 3 => 6, the outer application becomes a redex after its arguments
+        ASTTerm onePlusTwo = new ASTApplication(new ASTApplication(plus, new ASTConstant(1)), new ASTConstant(2));
+        ASTTerm identityThree = new ASTApplication(new ASTAbstraction(x, x), new ASTConstant(3));
+        ASTTerm lambda = new ASTApplication(new ASTApplication(plus, onePlusTwo), identityThree);
+        ASTTerm result = reducer.reduceToWHNF(lambda, true);
+
+        assertEquals(new ASTConstant(6), result);
+    }
+
+    @Test
+    public void testDeltaDispatcher() {
+        DeltaDispatcher dispatcher = new DeltaDispatcher();
+
+        // if true x y => x in a single step
+        ASTTerm ifTrue = new ASTApplication(new ASTConstant(PredefinedFunction.IF), new ASTConstant(true));
+        ASTApplication branch = new ASTApplication(new ASTApplication(ifTrue, x), y);
+        assertEquals(x, dispatcher.visit(branch).get());
+
+        // plus 1 2 => 3, but plus 1 is not saturated
+        ASTApplication plusOne = new ASTApplication(plus, new ASTConstant(1));
+        assertEquals(new ASTConstant(3), dispatcher.visit(new ASTApplication(plusOne, new ASTConstant(2))).get());
+        assertFalse(dispatcher.visit(plusOne).isPresent());
+
+        // sel_2,1 (42, 43) => 42
+        ASTTerm tuple = new ASTApplication(new ASTApplication(
+                new ASTConstant(TupleReduction.getTupleConstructor(2)), new ASTConstant(42)), new ASTConstant(43));
+        ASTApplication sel = new ASTApplication(new ASTConstant(TupleReduction.getSelOperator(2, 1)), tuple);
+        assertEquals(new ASTConstant(42), dispatcher.visit(sel).get());
+    }
+}
@@ -0,0 +1,98 @@
+package lambda.reduction.delta;
+
+import lambda.ast.*;
+import lambda.gmachine.GMachine;
+import lambda.graph.GraphReducer;
+import lambda.jvm.JvmReducer;
+import lambda.machine.KrivineMachine;
+import lambda.reduction.LambdaReducer;
+import lambda.reduction.WHNOReducer;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the arithmetic on integers of arbitrary precision.
+ */
+public class IntegerArithmeticTest {
+    private static ASTTerm apply(ASTTerm function, ASTTerm... args) {
+        ASTTerm result = function;
+        for (ASTTerm arg : args) {
+            result = new ASTApplication(result, arg);
+        }
+        return result;
+    }
+
+    private static ASTTerm constant(PredefinedFunction function) {
+        return new ASTConstant(function);
+    }
+
+    @Test
+    public void testRepresentation() {
+        // every value has its smallest representation
+        assertEquals(Integer.MAX_VALUE + 1L, IntegerArithmetic.apply(PredefinedFunction.PLUS, Integer.MAX_VALUE, 1));
+        assertEquals(Long.MAX_VALUE, IntegerArithmetic.apply(PredefinedFunction.MINUS, Long.MAX_VALUE, 0));
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE),
+                IntegerArithmetic.apply(PredefinedFunction.PLUS, Long.MAX_VALUE, 1));
+        assertEquals(5, IntegerArithmetic.apply(PredefinedFunction.MINUS,
+                BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.valueOf(5)), Long.MAX_VALUE));
+        assertEquals(-(long) Integer.MIN_VALUE, IntegerArithmetic.apply(PredefinedFunction.DIV, Integer.MIN_VALUE, -1));
+        assertEquals(BigInteger.valueOf(Long.MIN_VALUE).negate(),
+                IntegerArithmetic.apply(PredefinedFunction.DIV, Long.MIN_VALUE, -1));
+        assertEquals(true, IntegerArithmetic.apply(PredefinedFunction.LESS, 3, Long.MAX_VALUE));
+        assertEquals(1234567890123456789L, IntegerArithmetic.apply(PredefinedFunction.DIV,
+                IntegerArithmetic.parse("12345678901234567890"), 10));
+    }
+
+    @Test
+    public void testPow() {
+        assertEquals(1024, IntegerArithmetic.apply(PredefinedFunction.POW, 2, 10));
+        assertEquals(1L << 62, IntegerArithmetic.apply(PredefinedFunction.POW, 2, 62));
+        assertEquals(BigInteger.valueOf(3).pow(100), IntegerArithmetic.apply(PredefinedFunction.POW, 3, 100));
+        assertEquals(-1, IntegerArithmetic.apply(PredefinedFunction.POW, -1, Long.MAX_VALUE));
+        assertEquals(1, IntegerArithmetic.apply(PredefinedFunction.POW, 0, 0));
+
+        ArithmeticReduction rule = new ArithmeticReduction();
+        assertEquals(ASTConstant.of(IntegerArithmetic.parse("1267650600228229401496703205376")),
+                rule.getRHS(new ASTConstant(PredefinedFunction.POW), Arrays.asList(ASTConstant.of(2),
+                        ASTConstant.of(100))).get());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testDivisionByZero() {
+        IntegerArithmetic.apply(PredefinedFunction.DIV, BigInteger.TEN.pow(30), 0);
+    }
+
+    @Test
+    public void testFactorial() {
+        // fact n = if n <= 1 then 1 else n * fact (n - 1), where fact 25 does not fit into a long
+        ASTVariable fact = new ASTVariable("fact");
+        ASTVariable n = new ASTVariable("n");
+        ASTTerm body = apply(constant(PredefinedFunction.IF),
+                apply(constant(PredefinedFunction.LESSEQ), n, ASTConstant.of(1)), ASTConstant.of(1),
+                apply(constant(PredefinedFunction.MULT), n,
+                        apply(fact, apply(constant(PredefinedFunction.MINUS), n, ASTConstant.of(1)))));
+        ASTTerm term = apply(constant(PredefinedFunction.FIX), new ASTAbstraction(fact, new ASTAbstraction(n, body)),
+                ASTConstant.of(25));
+
+        ASTConstant expected = ASTConstant.of(IntegerArithmetic.parse("15511210043330985984000000"));
+        for (LambdaReducer reducer : Arrays.asList(new WHNOReducer(), new GraphReducer(), new KrivineMachine(),
+                new GMachine(), new JvmReducer())) {
+            assertEquals(expected, reducer.reduceToWHNF(term));
+        }
+    }
+
+    @Test
+    public void testIsa() {
+        // a literal pattern matches an equal value of any size
+        ConstructorReduction.IsA<Object> isa = new ConstructorReduction.IsA<>(IntegerArithmetic.parse("4294967296"));
+        ASTTerm value = apply(constant(PredefinedFunction.MULT), ASTConstant.of(65536), ASTConstant.of(65536));
+        assertEquals(ASTConstant.of(true), new WHNOReducer().reduceToWHNF(new ASTApplication(new ASTConstant(isa), value)));
+
+        ConstructorReduction.IsA<Object> small = new ConstructorReduction.IsA<>(0);
+        assertEquals(ASTConstant.of(false), new WHNOReducer().reduceToWHNF(new ASTApplication(new ASTConstant(small), value)));
+    }
+}